@@ -0,0 +1,85 @@
+package calcmalc.performance;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calcmalc.exceptions.EvaluatorException;
+import calcmalc.exceptions.LexerException;
+import calcmalc.logic.AstArena;
+import calcmalc.logic.Evaluator;
+import calcmalc.logic.Lexer;
+import calcmalc.logic.Parser;
+import calcmalc.logic.Program;
+import calcmalc.structures.ASTNode;
+
+/**
+ * Measures {@link Evaluator#evaluate(ASTNode)}, {@link Evaluator#evaluateDouble(ASTNode)}, {@link Evaluator#evaluate(AstArena, int)}
+ * and {@link Evaluator#run(Program)} over the generated input files
+ * The syntax tree and the arena are built, the tree is compiled, and all variables are assigned once per trial, only the evaluation of the expression is measured
+ * @author nnecklace
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+    /**
+     * Per thread state holding the parsed and compiled expression and an evaluator with the file's variables assigned
+     */
+    @State(Scope.Thread)
+    public static class Parsed {
+        private Evaluator evaluator;
+        private ASTNode root;
+        private Program program;
+        private AstArena arena;
+        private int arenaRoot;
+
+        @Setup(Level.Trial)
+        public void parse(InputState input) throws LexerException, ParseException, EvaluatorException {
+            Parser parser = new Parser();
+            evaluator = new Evaluator();
+            root = parser.parse(new Lexer().lex(input.contents)).pop();
+
+            while (!parser.variables().isEmpty()) {
+                evaluator.evaluateAssignment(parser.variables().dequeue());
+            }
+
+            program = evaluator.compile(root);
+            arena = new Parser().parseArena(new Lexer().stream(input.contents));
+            arenaRoot = arena.roots().pop();
+        }
+    }
+
+    @Benchmark
+    public Number evaluate(Parsed parsed) throws EvaluatorException {
+        return parsed.evaluator.evaluate(parsed.root);
+    }
+
+    @Benchmark
+    public double evaluateDouble(Parsed parsed) throws EvaluatorException {
+        return parsed.evaluator.evaluateDouble(parsed.root);
+    }
+
+    @Benchmark
+    public double evaluateArena(Parsed parsed) throws EvaluatorException {
+        return parsed.evaluator.evaluate(parsed.arena, parsed.arenaRoot);
+    }
+
+    @Benchmark
+    public double run(Parsed parsed) throws EvaluatorException {
+        return parsed.evaluator.run(parsed.program);
+    }
+}
@@ -0,0 +1,72 @@
+package calcmalc.performance;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calcmalc.App;
+
+/**
+ * Compares the ways calcmalc can read an input file, reading is part of the measurement
+ * <ul>
+ * <li>readString, the whole file is decoded into a string before lexing</li>
+ * <li>read, the file is lexed as a stream through a reader ({@link App#read})</li>
+ * <li>readMapped, the file is memory mapped and lexed straight from the bytes ({@link App#readMapped})</li>
+ * </ul>
+ * The output printed after each run is thrown away
+ * @author nnecklace
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FileReadBenchmark {
+    private PrintStream out;
+
+    @Setup(Level.Trial)
+    public void silence() {
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void restore() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public App.Output readString(InputState input) throws IOException {
+        App.interpret(Files.readString(input.path()));
+        App.output.printOutput();
+        return App.output;
+    }
+
+    @Benchmark
+    public App.Output read(InputState input) throws IOException {
+        App.read(input.path());
+        return App.output;
+    }
+
+    @Benchmark
+    public App.Output readMapped(InputState input) throws IOException {
+        App.readMapped(input.path());
+        return App.output;
+    }
+}
@@ -0,0 +1,77 @@
+package calcmalc.performance;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calcmalc.exceptions.EvaluatorException;
+import calcmalc.exceptions.LexerException;
+import calcmalc.logic.Evaluator;
+import calcmalc.logic.Lexer;
+import calcmalc.logic.Parser;
+import calcmalc.logic.Program;
+import calcmalc.structures.ASTNode;
+
+/**
+ * Measures a parameter sweep, an expression that calls the same custom function with many different arguments
+ * After enough calls the virtual machine jit compiles the function, so run measures the compiled function
+ * @author nnecklace
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FunctionCallBenchmark {
+    /**
+     * Number of calls in the sweep
+     */
+    @Param({"10000"})
+    public int calls;
+
+    private Evaluator evaluator;
+    private ASTNode root;
+    private Program program;
+
+    @Setup(Level.Trial)
+    public void parse() throws LexerException, ParseException, EvaluatorException {
+        StringBuilder input = new StringBuilder("a = 3: f(x,y) = a*x^2+max(x,y)/(1+abs(y))-x%7:0");
+
+        for (int i = 0; i < calls; ++i) {
+            input.append("+f(").append(i % 100).append(",").append(i).append(")");
+        }
+
+        Parser parser = new Parser();
+        evaluator = new Evaluator();
+        root = parser.parse(new Lexer().lex(input.toString())).pop();
+
+        while (!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        program = evaluator.compile(root);
+    }
+
+    @Benchmark
+    public Number evaluate() throws EvaluatorException {
+        return evaluator.evaluate(root);
+    }
+
+    @Benchmark
+    public double run() throws EvaluatorException {
+        return evaluator.run(program);
+    }
+}
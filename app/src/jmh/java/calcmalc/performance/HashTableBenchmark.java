@@ -0,0 +1,116 @@
+package calcmalc.performance;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calcmalc.structures.HashTable;
+
+/**
+ * Compares {@link HashTable} with the original chained hash table, {@link ChainedHashTable}, and java.util.HashMap
+ * Measures placing all the symbols into an empty table, and looking up every symbol from a full table
+ * The lookups are made with copies of the keys, like the keys of tokens that the lexer slices from the input
+ * @author nnecklace
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashTableBenchmark {
+    /**
+     * Number of symbols in the table
+     */
+    @Param({"10000", "30000", "100000"})
+    public int symbols;
+
+    private String[] keys;
+    private String[] lookups;
+    private HashTable<Double> table;
+    private ChainedHashTable<Double> chained;
+    private HashMap<String, Double> map;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        keys = new String[symbols];
+        lookups = new String[symbols];
+        table = new HashTable<>();
+        chained = new ChainedHashTable<>();
+        map = new HashMap<>();
+
+        for (int i = 0; i < symbols; ++i) {
+            keys[i] = "symbol_" + i;
+            lookups[i] = new String(keys[i]);
+            table.placeOrUpdate(keys[i], (double) i);
+            chained.placeOrUpdate(keys[i], (double) i);
+            map.put(keys[i], (double) i);
+        }
+    }
+
+    @Benchmark
+    public HashTable<Double> placeHashTable() {
+        HashTable<Double> placed = new HashTable<>();
+        for (String key : keys) {
+            placed.placeOrUpdate(key, 1.0);
+        }
+        return placed;
+    }
+
+    @Benchmark
+    public ChainedHashTable<Double> placeChainedHashTable() {
+        ChainedHashTable<Double> placed = new ChainedHashTable<>();
+        for (String key : keys) {
+            placed.placeOrUpdate(key, 1.0);
+        }
+        return placed;
+    }
+
+    @Benchmark
+    public HashMap<String, Double> placeHashMap() {
+        HashMap<String, Double> placed = new HashMap<>();
+        for (String key : keys) {
+            placed.put(key, 1.0);
+        }
+        return placed;
+    }
+
+    @Benchmark
+    public double getHashTable() {
+        double sum = 0;
+        for (String key : lookups) {
+            sum += table.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double getChainedHashTable() {
+        double sum = 0;
+        for (String key : lookups) {
+            sum += chained.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double getHashMap() {
+        double sum = 0;
+        for (String key : lookups) {
+            sum += map.get(key);
+        }
+        return sum;
+    }
+}
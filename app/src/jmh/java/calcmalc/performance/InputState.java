@@ -0,0 +1,60 @@
+package calcmalc.performance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark state that loads one of the generated {@code test_input_*.txt} files
+ * The files are read from {@code src/inputs/}, so benchmarks have to be started from the app folder
+ * which is what the gradle performance task does
+ * @author nnecklace
+ */
+@State(Scope.Benchmark)
+public class InputState {
+    /**
+     * Name of the input file, files are ordered from smallest to largest
+     */
+    @Param({
+        "test_input_2.txt",
+        "test_input_1.txt",
+        "test_input_3.txt",
+        "test_input_6.txt",
+        "test_input_7.txt",
+        "test_input_11.txt",
+        "test_input_5.txt",
+        "test_input_13.txt",
+        "test_input_4.txt",
+        "test_input_9.txt",
+        "test_input_8.txt"
+    })
+    public String file;
+
+    /**
+     * Contents of the input file
+     */
+    public String contents;
+
+    /**
+     * Reads the input file once per trial, reading is not part of any measurement
+     * @throws IOException if the file cannot be read
+     */
+    @Setup(Level.Trial)
+    public void readInput() throws IOException {
+        contents = Files.readString(path());
+    }
+
+    /**
+     * @return path to the input file
+     */
+    public Path path() {
+        return Paths.get("src/inputs", file);
+    }
+}
@@ -0,0 +1,73 @@
+package calcmalc.performance;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calcmalc.App;
+import calcmalc.logic.Lexer;
+
+/**
+ * Measures the whole pipeline, lexing, parsing and evaluating, through {@link App#interpret(String)}
+ * The file is already in memory so reading the file is not part of the measurement
+ * The formula benchmarks interpret the same formula with different variable values, like a service that evaluates formulas,
+ * once through the program cache and once by lexing and parsing the whole input every time
+ * @author nnecklace
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+    /**
+     * Formula inputs with 64 different variable values, the expression part is the same in all of them
+     */
+    @State(Scope.Thread)
+    public static class Formulas {
+        private final String[] inputs = new String[64];
+        private final Lexer lexer = new Lexer();
+        private int next;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            for (int i = 0; i < inputs.length; ++i) {
+                inputs[i] = "x = " + (i + 1) + ": y = " + (i * 0.5) + ": rate = 0.05: "
+                    + "sqrt(x*x + y*y) * max(x, y, 1) - log(x + 1) / (1 + rate)^x + abs(y - x) % 7";
+            }
+        }
+
+        private String nextInput() {
+            next = (next + 1) & (inputs.length - 1);
+            return inputs[next];
+        }
+    }
+
+    @Benchmark
+    public App.Output interpret(InputState input) {
+        App.interpret(input.contents);
+        return App.output;
+    }
+
+    @Benchmark
+    public App.Output formula(Formulas formulas) {
+        App.interpret(formulas.nextInput());
+        return App.output;
+    }
+
+    @Benchmark
+    public App.Output formulaUncached(Formulas formulas) {
+        App.interpret(formulas.lexer.stream(formulas.nextInput()));
+        return App.output;
+    }
+}
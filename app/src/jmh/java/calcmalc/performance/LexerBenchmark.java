@@ -0,0 +1,81 @@
+package calcmalc.performance;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calcmalc.exceptions.LexerException;
+import calcmalc.logic.Lexer;
+import calcmalc.logic.TokenBuffer;
+import calcmalc.logic.types.Token;
+import calcmalc.structures.Queue;
+
+/**
+ * Measures {@link Lexer#lex(String)}, {@link Lexer#lexBuffer(CharSequence)} and {@link Lexer#lexBuffer(CharSequence, ForkJoinPool)} over the generated input files
+ * The parallel lexer is measured on pools of 1 to 32 threads, inputs smaller than two chunks are lexed on the calling thread
+ * @author nnecklace
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LexerBenchmark {
+    /**
+     * The lexer is stateless between calls so one instance is shared by all invocations
+     */
+    private final Lexer lexer = new Lexer();
+
+    /**
+     * Pool the chunks are lexed on, started once per trial
+     */
+    @State(Scope.Benchmark)
+    public static class Pool {
+        /**
+         * Number of threads in the pool
+         */
+        @Param({"1", "2", "4", "8", "16", "32"})
+        public int threads;
+
+        private ForkJoinPool pool;
+
+        @Setup(Level.Trial)
+        public void start() {
+            pool = new ForkJoinPool(threads);
+        }
+
+        @TearDown(Level.Trial)
+        public void shutdown() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Queue<Token> lex(InputState input) throws LexerException {
+        return lexer.lex(input.contents);
+    }
+
+    @Benchmark
+    public TokenBuffer lexBuffer(InputState input) throws LexerException {
+        return lexer.lexBuffer(input.contents);
+    }
+
+    @Benchmark
+    public TokenBuffer lexBufferParallel(InputState input, Pool pool) throws LexerException {
+        return lexer.lexBuffer(input.contents, pool.pool);
+    }
+}
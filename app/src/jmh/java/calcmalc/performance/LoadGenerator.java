@@ -0,0 +1,149 @@
+package calcmalc.performance;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import calcmalc.server.Server;
+
+/**
+ * Load generator for the http server, measures the latency of requests sent by many clients at the same time
+ * Every client sends its requests one after another and waits for every response, the latencies of the requests
+ * after the warmup are collected and the percentiles of all clients are printed
+ * <pre>
+ * ./gradlew loadtest -PloadArgs='64 2000'                            64 clients, 2000 requests each, server in the same JVM
+ * ./gradlew loadtest -PloadArgs='64 2000 http://localhost:8080/'     against a server started with serve
+ * </pre>
+ * Every client has a session of its own, so after the first request the expression part is taken from the program cache
+ * of the session and only the assignment, which changes with every request, is lexed and parsed, see Session.interpret
+ * Add anonymous as the fourth argument to send requests without a session, every request is then interpreted in a new session
+ * @author nnecklace
+ */
+public final class LoadGenerator {
+    /**
+     * Expression part of the requests, the assignment before it changes with every request
+     */
+    private static final String EXPRESSION = "sqrt(x*x + 1) + max(x, 3, -x)*2 - abs(x - 10)/4";
+
+    private LoadGenerator() {
+    }
+
+    /**
+     * Runs the load, the arguments are the number of clients, the number of requests per client,
+     * the url of the server, or embedded for a server in the same JVM, and optionally anonymous
+     * @param args the arguments, all are optional
+     * @throws Exception if the server cannot be started or a client fails
+     */
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        String url = args.length > 2 ? args[2] : "embedded";
+        boolean anonymous = args.length > 3 && "anonymous".equals(args[3]);
+        Server server = null;
+
+        if ("embedded".equals(url)) {
+            server = new Server(new InetSocketAddress("localhost", 0), Server.SESSION_CAPACITY, Server.PROGRAM_CACHE_CAPACITY);
+            server.start();
+            url = "http://localhost:" + server.port() + "/";
+        }
+
+        try {
+            run(URI.create(url), clients, requests, anonymous);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    /**
+     * Method sends the requests of all clients and prints the latencies
+     * @param uri the url of the server
+     * @param clients number of clients sending requests at the same time
+     * @param requests number of requests per client, the first tenth are the warmup
+     * @param anonymous true if the requests have no session
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    private static void run(URI uri, int clients, int requests, boolean anonymous) throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        int warmup = requests / 10;
+        long[] latencies = new long[clients * (requests - warmup)];
+        AtomicInteger errors = new AtomicInteger();
+        Thread[] threads = new Thread[clients];
+        long start = System.nanoTime();
+
+        for (int c = 0; c < clients; ++c) {
+            int client = c;
+            threads[c] = new Thread(() -> {
+                for (int i = 0; i < requests; ++i) {
+                    String session = anonymous ? "" : "\"session\": \"client-" + client + "\", ";
+                    String body = "{" + session + "\"expr\": \"x = " + i + ": " + EXPRESSION + "\"}";
+                    long sent = System.nanoTime();
+
+                    if (!send(http, uri, body)) {
+                        errors.incrementAndGet();
+                    }
+
+                    if (i >= warmup) {
+                        latencies[client * (requests - warmup) + i - warmup] = System.nanoTime() - sent;
+                    }
+                }
+            });
+            threads[c].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+        System.out.printf("%d clients, %d requests, %d errors, %.0f requests/s%n", clients, clients * requests, errors.get(), clients * requests / seconds);
+        System.out.printf("p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+            percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+            percentile(latencies, 0.999), percentile(latencies, 1.0));
+    }
+
+    /**
+     * Method sends one request and waits for the response
+     * @param http the http client
+     * @param uri the url of the server
+     * @param body the json body of the request
+     * @return true if the server answered with 200
+     */
+    private static boolean send(HttpClient http, URI uri, String body) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.ofString()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Method finds a percentile of the sorted latencies, in milliseconds
+     * @param latencies the latencies in nanoseconds, sorted
+     * @param fraction the percentile as a fraction, e.g., 0.99
+     * @return the latency in milliseconds
+     */
+    private static double percentile(long[] latencies, double fraction) {
+        if (latencies.length == 0) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(fraction * latencies.length) - 1;
+        return latencies[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,121 @@
+package calcmalc.performance;
+
+import java.text.ParseException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calcmalc.exceptions.EvaluatorException;
+import calcmalc.exceptions.LexerException;
+import calcmalc.logic.AstArena;
+import calcmalc.logic.Evaluator;
+import calcmalc.logic.Lexer;
+import calcmalc.logic.Optimizer;
+import calcmalc.logic.Parser;
+
+/**
+ * Measures {@link Evaluator#evaluateParallel(AstArena, int, ForkJoinPool)} on pools of 1 to 32 threads
+ * The input files are left deep chains, only their terms are evaluated in parallel, so the file rebalanced by a reassociating optimizer
+ * and a balanced tree of about a million nodes are measured too
+ * The arenas are parsed and the pool is started once per trial, only the evaluation is measured
+ * @author nnecklace
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelEvaluatorBenchmark {
+    /**
+     * Per thread state holding the parsed arenas, the evaluator and the pool
+     */
+    @State(Scope.Thread)
+    public static class Parsed {
+        /**
+         * Number of threads in the pool
+         */
+        @Param({"1", "2", "4", "8", "16", "32"})
+        public int threads;
+
+        private ForkJoinPool pool;
+        private Evaluator evaluator;
+        private AstArena file;
+        private int fileRoot;
+        private AstArena rebalanced;
+        private int rebalancedRoot;
+        private AstArena balanced;
+        private int balancedRoot;
+
+        @Setup(Level.Trial)
+        public void parse(InputState input) throws LexerException, ParseException, EvaluatorException {
+            pool = new ForkJoinPool(threads);
+            evaluator = new Evaluator();
+            file = new Parser().parseArena(new Lexer().stream(input.contents));
+            fileRoot = file.roots().pop();
+            AstArena chain = new Parser().parseArena(new Lexer().stream(input.contents));
+            rebalanced = new Optimizer(evaluator, false, true).optimize(chain, chain.roots().pop());
+            rebalancedRoot = rebalanced.roots().pop();
+            balanced = new Parser().parseArena(new Lexer().stream(balancedExpression(1 << 18)));
+            balancedRoot = balanced.roots().pop();
+        }
+
+        @TearDown(Level.Trial)
+        public void shutdown() {
+            pool.shutdown();
+        }
+
+        /**
+         * Method makes an expression whose tree is balanced, terms are joined in pairs until one expression is left
+         * @param terms number of terms, a power of two
+         * @return the expression
+         */
+        private static String balancedExpression(int terms) {
+            String[] expressions = new String[terms];
+
+            for (int i = 0; i < terms; ++i) {
+                expressions[i] = (i % 9 + 1) + "/" + (i % 7 + 1);
+            }
+
+            for (int count = terms / 2; count > 0; count /= 2) {
+                for (int i = 0; i < count; ++i) {
+                    expressions[i] = "(" + expressions[2 * i] + (i % 2 == 0 ? "+" : "-") + expressions[2 * i + 1] + ")";
+                }
+            }
+
+            return expressions[0];
+        }
+    }
+
+    @Benchmark
+    public double evaluateFile(Parsed parsed) throws EvaluatorException {
+        return parsed.evaluator.evaluateParallel(parsed.file, parsed.fileRoot, parsed.pool);
+    }
+
+    @Benchmark
+    public double evaluateFileRebalanced(Parsed parsed) throws EvaluatorException {
+        return parsed.evaluator.evaluateParallel(parsed.rebalanced, parsed.rebalancedRoot, parsed.pool);
+    }
+
+    @Benchmark
+    public double evaluateBalanced(Parsed parsed) throws EvaluatorException {
+        return parsed.evaluator.evaluateParallel(parsed.balanced, parsed.balancedRoot, parsed.pool);
+    }
+
+    @Benchmark
+    public double evaluateBalancedSequential(Parsed parsed) throws EvaluatorException {
+        return parsed.evaluator.evaluate(parsed.balanced, parsed.balancedRoot);
+    }
+}
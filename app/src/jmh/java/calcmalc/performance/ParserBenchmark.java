@@ -0,0 +1,84 @@
+package calcmalc.performance;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calcmalc.exceptions.LexerException;
+import calcmalc.logic.Lexer;
+import calcmalc.logic.AstArena;
+import calcmalc.logic.Parser;
+import calcmalc.logic.TokenBuffer;
+import calcmalc.logic.types.Token;
+import calcmalc.structures.ASTNode;
+import calcmalc.structures.Queue;
+import calcmalc.structures.Stack;
+
+/**
+ * Measures {@link Parser#parse(Queue)} and {@link Parser#parseArena} over the generated input files
+ * The parser consumes its token queue, so the tokens are lexed again before every invocation.
+ * Lexing is not part of the measurement, a token buffer isn't consumed by the parser so it is lexed once per trial
+ * Run with the gc profiler to compare the memory of ASTNode trees and the arena
+ * @author nnecklace
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    /**
+     * Per thread state holding a fresh parser and freshly lexed tokens for every invocation
+     */
+    @State(Scope.Thread)
+    public static class Tokens {
+        private final Lexer lexer = new Lexer();
+        private Queue<Token> tokens;
+        private Parser parser;
+
+        @Setup(Level.Invocation)
+        public void lex(InputState input) throws LexerException {
+            tokens = lexer.lex(input.contents);
+            parser = new Parser();
+        }
+    }
+
+    /**
+     * Per thread state holding the input lexed into a token buffer
+     */
+    @State(Scope.Thread)
+    public static class Buffered {
+        private TokenBuffer tokens;
+
+        @Setup(Level.Trial)
+        public void lex(InputState input) throws LexerException {
+            tokens = new Lexer().lexBuffer(input.contents);
+        }
+    }
+
+    @Benchmark
+    public Stack<ASTNode> parse(Tokens state) throws ParseException {
+        return state.parser.parse(state.tokens);
+    }
+
+    @Benchmark
+    public AstArena parseArena(Tokens state) throws ParseException, LexerException {
+        return state.parser.parseArena(state.tokens::dequeue);
+    }
+
+    @Benchmark
+    public AstArena parseBuffer(Buffered state) throws ParseException {
+        return new Parser().parseArena(state.tokens);
+    }
+}
@@ -0,0 +1,93 @@
+package calcmalc.performance;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calcmalc.structures.Queue;
+
+/**
+ * Compares the ring buffer {@link Queue} with the original linked queue, {@link LinkedQueue}, and java.util.ArrayDeque
+ * Measures filling a queue and emptying it, the way the lexer fills the token queue and the parser empties it
+ * The reused variant clears and refills the same queue, like a token stream that lexes the input a chunk at a time
+ * Run with the gc profiler to see the allocations per operation
+ * @author nnecklace
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueueBenchmark {
+    /**
+     * Number of elements enqueued and dequeued
+     */
+    @Param({"16", "1000", "100000"})
+    public int elements;
+
+    private final Integer element = 1;
+    private Queue<Integer> reused = new Queue<>();
+
+    @Benchmark
+    public int queue() {
+        Queue<Integer> queue = new Queue<>();
+        for (int i = 0; i < elements; ++i) {
+            queue.enqueue(element);
+        }
+        int sum = 0;
+        while (!queue.isEmpty()) {
+            sum += queue.dequeue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int reusedQueue() {
+        reused.clear();
+        for (int i = 0; i < elements; ++i) {
+            reused.enqueue(element);
+        }
+        int sum = 0;
+        while (!reused.isEmpty()) {
+            sum += reused.dequeue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int linkedQueue() {
+        LinkedQueue<Integer> queue = new LinkedQueue<>();
+        for (int i = 0; i < elements; ++i) {
+            queue.enqueue(element);
+        }
+        int sum = 0;
+        while (!queue.isEmpty()) {
+            sum += queue.dequeue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int arrayDeque() {
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int i = 0; i < elements; ++i) {
+            queue.add(element);
+        }
+        int sum = 0;
+        while (!queue.isEmpty()) {
+            sum += queue.poll();
+        }
+        return sum;
+    }
+}
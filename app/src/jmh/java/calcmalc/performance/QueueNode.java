@@ -1,7 +1,7 @@
-package calcmalc.structures;
+package calcmalc.performance;
 
 /**
- * QueueNode represents a node inside the linked list queue data structure
+ * QueueNode represents a node inside the linked list queue, {@link LinkedQueue}
  * Each Node contains a pointer to the follwing node in the list
  * @author nnecklace
  */
@@ -0,0 +1,93 @@
+package calcmalc.performance;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calcmalc.exceptions.EvaluatorException;
+import calcmalc.exceptions.LexerException;
+import calcmalc.logic.Evaluator;
+import calcmalc.logic.Lexer;
+import calcmalc.logic.Optimizer;
+import calcmalc.logic.Parser;
+import calcmalc.logic.Program;
+import calcmalc.structures.ASTNode;
+
+/**
+ * Measures a long chain of additions and subtractions of variables, as parsed and rebalanced by the optimizer
+ * The chain can't be folded into a number, so the optimized trees differ only by their shape, a left deep tree of depth n or a balanced tree of depth O(log n)
+ * @author nnecklace
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReassociationBenchmark {
+    /**
+     * Number of terms in the chain
+     */
+    @Param({"1000", "10000"})
+    public int terms;
+
+    private Evaluator evaluator;
+    private ASTNode chain;
+    private ASTNode balanced;
+    private Program chainProgram;
+    private Program balancedProgram;
+
+    @Setup(Level.Trial)
+    public void parse() throws LexerException, ParseException, EvaluatorException {
+        StringBuilder input = new StringBuilder("x = 3: y = 5: z = 7:x");
+
+        for (int i = 1; i < terms; ++i) {
+            input.append(i % 3 == 0 ? "-" : "+").append("xyz".charAt(i % 3));
+        }
+
+        Parser parser = new Parser();
+        evaluator = new Evaluator();
+        chain = parser.parse(new Lexer().lex(input.toString())).pop();
+
+        while (!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        chain = new Optimizer(evaluator).optimize(chain);
+        balanced = new Optimizer(evaluator, false, true).optimize(new Parser().parse(new Lexer().lex(input.toString())).pop());
+        chainProgram = evaluator.compile(chain);
+        balancedProgram = evaluator.compile(balanced);
+    }
+
+    @Benchmark
+    public Number evaluateChain() throws EvaluatorException {
+        return evaluator.evaluate(chain);
+    }
+
+    @Benchmark
+    public Number evaluateBalanced() throws EvaluatorException {
+        return evaluator.evaluate(balanced);
+    }
+
+    @Benchmark
+    public double runChain() throws EvaluatorException {
+        return evaluator.run(chainProgram);
+    }
+
+    @Benchmark
+    public double runBalanced() throws EvaluatorException {
+        return evaluator.run(balancedProgram);
+    }
+}
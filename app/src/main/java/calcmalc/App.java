@@ -3,47 +3,38 @@
  */
 package calcmalc;
 
-import calcmalc.structures.ASTNode;
-import calcmalc.structures.Stack;
 import calcmalc.ui.UI;
-import calcmalc.exceptions.EvaluatorException;
-import calcmalc.exceptions.LexerException;
-import calcmalc.logic.Evaluator;
-import calcmalc.logic.Lexer;
-import calcmalc.logic.Parser;
+import calcmalc.logic.Program;
+import calcmalc.logic.TokenSource;
+import calcmalc.server.Server;
+import calcmalc.structures.LruCache;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.net.InetSocketAddress;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.ParseException;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author nnecklac
  * Main entry point for the program
- * App controls whether the program displays the ui, starts the repl or reads a file
+ * App controls whether the program displays the ui, starts the repl, starts the server or reads a file
+ * Inputs are interpreted in one session and the result is copied to the output, programs that need many
+ * independent interpreters, e.g., one per thread, use sessions directly, see Session
  */
 public class App {
     /**
-     * Lexer property
-     * Lexer performs lexical analysis of the input stream
-     * {@see calcmalc.logic.Lexer}
+     * Default number of expressions kept in the program cache
      */
-    private static Lexer lexer = new Lexer();
+    public static final int PROGRAM_CACHE_CAPACITY = Session.PROGRAM_CACHE_CAPACITY;
     /**
-     * Parser property
-     * Parser parses the the queue of input tokens, with the shunting yard algorithm,
-     * and creates a syntax tree out of the tokens
-     * {@see calcmalc.logic.Parser}
+     * Session property
+     * The session of the command line, the repl and the files given to the program are interpreted in it
+     * The session owns the lexer, the parser, the evaluator and the program cache, see Session
+     * {@see calcmalc.Session}
      */
-    private static Parser parser = new Parser();
-    /**
-     * Evaluator property
-     * Evaluator evaluates the syntax tree made by the parser and returns some value
-     * {@see calcmalc.logic.Evaluator}
-     */
-    private static Evaluator evaluator = new Evaluator();
+    private static Session session = new Session();
     /**
      * Output property
      * Output class contains the output to be displayed based on the result from the evaluator
@@ -116,6 +107,16 @@ public class App {
             this.numOutput = numOutput;
         }
 
+        /**
+         * Method copies the result of an input to the output
+         * @param result the result of the input
+         */
+        public void set(Result result) {
+            this.errorOutput = result.error();
+            this.variableOutput = result.variable();
+            this.numOutput = result.number();
+        }
+
         /**
          * Method used to print the output
          * Errors will be printed first if there are any
@@ -156,6 +157,9 @@ public class App {
      * Accepts either an argument of repl, which starts the repl
      * Or file name, which contains a valid input to evaluate
      * Or ui which starts the GUI javafx program
+     * Or mmap followed by a file name, which memory maps the file instead of reading it
+     * Or parallel followed by a file name and optionally reassociate, which lexes and evaluates the file in parallel
+     * Or serve followed by an optional port, which starts the http server, see Server
      * @param args IO params to read, array can be empty in which case the program exits immediately
      * @throws IOException if file cannot be read
      */
@@ -166,6 +170,14 @@ public class App {
                 repl();
             } else if ("ui".equals(args[0].trim())) {
                 new UI().run();
+            } else if ("serve".equals(args[0].trim()) && args.length > 1) {
+                serve(args[1]);
+            } else if ("serve".equals(args[0].trim())) {
+                serve(Server.PORT);
+            } else if ("mmap".equals(args[0].trim()) && args.length > 1) {
+                readMapped(Paths.get(args[1]));
+            } else if ("parallel".equals(args[0].trim()) && args.length > 1) {
+                readParallel(Paths.get(args[1]), args.length > 2 && "reassociate".equals(args[2].trim()));
             } else {
                 read(Paths.get(args[0]));
             }
@@ -173,65 +185,111 @@ public class App {
     }
 
     /**
-     * Formats output according to the number passed in. 
-     * If number can be represented as an integer output an integer
-     * else output as float
-     * @param n the number to format
-     * @return formated number
+     * Reads an inteprets the file passed to calcmalc
+     * The file will be interpreted as a whole and not line by line as the repl does
+     * The file is lexed as a stream while it is parsed, so the file is never held in memory as a whole
+     * @param file path to the file
+     * @throws IOException if the file cannot be read
      */
-    private static Number format(Number n) {
-        if (n.doubleValue() % 1 == 0) {
-            return n.longValue();
-        }
+    public static void read(Path file) throws IOException {
+        App.output.set(session.read(file));
+        App.output.printOutput();
+    }
 
-        return n.doubleValue();
+    /**
+     * Memory maps and interprets the file passed to calcmalc
+     * The lexer reads the ascii bytes of the file straight from the page cache, so the file is never decoded into a string
+     * Meant for large generated files, the file can be at most 2GB
+     * @param file path to the file
+     * @throws IOException if the file cannot be read or mapped
+     */
+    public static void readMapped(Path file) throws IOException {
+        App.output.set(session.readMapped(file));
+        App.output.printOutput();
     }
 
     /**
-     * Reads an inteprets the file passed to calcmalc
-     * The file will be read as a whole string and not line by line as the repl does
+     * Reads and interprets the file passed to calcmalc in parallel on the common pool
+     * The file is lexed in chunks, parsed into an arena and large expressions are evaluated in parallel, see Session.interpretParallel
+     * Meant for large generated files, gives the same result as read unless the chains are rebalanced
      * @param file path to the file
+     * @param reassociate if true long chains are rebalanced so they can be evaluated in parallel, the result can round differently
      * @throws IOException if the file cannot be read
      */
-    public static void read(Path file) throws IOException {
-        String contents = Files.readString(file);
+    public static void readParallel(Path file, boolean reassociate) throws IOException {
+        App.output.set(session.readParallel(file, ForkJoinPool.commonPool(), reassociate));
+        App.output.printOutput();
+    }
 
-        interpret(contents);
+    /**
+     * Starts the http server on the port given as an argument, see serve(int)
+     * A port that is not a number from 0 to 65535 is printed as an error like the errors of the other modes, and the server is not started
+     * @param port the port argument
+     * @throws IOException if the port cannot be bound
+     */
+    public static void serve(String port) throws IOException {
+        int number;
 
-        App.output.printOutput();
+        try {
+            number = Integer.parseInt(port.trim());
+        } catch (NumberFormatException e) {
+            number = -1;
+        }
+
+        if (number < 0 || number > 65535) {
+            App.output.setErrorOutput("Usage error: serve [port], the port must be a number from 0 to 65535, was " + port);
+            App.output.printOutput();
+            return;
+        }
+
+        serve(number);
     }
 
     /**
-     * Lexes, parses and evaluates one line at a time from the repl, 
+     * Starts the http server on the given port of localhost, the server runs until the program is stopped
+     * Every request is interpreted in a session of the server, not in the session of the program, see Server
+     * @param port the port to listen to
+     * @throws IOException if the port cannot be bound
+     */
+    public static void serve(int port) throws IOException {
+        Server server = new Server(new InetSocketAddress("localhost", port), Server.SESSION_CAPACITY, Server.PROGRAM_CACHE_CAPACITY);
+        server.start();
+        System.out.println("Listening on http://localhost:" + server.port() + "/");
+    }
+
+    /**
+     * Lexes, parses and evaluates one line at a time from the repl,
      * or a whole file, and outputs a value once no lines remain
-     * File should be passed as one string to the interpreter
+     * The input is interpreted in the session of the program, see Session.interpret(String)
      * @param input the line, or file string, to interpret
      */
     public static void interpret(String input) {
-        App.output.clear();
-        try {
-            Stack<ASTNode> nodes = parser.parse(
-                lexer.lex(input)
-            );
+        App.output.set(session.interpret(input));
+    }
 
-            while (!parser.variables().isEmpty()) {
-                App.output.setVariableOutput(evaluator.evaluateAssignment(parser.variables().dequeue()));
-            }
+    /**
+     * Parses and evaluates the tokens from the token source, and outputs a value once no tokens remain
+     * The tokens are lexed while they are parsed, see Session.interpret(TokenSource)
+     * @param tokens the token source to interpret
+     */
+    public static void interpret(TokenSource tokens) {
+        App.output.set(session.interpret(tokens));
+    }
 
-            while (!nodes.isEmpty()) {
-                App.output.setNumOutput(format(evaluator.evaluate(nodes.pop())));
-            }
+    /**
+     * Getter for the program cache of the session, e.g., for the hit, miss and eviction counters
+     * @return the program cache
+     */
+    public static LruCache<Program[]> programCache() {
+        return session.programCache();
+    }
 
-        } catch (LexerException | ParseException | EvaluatorException | ArithmeticException e) {
-            App.output.setErrorOutput(e.getMessage());
-        } catch (NumberFormatException e) {
-            // caught incase someone tries to put numbers like 2.2.2 or A.2
-            App.output.setErrorOutput("Number was formatted incorrectly: " + e.getMessage());
-        } finally {
-            // this is done to empty the parser stacks since errors can mean that the parser currently has some erronous stuff
-            // all variables weren't parsed correctly or some parenthesis was missing etc
-            parser = new Parser();
-        }
+    /**
+     * Method replaces the program cache of the session with an empty cache of the given capacity
+     * @param capacity maximum number of expressions kept in the cache
+     */
+    public static void setProgramCacheCapacity(int capacity) {
+        session.setProgramCacheCapacity(capacity);
     }
 
     /**
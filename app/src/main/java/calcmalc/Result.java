@@ -0,0 +1,84 @@
+package calcmalc;
+
+/**
+ * Result of interpreting one input, see Session.interpret
+ * The result is one of three types, in the same way as App.Output
+ * Error - Some exception occured when lexing, parsing, or evaluating the input
+ * Number - The value of the last expression evaluated
+ * Variable - The last variable or custom function assigned, only shown if there is no error and no number
+ * Results are immutable, so a result can be handed to another thread, e.g., to write a response
+ * @author nnecklace
+ */
+public final class Result {
+    /**
+     * Value of the last expression evaluated, null if no expression was evaluated
+     */
+    private final Number number;
+    /**
+     * The last variable assigned, e.g., {@literal <}assignment:x{@literal >}, null if nothing was assigned
+     */
+    private final String variable;
+    /**
+     * Message of the error the input failed with, null if the input didn't fail
+     */
+    private final String error;
+
+    /**
+     * Constructor for the result
+     * @param number value of the last expression evaluated, or null
+     * @param variable the last variable assigned, or null
+     * @param error message of the error, or null
+     */
+    Result(Number number, String variable, String error) {
+        this.number = number;
+        this.variable = variable;
+        this.error = error;
+    }
+
+    /**
+     * Getter for the value of the last expression evaluated
+     * @return the value, or null if no expression was evaluated
+     */
+    public Number number() {
+        return number;
+    }
+
+    /**
+     * Getter for the last variable assigned
+     * @return the variable, or null if nothing was assigned
+     */
+    public String variable() {
+        return variable;
+    }
+
+    /**
+     * Getter for the message of the error the input failed with
+     * @return the message, or null if the input didn't fail
+     */
+    public String error() {
+        return error;
+    }
+
+    /**
+     * Method checks if the input failed
+     * @return true if there is an error
+     */
+    public boolean isError() {
+        return error != null;
+    }
+
+    /**
+     * Method returns the text to display for the result
+     * Errors are displayed first if there are any, otherwise numbers, and last variables
+     * @return the error, the number or the variable
+     */
+    public String text() {
+        if (error != null) {
+            return error;
+        } else if (number != null) {
+            return number.toString();
+        }
+
+        return variable == null ? "null" : variable;
+    }
+}
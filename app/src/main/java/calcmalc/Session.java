@@ -0,0 +1,391 @@
+package calcmalc;
+
+import calcmalc.exceptions.EvaluatorException;
+import calcmalc.exceptions.LexerException;
+import calcmalc.logic.AstArena;
+import calcmalc.logic.Evaluator;
+import calcmalc.logic.Lexer;
+import calcmalc.logic.Optimizer;
+import calcmalc.logic.Parser;
+import calcmalc.logic.Program;
+import calcmalc.logic.TokenSource;
+import calcmalc.structures.ASTNode;
+import calcmalc.structures.IntStack;
+import calcmalc.structures.LruCache;
+import calcmalc.structures.Stack;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Session of the interpreter, owns a lexer, a parser, an evaluator, an optimizer and a program cache
+ * The variables and custom functions defined in a session are only seen by the same session,
+ * so any number of sessions can be used at the same time, each by one thread at a time
+ * <pre>
+ * Session first = new Session();      first.interpret("x = 2: x")   =>  2
+ * Session second = new Session();     second.interpret("x")         =>  Unknown Symbol x
+ * </pre>
+ * Interpreting an input returns a result instead of changing a shared output, see Result
+ * A session is not synchronized, a session shared by many threads has to be locked by the caller
+ * Every session interns the names of its symbols into a table of its own, see Symbols, so nothing is shared between sessions
+ * @author nnecklace
+ */
+public class Session {
+    /**
+     * Default number of expressions kept in the program cache
+     */
+    public static final int PROGRAM_CACHE_CAPACITY = 256;
+
+    /**
+     * Lexer of the session, the lexer has no state
+     */
+    private final Lexer lexer = new Lexer();
+    /**
+     * Parser of the session, reset after every input so the stacks and queues of the parser are reused
+     */
+    private final Parser parser = new Parser();
+    /**
+     * Evaluator of the session, contains the variables and custom functions defined in the session
+     */
+    private final Evaluator evaluator = new Evaluator();
+    /**
+     * Optimizer simplifies the syntax trees, e.g., folds constants, before they are evaluated
+     */
+    private final Optimizer optimizer = new Optimizer(evaluator);
+    /**
+     * Optimizer that also rebalances long chains, only used by interpretParallel when reassociation is asked for
+     */
+    private final Optimizer reassociator = new Optimizer(evaluator, false, true);
+    /**
+     * Compiled programs of the expression part of the inputs given to interpret, by the normalized expression part
+     * An input that ends in an expression that has been interpreted before skips lexing, parsing and compiling the expression
+     */
+    private LruCache<Program[]> programCache;
+    /**
+     * Value of the last expression and the last variable of the input being interpreted
+     */
+    private Number number;
+    private String variable;
+
+    /**
+     * Constructor for a session with the default program cache
+     */
+    public Session() {
+        this(PROGRAM_CACHE_CAPACITY);
+    }
+
+    /**
+     * Constructor for a session
+     * @param programCacheCapacity maximum number of expressions kept in the program cache
+     */
+    public Session(int programCacheCapacity) {
+        this.programCache = new LruCache<>(programCacheCapacity);
+    }
+
+    /**
+     * Lexes, parses and evaluates one line at a time from the repl, or a whole file
+     * The input is split into the assignment part, everything up to the last variable delimiter, and the expression part after it
+     * The expressions are compiled into programs which are kept in the program cache by the expression part,
+     * so an input that ends in the same expression, e.g., with different variable values, only lexes and parses the assignments
+     * <pre>
+     * x = 2: y = 3: x*y+1      assignments "x = 2: y = 3:", expression part "x*y+1"
+     * x = 5: y = 1: x*y+1      the programs of "x*y+1" are taken from the cache
+     * </pre>
+     * The result is the same as if the whole input was interpreted at once, see interpret(TokenSource)
+     * @param input the line, or file string, to interpret
+     * @return the result of the input
+     */
+    public Result interpret(String input) {
+        int split = input.lastIndexOf(':') + 1;
+        String expression = normalize(input, split);
+        clear();
+        try {
+            boolean cacheable = !expression.isEmpty() && parsesAssignmentsOnly(input, split);
+            Program[] programs = cacheable ? programCache.get(expression) : null;
+
+            if (programs == null) {
+                // the whole input is parsed, so errors are the same as when the input is interpreted at once
+                parser.reset();
+                programs = compile(parser.parse(lexer.stream(input)));
+
+                if (cacheable) {
+                    programCache.put(expression, programs);
+                }
+            }
+
+            evaluate(programs);
+            return result(null);
+        } catch (LexerException | ParseException | EvaluatorException | ArithmeticException e) {
+            return result(e.getMessage());
+        } finally {
+            parser.reset();
+        }
+    }
+
+    /**
+     * Parses and evaluates the tokens from the token source, the tokens are lexed while they are parsed
+     * @param tokens the token source to interpret
+     * @return the result of the input
+     */
+    public Result interpret(TokenSource tokens) {
+        clear();
+        try {
+            evaluate(compile(parser.parse(tokens)));
+            return result(null);
+        } catch (LexerException | ParseException | EvaluatorException | ArithmeticException e) {
+            return result(e.getMessage());
+        } finally {
+            // this is done to empty the parser stacks since errors can mean that the parser currently has some erronous stuff
+            // all variables weren't parsed correctly or some parenthesis was missing etc
+            parser.reset();
+        }
+    }
+
+    /**
+     * Reads and interprets a file as a whole
+     * The file is lexed as a stream while it is parsed, so the file is never held in memory as a whole
+     * @param file path to the file
+     * @return the result of the file
+     * @throws IOException if the file cannot be read
+     */
+    public Result read(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file)) {
+            return interpret(lexer.stream(reader));
+        }
+    }
+
+    /**
+     * Memory maps and interprets a file
+     * The lexer reads the ascii bytes of the file straight from the page cache, so the file is never decoded into a string
+     * Meant for large generated files, the file can be at most 2GB
+     * @param file path to the file
+     * @return the result of the file
+     * @throws IOException if the file cannot be read or mapped
+     */
+    public Result readMapped(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return interpret(lexer.stream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+        }
+    }
+
+    /**
+     * Lexes, parses and evaluates a large input in parallel on the pool, e.g., a generated file
+     * The input is lexed in chunks into a token buffer and parsed into an arena, see Lexer.lexBuffer and Parser.parseArena,
+     * so no objects are made for the tokens and nodes of the expressions, and large expressions are cut into subtrees
+     * that are evaluated on the pool, see Evaluator.evaluateParallel
+     * The assignments are evaluated like in interpret, the expressions are not kept in the program cache
+     * Without reassociation the expressions are not optimized and the result is the same as interpret(String) gives
+     * The parser makes a left deep tree of a long chain like a+b+c+..., which is cut into its terms and a spine as long as the chain,
+     * with reassociation the chains are rebalanced first, but the result can round differently, see Reassociator
+     * @param input the input to interpret
+     * @param pool the pool the input is lexed and evaluated on
+     * @param reassociate if true the expressions are optimized and their chains rebalanced before they are evaluated
+     * @return the result of the input
+     */
+    public Result interpretParallel(CharSequence input, ForkJoinPool pool, boolean reassociate) {
+        clear();
+        try {
+            AstArena arena = parser.parseArena(lexer.lexBuffer(input, pool));
+            evaluateAssignments();
+            IntStack roots = arena.roots();
+
+            while (!roots.isEmpty()) {
+                // the last expression is on top, the expressions are evaluated in the same order as in interpret
+                number = format(evaluateParallel(arena, roots.pop(), pool, reassociate));
+            }
+
+            return result(null);
+        } catch (LexerException | ParseException | EvaluatorException | ArithmeticException e) {
+            return result(e.getMessage());
+        } finally {
+            parser.reset();
+        }
+    }
+
+    /**
+     * Reads a file and interprets it in parallel on the pool, see interpretParallel
+     * The whole file is read into memory, the token buffer and the arena refer to it
+     * @param file path to the file
+     * @param pool the pool the file is lexed and evaluated on
+     * @param reassociate if true the chains of the expressions are rebalanced before they are evaluated
+     * @return the result of the file
+     * @throws IOException if the file cannot be read
+     */
+    public Result readParallel(Path file, ForkJoinPool pool, boolean reassociate) throws IOException {
+        return interpretParallel(Files.readString(file), pool, reassociate);
+    }
+
+    /**
+     * Getter for the program cache, e.g., for the hit, miss and eviction counters
+     * @return the program cache
+     */
+    public LruCache<Program[]> programCache() {
+        return programCache;
+    }
+
+    /**
+     * Method replaces the program cache with an empty cache of the given capacity
+     * @param capacity maximum number of expressions kept in the cache
+     */
+    public void setProgramCacheCapacity(int capacity) {
+        programCache = new LruCache<>(capacity);
+    }
+
+    /**
+     * Method forgets the variables, custom functions and compiled programs of the session, after that the session is like a new one
+     * Cheaper than a new session, the lexer, the parser, the evaluator and their buffers are kept
+     */
+    public void reset() {
+        evaluator.reset();
+
+        if (programCache.size() > 0) {
+            programCache.clear();
+        }
+    }
+
+    /**
+     * Method normalizes the expression part of the input into a key for the program cache
+     * Runs of whitespace are replaced with a single space and whitespace at the start and the end is removed,
+     * whitespace only separates tokens so inputs with the same key have the same tokens
+     * @param input the input
+     * @param from position of the first character of the expression part
+     * @return the normalized expression part
+     */
+    static String normalize(String input, int from) {
+        char[] key = new char[input.length() - from];
+        int length = 0;
+        boolean whitespace = false;
+
+        for (int i = from; i < input.length(); ++i) {
+            char c = input.charAt(i);
+
+            if (c == ' ' || c == '\n' || c == '\r') {
+                whitespace = length > 0;
+                continue;
+            }
+
+            if (whitespace) {
+                key[length++] = ' ';
+                whitespace = false;
+            }
+
+            key[length++] = c;
+        }
+
+        return new String(key, 0, length);
+    }
+
+    /**
+     * Formats output according to the number passed in.
+     * If number can be represented as an integer output an integer
+     * else output as float
+     * @param n the number to format
+     * @return formated number
+     */
+    private static Number format(double n) {
+        if (n % 1 == 0) {
+            return (long) n;
+        }
+
+        return n;
+    }
+
+    /**
+     * Method parses the assignment part of the input, the expression part can be taken from the program cache
+     * only if the assignment part parses and contains nothing but assignments
+     * @param input the input to interpret
+     * @param split position right after the last variable delimiter
+     * @return true if the assignment part parsed into assignments only
+     */
+    private boolean parsesAssignmentsOnly(String input, int split) {
+        try {
+            return parser.parse(lexer.stream(CharBuffer.wrap(input, 0, split))).isEmpty();
+        } catch (LexerException | ParseException e) {
+            // the error is reported when the whole input is parsed
+            return false;
+        }
+    }
+
+    /**
+     * Method optimizes and compiles the expressions the parser made into programs, in the order they are evaluated
+     * Every input is optimized and compiled the same way, whether its programs are kept in the program cache or not
+     * The optimizer only folds operators and standard library functions, which can't be redefined,
+     * so an optimized program gives the same result when it is run after the definitions have changed, see Evaluator.run
+     * @param nodes the expressions, the root of the last expression on top
+     * @return the compiled programs
+     */
+    private Program[] compile(Stack<ASTNode> nodes) {
+        Program[] programs = new Program[nodes.size()];
+
+        for (int i = 0; i < programs.length; ++i) {
+            programs[i] = evaluator.compile(optimizer.optimize(nodes.pop()));
+        }
+
+        return programs;
+    }
+
+    /**
+     * Method evaluates the assignments the parser made, and then runs the programs of the expressions
+     * @param programs the compiled expressions, in the order they are evaluated
+     * @throws EvaluatorException if evaluation fails
+     */
+    private void evaluate(Program[] programs) throws EvaluatorException {
+        evaluateAssignments();
+
+        for (Program program : programs) {
+            number = format(evaluator.run(program));
+        }
+    }
+
+    /**
+     * Method evaluates an expression of an arena in parallel, with reassociation the expression is optimized into a new arena first
+     * @param arena the arena containing the expression
+     * @param root index of the root node of the expression
+     * @param pool the pool the expression is evaluated on
+     * @param reassociate if true the chains of the expression are rebalanced first, see Optimizer.optimize(AstArena, int)
+     * @return the value of the expression
+     * @throws EvaluatorException if evaluation fails
+     */
+    private double evaluateParallel(AstArena arena, int root, ForkJoinPool pool, boolean reassociate) throws EvaluatorException {
+        if (!reassociate) {
+            return evaluator.evaluateParallel(arena, root, pool);
+        }
+
+        AstArena balanced = reassociator.optimize(arena, root);
+        return evaluator.evaluateParallel(balanced, balanced.roots().pop(), pool);
+    }
+
+    /**
+     * Method evaluates the assignments the parser made, in the order they were made
+     * @throws EvaluatorException if evaluation fails
+     */
+    private void evaluateAssignments() throws EvaluatorException {
+        while (!parser.variables().isEmpty()) {
+            variable = evaluator.evaluateAssignment(optimizer.optimize(parser.variables().dequeue()));
+        }
+    }
+
+    /**
+     * Method forgets the number and the variable of the previous input
+     */
+    private void clear() {
+        number = null;
+        variable = null;
+    }
+
+    /**
+     * Method makes the result of the input, the number and the variable evaluated before an error are kept, like in App.Output
+     * @param error message of the error, or null
+     * @return the result
+     */
+    private Result result(String error) {
+        return new Result(number, variable, error);
+    }
+}
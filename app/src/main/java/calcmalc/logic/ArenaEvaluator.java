@@ -0,0 +1,265 @@
+package calcmalc.logic;
+
+import calcmalc.exceptions.EvaluatorException;
+
+/**
+ * Evaluator for trees in an arena, see AstArena
+ * The tree is traversed in post order with an explicit work stack of node indices, like the compiler traverses ASTNode trees,
+ * and the values are kept on a stack of doubles, like in the virtual machine
+ * Nothing is allocated and nodes are read from arrays, so there are no objects to follow from node to node
+ * The tree evaluates to the same value, and fails with the same error, as the ASTNode tree the parser would have made
+ * Custom function bodies are ASTNode trees, calls to custom functions are run by the virtual machine
+ * Subtrees that were evaluated in parallel are taken as values, see ParallelEvaluator
+ * Time complexity is O(n) where n is the number of nodes in the tree
+ * @author nnecklace
+ */
+final class ArenaEvaluator {
+    /**
+     * Cached arity of a symbol that hasn't been looked up yet, and of a symbol that isn't a function or an operator
+     */
+    private static final int NOT_CACHED = -3;
+    private static final int ANY = -2;
+
+    /**
+     * Definitions of the evaluator, the compiler and the virtual machine used for custom function calls
+     */
+    private final Definitions definitions;
+    private final Compiler compiler;
+    private final VirtualMachine machine;
+    /**
+     * Value stack, and the number of values on it
+     */
+    private double[] values = new double[64];
+    private int top;
+    /**
+     * Work stack, nodes being evaluated and the index of the next child to evaluate for each node
+     */
+    private int[] nodes = new int[16];
+    private int[] nextChild = new int[16];
+    private int depth;
+    /**
+     * Number of arguments every function and operator takes by the id of its name, looked up from the definitions when first needed
+     * The cache is emptied when custom functions are defined, since a custom function can have the name of a standard library function
+     */
+    private int[] arities = new int[0];
+    private int aritiesVersion = -1;
+    /**
+     * Values of subtrees that were evaluated in parallel, in the order the traversal reaches them, and the errors they failed with
+     * Subtrees of at most cutSize nodes are not walked, the next value is taken instead, see ParallelEvaluator
+     */
+    private double[] cutValues;
+    private EvaluatorException[] cutErrors;
+    private int cutSize;
+    private int nextCut;
+
+    /**
+     * Constructor for the arena evaluator
+     * @param definitions the definitions of the evaluator
+     * @param compiler the compiler of the evaluator, used to compile custom function bodies
+     * @param machine the virtual machine of the evaluator, used to call custom functions
+     */
+    ArenaEvaluator(Definitions definitions, Compiler compiler, VirtualMachine machine) {
+        this.definitions = definitions;
+        this.compiler = compiler;
+        this.machine = machine;
+    }
+
+    /**
+     * Method evaluates the tree with the given root
+     * @param arena the arena containing the tree
+     * @param root index of the root node
+     * @return the result of the expression the tree represents
+     * @throws EvaluatorException if evaluation fails
+     */
+    double evaluate(AstArena arena, int root) throws EvaluatorException {
+        top = 0;
+        depth = 0;
+        enter(arena, root);
+
+        while (depth > 0) {
+            int node = nodes[depth - 1];
+            int child = nextChild[depth - 1];
+
+            if (child < arena.childCount[node]) {
+                if (child >= 2 && arena.kind[node] != AstArena.CALL) {
+                    // max and min are evaluated two arguments at a time, see Evaluator
+                    operation(arena, node, 2);
+                }
+                nextChild[depth - 1]++;
+                enter(arena, arena.child(node, child));
+            } else {
+                exit(arena, node);
+                --depth;
+            }
+        }
+
+        return values[top - 1];
+    }
+
+    /**
+     * Method evaluates the tree with the given root, the subtrees of at most the given size have already been evaluated
+     * The values are in the order the subtrees are reached, from left to right, so the traversal takes them one at a time
+     * A subtree that failed throws its error when it is reached, so the tree fails with the same error as when it is evaluated at once
+     * @param arena the arena containing the tree
+     * @param root index of the root node, its subtree is larger than the given size
+     * @param size the largest size of the evaluated subtrees
+     * @param values values of the evaluated subtrees
+     * @param errors errors of the evaluated subtrees, null for the subtrees that didn't fail
+     * @return the result of the expression the tree represents
+     * @throws EvaluatorException if evaluation fails
+     */
+    double evaluate(AstArena arena, int root, int size, double[] values, EvaluatorException[] errors) throws EvaluatorException {
+        cutSize = size;
+        cutValues = values;
+        cutErrors = errors;
+        nextCut = 0;
+
+        try {
+            return evaluate(arena, root);
+        } finally {
+            cutValues = null;
+            cutErrors = null;
+        }
+    }
+
+    /**
+     * Method evaluates a node when the traversal first reaches it
+     * Numbers and symbols are pushed on the value stack, operators and functions are pushed on the work stack
+     * @param arena the arena
+     * @param node index of the node
+     * @throws EvaluatorException if the node is an assignment, an unknown symbol, or a custom function that can't be called
+     */
+    private void enter(AstArena arena, int node) throws EvaluatorException {
+        int kind = arena.kind[node];
+        int id = arena.symbol[node];
+
+        if (cutValues != null && arena.subtreeSize[node] <= cutSize) {
+            takeCut();
+        } else if (kind == AstArena.NUMBER) {
+            push(arena.value[node]);
+        } else if (kind == AstArena.SYMBOL && !Symbols.isStandardLibraryFunction(id) && definitions.variables.isDefined(id)) {
+            push(definitions.variables.get(id));
+        } else if (kind == AstArena.SYMBOL) {
+            // standard library functions can't be used as variables
+            throw new EvaluatorException(compiler.unknownSymbolMessage(arena.key(node)));
+        } else if (kind == AstArena.ASSIGNMENT) {
+            throw new EvaluatorException("Can't assign values in expressions, values must be assigned before or after expressions");
+        } else if (kind == AstArena.CALL && !accepts(id, arena.childCount[node])) {
+            throw new EvaluatorException("Wrong number of arguments for " + arena.key(node));
+        } else if (kind == AstArena.CALL && definitions.customFunctionBodies.get(arena.key(node)) == null) {
+            throw new EvaluatorException("Unknown function " + arena.key(node));
+        } else {
+            pushNode(node);
+        }
+    }
+
+    /**
+     * Method evaluates an operator or function after all its children have been evaluated
+     * @param arena the arena
+     * @param node index of the operator or function node
+     * @throws EvaluatorException if the operator or function fails
+     */
+    private void exit(AstArena arena, int node) throws EvaluatorException {
+        int children = arena.childCount[node];
+
+        if (arena.kind[node] == AstArena.CALL) {
+            top -= children;
+            values[top] = machine.call(compiler.function(arena.key(node)), values, top);
+            top++;
+        } else {
+            operation(arena, node, children < 2 ? children : 2);
+        }
+    }
+
+    /**
+     * Method runs an operator or a standard library function on the topmost values of the stack
+     * @param arena the arena
+     * @param node index of the operator or function node
+     * @param size the number of arguments on the stack
+     * @throws EvaluatorException if the function is given a wrong number of arguments or is unknown
+     */
+    private void operation(AstArena arena, int node, int size) throws EvaluatorException {
+        int opcode = arena.kind[node];
+
+        if (!accepts(arena.symbol[node], size)) {
+            throw new EvaluatorException("Wrong number of arguments for " + arena.key(node));
+        } else if (opcode == AstArena.UNKNOWN) {
+            // functions the evaluator doesn't know, e.g., cos
+            throw new EvaluatorException("Unknown Symbol " + arena.key(node));
+        } else if (opcode != Program.MAX && opcode != Program.MIN || size == 2) {
+            // max and min of a single argument is the argument itself
+            top = VirtualMachine.operate(opcode, values, top);
+        }
+    }
+
+    /**
+     * Method checks if the function or operator accepts the given number of arguments, see Definitions.acceptsArguments
+     * The arity is looked up by name once, after that it is read from the cache by the id
+     * @param id interned id of the name of the function or operator
+     * @param count number of arguments
+     * @return true if the function accepts the number of arguments or is unknown
+     */
+    private boolean accepts(int id, int count) {
+        if (aritiesVersion != definitions.version || id >= arities.length) {
+            arities = new int[Math.max(id + 1, arities.length)];
+            aritiesVersion = definitions.version;
+
+            for (int i = 0; i < arities.length; ++i) {
+                arities[i] = NOT_CACHED;
+            }
+        }
+
+        if (arities[id] == NOT_CACHED) {
+            Integer arity = definitions.functionArity.get(definitions.symbols.name(id));
+            arities[id] = arity == null ? ANY : arity;
+        }
+
+        int arity = arities[id];
+        return arity == ANY || arity == count || arity == -1 && count != 0;
+    }
+
+    /**
+     * Method pushes the value of the next subtree that was evaluated in parallel
+     * @throws EvaluatorException the error of the subtree, if it failed
+     */
+    private void takeCut() throws EvaluatorException {
+        if (cutErrors[nextCut] != null) {
+            throw cutErrors[nextCut];
+        }
+
+        push(cutValues[nextCut++]);
+    }
+
+    /**
+     * Method pushes a value on the value stack, the stack grows if needed
+     * @param value the value
+     */
+    private void push(double value) {
+        if (top == values.length) {
+            double[] grown = new double[top * 2];
+            System.arraycopy(values, 0, grown, 0, top);
+            values = grown;
+        }
+
+        values[top++] = value;
+    }
+
+    /**
+     * Method pushes a node on the work stack, the stack grows if needed
+     * @param node index of the node
+     */
+    private void pushNode(int node) {
+        if (depth == nodes.length) {
+            int[] grownNodes = new int[depth * 2];
+            System.arraycopy(nodes, 0, grownNodes, 0, depth);
+            nodes = grownNodes;
+            int[] grownNextChild = new int[depth * 2];
+            System.arraycopy(nextChild, 0, grownNextChild, 0, depth);
+            nextChild = grownNextChild;
+        }
+
+        nodes[depth] = node;
+        nextChild[depth] = 0;
+        depth++;
+    }
+}
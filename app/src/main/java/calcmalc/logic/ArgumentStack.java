@@ -0,0 +1,127 @@
+package calcmalc.logic;
+
+/**
+ * Argument stack contains the arguments of the custom function calls the evaluator is currently evaluating
+ * The arguments of every call are stored next to each other in one double array, a call is identified by the index of its first argument
+ * Calls are started and finished in stack order, so the space of a finished call is reused by the next call
+ *
+ * Example
+ * <pre>
+ * f(x) = x*2:
+ * g(a, b) = f(a)+b:
+ *
+ * g(1, 2)      values [1.0, 2.0]            contexts [0]
+ *  f(a)        values [1.0, 2.0, 1.0]       contexts [0, 2]
+ * </pre>
+ * In the body of f, x is read from index 2 + 0, after f returns its argument is dropped and b is read from index 0 + 1
+ * Starting a call is a few array writes, the arrays only grow when calls are nested deeper than ever before
+ * @author nnecklace
+ */
+final class ArgumentStack {
+    /**
+     * Arguments of all unfinished calls
+     */
+    private double[] values = new double[64];
+    /**
+     * Number of values in use
+     */
+    private int top;
+    /**
+     * Index of the first argument of every call whose body is being evaluated, the last one is the current context
+     */
+    private int[] contexts = new int[16];
+    /**
+     * Number of contexts in use
+     */
+    private int contextCount;
+
+    /**
+     * Method reserves space for the arguments of a new call
+     * @param count the number of arguments
+     * @return index of the first argument of the call
+     */
+    int allocate(int count) {
+        if (top + count > values.length) {
+            double[] grown = new double[Math.max(top + count, values.length * 2)];
+            System.arraycopy(values, 0, grown, 0, top);
+            values = grown;
+        }
+
+        int base = top;
+        top += count;
+        return base;
+    }
+
+    /**
+     * Method gives an argument its value
+     * @param index index of the argument on the stack, i.e., the index of the first argument of the call plus the argument index
+     * @param value the value of the argument
+     */
+    void set(int index, double value) {
+        values[index] = value;
+    }
+
+    /**
+     * Method makes the call the current context, its arguments are read by argument
+     * @param base index of the first argument of the call
+     */
+    void enter(int base) {
+        if (contextCount == contexts.length) {
+            int[] grown = new int[contextCount * 2];
+            System.arraycopy(contexts, 0, grown, 0, contextCount);
+            contexts = grown;
+        }
+
+        contexts[contextCount++] = base;
+    }
+
+    /**
+     * Method finishes the current call, its arguments are dropped and the calling context becomes the current context
+     */
+    void leave() {
+        top = contexts[--contextCount];
+    }
+
+    /**
+     * Method checks if a custom function body is being evaluated
+     * @return true if there is a current context
+     */
+    boolean inContext() {
+        return contextCount > 0;
+    }
+
+    /**
+     * Method reads an argument of the current context
+     * @param argument index of the argument in the function's argument list
+     * @return the value of the argument
+     */
+    double argument(int argument) {
+        return values[contexts[contextCount - 1] + argument];
+    }
+
+    /**
+     * Getter for the number of values in use, used to restore the stack after a failed evaluation
+     * @return the number of values in use
+     */
+    int size() {
+        return top;
+    }
+
+    /**
+     * Getter for the number of contexts in use, used to restore the stack after a failed evaluation
+     * @return the number of contexts
+     */
+    int contexts() {
+        return contextCount;
+    }
+
+    /**
+     * Method drops all calls started after the stack had the given size
+     * @param size the number of values to keep
+     * @param contextCount the number of contexts to keep
+     */
+    void reset(int size, int contextCount) {
+        this.top = size;
+        this.contextCount = contextCount;
+    }
+}
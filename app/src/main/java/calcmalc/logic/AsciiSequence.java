@@ -0,0 +1,72 @@
+package calcmalc.logic;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Char sequence view over a buffer of ascii bytes
+ * Lets the lexer read a memory mapped file directly without decoding the whole file into a string first
+ * Every byte is one character, bytes outside of ascii become characters the lexer doesn't know
+ * @author nnecklace
+ */
+class AsciiSequence implements CharSequence {
+    /**
+     * The bytes the sequence is a view of
+     */
+    private ByteBuffer bytes;
+    /**
+     * Position of the first byte of the sequence in the buffer
+     */
+    private int start;
+    /**
+     * The amount of bytes in the sequence
+     */
+    private int length;
+
+    /**
+     * Constructor for a sequence over the remaining bytes of the buffer
+     * @param bytes the buffer of ascii bytes
+     */
+    AsciiSequence(ByteBuffer bytes) {
+        this(bytes, bytes.position(), bytes.remaining());
+    }
+
+    /**
+     * Constructor for a sequence over part of the buffer
+     * @param bytes the buffer of ascii bytes
+     * @param start position of the first byte of the sequence
+     * @param length the amount of bytes in the sequence
+     */
+    private AsciiSequence(ByteBuffer bytes, int start, int length) {
+        this.bytes = bytes;
+        this.start = start;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes.get(start + index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return new AsciiSequence(bytes, start + from, to - from);
+    }
+
+    /**
+     * Copies the bytes of the sequence into a string
+     * This is how the lexer gets the keys for symbols and numbers
+     * @return the sequence as a string
+     */
+    @Override
+    public String toString() {
+        byte[] copy = new byte[length];
+        bytes.get(start, copy);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,384 @@
+package calcmalc.logic;
+
+import calcmalc.logic.types.Token;
+import calcmalc.logic.types.TypeBuilder;
+import calcmalc.logic.types.Types;
+import calcmalc.structures.ASTNode;
+import calcmalc.structures.IntStack;
+import calcmalc.structures.Stack;
+
+/**
+ * Arena contains the AST trees made by the parser as parallel arrays of primitives, instead of ASTNode and Token objects
+ * A node is an index, the arrays contain the kind, the symbol, the value and the children of every node
+ * The children of all nodes are stored in one array, the children of a node are next to each other
+ *
+ * Example
+ * <pre>
+ *       +
+ *      / \        node   kind     symbol  value  firstChild  childCount
+ *     *   x       0      NUMBER   -1      2.0    0           0
+ *    / \          1      NUMBER   -1      3.0    0           0
+ *   2   3         2      MUL      id(*)   0.0    0           2          children [0, 1, 2, 3]
+ *                 3      SYMBOL   id(x)   0.0    0           0
+ *                 4      ADD      id(+)   0.0    2           2
+ * </pre>
+ * The parser adds the nodes in post order, the children of a node are always added before the node,
+ * so the nodes of a tree are between its leftmost leaf and its root, and the root of the tree is the last of them
+ * The size of the subtree of every node is counted when the node is added, so the size of any subtree is known without walking it,
+ * the parallel evaluator splits the tree by the sizes, see ParallelEvaluator
+ * A tree of n nodes is 6 array elements per node and one per edge, instead of three objects and an array per node
+ * The evaluator walks the arena directly, see Evaluator.evaluate(AstArena, int)
+ * @author nnecklace
+ */
+public final class AstArena {
+    /**
+     * Kinds of nodes, operators and standard library functions have the opcode of the operation, see Program
+     */
+    static final int NUMBER = Program.CONSTANT;
+    static final int SYMBOL = Program.LOAD;
+    static final int CALL = Program.CALL;
+    /**
+     * Standard library functions the evaluator doesn't know, e.g., cos
+     */
+    static final int UNKNOWN = Program.FAIL;
+    static final int ASSIGNMENT = -1;
+
+    /**
+     * Kind of every node
+     */
+    int[] kind = new int[64];
+    /**
+     * Interned id of the key of every node in the symbol table of the arena, see Symbols, -1 for numbers
+     */
+    int[] symbol = new int[64];
+    /**
+     * Value of every number node
+     */
+    double[] value = new double[64];
+    /**
+     * Index of the first child of every node in the children array, and the number of children
+     */
+    int[] firstChild = new int[64];
+    int[] childCount = new int[64];
+    /**
+     * Number of nodes in the subtree of every node, the node itself included
+     */
+    int[] subtreeSize = new int[64];
+    /**
+     * Children of all nodes, the children of a node are next to each other
+     */
+    int[] children = new int[64];
+    /**
+     * Number of nodes and number of children in the arena
+     */
+    private int size;
+    private int edges;
+    /**
+     * Nodes that are not a child of any node, the root of the last tree is on top
+     * The parser uses the stack as its node stack while parsing
+     */
+    private IntStack roots = new IntStack();
+    /**
+     * The symbol table the ids of the nodes are from, the table of the evaluator after the arena is bound to it, see bind
+     */
+    private Symbols symbols;
+
+    /**
+     * Constructor for an empty arena whose symbols are interned into a table of its own
+     */
+    AstArena() {
+        this(new Symbols());
+    }
+
+    /**
+     * Constructor for an empty arena whose symbols are interned into the given table, e.g., the table of a token buffer
+     * @param symbols the symbol table the ids of the nodes are from
+     */
+    AstArena(Symbols symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+     * Method changes the ids of the nodes to the ids of the names in the given table, the evaluator looks up variables by the ids of its own table
+     * The operators and the standard library functions have the same ids in every table, so the kinds of the nodes don't change
+     * Binding to the table the arena is already bound to does nothing
+     * @param table the symbol table of the evaluator
+     */
+    void bind(Symbols table) {
+        if (table == symbols) {
+            return;
+        }
+
+        int[] ids = new int[symbols.size()];
+
+        for (int id = 0; id < ids.length; ++id) {
+            ids[id] = -1;
+        }
+
+        for (int node = 0; node < size; ++node) {
+            int id = symbol[node];
+
+            if (id >= 0 && ids[id] < 0) {
+                ids[id] = table.intern(symbols.name(id));
+            }
+
+            symbol[node] = id >= 0 ? ids[id] : id;
+        }
+
+        symbols = table;
+    }
+
+    /**
+     * Method adds a node whose children are on top of the roots stack, the children are popped from the stack
+     * and the node is pushed on the stack
+     * @param token the token of the node
+     * @param count number of children of the node
+     * @return index of the node
+     */
+    int add(Token token, int count) {
+        int id = token.isNumber() ? -1 : symbols.id(token);
+        return add(kind(token.getType(), id), id, token.getValue(), count);
+    }
+
+    /**
+     * Method adds an ASTNode tree to the arena, e.g., a tree the optimizer has changed, see Optimizer.optimize(AstArena, int)
+     * The nodes are added in post order like the parser adds them, without recursion, and the root is pushed on the roots stack
+     * @param root root node of the tree
+     * @return index of the root node
+     */
+    int add(ASTNode root) {
+        Stack<ASTNode> nodes = new Stack<>();
+        IntStack nextChild = new IntStack();
+        nodes.push(root);
+        nextChild.push(0);
+
+        while (!nodes.isEmpty()) {
+            ASTNode node = nodes.peek();
+            int child = nextChild.pop();
+
+            if (child < node.children().size()) {
+                nextChild.push(child + 1);
+                nodes.push(node.children().get(child));
+                nextChild.push(0);
+            } else {
+                nodes.pop();
+                add(node.token(), node.children().size());
+            }
+        }
+
+        return roots.peek();
+    }
+
+    /**
+     * Method adds a node like add(Token, int), used when the parser reads the tokens from a token buffer
+     * @param type type of the token of the node
+     * @param id interned id of the key of the token, -1 for numbers
+     * @param number value of the token, only used for numbers
+     * @param count number of children of the node
+     * @return index of the node
+     */
+    int add(Types type, int id, double number, int count) {
+        return add(kind(type, id), id, number, count);
+    }
+
+    /**
+     * Method adds a node whose children are on top of the roots stack
+     * @param nodeKind kind of the node
+     * @param id interned id of the key of the node
+     * @param number value of the node
+     * @param count number of children of the node
+     * @return index of the node
+     */
+    private int add(int nodeKind, int id, double number, int count) {
+        if (size == kind.length) {
+            growNodes();
+        }
+
+        if (edges + count > children.length) {
+            children = grow(children, edges + count);
+        }
+
+        kind[size] = nodeKind;
+        symbol[size] = id;
+        value[size] = number;
+        firstChild[size] = edges;
+        childCount[size] = count;
+        subtreeSize[size] = 1;
+
+        for (int i = count - 1; i >= 0; --i) {
+            children[edges + i] = roots.pop();
+            subtreeSize[size] += subtreeSize[children[edges + i]];
+        }
+
+        edges += count;
+        roots.push(size);
+        return size++;
+    }
+
+    /**
+     * Getter for the roots of the arena
+     * @return stack of the roots, the root of the last tree is on top
+     */
+    public IntStack roots() {
+        return roots;
+    }
+
+    /**
+     * Getter for the number of nodes in the arena
+     * @return number of nodes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method returns the number of nodes in the subtree of a node
+     * @param node index of the node
+     * @return number of nodes in the subtree, the node itself included
+     */
+    public int subtreeSize(int node) {
+        return subtreeSize[node];
+    }
+
+    /**
+     * Method returns the index of a child of a node
+     * @param node index of the node
+     * @param child index of the child, from 0 to the number of children - 1
+     * @return index of the child node
+     */
+    int child(int node, int child) {
+        return children[firstChild[node] + child];
+    }
+
+    /**
+     * Method checks if the node is a function call, a custom function or a standard library function
+     * @param node index of the node
+     * @return true if the node is a function call
+     */
+    boolean isFunction(int node) {
+        int opcode = kind[node];
+        return opcode == CALL || opcode == UNKNOWN || opcode == Program.MAX || opcode == Program.MIN || opcode >= Program.ABS && opcode <= Program.LOG;
+    }
+
+    /**
+     * Method checks if the node is a symbol
+     * @param node index of the node
+     * @return true if the node is a symbol
+     */
+    boolean isSymbol(int node) {
+        return kind[node] == SYMBOL;
+    }
+
+    /**
+     * Method returns the key of the node, e.g., the name of a symbol or an operator
+     * @param node index of the node
+     * @return the key of the node
+     */
+    String key(int node) {
+        return kind[node] == NUMBER ? Double.toString(value[node]) : symbols.name(symbol[node]);
+    }
+
+    /**
+     * Method makes ASTNode tree of a tree in the arena, used for assignments which are kept as trees by the evaluator
+     * The nodes of the tree are between its leftmost leaf and its root in the arena and children come before their parents,
+     * so the tree is made in one pass from the leftmost leaf to the root without recursion
+     * Numbers get the shortest key of their value, e.g., 2 becomes 2.0
+     * @param root index of the root node
+     * @return root node of the tree
+     */
+    public ASTNode tree(int root) {
+        int first = root;
+
+        while (childCount[first] > 0) {
+            first = child(first, 0);
+        }
+
+        ASTNode[] nodes = new ASTNode[root - first + 1];
+
+        for (int node = first; node <= root; ++node) {
+            ASTNode tree = new ASTNode(token(node), childCount[node]);
+
+            for (int i = 0; i < childCount[node]; ++i) {
+                tree.addChild(nodes[child(node, i) - first]);
+            }
+
+            nodes[node - first] = tree;
+        }
+
+        return nodes[root - first];
+    }
+
+    /**
+     * Method makes a token for a node
+     * @param node index of the node
+     * @return token of the node
+     */
+    private Token token(int node) {
+        if (kind[node] == NUMBER) {
+            return TypeBuilder.buildNumber(key(node), value[node]);
+        }
+
+        Token token;
+
+        if (kind[node] == ASSIGNMENT) {
+            token = TypeBuilder.buildToken(Types.ASSIGNMENT, key(node));
+        } else if (kind[node] == SYMBOL) {
+            token = TypeBuilder.buildToken(Types.SYMBOL, key(node));
+        } else if (isFunction(node)) {
+            token = TypeBuilder.buildToken(Types.FUNCTION, key(node));
+        } else {
+            token = TypeBuilder.buildToken(Types.OPERATOR, key(node));
+        }
+
+        token.setSymbol(symbol[node], symbols);
+        return token;
+    }
+
+    /**
+     * Method returns the kind of node a token becomes
+     * @param type type of the token
+     * @param id interned id of the key of the token, -1 for numbers
+     * @return kind of the node
+     */
+    private int kind(Types type, int id) {
+        if (type == Types.NUMERIC) {
+            return NUMBER;
+        } else if (type == Types.SYMBOL) {
+            return SYMBOL;
+        } else if (type == Types.ASSIGNMENT) {
+            return ASSIGNMENT;
+        } else if (type == Types.FUNCTION && !Symbols.isStandardLibraryFunction(id)) {
+            return CALL;
+        }
+
+        int opcode = Compiler.opcode(symbols.name(id));
+        return opcode == -1 ? UNKNOWN : opcode;
+    }
+
+    /**
+     * Method doubles the node arrays
+     */
+    private void growNodes() {
+        kind = grow(kind, size * 2);
+        symbol = grow(symbol, size * 2);
+        firstChild = grow(firstChild, size * 2);
+        childCount = grow(childCount, size * 2);
+        subtreeSize = grow(subtreeSize, size * 2);
+
+        double[] grown = new double[size * 2];
+        System.arraycopy(value, 0, grown, 0, size);
+        value = grown;
+    }
+
+    /**
+     * Method grows an int array to at least the given size, the array is at least doubled
+     * @param array the array to grow
+     * @param minimum the smallest size of the new array
+     * @return the grown array, containing the same values
+     */
+    private static int[] grow(int[] array, int minimum) {
+        int[] grown = new int[Math.max(minimum, array.length * 2)];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+}
@@ -0,0 +1,74 @@
+package calcmalc.logic;
+
+import calcmalc.exceptions.EvaluatorException;
+
+/**
+ * Custom function body compiled into JVM bytecode by the jit compiler
+ * The jit compiler generates a hidden class that extends this class and implements apply,
+ * the instructions of the function body become the corresponding JVM instructions
+ * Variables and errors are handled by the methods of this class, so the generated code doesn't need to know about the symbol table
+ * @author nnecklace
+ */
+abstract class CompiledFunction {
+    /**
+     * Definitions of the evaluator, variables are looked up from its symbol table
+     */
+    private Definitions definitions;
+    /**
+     * String pool of the function body, the generated code refers to error messages by their index in the pool
+     */
+    private String[] strings;
+
+    /**
+     * Method gives the compiled function what it needs to look up variables and throw errors
+     * @param definitions the definitions of the evaluator
+     * @param strings the string pool of the function body
+     */
+    final void link(Definitions definitions, String[] strings) {
+        this.definitions = definitions;
+        this.strings = strings;
+    }
+
+    /**
+     * Method runs the function with arguments read straight from the value stack of the virtual machine
+     * @param values the value stack
+     * @param base index of the first argument on the stack
+     * @return the result of the function
+     * @throws EvaluatorException if the function fails, e.g., a variable is not defined
+     */
+    abstract double apply(double[] values, int base) throws EvaluatorException;
+
+    /**
+     * Method runs the function with the given arguments
+     * @param arguments the arguments of the function
+     * @return the result of the function
+     * @throws EvaluatorException if the function fails, e.g., a variable is not defined
+     */
+    final double apply(double... arguments) throws EvaluatorException {
+        return apply(arguments, 0);
+    }
+
+    /**
+     * Method looks up the value of a variable, called by the generated code
+     * @param id interned id of the variable name
+     * @param message index of the error message in the string pool
+     * @return the value of the variable
+     * @throws EvaluatorException if the variable is not defined
+     */
+    final double load(int id, int message) throws EvaluatorException {
+        if (!definitions.variables.isDefined(id)) {
+            throw new EvaluatorException(strings[message]);
+        }
+
+        return definitions.variables.get(id);
+    }
+
+    /**
+     * Method makes the error of a FAIL instruction, called by the generated code which throws it
+     * @param message index of the error message in the string pool
+     * @return the error to throw
+     */
+    final EvaluatorException fail(int message) {
+        return new EvaluatorException(strings[message]);
+    }
+}
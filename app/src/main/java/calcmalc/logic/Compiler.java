@@ -0,0 +1,460 @@
+package calcmalc.logic;
+
+import calcmalc.structures.ASTNode;
+import calcmalc.structures.HashTable;
+import calcmalc.logic.types.Token;
+
+/**
+ * Compiler compiles AST trees into programs for the virtual machine
+ * The tree is traversed in post order, the same order the evaluator evaluates it in, and every node becomes an instruction
+ * Everything that doesn't depend on the values of variables is decided here, once, instead of every time the tree is evaluated
+ * E.g., which operator the node is, if a symbol is an argument of a custom function, and if a function is given the correct number of arguments
+ *
+ * Example
+ * <pre>
+ *       max
+ *     /  |  \        CONSTANT 0, CONSTANT 1, MAX, CONSTANT 2, MAX, RETURN
+ *    2   4   5
+ *
+ * double(x) = 2*x:   CONSTANT 0, ARGUMENT 0, MUL, RETURN
+ * </pre>
+ * Places where the evaluator would throw become FAIL instructions, so a program fails the same way, and at the same point, as the evaluator
+ * The compiler doesn't recurse, like the evaluator it keeps the nodes it is compiling on an explicit stack
+ * Time complexity is O(n) where n is the number of nodes in the tree
+ * @author nnecklace
+ */
+final class Compiler {
+    /**
+     * Definitions of the evaluator the programs are compiled for
+     */
+    private final Definitions definitions;
+    /**
+     * Compiled bodies of custom functions, a body is compiled again when it is no longer up to date
+     */
+    private HashTable<Program> functions = new HashTable<>();
+    /**
+     * Argument names of the program being compiled
+     */
+    private String[] arguments;
+    /**
+     * Bytecode of the program being compiled, and its pools
+     * The arrays are reused between compilations, the program gets copies of the exact size
+     */
+    private int[] code = new int[64];
+    private int codeSize;
+    private double[] constants = new double[16];
+    private int constantsSize;
+    private String[] strings = new String[16];
+    private int stringsSize;
+    private String[] functionNames = new String[4];
+    private int functionsSize;
+    private String[] dependencies = new String[16];
+    private int dependenciesSize;
+    /**
+     * Number of values on the stack after the instructions compiled so far, and the largest such number
+     */
+    private int stack;
+    private int maxStack;
+    /**
+     * Work stack of the compiler, nodes being compiled and the index of the next child to compile for each node
+     */
+    private ASTNode[] nodes = new ASTNode[16];
+    private int[] nextChild = new int[16];
+
+    /**
+     * Constructor for the compiler
+     * @param definitions the definitions of the evaluator, used to look up custom functions and the number of arguments functions take
+     */
+    Compiler(Definitions definitions) {
+        this.definitions = definitions;
+    }
+
+    /**
+     * Method compiles an AST tree into a program
+     * @param root root node of the tree
+     * @return the compiled program
+     */
+    Program compile(ASTNode root) {
+        Program program = new Program(root, new String[0]);
+        compile(program);
+        return program;
+    }
+
+    /**
+     * Method compiles the tree of the program into the program, with the current definitions
+     * Also used to compile a program again when the definitions have changed
+     * @param program the program to compile
+     */
+    void compile(Program program) {
+        arguments = program.arguments;
+        codeSize = 0;
+        constantsSize = 0;
+        stringsSize = 0;
+        functionsSize = 0;
+        dependenciesSize = 0;
+        stack = 0;
+        maxStack = 1;
+
+        traverse(program.root);
+        emit(Program.RETURN);
+
+        program.code = new int[codeSize];
+        System.arraycopy(code, 0, program.code, 0, codeSize);
+        program.constants = new double[constantsSize];
+        System.arraycopy(constants, 0, program.constants, 0, constantsSize);
+        program.strings = new String[stringsSize];
+        System.arraycopy(strings, 0, program.strings, 0, stringsSize);
+        program.functionNames = new String[functionsSize];
+        System.arraycopy(functionNames, 0, program.functionNames, 0, functionsSize);
+        program.functions = new Program[functionsSize];
+        program.dependencies = new String[dependenciesSize];
+        program.dependencyVersions = new int[dependenciesSize];
+
+        for (int i = 0; i < dependenciesSize; ++i) {
+            program.dependencies[i] = dependencies[i];
+            program.dependencyVersions[i] = definitions.functionVersion(dependencies[i]);
+        }
+
+        program.symbols = definitions.symbols;
+        program.maxStack = maxStack;
+        program.version = definitions.version;
+    }
+
+    /**
+     * Method forgets the compiled bodies of custom functions, called when the definitions are cleared
+     */
+    void clear() {
+        if (functions.size() > 0) {
+            functions = new HashTable<>();
+        }
+    }
+
+    /**
+     * Method returns the compiled body of a custom function, the body is compiled the first time it is needed
+     * and again when the function, or a name the body depends on, has been defined after that
+     * A body that is still up to date keeps its program, and the code the jit compiler compiled it into
+     * @param name name of the custom function
+     * @return the compiled function body
+     */
+    Program function(String name) {
+        Program function = functions.get(name);
+        ASTNode body = definitions.customFunctionBodies.get(name);
+
+        if (function == null || function.root != body || !function.isCurrent(definitions)) {
+            function = new Program(body, definitions.customFunctionArguments.get(name));
+            compile(function);
+            functions.placeOrUpdate(name, function);
+        }
+
+        return function;
+    }
+
+    /**
+     * Method traverses the tree in post order and compiles every node
+     * Operators and functions stay on the work stack while their children are compiled
+     * @param root root node of the tree
+     */
+    private void traverse(ASTNode root) {
+        int depth = 0;
+
+        if (enter(root)) {
+            depth = pushNode(root, depth);
+        }
+
+        while (depth > 0) {
+            ASTNode node = nodes[depth - 1];
+            int child = nextChild[depth - 1];
+
+            if (child < node.children().size()) {
+                if (child >= 2 && !isCustomFunction(node.token())) {
+                    // max and min are evaluated two arguments at a time, see Evaluator
+                    emitOperation(node.token().getKey(), 2);
+                }
+
+                nextChild[depth - 1]++;
+                ASTNode next = node.children().get(child);
+
+                if (enter(next)) {
+                    depth = pushNode(next, depth);
+                }
+            } else {
+                exit(node);
+                nodes[--depth] = null;
+            }
+        }
+    }
+
+    /**
+     * Method pushes a node on the work stack, the stack grows if needed
+     * @param node the node to push
+     * @param depth current depth of the work stack
+     * @return the new depth of the work stack
+     */
+    private int pushNode(ASTNode node, int depth) {
+        if (depth == nodes.length) {
+            ASTNode[] grownNodes = new ASTNode[depth * 2];
+            System.arraycopy(nodes, 0, grownNodes, 0, depth);
+            nodes = grownNodes;
+            int[] grownNextChild = new int[depth * 2];
+            System.arraycopy(nextChild, 0, grownNextChild, 0, depth);
+            nextChild = grownNextChild;
+        }
+
+        nodes[depth] = node;
+        nextChild[depth] = 0;
+        return depth + 1;
+    }
+
+    /**
+     * Method compiles a node when the traversal first reaches it
+     * Numbers and symbols are compiled right away, as are function calls that will fail
+     * @param node the node to compile
+     * @return true if the node is an operator or function whose children have to be compiled, false if the node is done
+     */
+    private boolean enter(ASTNode node) {
+        Token token = node.token();
+        String key = token.getKey();
+
+        if (isCustomFunction(token)) {
+            depend(key);
+        }
+
+        if (token.isAssignment()) {
+            fail("Can't assign values in expressions, values must be assigned before or after expressions");
+        } else if (token.isNumber()) {
+            emit(Program.CONSTANT, constant(token.getValue()));
+        } else if (token.isSymbol() && definitions.standardLibraryFunctions.get(key) == null) {
+            emitSymbol(token);
+        } else if (token.isSymbol()) {
+            // standard library functions can't be used as variables
+            fail(unknownSymbolMessage(key));
+        } else if (isCustomFunction(token) && !definitions.acceptsArguments(key, node.children().size())) {
+            fail("Wrong number of arguments for " + key);
+        } else if (isCustomFunction(token) && definitions.customFunctionBodies.get(key) == null) {
+            fail("Unknown function " + key);
+        } else {
+            return true;
+        }
+
+        push(1);
+        return false;
+    }
+
+    /**
+     * Method compiles an operator or function after all its children have been compiled
+     * @param node the operator or function node
+     */
+    private void exit(ASTNode node) {
+        String key = node.token().getKey();
+        int children = node.children().size();
+
+        if (isCustomFunction(node.token())) {
+            if (functionsSize == functionNames.length) {
+                functionNames = grow(functionNames);
+            }
+
+            functionNames[functionsSize] = key;
+            emit(Program.CALL, functionsSize++);
+            push(1 - children);
+        } else {
+            emitOperation(key, children < 2 ? children : 2);
+        }
+    }
+
+    /**
+     * Method compiles an operator or a standard library function that is given some number of arguments
+     * @param key the operator or function
+     * @param size the number of arguments on the stack
+     */
+    private void emitOperation(String key, int size) {
+        int opcode = opcode(key);
+
+        if (!definitions.acceptsArguments(key, size)) {
+            fail("Wrong number of arguments for " + key);
+        } else if (opcode == -1) {
+            // functions the evaluator doesn't know, e.g., cos
+            fail("Unknown Symbol " + key);
+        } else if (opcode != Program.MAX && opcode != Program.MIN || size == 2) {
+            // max and min of a single argument is the argument itself
+            emit(opcode);
+        }
+
+        push(1 - size);
+    }
+
+    /**
+     * Method compiles a symbol, arguments of the custom function being compiled are read from the stack and other variables are looked up
+     * If a custom function has more than one argument with the same name the last one is used
+     * Variables are loaded by the interned id of their name, see Symbols
+     * @param token the symbol
+     */
+    private void emitSymbol(Token token) {
+        String key = token.getKey();
+
+        for (int i = arguments.length - 1; i >= 0; --i) {
+            if (arguments[i].equals(key)) {
+                emit(Program.ARGUMENT, i);
+                return;
+            }
+        }
+
+        depend(key);
+        emit(Program.LOAD, definitions.symbols.id(token));
+        emit(string(unknownSymbolMessage(key)));
+    }
+
+    /**
+     * Method records a name the program being compiled depends on, see Program.isCurrent
+     * @param key the name of a custom function or a variable
+     */
+    private void depend(String key) {
+        if (dependenciesSize == dependencies.length) {
+            dependencies = grow(dependencies);
+        }
+
+        dependencies[dependenciesSize++] = key;
+    }
+
+    /**
+     * Method returns the opcode of an operator or standard library function
+     * @param key the operator or function
+     * @return the opcode, or -1 if the function doesn't exist
+     */
+    static int opcode(String key) {
+        switch (key) {
+            case "+":
+                return Program.ADD;
+            case "-":
+                return Program.SUB;
+            case "*":
+                return Program.MUL;
+            case "/":
+                return Program.DIV;
+            case "%":
+                return Program.MOD;
+            case "^":
+                return Program.POW;
+            case "$":
+                return Program.NEG;
+            case "abs":
+                return Program.ABS;
+            case "sqrt":
+                return Program.SQRT;
+            case "log":
+                return Program.LOG;
+            case "max":
+                return Program.MAX;
+            case "min":
+                return Program.MIN;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Method returns the message the evaluator throws when a symbol has no value
+     * @param key the symbol
+     * @return the error message
+     */
+    String unknownSymbolMessage(String key) {
+        if (!definitions.acceptsArguments(key, 0)) {
+            return "Wrong number of arguments for " + key;
+        }
+
+        return "Unknown Symbol " + key;
+    }
+
+    /**
+     * Method checks if the token is a call to a custom function
+     * @param token the token to check
+     * @return true if the token is a function that is not in the standard library
+     */
+    private boolean isCustomFunction(Token token) {
+        return token.isFunction() && definitions.standardLibraryFunctions.get(token.getKey()) == null;
+    }
+
+    /**
+     * Method adds an instruction that throws the given message
+     * @param message the error message
+     */
+    private void fail(String message) {
+        emit(Program.FAIL, string(message));
+    }
+
+    /**
+     * Method keeps count of the values on the stack
+     * @param values number of values added to the stack, negative if values are removed
+     */
+    private void push(int values) {
+        stack += values;
+
+        if (stack > maxStack) {
+            maxStack = stack;
+        }
+    }
+
+    /**
+     * Method adds an opcode, or an operand, to the bytecode
+     * @param value the opcode or operand
+     */
+    private void emit(int value) {
+        if (codeSize == code.length) {
+            int[] grown = new int[codeSize * 2];
+            System.arraycopy(code, 0, grown, 0, codeSize);
+            code = grown;
+        }
+
+        code[codeSize++] = value;
+    }
+
+    /**
+     * Method adds an opcode and its operand to the bytecode
+     * @param opcode the opcode
+     * @param operand the operand
+     */
+    private void emit(int opcode, int operand) {
+        emit(opcode);
+        emit(operand);
+    }
+
+    /**
+     * Method adds a number to the constant pool
+     * @param value the number
+     * @return index of the number in the pool
+     */
+    private int constant(double value) {
+        if (constantsSize == constants.length) {
+            double[] grown = new double[constantsSize * 2];
+            System.arraycopy(constants, 0, grown, 0, constantsSize);
+            constants = grown;
+        }
+
+        constants[constantsSize] = value;
+        return constantsSize++;
+    }
+
+    /**
+     * Method adds a string to the string pool
+     * @param value the string
+     * @return index of the string in the pool
+     */
+    private int string(String value) {
+        if (stringsSize == strings.length) {
+            strings = grow(strings);
+        }
+
+        strings[stringsSize] = value;
+        return stringsSize++;
+    }
+
+    /**
+     * Method doubles the size of a string array
+     * @param array the array to grow
+     * @return the grown array, containing the same strings
+     */
+    private String[] grow(String[] array) {
+        String[] grown = new String[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+}
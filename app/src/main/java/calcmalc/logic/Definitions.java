@@ -0,0 +1,206 @@
+package calcmalc.logic;
+
+import calcmalc.structures.ASTNode;
+import calcmalc.structures.HashTable;
+
+import calcmalc.exceptions.EvaluatorException;
+
+/**
+ * Definitions contains everything the user has defined so far, variables and custom functions,
+ * and the operators and functions of the standard library
+ * The evaluator, the compiler, and the virtual machine share the definitions
+ * @author nnecklace
+ */
+final class Definitions {
+    /**
+     * Maximum number of unfinished custom function calls, there are no conditionals so a recursive call never ends,
+     * without a limit the call stack of the evaluator or the virtual machine would grow until the heap runs out
+     */
+    static final int MAX_CALL_DEPTH = 10000;
+
+    /**
+     * function arity HashTable contains all the operators, and functions encountered so far,
+     * the count of arguments the operator, or functions, is expected to be given
+     * <pre>
+     * <abs, 1>
+     * <max, -1> -1 means unlimited
+     * <+, 2>
+     * </pre>
+     */
+    HashTable<Integer> functionArity = new HashTable<>();
+    /**
+     * Interned names of the symbols of the definitions, the ids of the names index the variables
+     * Every session has a table of its own, so the names of one session don't grow the variables of another, see Symbols
+     * The table is replaced with a new one when the definitions are cleared
+     */
+    Symbols symbols = new Symbols();
+    /**
+     * Symbol table, also known as variable table, contains
+     * all variables and their values. Variables are always
+     * evaluated immediatly and their value is stored in this table
+     * Future reuse will just lookup the variable value instead of evaluating it again
+     * Variables are stored by the interned id of their name, see Symbols
+     */
+    Variables variables = new Variables();
+    /**
+     * Custom function bodies table works like symbol table. Custom functions have a body.
+     * Functions can't be evaluated immediately, unlike variables, so the function body will be stored in this table
+     * Every time a custom function is called, its body will be retrieved and evaluated with the parameter the function was given
+     * <pre>
+     * 
+     * fn(x) = 1+x:
+     *          ^   this is the body of the custom function
+     * 
+     * </pre>
+     */
+    HashTable<ASTNode> customFunctionBodies = new HashTable<>();
+    /**
+     * Custom function arguments table contains the arguments (list of symbols given to the function).
+     * Custom functions are given some arguments, as symbols, and these symbols are stored in this hashtable.
+     * The symbols are used when custom functions are evaluated. We need to know what value corresponds to what symbol
+     * <pre>
+     * add(x,y) = x + y:
+     *     ^ ^  these are the symbol arguments for the custom function
+     * 
+     * </pre>
+     * 
+     * Ideally there would be only one hashtable that contains both informations that customFunctionBodies and customFunctionArguments contain
+     */
+    HashTable<String[]> customFunctionArguments = new HashTable<>();
+    /**
+     * Hashtable contains all the standard library functions, there is no hashset class
+     * so we use hashtable as a hashset. 
+     * Table is meant to quickly check that the standard library functions are not overwritten by the user
+     */
+    HashTable<Boolean> standardLibraryFunctions = new HashTable<>();
+    /**
+     * Version of the definitions, incremented every time a custom function is defined
+     * A program compiled with the current version is up to date without checking the names it refers to one by one
+     */
+    int version;
+    /**
+     * Version of every custom function, the version of the definitions when the function was last defined
+     * Compiled programs depend on the functions they refer to, a program only has to be compiled again
+     * when one of those functions has a newer version, see Program.isCurrent
+     */
+    HashTable<Integer> functionVersions = new HashTable<>();
+
+    /**
+     * Constructor for the definitions
+     * Constructor initializes the function arity table with built in functions and operators and their argument count
+     * Also initializes the standard library functions table with all the built in functions
+     */
+    Definitions() { 
+        addArities();
+
+        for (String function : Symbols.STANDARD_LIBRARY_FUNCTIONS) {
+            standardLibraryFunctions.placeOrUpdate(function, true);
+        }
+    }
+
+    /**
+     * Method adds the operators and the standard library functions and their argument counts to the function arity table
+     */
+    private void addArities() {
+        functionArity.placeOrUpdate("+", 2);
+        functionArity.placeOrUpdate("-", 2);
+        functionArity.placeOrUpdate("*", 2);
+        functionArity.placeOrUpdate("/", 2);
+        functionArity.placeOrUpdate("^", 2);
+        functionArity.placeOrUpdate("%", 2);
+        functionArity.placeOrUpdate("$", 1);
+        functionArity.placeOrUpdate("sqrt", 1);
+        functionArity.placeOrUpdate("log", 1);
+        functionArity.placeOrUpdate("abs", 1);
+        functionArity.placeOrUpdate("cos", 1);
+        functionArity.placeOrUpdate("sin", 1);
+        functionArity.placeOrUpdate("tan", 1);
+        functionArity.placeOrUpdate("max", -1);
+        functionArity.placeOrUpdate("min", -1);
+    }
+
+    /**
+     * Method defines a custom function, the symbols of the body are resolved against the arguments once, see Symbols.resolve
+     * The function gets a new version, so the programs that refer to it are compiled again
+     * @param function name of the function
+     * @param arguments names of the arguments of the function
+     * @param body the body of the function
+     */
+    void define(String function, String[] arguments, ASTNode body) {
+        symbols.resolve(body, arguments);
+        functionArity.placeOrUpdate(function, arguments.length);
+        customFunctionBodies.placeOrUpdate(function, body);
+        customFunctionArguments.placeOrUpdate(function, arguments);
+        functionVersions.placeOrUpdate(function, ++version);
+    }
+
+    /**
+     * Method forgets the variables, custom functions and symbol names defined so far, after that the definitions are like new ones
+     * The tables are only replaced when something has been defined in them, so clearing unused definitions doesn't allocate
+     * The symbol table is replaced instead of emptied, tokens remember their id by the table, so an id of the old table is never used
+     * The version keeps growing, so the programs compiled before are not taken as up to date, see Program.isCurrent
+     */
+    void clear() {
+        if (functionVersions.size() > 0) {
+            functionArity = new HashTable<>();
+            addArities();
+            customFunctionBodies = new HashTable<>();
+            customFunctionArguments = new HashTable<>();
+            functionVersions = new HashTable<>();
+        }
+
+        if (symbols.size() > Symbols.PREDEFINED) {
+            symbols = new Symbols();
+            variables = new Variables();
+        }
+
+        version++;
+    }
+
+    /**
+     * Method checks if the given function or operator accepts the given number of arguments
+     * max and min take any number of arguments, but at least one
+     * @param function the function or operator to check
+     * @param argumentsCount the number of arguments given to the function
+     * @return true if the function accepts the number of arguments or is unknown
+     */
+    boolean acceptsArguments(String function, int argumentsCount) {
+        Integer value = functionArity.get(function);
+        return value == null || value == argumentsCount || value == -1 && argumentsCount != 0;
+    }
+
+    /**
+     * Method returns the version of the custom function of the given name
+     * @param function name of the function
+     * @return the version of the definitions when the function was last defined, or 0 if it is not defined
+     */
+    int functionVersion(String function) {
+        Integer value = functionVersions.get(function);
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * Method checks that the given function or operator has the correct amount of arguments
+     * @param function the function or operator to check
+     * @param argumentsCount the given number of arguments given to the symbol
+     * @throws EvaluatorException if wrong number of arguments
+     */
+    void checkArguments(String function, int argumentsCount) throws EvaluatorException {
+        if (!acceptsArguments(function, argumentsCount)) {
+            // in exceptions we use the concat operator for strings
+            throw new EvaluatorException("Wrong number of arguments for " + function);
+        }
+    }
+
+    /**
+     * Method checks that a custom function can be called with the given number of unfinished calls
+     * @param function the custom function to call
+     * @param depth number of unfinished custom function calls
+     * @throws EvaluatorException if the maximum call depth is reached, e.g., the function calls itself
+     */
+    static void checkCallDepth(String function, int depth) throws EvaluatorException {
+        if (depth >= MAX_CALL_DEPTH) {
+            throw new EvaluatorException("Recursion error: Maximum call depth of " + MAX_CALL_DEPTH + " exceeded in " + function);
+        }
+    }
+}
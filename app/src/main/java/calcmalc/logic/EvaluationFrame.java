@@ -0,0 +1,47 @@
+package calcmalc.logic;
+
+import calcmalc.structures.ASTNode;
+
+/**
+ * Frame on the evaluator's work stack. Contains the state of one node that is being evaluated,
+ * the same state that would otherwise be held in local variables of a recursive call
+ * @author nnecklace
+ */
+final class EvaluationFrame {
+    /**
+     * The node being evaluated
+     */
+    ASTNode node;
+    /**
+     * Index of the next child to evaluate
+     */
+    int child;
+    /**
+     * Index of the first evaluated argument of an operator or a standard library function on the operand stack of the evaluator
+     */
+    int operands;
+    /**
+     * Body of a custom function, null if the node is not a custom function call
+     */
+    ASTNode body;
+    /**
+     * Index of the first argument of a custom function on the argument stack of the evaluator
+     */
+    int base;
+    /**
+     * True once the body of the custom function is being evaluated
+     */
+    boolean inBody;
+
+    /**
+     * Clears the frame so it can be reused and doesn't keep the tree from being garbage collected
+     */
+    void clear() {
+        node = null;
+        child = 0;
+        operands = 0;
+        body = null;
+        base = 0;
+        inBody = false;
+    }
+}
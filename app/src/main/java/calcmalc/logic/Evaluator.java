@@ -1,9 +1,11 @@
 package calcmalc.logic;
 
+import calcmalc.logic.types.Token;
 import calcmalc.structures.ASTNode;
-import calcmalc.structures.HashTable;
+import calcmalc.structures.DoubleStack;
+import calcmalc.structures.List;
 import calcmalc.structures.Queue;
-import calcmalc.structures.Stack;
+import java.util.concurrent.ForkJoinPool;
 
 import calcmalc.exceptions.EvaluatorException;
 
@@ -40,56 +42,7 @@ import calcmalc.exceptions.EvaluatorException;
  */
 public class Evaluator {
     /**
-     * function arity HashTable contains all the operators, and functions encountered so far,
-     * the count of arguments the operator, or functions, is expected to be given
-     * <pre>
-     * <abs, 1>
-     * <max, -1> -1 means unlimited
-     * <+, 2>
-     * </pre>
-     */
-    private HashTable<Integer> functionArity = new HashTable<>();
-    /**
-     * Symbol table, also known as variable table, contains
-     * all variables and their values. Variables are always
-     * evaluated immediatly and their value is stored in this table
-     * Future reuse will just lookup the variable value instead of evaluating it again
-     */
-    private HashTable<Double> symbolTable = new HashTable<>(); 
-    /**
-     * Custom function bodies table works like symbol table. Custom functions have a body.
-     * Functions can't be evaluated immediately, unlike variables, so the function body will be stored in this table
-     * Every time a custom function is called, its body will be retrieved and evaluated with the parameter the function was given
-     * <pre>
-     * 
-     * fn(x) = 1+x:
-     *          ^   this is the body of the custom function
-     * 
-     * </pre>
-     */
-    private HashTable<ASTNode> customFunctionBodies = new HashTable<>();
-    /**
-     * Custom function arguments table contains the arguments (list of symbols given to the function).
-     * Custom functions are given some arguments, as symbols, and these symbols are stored in this hashtable.
-     * The symbols are used when custom functions are evaluated. We need to know what value corresponds to what symbol
-     * <pre>
-     * add(x,y) = x + y:
-     *     ^ ^  these are the symbol arguments for the custom function
-     * 
-     * </pre>
-     * 
-     * Ideally there would be only one hashtable that contains both informations that customFunctionBodies and customFunctionArguments contain
-     */
-    private HashTable<Queue<String>> customFunctionArguments = new HashTable<>();
-    /**
-     * Hashtable contains all the standard library functions, there is no hashset class
-     * so we use hashtable as a hashset. 
-     * Table is meant to quickly check that the standard library functions are not overwritten by the user
-     */
-    private HashTable<Boolean> standardLibraryFunctions = new HashTable<>();
-
-    /**
-     * Hashtable contains all the custom arguments (symbols) and their values
+     * A stack which contains the arguments (context) of the custom functions currently being evaluated
      * This is needed since when custom functions are evaluated they will have some context to what the symbols mean
      * 
      * Example
@@ -104,30 +57,45 @@ public class Evaluator {
      * 
      * </pre>
      * 
-     * In this case the val function will first lookup the current context, which is double
-     * <pre>double -> x -> 1</pre>
-     * In the context of double, x refers to 1, in the global context x refers to 2
-     * Every time a custom function is called, a new entry (or updated) will be made in the contextSymbolTable
-     *<pre> 
-     * double(2)+fn(3)
-     * Two entries will be made
-     * 
-     * double -> x = 2
-     * fn -> val = 3
-     * </pre>
+     * In the body of double the context is [1], x refers to the first argument, so x is 1, in the global context x refers to 2
+     * Symbols in custom function bodies are bound to the index of the argument when the function is defined, see Symbols
+     * So an argument is read from the context by its index, the name is never looked up
+     * If there is no context, or the symbol is not an argument, the symbol is looked up from the global variables
+     * The arguments of all calls are stored in one array, so calling a custom function doesn't allocate, see ArgumentStack
+     */
+    private ArgumentStack contexts = new ArgumentStack();
+    /**
+     * Functions and variables defined so far, shared with the compiler and the virtual machine
+     */
+    private Definitions definitions = new Definitions();
+    /**
+     * Compiler and virtual machine for evaluating compiled programs, see compile and run
+     */
+    private Compiler compiler = new Compiler(definitions);
+    private VirtualMachine machine;
+    /**
+     * Evaluator for trees in an arena made by the parser, see AstArena
+     */
+    private ArenaEvaluator arenaEvaluator;
+    private ParallelEvaluator parallelEvaluator;
+    /**
+     * Program compiled by the latest call of evaluateDouble, reused as long as the same tree is evaluated
      */
-    private HashTable<HashTable<Double>> contextSymbolTable = new HashTable<>();
+    private Program program;
     /**
-     * A stack which contains the current context the function is in
-     * if the stack is empty every symbol lookup will be in the global context
-     * Otherwise it will first lookup the symbol from some function context and if that fails
-     * It will then look it up in the global context
+     * Work stack of the evaluator, contains a frame for every node that is currently being evaluated
+     * Frames are reused, the stack only grows when a tree deeper than any before it is evaluated
      */
-    private Stack<String> contexts = new Stack<>();
+    private List<EvaluationFrame> frames = new List<>();
     /**
-     * Static variable to display that the result is not a real number
+     * Number of frames currently in use, i.e., the top of the work stack
      */
-    private static final double NAN = 0.0d / 0.0;
+    private int depth;
+    /**
+     * Evaluated values that haven't been used yet, e.g., the evaluated arguments of the operators on the work stack
+     * Values are kept as doubles, so evaluating a tree doesn't box every intermediate value
+     */
+    private DoubleStack operands = new DoubleStack();
 
     /**
      * Basic string concat function
@@ -156,68 +124,58 @@ public class Evaluator {
     }
 
     /**
-     * Constructor for the Evaluator
-     * Constructor initializes the function arity table with built in functions and operators and their argument count
-     * Also initializes the standard library functions table with all the built in functions
+     * Checks if the given symbol (variable) has been defined during runtime, and pushes its value on the operand stack
+     * Arguments are read from the context of the custom function being evaluated, other symbols from the global variables
+     * @param token The token to check for
+     * @return true if the value of the symbol was pushed, false if the token is unknown
      */
-    public Evaluator() { 
-        functionArity.placeOrUpdate("+", 2);
-        functionArity.placeOrUpdate("-", 2);
-        functionArity.placeOrUpdate("*", 2);
-        functionArity.placeOrUpdate("/", 2);
-        functionArity.placeOrUpdate("^", 2);
-        functionArity.placeOrUpdate("%", 2);
-        functionArity.placeOrUpdate("$", 1);
-        functionArity.placeOrUpdate("sqrt", 1);
-        functionArity.placeOrUpdate("log", 1);
-        functionArity.placeOrUpdate("abs", 1);
-        functionArity.placeOrUpdate("cos", 1);
-        functionArity.placeOrUpdate("sin", 1);
-        functionArity.placeOrUpdate("tan", 1);
-        functionArity.placeOrUpdate("max", -1);
-        functionArity.placeOrUpdate("min", -1);
-
-        standardLibraryFunctions.placeOrUpdate("sqrt", true);
-        standardLibraryFunctions.placeOrUpdate("log", true);
-        standardLibraryFunctions.placeOrUpdate("abs", true);
-        standardLibraryFunctions.placeOrUpdate("cos", true);
-        standardLibraryFunctions.placeOrUpdate("sin", true);
-        standardLibraryFunctions.placeOrUpdate("tan", true);
-        standardLibraryFunctions.placeOrUpdate("max", true);
-        standardLibraryFunctions.placeOrUpdate("min", true);
+    private boolean checkSymbolAndContextTable(Token token) {
+        if (contexts.inContext() && token.getArgument() >= 0) {
+            operands.push(contexts.argument(token.getArgument()));
+            return true;
+        }
+
+        int id = definitions.symbols.id(token);
+
+        if (definitions.variables.isDefined(id)) {
+            operands.push(definitions.variables.get(id));
+            return true;
+        }
+
+        return false;
     }
 
     /**
-     * Method checks that the given function or operator has the correct amount of arguments
-     * @param function the function or operator to check
-     * @param argumentsCount the given number of arguments given to the symbol
-     * @throws EvaluatorException if wrong number of arguments
+     * Constructor for the Evaluator
      */
-    private void checkArguments(String function, int argumentsCount) throws EvaluatorException {
-        Integer value = functionArity.get(function);
-        if (value != null && value != argumentsCount && value != -1) {
-            // in exceptions we use the concat operator for strings
-            throw new EvaluatorException("Wrong number of arguments for " + function);
-        }
+    public Evaluator() {
+        this(JitCompiler.THRESHOLD);
     }
 
     /**
-     * Checks if the given symbol (variable) has been defined during runtime
-     * @param token The token to check for
-     * @return the value associated with the symbol or null if the token is unknown
+     * Constructor for the Evaluator
+     * @param jitThreshold number of calls after which a custom function is compiled into JVM bytecode
      */
-    private Double checkSymbolAndContextTable(String token) {
-        Double symbolValue = null;
-        if (!contexts.isEmpty()) {
-            HashTable<Double> contextTable = contextSymbolTable.get(contexts.peek());
-            symbolValue = contextTable.get(token);
-        }
+    Evaluator(int jitThreshold) {
+        machine = new VirtualMachine(definitions, compiler, new JitCompiler(jitThreshold));
+        arenaEvaluator = new ArenaEvaluator(definitions, compiler, machine);
+        parallelEvaluator = new ParallelEvaluator(definitions, jitThreshold, ParallelEvaluator.THRESHOLD);
+    }
 
-        if (symbolValue == null) {
-            symbolValue = symbolTable.get(token);
-        }
+    /**
+     * Getter for the definitions of the evaluator
+     * @return the functions and variables defined so far
+     */
+    Definitions definitions() {
+        return definitions;
+    }
 
-        return symbolValue;
+    /**
+     * Method forgets the variables and custom functions defined so far, the evaluator is then like a new one, see Definitions.clear
+     */
+    public void reset() {
+        definitions.clear();
+        compiler.clear();
     }
 
     /**
@@ -229,162 +187,61 @@ public class Evaluator {
      * @throws EvaluatorException if symbol is unknown or a function was given an incorrect number of arguments
      */
     public <N extends Number> double evaluateStlFunction(String token, Queue<N> arguments) throws EvaluatorException {
-        checkArguments(token, arguments.size());
+        definitions.checkArguments(token, arguments.size());
+        // only the first two arguments are used, the same way as when the arguments are on the operand stack
+        int count = Math.min(arguments.size(), 2);
+
+        for (int i = 0; i < count; ++i) {
+            operands.push(arguments.dequeue().doubleValue());
+        }
+
+        return evaluateStlFunction(token, count);
+    }
+
+    /**
+     * Method evaluates the given token with the arguments on top of the operand stack, the arguments are popped
+     * At most two arguments are on the operand stack, max and min are evaluated two arguments at a time, check evaluate method for explanation
+     * @param token the token to be evaluated
+     * @param count number of arguments on the operand stack, at most two
+     * @return Whatever result the symbol represents with the given arguments
+     * @throws EvaluatorException if symbol is unknown or a function was given an incorrect number of arguments
+     */
+    private double evaluateStlFunction(String token, int count) throws EvaluatorException {
+        definitions.checkArguments(token, count);
+        // unknown symbols are evaluated without arguments
+        double right = count > 0 ? operands.pop() : 0;
+        double left = count == 2 ? operands.pop() : right;
+
         switch (token) {
             case "*":
-                return arguments.dequeue().doubleValue() * arguments.dequeue().doubleValue();
+                return left * right;
             case "+":
-                return arguments.dequeue().doubleValue() + arguments.dequeue().doubleValue();
+                return left + right;
             case "/":
-                return arguments.dequeue().doubleValue() / arguments.dequeue().doubleValue();
+                return left / right;
             case "-":
-                return arguments.dequeue().doubleValue() - arguments.dequeue().doubleValue();
+                return left - right;
             case "$":
-                return -arguments.dequeue().doubleValue();
+                return -right;
             case "%":
-                return arguments.dequeue().doubleValue() % arguments.dequeue().doubleValue();
+                return left % right;
             case "^":
-                return pow(arguments.dequeue().doubleValue(), arguments.dequeue().doubleValue());
+                return MathFunctions.pow(left, right);
             case "sqrt":
-                return Math.sqrt(arguments.dequeue().doubleValue()); // check custom square root function for reason why we use this
+                return Math.sqrt(right); // check custom square root function for reason why we use this
             case "log":
-                return Math.log(arguments.dequeue().doubleValue()); // check custom log function for reason of why we use this
+                return Math.log(right); // check custom log function for reason of why we use this
             case "abs":
-                return abs(arguments.dequeue().doubleValue());
+                return MathFunctions.abs(right);
             case "max":
-                return minOrMax("max", arguments);
+                return count == 1 ? right : MathFunctions.max(left, right);
             case "min":
-                return minOrMax("min", arguments);
+                return count == 1 ? right : MathFunctions.min(left, right);
             default:
                 throw new EvaluatorException("Unknown Symbol " + token);
         }
     }
 
-    /**
-     * Method is helper function to determine of or max value of the arguments
-     * @param <N> Let N be any java number type
-     * @param minOrMax string to determine if the method should evaluate min or max of the arguments
-     * @param arguments the arguments queue, at this point the arguments queue will only contain at most two parameters
-     *                  check evaluate method for explanation
-     * @return the max or min of the arguments
-     */
-    private <N extends Number> double minOrMax(String minOrMax, Queue<N> arguments) {
-        if (arguments.size() == 1) {
-            return arguments.dequeue().doubleValue();
-        } else {
-            if (minOrMax.equals("min")) {
-                return min(arguments.dequeue().doubleValue(), arguments.dequeue().doubleValue());
-            }
-            return max(arguments.dequeue().doubleValue(), arguments.dequeue().doubleValue());
-        }
-    }
-
-    /**
-     * A basic max function that returns the maximum value of the arguments
-     * @param n left number
-     * @param m right number
-     * @return the greater of the two
-     */
-    private double max(double n, double m) {
-        return n > m ? n : m;
-    }
-
-    /**
-     * A basic min function that returns the minimum value of the arguments
-     * @param n left number
-     * @param m right number
-     * @return the lesser of the two
-     */
-    private double min(double n, double m) {
-        return n < m ? n : m;
-    }
-
-    /**
-     * A function for calculating the squre root of a positive number
-     * currently not in use since it is much less accurate than the java's standard sqrt
-     * testing and verifying correct results become difficult. Performance is not an issue, but accuracy is
-     * @param n the number to find the squre root of
-     * @return the square root of the param number
-     */
-    private double sqrt(double n) {
-        if (n < 0.0) {
-            return NAN;
-        }
-
-        if (n == 0.0) {
-            return 0.0;
-        }
-
-        double x = n;
-        double root;
-        // newtons method
-        while (true) {  
-            root = 0.5 * (x + n / x);  
-            if (abs(root - x) < 1) {
-                break;
-            }
-            x = root;  
-        }  
-        
-        return root;
-    }
-
-    /**
-     * Highly inaccurate implementation of logarithm function. 
-     * Function uses Taylor series expansion to converge the natural logarithm. Very slow
-     * For log(100) takes about 42 seconds to compute. Practically unsuable and also very inaccurate.
-     * https://www.efunda.com/math/taylor_series/logarithmic.cfm 
-     * @param n the logarithm of the value
-     * @return the natural log of param value
-     */
-    private double log(double n) {
-        int precision = 1000;
-        double ln = 0.0;
-        for (int i = 1; i <= precision; i = i + 2) {
-            ln += ((1.0 / i) * pow((n - 1) / (n + 1), i));
-        }
-
-        return 2 * ln;
-    }
-
-    /**
-     * Calculates the exponential value of a number. Doesn't calculate fractional exponenets.
-     * @param n base value
-     * @param e the exponent value
-     * @return n^e
-     */
-    private double pow(double n, double e) {
-        // we don't handle fractional exponents :(
-        if (e % 1 != 0) {
-            return NAN;
-        }
-
-        double result = 1.0;
-
-        if (e == 0.0) {
-            return result;
-        }
-
-        for (int i = 0; i < abs(e); ++i) {
-            result *= n;
-        }
-
-        if (e < 0.0) {
-            return 1.0 / result;
-        } 
-
-        return result;
-    }
-
-    /**
-     * A method that returns the absolute value of the argument passed
-     * @param n the number to absolute
-     * @return the absolute value of the argument
-     */
-    private double abs(double n) {
-        return n > 0 ? n : -n;
-    }
-
     /**
      * Method evaluates an assignment ASTNode and returns a string representation of the variable or custom functio that was created
      * 
@@ -406,7 +263,8 @@ public class Evaluator {
      * </pre>
      * @param node any assignment node
      * @return string representation of the variable. E.g., x=2 => {@literal <}assignment:x{@literal >}
-     * @throws EvaluatorException if assignment cannot be evaluated or the custom function was given illegal arguments
+     * @throws EvaluatorException if assignment cannot be evaluated, the custom function was given illegal arguments
+     * or the custom function has the name of a standard library function, which are always called before custom functions
      */
     public String evaluateAssignment(ASTNode node) throws EvaluatorException {
         if (node.children().size() < 2) {
@@ -417,35 +275,199 @@ public class Evaluator {
         String symbolName = symbol.token().getKey();
 
         if (symbol.token().isFunction()) {
-            Queue<String> argumentSymbols = new Queue<>();
+            if (definitions.standardLibraryFunctions.get(symbolName) != null) {
+                throw new EvaluatorException(concat("Assignment error: Cannot redefine standard library function ", symbolName, ""));
+            }
 
             int size = symbol.children().size();
+            String[] argumentSymbols = new String[size];
 
             for (int i = 0; i < size; ++i) {
                 ASTNode child = symbol.children().get(i);
                 if (!child.token().isSymbol()) {
                     throw new EvaluatorException("Custom function arguments have to be symbols");
                 }
-                argumentSymbols.enqueue(child.token().getKey());
+                argumentSymbols[i] = child.token().getKey();
             }
 
-            functionArity.placeOrUpdate(symbolName, size);
-            customFunctionBodies.placeOrUpdate(symbolName, node.children().get(1));
-            customFunctionArguments.placeOrUpdate(symbolName, argumentSymbols);
-
+            definitions.define(symbolName, argumentSymbols, node.children().get(1));
         } else {
-            symbolTable.placeOrUpdate(
-                symbolName,
+            definitions.variables.set(
+                definitions.symbols.id(symbol.token()),
                 evaluate(node.children().get(1)).doubleValue()
             );
         }
 
-
         return concat("<assignment:", symbolName, ">");
     }
 
+    /**
+     * Method evaluates a given AST tree structure and returns the result of the expression the tree represents.
+     * <pre>
+     *      +
+     *     / \    ==>   5
+     *    2   3
+     * 
+     * </pre>
+     * All leaves in the tree should, and must, be a value. Meaning that all leaves are either variables or numbers.
+     * Post order traversal is used when traversing the tree.
+     * The traversal doesn't recurse, every node that is being evaluated has a frame on an explicit work stack
+     * So the depth of the tree is not limited by the size of the thread stack
+     * The frames are reused between evaluations
+     * @param node the root node of the AST tree
+     * @return The result of the expression the AST tree represents.
+     * @throws EvaluatorException if evaluation fails
+     */
+    public Number evaluate(ASTNode node) throws EvaluatorException {
+        int base = depth;
+        int argumentsAtStart = contexts.size();
+        int contextsAtStart = contexts.contexts();
+        int operandsAtStart = operands.size();
+
+        try {
+            boolean value = start(node);
+
+            while (depth > base) {
+                EvaluationFrame frame = frames.get(depth - 1);
+
+                if (value) {
+                    accept(frame);
+                }
+
+                if (frame.child < frame.node.children().size()) {
+                    value = start(frame.node.children().get(frame.child++));
+                } else if (frame.body != null && !frame.inBody) {
+                    // all arguments of the custom function have been evaluated, evaluate the body in the function's context
+                    contexts.enter(frame.base);
+                    frame.inBody = true;
+                    value = start(frame.body);
+                } else {
+                    finish(frame);
+                    value = true;
+                }
+            }
+
+            return operands.pop();
+        } catch (EvaluatorException | RuntimeException e) {
+            // drop the frames and contexts of the failed evaluation so the evaluator can be used again
+            while (depth > base) {
+                frames.get(--depth).clear();
+            }
+            contexts.reset(argumentsAtStart, contextsAtStart);
+            while (operands.size() > operandsAtStart) {
+                operands.pop();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Method evaluates the AST tree into a double, without boxing any numbers
+     * The tree is compiled into a program and run on the virtual machine, see compile and run
+     * The program is kept, so evaluating the same tree again, e.g., after a variable has changed, doesn't allocate anything
+     * Gives the same result, and throws the same errors, as evaluate
+     * @param node the root node of the AST tree
+     * @return The result of the expression the AST tree represents.
+     * @throws EvaluatorException if evaluation fails
+     */
+    public double evaluateDouble(ASTNode node) throws EvaluatorException {
+        if (program == null || program.root != node) {
+            program = compiler.compile(node);
+        }
+
+        return machine.run(program);
+    }
+
+    /**
+     * Method evaluates a tree in an arena made by the parser, see Parser.parseArena
+     * The arena is walked directly, no objects are made for the nodes and no numbers are boxed
+     * Gives the same result, and throws the same errors, as evaluating the ASTNode tree the parser would have made
+     * @param arena the arena containing the tree
+     * @param root index of the root node of the tree, e.g., popped from the roots of the arena
+     * @return The result of the expression the tree represents.
+     * @throws EvaluatorException if evaluation fails
+     */
+    public double evaluate(AstArena arena, int root) throws EvaluatorException {
+        arena.bind(definitions.symbols);
+        return arenaEvaluator.evaluate(arena, root);
+    }
+
+    /**
+     * Method evaluates a tree in an arena in parallel, large trees are cut into subtrees that are evaluated on the pool, see ParallelEvaluator
+     * Gives the same result, and throws the same errors, as evaluate(AstArena, int)
+     * @param arena the arena containing the tree
+     * @param root index of the root node of the tree
+     * @param pool the pool the subtrees are evaluated on
+     * @return The result of the expression the tree represents.
+     * @throws EvaluatorException if evaluation fails
+     */
+    public double evaluateParallel(AstArena arena, int root, ForkJoinPool pool) throws EvaluatorException {
+        arena.bind(definitions.symbols);
+        return parallelEvaluator.evaluate(arena, root, pool);
+    }
+
+    /**
+     * Method compiles the given AST tree into a program, the program gives the same result as evaluating the tree
+     * A program is compiled once and can be run any number of times without allocating, see Program
+     * @param node the root node of the AST tree
+     * @return the compiled program
+     */
+    public Program compile(ASTNode node) {
+        return compiler.compile(node);
+    }
+
+    /**
+     * Method runs a compiled program and returns the result of the expression the program was compiled from
+     * Programs can be run after variables have been assigned or functions defined, the current definitions are always used
+     * @param program the program to run
+     * @return The result of the expression
+     * @throws EvaluatorException if evaluation fails
+     */
+    public double run(Program program) throws EvaluatorException {
+        return machine.run(program);
+    }
+
+    /**
+     * Method starts evaluating a node
+     * Numbers and known variables are values right away and are pushed on the operand stack, all other nodes get a frame on the work stack
+     * Custom function calls are checked here, before their arguments are evaluated
+     * @param node the node to start evaluating
+     * @return true if the node is a leaf and its value was pushed on the operand stack, otherwise false
+     * @throws EvaluatorException if the node is an assignment or an unknown function
+     */
+    private boolean start(ASTNode node) throws EvaluatorException {
+        if (node.token().isAssignment()) {
+            throw new EvaluatorException("Can't assign values in expressions, values must be assigned before or after expressions");
+        }
+
+        String nodeTokenKey = node.token().getKey();
+
+        if (node.token().isNumber()) {
+            operands.push(node.token().getValue());
+            return true;
+        }
+
+        // Node is a leaf symbol
+        if (node.token().isSymbol() && 
+            !Symbols.isStandardLibraryFunction(definitions.symbols.id(node.token())) && 
+            checkSymbolAndContextTable(node.token())) {
+            return true;
+        }
+
+        EvaluationFrame frame = push(node);
+
+        if (node.token().isFunction() && definitions.standardLibraryFunctions.get(nodeTokenKey) == null) {
+            startCustomFunction(frame);
+        } else {
+            frame.operands = operands.size();
+        }
+
+        return false;
+    }
+
     /**
      * Method tries to evaluate custom fuction calls. Custom functions are user made functions and don't exist in the stl hashtable.
+     * This method checks the call and prepares the frame, the arguments and the body are evaluated by the work loop in evaluate
      * 
      * Example
      * <pre>
@@ -457,104 +479,82 @@ public class Evaluator {
      * 
      * FunctionBodyTable double -> [x*2]
      * Node children 5
-     * Function Arguments table double -> [x]
-     * context table double -> x = 2
+     * Function Arguments table double -> [x], x in the body is bound to argument 0
+     * context [2]
      * 
      * Function body  =>   *
      *                    / \   =>  2*2 => 4
      *                   x   2                 
      * </pre>
-     * @param node custom function node
-     * @return result of the evaluated body of the custom function
-     * @throws EvaluatorException if the function is unknown, i.e., doesn't have a function body
+     * @param frame frame of the custom function node
+     * @throws EvaluatorException if the function is unknown, i.e., doesn't have a function body, or the maximum call depth is reached
      */
-    private Number evaluateCustomFunction(ASTNode node) throws EvaluatorException {
-        String functionName = node.token().getKey();
+    private void startCustomFunction(EvaluationFrame frame) throws EvaluatorException {
+        String functionName = frame.node.token().getKey();
 
-        checkArguments(functionName, node.children().size());
+        definitions.checkArguments(functionName, frame.node.children().size());
+        Definitions.checkCallDepth(functionName, contexts.contexts());
 
-        ASTNode body = customFunctionBodies.get(functionName);
+        frame.body = definitions.customFunctionBodies.get(functionName);
 
-        if (body == null) {
+        if (frame.body == null) {
             throw new EvaluatorException("Unknown function " + functionName);
         }
 
-        // This hack is made because java always retrieves class by reference so when we dequeue
-        // from argumentSymbols we actually change the queue that is stored inside the Hashtable
-        // we solve this by making a new queue and adding each symbol to it so it can be reused later
-        // we add this new queue argumentSymbolsAgain to the Hashtable.
-        // argumentSymbols and arguments will always be the same length.
-        // checkArguments function will detect if the function was given incorrect amount of arguments
-        Queue<String> argumentSymbolsAgain = new Queue<>();
-        Queue<String> argumentSymbols = customFunctionArguments.get(functionName);
-        HashTable<Double> contextTableEntry = new HashTable<>();
-
-        for (int i = 0; i < node.children().size(); ++i) {
-            String argumentSymbol = argumentSymbols.dequeue();
-            contextTableEntry.placeOrUpdate(argumentSymbol, evaluate(node.children().get(i)).doubleValue());
-            argumentSymbolsAgain.enqueue(argumentSymbol);
-        }
-
-        contextSymbolTable.placeOrUpdate(functionName, contextTableEntry);
-        customFunctionArguments.placeOrUpdate(functionName, argumentSymbolsAgain);
-
-        contexts.push(functionName);
-        Double result = (double) evaluate(body);
-        contexts.pop();
-
-        return result;
+        // the arguments are stored on the argument stack in the order they are given,
+        // the symbols in the body were bound to the argument indices when the function was defined
+        frame.base = contexts.allocate(frame.node.children().size());
     }
 
     /**
-     * Method evaluates a given AST tree structure and returns the result of the expression the tree represents.
-     * <pre>
-     *      +
-     *     / \    ==>   5
-     *    2   3
-     * 
-     * </pre>
-     * All leaves in the tree should, and must, be a value. Meaning that all leaves are either variables or numbers.
-     * Post order traversal is used when traversing the tree.
-     * @param node the root node of the AST tree
-     * @return The result of the expression the AST tree represents.
-     * @throws EvaluatorException if evaluation fails
+     * Method gives the frame the value of its latest evaluated child, or the value of the function body for custom functions
+     * The value is on top of the operand stack, arguments of operators and standard library functions are left there
+     * Arguments of max and min are evaluated two at a time, in this case the function takes more than two arguments
+     * @param frame the frame the value belongs to
+     * @throws EvaluatorException if an operator or function was given an incorrect number of arguments
      */
-    public Number evaluate(ASTNode node) throws EvaluatorException {
-        if (node.token().isAssignment()) {
-            throw new EvaluatorException("Can't assign values in expressions, values must be assigned before or after expressions");
+    private void accept(EvaluationFrame frame) throws EvaluatorException {
+        if (frame.inBody) {
+            // the value of the body is the value of the call, it stays on the operand stack
+            return;
         }
 
-        String nodeTokenKey = node.token().getKey();
-
-        if (node.token().isNumber()) {
-            return Double.parseDouble(nodeTokenKey);
-        }
-
-        // Node is a leaf symbol
-        if (node.token().isSymbol() && standardLibraryFunctions.get(nodeTokenKey) == null) {
-            Double possibleValue = checkSymbolAndContextTable(nodeTokenKey);
-            if (possibleValue != null) {
-                return possibleValue;
-            }
+        if (frame.body != null) {
+            contexts.set(frame.base + frame.child - 1, operands.pop());
+        } else if (operands.size() - frame.operands == 2 && frame.child < frame.node.children().size()) {
+            // evaluate max and min two arguments at a time
+            operands.push(evaluateStlFunction(frame.node.token().getKey(), 2));
         }
+    }
 
-        if (node.token().isFunction() && standardLibraryFunctions.get(nodeTokenKey) == null) {
-            return evaluateCustomFunction(node);
+    /**
+     * Method finishes the evaluation of the node on top of the work stack and pops its frame
+     * The value of the node is pushed on the operand stack
+     * @param frame the frame on top of the work stack
+     * @throws EvaluatorException if the node is an unknown symbol or was given an incorrect number of arguments
+     */
+    private void finish(EvaluationFrame frame) throws EvaluatorException {
+        if (frame.inBody) {
+            contexts.leave();
+        } else {
+            operands.push(evaluateStlFunction(frame.node.token().getKey(), operands.size() - frame.operands));
         }
 
-        Queue<Number> arguments = new Queue<>();
+        frames.get(--depth).clear();
+    }
 
-        for (int i = 0; i < node.children().size(); ++i) {
-            arguments.enqueue(evaluate(node.children().get(i)));
-            if (arguments.size() == 2 && i < (node.children().size() - 1)) {
-                // evaluate max and min two arguments at a time
-                // in this case the function takes more than two arguments
-                arguments.enqueue(
-                    evaluateStlFunction(node.token().getKey(), arguments)
-                );
-            }
+    /**
+     * Method pushes a frame for the node on the work stack, frames are reused
+     * @param node the node to evaluate
+     * @return the frame of the node
+     */
+    private EvaluationFrame push(ASTNode node) {
+        if (depth == frames.size()) {
+            frames.append(new EvaluationFrame());
         }
 
-        return evaluateStlFunction(node.token().getKey(), arguments);
+        EvaluationFrame frame = frames.get(depth++);
+        frame.node = node;
+        return frame;
     }
 }
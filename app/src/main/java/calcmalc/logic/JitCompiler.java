@@ -0,0 +1,462 @@
+package calcmalc.logic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+
+import calcmalc.structures.HashTable;
+
+/**
+ * Jit (just in time) compiler compiles the bodies of hot custom functions into JVM bytecode
+ * The virtual machine counts how many times each custom function is called, once a function has been called
+ * threshold times its body is compiled into a hidden class, and after that the virtual machine calls the compiled code directly
+ * The JVM then compiles the hidden class into machine code like any other class
+ *
+ * Example
+ * <pre>
+ * double(x) = 2*x:
+ *
+ * CONSTANT 0       ldc2_w 2.0
+ * ARGUMENT 0  =>   aload_1, iload_2, ldc_w 0, iadd, daload
+ * MUL              dmul
+ * RETURN           dreturn
+ * </pre>
+ * The class file is written by hand, since it only ever contains a constructor and one method without branches
+ * A FAIL instruction always throws, so the method throws the error and ends there, the rest of the body is never run
+ * Only functions that don't call other custom functions are compiled, other functions stay in the virtual machine
+ * Compiled functions don't have to be invalidated separately, when a name the function refers to is defined as a function
+ * the compiler compiles a new program and the old program, and its hidden class, is garbage collected
+ * Functions that don't refer to the name keep their compiled code
+ * @author nnecklace
+ */
+final class JitCompiler {
+    /**
+     * Number of calls after which a custom function is compiled
+     */
+    static final int THRESHOLD = 1000;
+
+    /**
+     * Name of the generated class, hidden classes get a unique name when they are defined
+     */
+    private static final String CLASS_NAME = "calcmalc/logic/JitFunction";
+    private static final String SUPER_NAME = "calcmalc/logic/CompiledFunction";
+    private static final String MATH_FUNCTIONS = "calcmalc/logic/MathFunctions";
+
+    /**
+     * Number of calls after which a custom function is compiled
+     */
+    private final int threshold;
+    /**
+     * Lookup of this package, hidden classes are defined in this package so they can extend CompiledFunction
+     */
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    /**
+     * Constant pool of the class being written, the pool is written as entries are added and entries are never added twice
+     */
+    private ByteArrayOutputStream pool;
+    private DataOutputStream poolOutput;
+    private HashTable<Integer> poolEntries;
+    private int poolSize;
+
+    /**
+     * Constructor for the jit compiler
+     * @param threshold number of calls after which a custom function is compiled
+     */
+    JitCompiler(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Method counts a call to a custom function and compiles the function when it becomes hot
+     * @param function the compiled body of the custom function
+     * @param definitions the definitions the function is run with
+     * @return true if the function has been compiled into bytecode
+     */
+    boolean call(Program function, Definitions definitions) {
+        if (function.calls < threshold && ++function.calls == threshold) {
+            function.compiled = compile(function, definitions);
+        }
+
+        return function.compiled != null;
+    }
+
+    /**
+     * Method compiles the body of a custom function into a hidden class
+     * @param function the compiled body of the custom function
+     * @param definitions the definitions the function is run with
+     * @return the compiled function, or null if the function can't be compiled
+     */
+    CompiledFunction compile(Program function, Definitions definitions) {
+        if (!isCompilable(function)) {
+            return null;
+        }
+
+        try {
+            Class<?> hidden = lookup.defineHiddenClass(write(function), true).lookupClass();
+            CompiledFunction compiled = (CompiledFunction) hidden.getDeclaredConstructor().newInstance();
+            compiled.link(definitions, function.strings);
+            return compiled;
+        } catch (ReflectiveOperationException | IOException e) {
+            // the function stays in the virtual machine if the class can't be instantiated
+            // a class the JVM refuses, e.g., with a VerifyError, is a bug of the jit compiler and is not hidden
+            return null;
+        }
+    }
+
+    /**
+     * Method checks if the function body can be compiled, i.e., doesn't call other custom functions
+     * @param function the compiled body of the custom function
+     * @return true if the body can be compiled
+     */
+    private boolean isCompilable(Program function) {
+        int[] code = function.code;
+        int position = 0;
+
+        while (position < code.length) {
+            if (code[position] == Program.CALL) {
+                return false;
+            }
+
+            position += 1 + operands(code[position]);
+        }
+
+        return true;
+    }
+
+    /**
+     * Method returns the number of operands an opcode has
+     * @param opcode the opcode
+     * @return number of operands
+     */
+    private int operands(int opcode) {
+        switch (opcode) {
+            case Program.LOAD:
+                return 2;
+            case Program.CONSTANT:
+            case Program.ARGUMENT:
+            case Program.CALL:
+            case Program.FAIL:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Method writes the class file of the hidden class
+     * The class extends CompiledFunction and has a constructor and the apply method
+     * @param function the compiled body of the custom function
+     * @return the class file
+     * @throws IOException never, the class is written to memory
+     */
+    private byte[] write(Program function) throws IOException {
+        pool = new ByteArrayOutputStream();
+        poolOutput = new DataOutputStream(pool);
+        poolEntries = new HashTable<>();
+        poolSize = 1;
+
+        ByteArrayOutputStream methods = new ByteArrayOutputStream();
+        DataOutputStream methodsOutput = new DataOutputStream(methods);
+        int thisClass = classEntry(CLASS_NAME);
+        int superClass = classEntry(SUPER_NAME);
+
+        writeMethod(methodsOutput, "<init>", "()V", 1, 1, constructor());
+        writeMethod(methodsOutput, "apply", "([DI)D", 2 * function.maxStack + 4, 3, apply(function));
+
+        ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(classFile);
+        output.writeInt(0xCAFEBABE);
+        output.writeShort(0);
+        output.writeShort(59); // java 15
+        output.writeShort(poolSize);
+        pool.writeTo(output);
+        output.writeShort(0x0010 | 0x0020); // final, super
+        output.writeShort(thisClass);
+        output.writeShort(superClass);
+        output.writeShort(0); // interfaces
+        output.writeShort(0); // fields
+        output.writeShort(2); // methods
+        methods.writeTo(output);
+        output.writeShort(0); // attributes
+        return classFile.toByteArray();
+    }
+
+    /**
+     * Method writes a public method with a code attribute
+     * @param output the methods of the class file
+     * @param name name of the method
+     * @param descriptor descriptor of the method
+     * @param maxStack largest size of the operand stack, doubles take two slots
+     * @param maxLocals number of local variable slots, including this
+     * @param code the bytecode of the method
+     * @throws IOException never, the class is written to memory
+     */
+    private void writeMethod(DataOutputStream output, String name, String descriptor, int maxStack, int maxLocals, byte[] code) throws IOException {
+        output.writeShort(0x0001); // public
+        output.writeShort(utf8Entry(name));
+        output.writeShort(utf8Entry(descriptor));
+        output.writeShort(1);
+        output.writeShort(utf8Entry("Code"));
+        output.writeInt(12 + code.length);
+        output.writeShort(maxStack);
+        output.writeShort(maxLocals);
+        output.writeInt(code.length);
+        output.write(code);
+        output.writeShort(0); // exception table
+        output.writeShort(0); // attributes
+    }
+
+    /**
+     * Method writes the bytecode of the constructor, which calls the constructor of CompiledFunction
+     * @return the bytecode
+     * @throws IOException never, the class is written to memory
+     */
+    private byte[] constructor() throws IOException {
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(code);
+        output.writeByte(0x2a); // aload_0
+        output.writeByte(0xb7); // invokespecial
+        output.writeShort(methodEntry(SUPER_NAME, "<init>", "()V"));
+        output.writeByte(0xb1); // return
+        return code.toByteArray();
+    }
+
+    /**
+     * Method writes the bytecode of the apply method, double apply(double[] values, int base)
+     * Every instruction of the function body becomes one or more JVM instructions, the JVM operand stack replaces the value stack
+     * The method ends at the first FAIL instruction, which throws, so the operands left on the stack never need a larger stack
+     * @param function the compiled body of the custom function
+     * @return the bytecode
+     * @throws IOException never, the class is written to memory
+     */
+    private byte[] apply(Program function) throws IOException {
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(code);
+        int[] instructions = function.code;
+        int position = 0;
+
+        while (position < instructions.length) {
+            int opcode = instructions[position];
+
+            if (opcode == Program.RETURN) {
+                output.writeByte(0xaf); // dreturn
+                break;
+            }
+
+            if (opcode == Program.FAIL) {
+                output.writeByte(0x2a); // aload_0
+                writeInt(output, instructions[position + 1]);
+                writeInvoke(output, 0xb6, SUPER_NAME, "fail", "(I)Lcalcmalc/exceptions/EvaluatorException;");
+                output.writeByte(0xbf); // athrow
+                break;
+            }
+
+            writeInstruction(output, function, opcode, position + 1);
+            position += 1 + operands(opcode);
+        }
+
+        return code.toByteArray();
+    }
+
+    /**
+     * Method writes the JVM instructions of one instruction of the function body
+     * @param output the bytecode of the apply method
+     * @param function the compiled body of the custom function
+     * @param opcode the instruction
+     * @param operand position of the first operand of the instruction
+     * @throws IOException never, the class is written to memory
+     */
+    private void writeInstruction(DataOutputStream output, Program function, int opcode, int operand) throws IOException {
+        int[] code = function.code;
+
+        switch (opcode) {
+            case Program.CONSTANT:
+                output.writeByte(0x14); // ldc2_w
+                output.writeShort(doubleEntry(function.constants[code[operand]]));
+                break;
+            case Program.ARGUMENT:
+                output.writeByte(0x2b); // aload_1
+                output.writeByte(0x1c); // iload_2
+                writeInt(output, code[operand]);
+                output.writeByte(0x60); // iadd
+                output.writeByte(0x31); // daload
+                break;
+            case Program.LOAD:
+                output.writeByte(0x2a); // aload_0
+                writeInt(output, code[operand]);
+                writeInt(output, code[operand + 1]);
+                writeInvoke(output, 0xb6, SUPER_NAME, "load", "(II)D");
+                break;
+            default:
+                writeOperation(output, opcode);
+        }
+    }
+
+    /**
+     * Method writes the JVM instruction of an operator or standard library function
+     * @param output the bytecode of the apply method
+     * @param opcode the operator or function
+     * @throws IOException never, the class is written to memory
+     */
+    private void writeOperation(DataOutputStream output, int opcode) throws IOException {
+        switch (opcode) {
+            case Program.ADD:
+                output.writeByte(0x63); // dadd
+                break;
+            case Program.SUB:
+                output.writeByte(0x67); // dsub
+                break;
+            case Program.MUL:
+                output.writeByte(0x6b); // dmul
+                break;
+            case Program.DIV:
+                output.writeByte(0x6f); // ddiv
+                break;
+            case Program.MOD:
+                output.writeByte(0x73); // drem
+                break;
+            case Program.NEG:
+                output.writeByte(0x77); // dneg
+                break;
+            case Program.POW:
+                writeInvoke(output, 0xb8, MATH_FUNCTIONS, "pow", "(DD)D");
+                break;
+            case Program.MAX:
+                writeInvoke(output, 0xb8, MATH_FUNCTIONS, "max", "(DD)D");
+                break;
+            case Program.MIN:
+                writeInvoke(output, 0xb8, MATH_FUNCTIONS, "min", "(DD)D");
+                break;
+            case Program.ABS:
+                writeInvoke(output, 0xb8, MATH_FUNCTIONS, "abs", "(D)D");
+                break;
+            case Program.SQRT:
+                writeInvoke(output, 0xb8, "java/lang/Math", "sqrt", "(D)D");
+                break;
+            default:
+                writeInvoke(output, 0xb8, "java/lang/Math", "log", "(D)D");
+        }
+    }
+
+    /**
+     * Method writes an instruction that pushes an int constant
+     * @param output the bytecode
+     * @param value the int
+     * @throws IOException never, the class is written to memory
+     */
+    private void writeInt(DataOutputStream output, int value) throws IOException {
+        output.writeByte(0x13); // ldc_w
+        output.writeShort(entry("I" + value, 3, value));
+    }
+
+    /**
+     * Method writes a method call instruction
+     * @param output the bytecode
+     * @param instruction invokevirtual or invokestatic
+     * @param owner the class of the method
+     * @param name name of the method
+     * @param descriptor descriptor of the method
+     * @throws IOException never, the class is written to memory
+     */
+    private void writeInvoke(DataOutputStream output, int instruction, String owner, String name, String descriptor) throws IOException {
+        output.writeByte(instruction);
+        output.writeShort(methodEntry(owner, name, descriptor));
+    }
+
+    /**
+     * Method adds a method reference to the constant pool
+     * @param owner the class of the method
+     * @param name name of the method
+     * @param descriptor descriptor of the method
+     * @return index of the entry
+     * @throws IOException never, the class is written to memory
+     */
+    private int methodEntry(String owner, String name, String descriptor) throws IOException {
+        int ownerIndex = classEntry(owner);
+        int nameIndex = utf8Entry(name);
+        int descriptorIndex = utf8Entry(descriptor);
+        int nameAndType = entry("T" + name + descriptor, 12, nameIndex, descriptorIndex);
+        return entry("M" + owner + "." + name + descriptor, 10, ownerIndex, nameAndType);
+    }
+
+    /**
+     * Method adds a class reference to the constant pool
+     * @param name internal name of the class
+     * @return index of the entry
+     * @throws IOException never, the class is written to memory
+     */
+    private int classEntry(String name) throws IOException {
+        return entry("C" + name, 7, utf8Entry(name));
+    }
+
+    /**
+     * Method adds a string to the constant pool
+     * @param value the string
+     * @return index of the entry
+     * @throws IOException never, the class is written to memory
+     */
+    private int utf8Entry(String value) throws IOException {
+        Integer index = poolEntries.get("U" + value);
+
+        if (index == null) {
+            poolOutput.writeByte(1);
+            poolOutput.writeUTF(value);
+            index = poolSize++;
+            poolEntries.placeOrUpdate("U" + value, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Method adds a double to the constant pool, doubles take two entries
+     * @param value the double
+     * @return index of the entry
+     * @throws IOException never, the class is written to memory
+     */
+    private int doubleEntry(double value) throws IOException {
+        String key = "D" + Double.doubleToRawLongBits(value);
+        Integer index = poolEntries.get(key);
+
+        if (index == null) {
+            poolOutput.writeByte(6);
+            poolOutput.writeDouble(value);
+            index = poolSize;
+            poolSize += 2;
+            poolEntries.placeOrUpdate(key, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Method adds an entry with one or two u2 fields, or an int, to the constant pool
+     * @param key key of the entry, so the same entry is not added twice
+     * @param tag tag of the entry
+     * @param values the u2 fields of the entry, or the int for integer entries
+     * @return index of the entry
+     * @throws IOException never, the class is written to memory
+     */
+    private int entry(String key, int tag, int... values) throws IOException {
+        Integer index = poolEntries.get(key);
+
+        if (index == null) {
+            poolOutput.writeByte(tag);
+
+            if (tag == 3) {
+                poolOutput.writeInt(values[0]);
+            } else {
+                for (int value : values) {
+                    poolOutput.writeShort(value);
+                }
+            }
+
+            index = poolSize++;
+            poolEntries.placeOrUpdate(key, index);
+        }
+
+        return index;
+    }
+}
@@ -1,10 +1,13 @@
 package calcmalc.logic;
 
-import calcmalc.structures.HashTable;
 import calcmalc.structures.Queue;
 import calcmalc.exceptions.LexerException;
 import calcmalc.logic.types.*;
 
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Lexical analysis class. 
  * Class reads character from the input and gives them values (tokens 
@@ -19,38 +22,91 @@ import calcmalc.logic.types.*;
  * </pre>
  * 
  * The above example shows how the lexer would give the characters in the input tokens
+ * Characters are classified with a precomputed lookup table indexed by the character itself,
+ * and the keys of symbols and numbers are sliced straight from the input. 
+ * So no strings are created for single characters while lexing
+ * Numbers are parsed into doubles while lexing, malformed numbers like 2.2.2 are rejected here
+ * The input can also be lexed into a token buffer, see lexBuffer, in which case no Token objects are created
  * @author nnecklace
  */
 public class Lexer {
     /**
-     * Alphabet Hashtable contains underscore and all letters of the english alphabet
-     * This property is used to lookup it the input is alphabetical in nature
-     * Normally it would be done with regex, but regex is not allowed
+     * Character class for characters the lexer doesn't know, this is the default value in the lookup table
      */
-    private HashTable<Boolean> alphabet = new HashTable<>();
+    private static final byte UNKNOWN = 0;
     /**
-     * Same as alphabet but for numbers
+     * Character class for whitespace, these characters are skipped
      */
-    private HashTable<Boolean> numbers = new HashTable<>();
-
+    private static final byte WHITESPACE = 1;
+    /**
+     * Character class for underscore and all letters of the english alphabet
+     */
+    private static final byte LETTER = 2;
+    /**
+     * Character class for digits and the decimal point
+     */
+    private static final byte DIGIT = 3;
+    /**
+     * Character class for all the characters that are a token on their own
+     * {@code = ( ) : , + - * / ^ %}
+     */
+    private static final byte PUNCTUATION = 4;
     /**
-     * Constructor for lexer. 
-     * The constructor sets up the alphabet and numbers tables with their values
+     * Maximum length for any continuous sequence of letters or numbers
      */
-    public Lexer() {
-        // ideally we would regex match in this case but since it is not allowed in this course we will resort to doing it this way
-        alphabet.placeOrUpdate("_", true);
-        for (char ch: "abcdefghijklmnopqrstuvwxyz".toCharArray()) {
-            alphabet.placeOrUpdate(valueOf(ch), true);
-            ch -= 32; // make uppercase
-            alphabet.placeOrUpdate(valueOf(ch), true);
+    static final int MAX_TOKEN_LENGTH = 64;
+    /**
+     * Lookup table containing the character class for every ascii character
+     * Normally this would be done with regex, but regex is not allowed
+     * Characters outside the table are always unknown
+     */
+    private static final byte[] CHARACTER_CLASSES = new byte[128];
+    /**
+     * Numbers with at most this many digits fit into a long and a double exactly,
+     * so they can be parsed by dividing the digits with a power of ten, which is rounded correctly
+     * Longer numbers are parsed with Double.parseDouble
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+    /**
+     * Powers of ten from 10^0 to 10^15, all of them are exact doubles
+     */
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_DIGITS + 1];
+
+    static {
+        CHARACTER_CLASSES[' '] = WHITESPACE;
+        CHARACTER_CLASSES['\n'] = WHITESPACE;
+        CHARACTER_CLASSES['\r'] = WHITESPACE;
+        CHARACTER_CLASSES['_'] = LETTER;
+
+        for (char ch = 'a'; ch <= 'z'; ++ch) {
+            CHARACTER_CLASSES[ch] = LETTER;
+            CHARACTER_CLASSES[ch - 32] = LETTER; // uppercase
+        }
+
+        for (char ch = '0'; ch <= '9'; ++ch) {
+            CHARACTER_CLASSES[ch] = DIGIT;
+        }
+        CHARACTER_CLASSES['.'] = DIGIT;
+
+        for (char ch : "=():,+-*/^%".toCharArray()) {
+            CHARACTER_CLASSES[ch] = PUNCTUATION;
         }
 
-        for (char ch: ".0123456789".toCharArray()) {
-            numbers.placeOrUpdate(valueOf(ch), true);
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; ++i) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
         }
     }
 
+    /**
+     * Method looks up the character class of a single character
+     * @param ch the character to classify
+     * @return one of the character classes, unknown if the character is not in the lookup table
+     */
+    private static byte classify(char ch) {
+        return ch < CHARACTER_CLASSES.length ? CHARACTER_CLASSES[ch] : UNKNOWN;
+    }
+
     /**
      * Function lexes, gives each character a token, the given input stream of characters 
      * @param expression the string representing the input stream or expression we want to lex
@@ -59,127 +115,387 @@ public class Lexer {
      */
     public Queue<Token> lex(String expression) throws LexerException {
         Queue<Token> tokens = new Queue<>();
-        for (int i = 0; i < expression.length(); ++i) {
-            String c = valueOf(expression.charAt(i));
-            switch (c) {
-                case " ":
-                case "\n":
-                case "\r": // scanner handles these cases for us, but just incase something weird happens with scanner we ignore these manually
+        lex(expression, 0, expression.length(), 0, tokens);
+        return tokens;
+    }
+
+    /**
+     * Function lexes the whole input into a token buffer instead of Token objects
+     * The tokens are written to the arrays of the buffer and refer to the input by position, so no objects are created per token
+     * @param expression the input to lex
+     * @return buffer containing the tokens of the input
+     * @throws LexerException if expression contains invalid characters or malformed numbers
+     */
+    public TokenBuffer lexBuffer(CharSequence expression) throws LexerException {
+        TokenBuffer tokens = new TokenBuffer(expression, new Symbols());
+        lexBuffer(expression, 0, expression.length(), tokens);
+        return tokens;
+    }
+
+    /**
+     * Function lexes the whole input into a token buffer, chunks of the input are lexed in parallel on the given pool, see ParallelLexer
+     * Gives the same tokens, and throws the same errors, as lexBuffer(CharSequence)
+     * @param expression the input to lex
+     * @param pool the pool the chunks are lexed on
+     * @return buffer containing the tokens of the input
+     * @throws LexerException if expression contains invalid characters or malformed numbers
+     */
+    public TokenBuffer lexBuffer(CharSequence expression, ForkJoinPool pool) throws LexerException {
+        return new ParallelLexer(this, ParallelLexer.MIN_CHUNK_SIZE).lex(expression, pool);
+    }
+
+    /**
+     * Lexes part of the input and adds the tokens to the end of the given buffer
+     * The last token in the buffer is treated as the token right before the range, like in lex
+     * The range must not start or end in the middle of a symbol or a number
+     * @param expression the input
+     * @param from the position of the first character to lex
+     * @param to the position right after the last character to lex
+     * @param tokens the buffer the tokens are added to
+     * @throws LexerException if the range contains invalid characters or malformed numbers
+     */
+    void lexBuffer(CharSequence expression, int from, int to, TokenBuffer tokens) throws LexerException {
+        int i = from;
+
+        while (i < to) {
+            char c = expression.charAt(i);
+            switch (classify(c)) {
+                case WHITESPACE:
+                    ++i;
                     break;
-                case "=":
-                    tokens.enqueue(TypeBuilder.buildToken(Types.ASSIGNMENT, "="));
+                case PUNCTUATION:
+                    punctuation(c, i, tokens);
+                    ++i;
                     break;
-                case ")":
-                    tokens.enqueue(TypeBuilder.buildToken(Types.CLOSING_PARENTHESIS, ")"));
+                case LETTER:
+                    int symbolEnd = scanEnd(expression, i, to, LETTER);
+                    tokens.addSymbol(i, symbolEnd);
+                    i = symbolEnd;
                     break;
-                case ":":
-                    tokens.enqueue(TypeBuilder.buildToken(Types.VARIABLE_DELIMITER, ":"));
+                case DIGIT:
+                    int numberEnd = scanEnd(expression, i, to, DIGIT);
+                    tokens.addNumber(i, numberEnd, parseNumber(expression, i, numberEnd, i));
+                    i = numberEnd;
                     break;
-                case ",":
-                    tokens.enqueue(TypeBuilder.buildToken(Types.COMMA, ","));
+                default:
+                    throw new LexerException("Unknown character " + c + " at position " + (i + 1));
+            }
+        }
+    }
+
+    /**
+     * Creates a token stream that lexes the input from a reader as the parser asks for tokens
+     * Only a bounded amount of the input is held in memory at a time
+     * @param reader the reader to read the input from
+     * @return token source for the parser
+     */
+    public TokenSource stream(Reader reader) {
+        return new TokenStream(this, reader, TokenStream.CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a token stream that lexes the input as the parser asks for tokens
+     * The input is lexed in chunks so the whole input is never held as tokens at once
+     * @param expression the input to lex
+     * @return token source for the parser
+     */
+    public TokenSource stream(CharSequence expression) {
+        return new TokenStream(this, expression, TokenStream.CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a token stream that lexes ascii bytes, e.g., a memory mapped file, as the parser asks for tokens
+     * The bytes are lexed where they are, only the keys of symbols and numbers are copied
+     * @param bytes the remaining bytes in the buffer are the input
+     * @return token source for the parser
+     */
+    public TokenSource stream(ByteBuffer bytes) {
+        return new TokenStream(this, new AsciiSequence(bytes), TokenStream.CHUNK_SIZE);
+    }
+
+    /**
+     * Lexes part of the input and adds the tokens to the end of the given queue
+     * The last token in the queue is treated as the token right before the range, 
+     * which lets the input to be lexed in chunks
+     * The range must not start or end in the middle of a symbol or a number
+     * @param expression the input
+     * @param from the position of the first character to lex
+     * @param to the position right after the last character to lex
+     * @param offset the position of the input in the whole stream, only used for error messages
+     * @param tokens the queue the tokens are added to
+     * @throws LexerException if the range contains invalid characters or malformed numbers
+     */
+    void lex(CharSequence expression, int from, int to, long offset, Queue<Token> tokens) throws LexerException {
+        int i = from;
+
+        while (i < to) {
+            char c = expression.charAt(i);
+            switch (classify(c)) {
+                case WHITESPACE: // scanner handles these cases for us, but just incase something weird happens with scanner we ignore these manually
+                    ++i;
                     break;
-                case "(":
-                    // if if passes, the previous token must have been a function
-                    // cos(x)
-                    // cos <-- this point it is symbol
-                    // cos( <-- open paren means it was actually a function
-                    if (!tokens.isEmpty() && tokens.peekLast().isSymbol()) {
-                        tokens.peekLast().setType(Types.FUNCTION);
-                    }
-                    tokens.enqueue(TypeBuilder.buildToken(Types.OPEN_PARENTHESIS, "("));
+                case PUNCTUATION:
+                    tokens.enqueue(punctuation(c, tokens));
+                    ++i;
                     break;
-                case "+":
-                case "*":
-                case "/":
-                case "^":
-                case "%":
-                    tokens.enqueue(TypeBuilder.buildToken(Types.OPERATOR, c));
+                case LETTER:
+                    i = scan(expression, i, to, offset, LETTER, Types.SYMBOL, tokens);
                     break;
-                case "-":
-                    // check if operator is unary - operator ,-100 -x (-100), x = -1 unary minus operator
-                    if (tokens.isEmpty() ||
-                        tokens.peekLast().isOpenParenthesis() ||
-                        tokens.peekLast().isComma() ||
-                        tokens.peekLast().isAssignment() ||
-                        tokens.peekLast().isVariableDelimiter()) {
-                        tokens.enqueue(TypeBuilder.buildToken(Types.OPERATOR, "$"));
-                    } else {
-                        tokens.enqueue(TypeBuilder.buildToken(Types.OPERATOR, c));
-                    }
+                case DIGIT:
+                    i = scan(expression, i, to, offset, DIGIT, Types.NUMERIC, tokens);
                     break;
                 default:
-                    if (alphabet.get(c) != null) {
-                        tokens.enqueue(TypeBuilder.buildToken(Types.SYMBOL, scan(expression, c, i, alphabet)));
-                    } else if (numbers.get(c) != null) {
-                        tokens.enqueue(TypeBuilder.buildToken(Types.NUMERIC, scan(expression, c, i, numbers)));
-                    } else {
-                        throw new LexerException("Unknown character " + c + " at position " + (i + 1));
-                    }
-                    // skip all scanned tokens and continue right after where scanner failed
-                    i += tokens.peekLast().getKey().length() - 1;
+                    throw new LexerException("Unknown character " + c + " at position " + (offset + i + 1));
             }
         }
+    }
 
-        return tokens;
+    /**
+     * Finds where the run of letters or digits that goes over the given position ends
+     * Used to move the end of a chunk so that it doesn't split a symbol or a number
+     * @param expression the input
+     * @param at the position to check, must be larger than 0
+     * @param to the position where the search stops at the latest
+     * @return the end of the run, or the given position if there is no run going over it
+     */
+    int runEnd(CharSequence expression, int at, int to) {
+        byte characterClass = classify(expression.charAt(at - 1));
+
+        if (characterClass != LETTER && characterClass != DIGIT) {
+            return at;
+        }
+
+        int end = at;
+        while (end < to && classify(expression.charAt(end)) == characterClass) {
+            ++end;
+        }
+
+        return end;
     }
 
     /**
-     * Helper function to convert a single char into a string
-     * Normally we would use something like String.valueOf but this is not allowed
-     * So we made our own implementation
-     * @param ch single character to make into a string
-     * @return the character as a String
+     * Finds where the run of letters or digits at the end of the range starts
+     * The run might continue after the range, so it is not safe to lex the range past this point
+     * @param expression the input
+     * @param from the position of the first character in the range
+     * @param to the position right after the last character in the range
+     * @return the start of the trailing run, or the end of the range if the range doesn't end in a letter or a digit
      */
-    private String valueOf(char ch) {
-        return valueOf(new char[]{ch}, 1);
+    int trailingRunStart(CharSequence expression, int from, int to) {
+        if (to == from) {
+            return to;
+        }
+
+        byte characterClass = classify(expression.charAt(to - 1));
+
+        if (characterClass != LETTER && characterClass != DIGIT) {
+            return to;
+        }
+
+        int start = to - 1;
+        while (start > from && classify(expression.charAt(start - 1)) == characterClass) {
+            --start;
+        }
+
+        return start;
+    }
+
+    /**
+     * Method creates the token for a character that is a token on its own
+     * The keys are string literals so no new strings are created
+     * @param c the punctuation character
+     * @param tokens the tokens lexed so far, the last token decides if a minus is unary and if a symbol is actually a function
+     * @return the token for the character
+     */
+    private Token punctuation(char c, Queue<Token> tokens) {
+        switch (c) {
+            case '=':
+                return TypeBuilder.buildToken(Types.ASSIGNMENT, "=");
+            case ')':
+                return TypeBuilder.buildToken(Types.CLOSING_PARENTHESIS, ")");
+            case ':':
+                return TypeBuilder.buildToken(Types.VARIABLE_DELIMITER, ":");
+            case ',':
+                return TypeBuilder.buildToken(Types.COMMA, ",");
+            case '(':
+                // if if passes, the previous token must have been a function
+                // cos(x)
+                // cos <-- this point it is symbol
+                // cos( <-- open paren means it was actually a function
+                if (!tokens.isEmpty() && tokens.peekLast().isSymbol()) {
+                    tokens.peekLast().setType(Types.FUNCTION);
+                }
+                return TypeBuilder.buildToken(Types.OPEN_PARENTHESIS, "(");
+            case '+':
+                return TypeBuilder.buildToken(Types.OPERATOR, "+");
+            case '*':
+                return TypeBuilder.buildToken(Types.OPERATOR, "*");
+            case '/':
+                return TypeBuilder.buildToken(Types.OPERATOR, "/");
+            case '^':
+                return TypeBuilder.buildToken(Types.OPERATOR, "^");
+            case '%':
+                return TypeBuilder.buildToken(Types.OPERATOR, "%");
+            default:
+                // check if operator is unary - operator ,-100 -x (-100), x = -1 unary minus operator
+                if (tokens.isEmpty() ||
+                    tokens.peekLast().isOpenParenthesis() ||
+                    tokens.peekLast().isComma() ||
+                    tokens.peekLast().isAssignment() ||
+                    tokens.peekLast().isVariableDelimiter()) {
+                    return TypeBuilder.buildToken(Types.OPERATOR, "$");
+                }
+                return TypeBuilder.buildToken(Types.OPERATOR, "-");
+        }
+    }
+
+    /**
+     * Method adds the token for a character that is a token on its own to the token buffer, the same token punctuation creates
+     * @param c the punctuation character
+     * @param at position of the character in the input
+     * @param tokens the buffer, the last token decides if a minus is unary and if a symbol is actually a function
+     */
+    private void punctuation(char c, int at, TokenBuffer tokens) {
+        Types last = tokens.last();
+
+        switch (c) {
+            case '=':
+                tokens.addOperator(Types.ASSIGNMENT, at, c, 0);
+                break;
+            case ')':
+                tokens.addPunctuation(Types.CLOSING_PARENTHESIS, at);
+                break;
+            case ':':
+                tokens.addPunctuation(Types.VARIABLE_DELIMITER, at);
+                break;
+            case ',':
+                tokens.addPunctuation(Types.COMMA, at);
+                break;
+            case '(':
+                if (last == Types.SYMBOL) {
+                    tokens.setLast(Types.FUNCTION);
+                }
+                tokens.addPunctuation(Types.OPEN_PARENTHESIS, at);
+                break;
+            case '^':
+                tokens.addOperator(Types.OPERATOR, at, c, 4);
+                break;
+            case '*':
+            case '/':
+            case '%':
+                tokens.addOperator(Types.OPERATOR, at, c, 2);
+                break;
+            case '+':
+                tokens.addOperator(Types.OPERATOR, at, c, 1);
+                break;
+            default:
+                boolean unary = isUnaryAfter(last);
+                tokens.addOperator(Types.OPERATOR, at, unary ? '$' : '-', unary ? 3 : 1);
+                break;
+        }
     }
 
     /**
-     * Helper function to convert a sequence of chars into a string
-     * Normally we would use something like String.valueOf but this is not allowed
-     * So we made our own implementation
-     * @param charSequqnce the char array to convert to a string
-     * @param size the size fo the string to create
-     * @return the character array as a String
+     * Method checks if a minus after the given token is an unary minus
+     * @param last type of the token before the minus, null if the minus is the first token
+     * @return true if the minus is the first token or follows an open parenthesis, a comma, an assignment or a variable delimiter
      */
-    private String valueOf(char[] charSequence, int size) {
-        return new String(charSequence, 0, size);
+    static boolean isUnaryAfter(Types last) {
+        return last == null || last == Types.OPEN_PARENTHESIS || last == Types.COMMA || last == Types.ASSIGNMENT || last == Types.VARIABLE_DELIMITER;
     }
 
     /**
      * Method is called when the current character is alphabetical or a number.
-     * Scans forward from the current poisiton as long as the characters are a type that is contained the lookup table
+     * Scans forward from the current poisiton as long as the characters are in the same character class
      * <pre>
      * abs(1)
      * </pre>
      * 
-     * Scan would start from s and continue all the way until it reaches to opening parenthesis, after which it retrurns the scaned char sequence
+     * Scan would start from a and continue all the way until it reaches to opening parenthesis, after which the scanned char sequence is sliced from the input and added as a token
      * @param expression the input string stream that was given to the lexer
-     * @param start the first character in the char sequence
-     * @param i the starting position from which the scanning starts
-     * @param lookup the lookup hashtable, will be either alphabet or numbers
-     * @return the scanned char sequence as a string
-     * @throws LexerException if the char sequence is longer than 64 characters which is the maximum for any continuous sequence of numbers or letters
-     */
-    private String scan(String expression, String start, int i, HashTable<Boolean> lookup) throws LexerException {
-        int maxLength = 64;
-        char[] tokens = new char[maxLength];
-        tokens[0] = start.charAt(0); // start will always be a 1 character string
-        int offSet;
-    
-        for (offSet = i + 1; offSet < expression.length(); ++offSet) {
-            char current = expression.charAt(offSet);
-            if (lookup.get(valueOf(current)) == null) {
-                break;
+     * @param start the position of the first character in the char sequence
+     * @param to the position where scanning has to stop at the latest
+     * @param offset the position of the input in the whole stream, only used for error messages
+     * @param characterClass the character class to scan, will be either letter or digit
+     * @param type the type of the token to create from the char sequence
+     * @param tokens the queue the token is added to
+     * @return the position right after the scanned char sequence
+     * @throws LexerException if the char sequence is longer than 64 characters which is the maximum for any continuous sequence of numbers or letters,
+     * or if the char sequence is a malformed number
+     */
+    private int scan(CharSequence expression, int start, int to, long offset, byte characterClass, Types type, Queue<Token> tokens) throws LexerException {
+        int end = scanEnd(expression, start, to, characterClass);
+
+        // for strings subSequence is the same as substring, so the key is the only string created
+        String key = expression.subSequence(start, end).toString();
+        tokens.enqueue(type == Types.NUMERIC ? TypeBuilder.buildNumber(key, parseNumber(key, 0, key.length(), offset + start)) : TypeBuilder.buildToken(type, key));
+
+        return end;
+    }
+
+    /**
+     * Method scans forward from the current position as long as the characters are in the same character class
+     * @param expression the input
+     * @param start the position of the first character in the char sequence
+     * @param to the position where scanning has to stop at the latest
+     * @param characterClass the character class to scan, will be either letter or digit
+     * @return the position right after the scanned char sequence
+     * @throws LexerException if the char sequence is longer than 64 characters
+     */
+    private int scanEnd(CharSequence expression, int start, int to, byte characterClass) throws LexerException {
+        int end = start + 1;
+
+        while (end < to && classify(expression.charAt(end)) == characterClass) {
+            if ((end - start) == MAX_TOKEN_LENGTH) {
+                throw new LexerException("token " + expression.subSequence(start, end) +  " too long. Max length is 64");
             }
+            ++end;
+        }
+
+        return end;
+    }
+
+    /**
+     * Method parses the digits and points scanned by the lexer into a double
+     * <pre>
+     * 12.5 => digits 125, 1 digit after the point => 125 / 10^1 => 12.5
+     * </pre>
+     * Numbers with more than 15 digits are parsed with Double.parseDouble
+     * @param expression the input containing the number
+     * @param from position of the first character of the number
+     * @param to position right after the last character of the number
+     * @param position the position of the number in the whole input, only used for error messages
+     * @return the value of the number
+     * @throws LexerException if the number has more than one point or no digits
+     */
+    private double parseNumber(CharSequence expression, int from, int to, long position) throws LexerException {
+        long digits = 0;
+        int point = -1;
 
-            if ((offSet - i) == maxLength) {
-                throw new LexerException("token " + valueOf(tokens, (offSet - i)) +  " too long. Max length is 64");
+        for (int i = from; i < to; ++i) {
+            char c = expression.charAt(i);
+
+            if (c != '.') {
+                digits = digits * 10 + (c - '0'); // overflows for long numbers, but then the digits are not used
+            } else if (point < 0) {
+                point = i - from;
+            } else {
+                throw new LexerException("Number was formatted incorrectly: multiple points in " + expression.subSequence(from, to) + " at position " + (position + i - from + 1));
             }
+        }
+
+        int length = to - from;
+        int fractionDigits = point < 0 ? 0 : length - point - 1;
+        int digitCount = point < 0 ? length : length - 1;
+
+        if (digitCount == 0) {
+            throw new LexerException("Number was formatted incorrectly: no digits in " + expression.subSequence(from, to) + " at position " + (position + 1));
+        }
 
-            tokens[offSet - i] = current;
+        if (digitCount > MAX_EXACT_DIGITS) {
+            return Double.parseDouble(expression.subSequence(from, to).toString());
         }
 
-        return valueOf(tokens, (offSet - i));
+        return digits / POWERS_OF_TEN[fractionDigits];
     }
 }
@@ -0,0 +1,126 @@
+package calcmalc.logic;
+
+/**
+ * Math functions used by the evaluator
+ * The functions are implemented by hand, since the point of the project is to implement the algorithms ourselves
+ * sqrt and log are not in use since they are much less accurate than the ones in java's standard library
+ * @author nnecklace
+ */
+final class MathFunctions {
+    /**
+     * Static variable to display that the result is not a real number
+     */
+    static final double NAN = 0.0d / 0.0;
+
+    /**
+     * Class only contains static functions
+     */
+    private MathFunctions() {
+    }
+
+    /**
+     * A basic max function that returns the maximum value of the arguments
+     * @param n left number
+     * @param m right number
+     * @return the greater of the two
+     */
+    static double max(double n, double m) {
+        return n > m ? n : m;
+    }
+
+    /**
+     * A basic min function that returns the minimum value of the arguments
+     * @param n left number
+     * @param m right number
+     * @return the lesser of the two
+     */
+    static double min(double n, double m) {
+        return n < m ? n : m;
+    }
+
+    /**
+     * A function for calculating the squre root of a positive number
+     * currently not in use since it is much less accurate than the java's standard sqrt
+     * testing and verifying correct results become difficult. Performance is not an issue, but accuracy is
+     * @param n the number to find the squre root of
+     * @return the square root of the param number
+     */
+    static double sqrt(double n) {
+        if (n < 0.0) {
+            return NAN;
+        }
+
+        if (n == 0.0) {
+            return 0.0;
+        }
+
+        double x = n;
+        double root;
+        // newtons method
+        while (true) {  
+            root = 0.5 * (x + n / x);  
+            if (abs(root - x) < 1) {
+                break;
+            }
+            x = root;  
+        }  
+        
+        return root;
+    }
+
+    /**
+     * Highly inaccurate implementation of logarithm function. 
+     * Function uses Taylor series expansion to converge the natural logarithm. Very slow
+     * For log(100) takes about 42 seconds to compute. Practically unsuable and also very inaccurate.
+     * https://www.efunda.com/math/taylor_series/logarithmic.cfm 
+     * @param n the logarithm of the value
+     * @return the natural log of param value
+     */
+    static double log(double n) {
+        int precision = 1000;
+        double ln = 0.0;
+        for (int i = 1; i <= precision; i = i + 2) {
+            ln += ((1.0 / i) * pow((n - 1) / (n + 1), i));
+        }
+
+        return 2 * ln;
+    }
+
+    /**
+     * Calculates the exponential value of a number. Doesn't calculate fractional exponenets.
+     * @param n base value
+     * @param e the exponent value
+     * @return n^e
+     */
+    static double pow(double n, double e) {
+        // we don't handle fractional exponents :(
+        if (e % 1 != 0) {
+            return NAN;
+        }
+
+        double result = 1.0;
+
+        if (e == 0.0) {
+            return result;
+        }
+
+        for (int i = 0; i < abs(e); ++i) {
+            result *= n;
+        }
+
+        if (e < 0.0) {
+            return 1.0 / result;
+        } 
+
+        return result;
+    }
+
+    /**
+     * A method that returns the absolute value of the argument passed
+     * @param n the number to absolute
+     * @return the absolute value of the argument
+     */
+    static double abs(double n) {
+        return n > 0 ? n : -n;
+    }
+}
@@ -0,0 +1,378 @@
+package calcmalc.logic;
+
+import calcmalc.exceptions.EvaluatorException;
+import calcmalc.logic.types.Token;
+import calcmalc.logic.types.TypeBuilder;
+import calcmalc.structures.ASTNode;
+import calcmalc.structures.List;
+import calcmalc.structures.Stack;
+
+/**
+ * Optimizer simplifies the AST trees made by the parser before they are evaluated
+ * The optimizer folds constant subtrees into numbers, flattens nested max and min calls,
+ * and removes operations that don't change the value, such as x*1 or $$x
+ *
+ * Examples
+ * <pre>
+ *        +
+ *       / \
+ *      *   sqrt          =>   10.0
+ *     / \    |
+ *    2   3   16
+ *
+ *        *
+ *       / \              =>   x
+ *      x   1
+ *
+ *      max                    max
+ *      / \               =>  / | \
+ *    max  z                 x  y  z
+ *    / \
+ *   x   y
+ * </pre>
+ * The optimized tree always evaluates to the same value as the original tree, and fails with the same error
+ * Subtrees that would fail are left as they are, so the error is thrown when the tree is evaluated
+ * Only max or min as the first argument of max or min is flattened, max and min are evaluated two arguments at a time
+ * from left to right, and with NaN arguments the order matters
+ * x+0 is only removed if the sign of zero is ignored, since -0.0+0 is 0.0
+ * Long chains of additions and multiplications are rebalanced only if floating point reassociation is allowed, see Reassociator,
+ * a rebalanced chain can round differently, and a chain that overflows or fails part way can give a different result or error
+ * The tree is changed in place, the optimizer doesn't recurse so trees of any depth can be optimized
+ * Time complexity is O(n) where n is the number of nodes in the tree
+ * @author nnecklace
+ */
+public class Optimizer {
+    /**
+     * Evaluator the trees are optimized for, constant subtrees are folded with it
+     */
+    private Evaluator evaluator;
+    /**
+     * If true x+0 and 0+x are replaced with x
+     */
+    private boolean ignoreSignOfZero;
+    /**
+     * Rebalances chains of additions and multiplications, null if floating point reassociation is not allowed
+     */
+    private Reassociator reassociator;
+    /**
+     * Number of nodes in the tree before and after the latest optimization
+     */
+    private int nodesBefore;
+    private int nodesAfter;
+
+    /**
+     * Constructor for the optimizer
+     * @param evaluator the evaluator the trees are optimized for
+     */
+    public Optimizer(Evaluator evaluator) {
+        this(evaluator, false);
+    }
+
+    /**
+     * Constructor for the optimizer
+     * @param evaluator the evaluator the trees are optimized for
+     * @param ignoreSignOfZero if true x+0 is replaced with x, even though the result is 0.0 instead of -0.0 when x is -0.0
+     */
+    public Optimizer(Evaluator evaluator, boolean ignoreSignOfZero) {
+        this(evaluator, ignoreSignOfZero, false);
+    }
+
+    /**
+     * Constructor for the optimizer
+     * @param evaluator the evaluator the trees are optimized for
+     * @param ignoreSignOfZero if true x+0 is replaced with x, even though the result is 0.0 instead of -0.0 when x is -0.0
+     * @param reassociate if true chains of additions and multiplications are rebalanced into trees of O(log n) depth,
+     * even though floating point addition and multiplication are not associative
+     */
+    public Optimizer(Evaluator evaluator, boolean ignoreSignOfZero, boolean reassociate) {
+        this.evaluator = evaluator;
+        this.ignoreSignOfZero = ignoreSignOfZero;
+        this.reassociator = reassociate ? new Reassociator() : null;
+    }
+
+    /**
+     * Method optimizes the given tree
+     * Assignments can be optimized too, only the body of the variable or custom function is optimized,
+     * the variable or the head of the custom function is left as it is, e.g., max(x) = x+1 defines max and not x
+     * @param root root node of the tree
+     * @return root node of the optimized tree
+     */
+    public ASTNode optimize(ASTNode root) {
+        nodesBefore = count(root);
+
+        if (root.token().isAssignment() && root.children().size() == 2) {
+            root.children().set(1, optimizeTree(root.children().get(1)));
+            nodesAfter = count(root);
+            return root;
+        }
+
+        ASTNode result = optimizeTree(root);
+        nodesAfter = count(result);
+        return result;
+    }
+
+    /**
+     * Method optimizes a tree in an arena, the tree is made into an ASTNode tree, optimized and added to a new arena
+     * With reassociation long chains are rebalanced, so the parallel evaluator can cut the tree into subtrees
+     * of about the same size instead of a spine as long as the chain, see ParallelEvaluator
+     * @param arena the arena containing the tree
+     * @param root index of the root node of the tree
+     * @return a new arena containing the optimized tree, its root is on top of the roots of the arena
+     */
+    public AstArena optimize(AstArena arena, int root) {
+        AstArena optimized = new AstArena();
+        optimized.add(optimize(arena.tree(root)));
+        return optimized;
+    }
+
+    /**
+     * Method optimizes the tree with the given root, the children of a node are simplified before the node
+     * @param root root node of the tree
+     * @return root node of the optimized tree
+     */
+    private ASTNode optimizeTree(ASTNode root) {
+        List<ASTNode> nodes = new List<>();
+        List<Integer> nextChild = new List<>();
+        ASTNode result = root;
+        nodes.append(root);
+        nextChild.append(0);
+        int depth = 1;
+
+        while (depth > 0) {
+            ASTNode node = nodes.get(depth - 1);
+            int child = nextChild.get(depth - 1);
+
+            if (child < node.children().size()) {
+                nextChild.set(depth - 1, child + 1);
+                depth = push(nodes, nextChild, depth, node.children().get(child));
+            } else {
+                ASTNode optimized = simplify(node);
+                --depth;
+
+                if (depth > 0) {
+                    nodes.get(depth - 1).children().set(nextChild.get(depth - 1) - 1, optimized);
+                } else {
+                    result = optimized;
+                }
+            }
+        }
+
+        if (reassociator != null) {
+            result = reassociator.rebalance(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Getter for the number of nodes in the tree before the latest optimization
+     * @return number of nodes
+     */
+    public int nodesBefore() {
+        return nodesBefore;
+    }
+
+    /**
+     * Getter for the number of nodes in the tree after the latest optimization
+     * @return number of nodes
+     */
+    public int nodesAfter() {
+        return nodesAfter;
+    }
+
+    /**
+     * Method pushes a node on the work stack of the optimizer
+     * @param nodes the nodes on the work stack
+     * @param nextChild the index of the next child to optimize for each node on the work stack
+     * @param depth current depth of the work stack
+     * @param node the node to push
+     * @return the new depth of the work stack
+     */
+    private int push(List<ASTNode> nodes, List<Integer> nextChild, int depth, ASTNode node) {
+        if (depth == nodes.size()) {
+            nodes.append(node);
+            nextChild.append(0);
+        } else {
+            nodes.set(depth, node);
+            nextChild.set(depth, 0);
+        }
+
+        return depth + 1;
+    }
+
+    /**
+     * Method simplifies a node whose children have already been simplified
+     * @param node the node to simplify
+     * @return the simplified node, or the node itself if it can't be simplified
+     */
+    private ASTNode simplify(ASTNode node) {
+        Token token = node.token();
+
+        if (!token.isOperator() && !isStandardLibraryFunction(token)) {
+            return node;
+        }
+
+        ASTNode folded = fold(node);
+
+        if (folded != null) {
+            return folded;
+        }
+
+        if (!token.getKey().equals("max") && !token.getKey().equals("min")) {
+            return removeIdentity(node);
+        }
+
+        if (node.children().size() == 1 && evaluator.definitions().acceptsArguments(token.getKey(), 1)) {
+            // max and min of a single argument is the argument itself
+            return node.children().get(0);
+        }
+
+        return flatten(node);
+    }
+
+    /**
+     * Method folds the node into a number if all of its children are numbers
+     * The node is evaluated with the evaluator, nodes that fail to evaluate are not folded
+     * @param node the operator or standard library function node
+     * @return a number node, or null if the node can't be folded
+     */
+    private ASTNode fold(ASTNode node) {
+        for (int i = 0; i < node.children().size(); ++i) {
+            if (!node.children().get(i).token().isNumber()) {
+                return null;
+            }
+        }
+
+        try {
+            double value = evaluator.evaluate(node).doubleValue();
+            return new ASTNode(TypeBuilder.buildNumber(Double.toString(value), value));
+        } catch (EvaluatorException e) {
+            // the error is thrown again when the tree is evaluated
+            return null;
+        }
+    }
+
+    /**
+     * Method flattens max or min whose first argument is the same function
+     * <pre>max(max(x, y), z) => max(x, y, z)</pre>
+     * @param node the max or min node
+     * @return the flattened node
+     */
+    private ASTNode flatten(ASTNode node) {
+        if (node.children().isEmpty()) {
+            return node;
+        }
+
+        ASTNode first = node.children().get(0);
+        String key = node.token().getKey();
+
+        if (!first.token().getKey().equals(key) || !first.token().isFunction()) {
+            return node;
+        }
+
+        int size = first.children().size() + node.children().size() - 1;
+
+        if (!evaluator.definitions().acceptsArguments(key, size)) {
+            return node;
+        }
+
+        List<ASTNode> children = new List<>(0, size);
+
+        for (int i = 0; i < first.children().size(); ++i) {
+            children.append(first.children().get(i));
+        }
+
+        for (int i = 1; i < node.children().size(); ++i) {
+            children.append(node.children().get(i));
+        }
+
+        node.setChildren(children);
+        return node;
+    }
+
+    /**
+     * Method removes operations that don't change the value of their argument
+     * <pre>x*1, 1*x, x/1, x-0, x^1, $$x => x</pre>
+     * @param node the operator node
+     * @return the argument if the operation can be removed, otherwise the node
+     */
+    private ASTNode removeIdentity(ASTNode node) {
+        String key = node.token().getKey();
+
+        if (key.equals("$") && node.children().size() == 1) {
+            ASTNode child = node.children().get(0);
+            boolean doubleNegation = child.token().getKey().equals("$") && child.children().size() == 1;
+            return doubleNegation ? child.children().get(0) : node;
+        }
+
+        if (node.children().size() != 2) {
+            return node;
+        }
+
+        ASTNode left = node.children().get(0);
+        ASTNode right = node.children().get(1);
+
+        if (key.equals("*") && isNumber(left, 1.0)) {
+            return right;
+        }
+
+        if ((key.equals("*") || key.equals("/") || key.equals("^")) && isNumber(right, 1.0)) {
+            return left;
+        }
+
+        if (key.equals("-") && isNumber(right, 0.0)) {
+            return left;
+        }
+
+        if (key.equals("+") && ignoreSignOfZero && isNumber(right, 0.0)) {
+            return left;
+        }
+
+        if (key.equals("+") && ignoreSignOfZero && isNumber(left, 0.0)) {
+            return right;
+        }
+
+        return node;
+    }
+
+    /**
+     * Method checks if the node is the given number, 0.0 and -0.0 are different numbers
+     * @param node the node to check
+     * @param value the number
+     * @return true if the node is a number node with the given value
+     */
+    private boolean isNumber(ASTNode node, double value) {
+        return node.token().isNumber() && Double.compare(node.token().getValue(), value) == 0;
+    }
+
+    /**
+     * Method checks if the token is a standard library function
+     * @param token the token to check
+     * @return true if the token is a function in the standard library
+     */
+    private boolean isStandardLibraryFunction(Token token) {
+        return token.isFunction() && evaluator.definitions().standardLibraryFunctions.get(token.getKey()) != null;
+    }
+
+    /**
+     * Method counts the nodes of a tree
+     * @param root root node of the tree
+     * @return number of nodes in the tree
+     */
+    private int count(ASTNode root) {
+        Stack<ASTNode> nodes = new Stack<>();
+        nodes.push(root);
+        int count = 0;
+
+        while (!nodes.isEmpty()) {
+            ASTNode node = nodes.pop();
+            ++count;
+
+            for (int i = 0; i < node.children().size(); ++i) {
+                nodes.push(node.children().get(i));
+            }
+        }
+
+        return count;
+    }
+}
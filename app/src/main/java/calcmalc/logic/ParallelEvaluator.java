@@ -0,0 +1,207 @@
+package calcmalc.logic;
+
+import calcmalc.exceptions.EvaluatorException;
+import calcmalc.structures.IntStack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel evaluator evaluates large trees in an arena on a fork join pool
+ * The tree is cut into subtrees of at most threshold nodes, the cuts, and the nodes above the cuts, the spine
+ * <pre>
+ *              +              spine  + *
+ *            /   \
+ *           *     c           cuts   (a1 + a2), (b1 - b2), c
+ *          / \
+ *         +   -
+ *        / \ / \
+ *      a1 a2 b1 b2
+ * </pre>
+ * The cuts are evaluated in parallel and the spine is evaluated after them on the calling thread, taking the values of the cuts as its leaves
+ * The sizes of the subtrees are counted by the parser, see AstArena, so the tree is cut by walking only the spine
+ * The cuts are split into tasks by their sizes, a task that has more than threshold nodes is split in two halves of about the same number of nodes
+ *
+ * Every operator is still evaluated in the same order with the same operands, so the result is exactly the same as when the tree is evaluated at once,
+ * and when many subtrees fail the error of the first subtree is thrown, the same error the tree fails with when it is evaluated at once
+ * A balanced tree is cut into a few large cuts and a spine of a few nodes
+ * The parser makes a left deep tree of a long chain of additions and subtractions, every addition is on the spine and the terms are the cuts,
+ * so only the terms are evaluated in parallel, a chain is rebalanced into a new arena first by Optimizer.optimize(AstArena, int)
+ * with reassociation, see Session.interpretParallel
+ * No speedup is claimed, the evaluation has not been measured on more than one core, see ParallelEvaluatorBenchmark
+ *
+ * Every thread evaluates its cuts with its own arena evaluator, compiler and virtual machine, so custom functions can be called in parallel
+ * The definitions are only read, no variable or function can be defined while a tree is being evaluated
+ * @author nnecklace
+ */
+final class ParallelEvaluator {
+    /**
+     * Default largest number of nodes in a cut, and in a task that is not split
+     */
+    static final int THRESHOLD = 8192;
+
+    /**
+     * Largest number of nodes in a cut, and in a task that is not split
+     */
+    private final int threshold;
+    /**
+     * Arena evaluator of every thread, with a compiler and a virtual machine of its own sharing the definitions
+     */
+    private final ThreadLocal<ArenaEvaluator> evaluators;
+
+    /**
+     * Constructor for the parallel evaluator
+     * @param definitions definitions of the evaluator
+     * @param jitThreshold number of calls after which a custom function is compiled into JVM bytecode, on each thread
+     * @param threshold largest number of nodes in a cut, at least 1
+     */
+    ParallelEvaluator(Definitions definitions, int jitThreshold, int threshold) {
+        this.threshold = threshold;
+        this.evaluators = ThreadLocal.withInitial(() -> {
+            Compiler compiler = new Compiler(definitions);
+            return new ArenaEvaluator(definitions, compiler, new VirtualMachine(definitions, compiler, new JitCompiler(jitThreshold)));
+        });
+    }
+
+    /**
+     * Method evaluates the tree with the given root, trees of at most threshold nodes are evaluated on the calling thread
+     * @param arena the arena containing the tree
+     * @param root index of the root node
+     * @param pool the pool the cuts are evaluated on
+     * @return the result of the expression the tree represents
+     * @throws EvaluatorException if evaluation fails
+     */
+    double evaluate(AstArena arena, int root, ForkJoinPool pool) throws EvaluatorException {
+        if (arena.subtreeSize[root] <= threshold) {
+            return evaluators.get().evaluate(arena, root);
+        }
+
+        Cuts cuts = cut(arena, root);
+        pool.invoke(new Task(cuts, 0, cuts.count));
+        return evaluators.get().evaluate(arena, root, threshold, cuts.values, cuts.errors);
+    }
+
+    /**
+     * Method cuts the tree, the spine is walked from the root and every subtree of at most threshold nodes is a cut
+     * The children are visited from left to right, so the cuts are in the order the spine reaches them
+     * @param arena the arena containing the tree
+     * @param root index of the root node
+     * @return the cuts of the tree
+     */
+    private Cuts cut(AstArena arena, int root) {
+        Cuts cuts = new Cuts(arena);
+        IntStack spine = new IntStack();
+        spine.push(root);
+
+        while (!spine.isEmpty()) {
+            int node = spine.pop();
+
+            if (arena.subtreeSize[node] <= threshold) {
+                cuts.add(node);
+                continue;
+            }
+
+            for (int i = arena.childCount[node] - 1; i >= 0; --i) {
+                spine.push(arena.child(node, i));
+            }
+        }
+
+        cuts.values = new double[cuts.count];
+        cuts.errors = new EvaluatorException[cuts.count];
+        return cuts;
+    }
+
+    /**
+     * Cuts of a tree, the root of every cut, the number of nodes before every cut, and the values and errors of the evaluated cuts
+     */
+    private static final class Cuts {
+        private final AstArena arena;
+        private int[] roots = new int[64];
+        private int[] nodesBefore = new int[65];
+        private int count;
+        private double[] values;
+        private EvaluatorException[] errors;
+
+        Cuts(AstArena arena) {
+            this.arena = arena;
+        }
+
+        /**
+         * Method adds a cut, the arrays are doubled if they are full
+         * @param root index of the root node of the cut
+         */
+        void add(int root) {
+            if (count == roots.length) {
+                int[] grownRoots = new int[count * 2];
+                System.arraycopy(roots, 0, grownRoots, 0, count);
+                roots = grownRoots;
+                int[] grownNodesBefore = new int[count * 2 + 1];
+                System.arraycopy(nodesBefore, 0, grownNodesBefore, 0, count + 1);
+                nodesBefore = grownNodesBefore;
+            }
+
+            roots[count] = root;
+            nodesBefore[count + 1] = nodesBefore[count] + arena.subtreeSize[root];
+            count++;
+        }
+
+        /**
+         * Method finds the cut that splits the cuts from first to last into two halves of about the same number of nodes
+         * @param first index of the first cut
+         * @param last index right after the last cut
+         * @return index of the first cut of the second half, between first + 1 and last - 1
+         */
+        int middle(int first, int last) {
+            int half = nodesBefore[first] + (nodesBefore[last] - nodesBefore[first]) / 2;
+            int low = first + 1;
+            int high = last - 1;
+
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+
+                if (nodesBefore[middle] < half) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+    }
+
+    /**
+     * Task evaluating the cuts from first to last, a task of more than threshold nodes is split in two
+     * The error of a failed cut is kept, so the spine throws the error of the first failed cut it reaches
+     */
+    private final class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Cuts cuts;
+        private final int first;
+        private final int last;
+
+        Task(Cuts cuts, int first, int last) {
+            this.cuts = cuts;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first > 1 && cuts.nodesBefore[last] - cuts.nodesBefore[first] > threshold) {
+                int middle = cuts.middle(first, last);
+                invokeAll(new Task(cuts, first, middle), new Task(cuts, middle, last));
+                return;
+            }
+
+            ArenaEvaluator evaluator = evaluators.get();
+
+            for (int i = first; i < last; ++i) {
+                try {
+                    cuts.values[i] = evaluator.evaluate(cuts.arena, cuts.roots[i]);
+                } catch (EvaluatorException e) {
+                    cuts.errors[i] = e;
+                }
+            }
+        }
+    }
+}
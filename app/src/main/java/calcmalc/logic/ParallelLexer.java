@@ -0,0 +1,177 @@
+package calcmalc.logic;
+
+import calcmalc.exceptions.LexerException;
+import calcmalc.logic.types.Types;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel lexer lexes large inputs into a token buffer in chunks on a fork join pool
+ * The input is split into chunks at token boundaries, a chunk never ends in the middle of a symbol or a number, see Lexer.runEnd
+ * Every chunk is lexed into a buffer of its own, and the buffers are concatenated in the order of the chunks, see TokenBuffer.concatenate
+ * <pre>
+ * x = 2: f(x) | - 3*y        chunk 0   x = 2 : f ( x )
+ *              ^ seam        chunk 1   $ 3 * y              $ becomes -, the token before it is a closing parenthesis
+ * </pre>
+ * The lexer decides two things by the token before the current token, a minus is unary if it is the first token or follows an open parenthesis,
+ * a comma, an assignment or a variable delimiter, and a symbol is a function if it is followed by an open parenthesis
+ * At the start of a chunk the lexer doesn't know the token before, so both decisions are made again at every seam once the buffers are concatenated
+ * Every chunk is lexed with absolute positions, so the tokens and the error messages are the same as when the whole input is lexed at once,
+ * and when many chunks fail the error of the first chunk is thrown, the first error in the input
+ * Inputs too small to be split into two chunks are lexed on the calling thread
+ * @author nnecklace
+ */
+final class ParallelLexer {
+    /**
+     * Default smallest number of characters in a chunk
+     */
+    static final int MIN_CHUNK_SIZE = 1 << 16;
+    /**
+     * Number of chunks for every thread of the pool, a few chunks per thread evens out chunks that take longer
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * The lexer that lexes the chunks, the lexer has no state so the chunks can be lexed with it at the same time
+     */
+    private final Lexer lexer;
+    /**
+     * Smallest number of characters in a chunk
+     */
+    private final int minChunkSize;
+
+    /**
+     * Constructor for the parallel lexer
+     * @param lexer the lexer that lexes the chunks
+     * @param minChunkSize smallest number of characters in a chunk, at least 1
+     */
+    ParallelLexer(Lexer lexer, int minChunkSize) {
+        this.lexer = lexer;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * Method lexes the whole input into a token buffer
+     * @param expression the input to lex
+     * @param pool the pool the chunks are lexed on
+     * @return buffer containing the tokens of the input
+     * @throws LexerException if the input contains invalid characters or malformed numbers
+     */
+    TokenBuffer lex(CharSequence expression, ForkJoinPool pool) throws LexerException {
+        int count = Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, expression.length() / minChunkSize);
+
+        if (count < 2) {
+            return lexer.lexBuffer(expression);
+        }
+
+        Chunks chunks = new Chunks(expression, split(expression, count));
+        pool.invoke(new Task(chunks, 0, count));
+
+        for (LexerException error : chunks.errors) {
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        TokenBuffer tokens = TokenBuffer.concatenate(expression, chunks.symbols, chunks.buffers);
+        int seam = 0;
+
+        for (int i = 0; i < count - 1; ++i) {
+            seam += chunks.buffers[i].size();
+
+            if (seam > 0 && seam < tokens.size()) {
+                join(tokens, seam);
+            }
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Method splits the input into chunks of about the same size, the end of a chunk is moved past the symbol or number going over it
+     * @param expression the input
+     * @param count number of chunks
+     * @return the start of every chunk and the end of the input, a chunk is empty if a symbol or number goes over all of it
+     */
+    private int[] split(CharSequence expression, int count) {
+        int[] starts = new int[count + 1];
+
+        for (int i = 1; i < count; ++i) {
+            int at = (int) ((long) expression.length() * i / count);
+            starts[i] = Math.max(starts[i - 1], lexer.runEnd(expression, at, expression.length()));
+        }
+
+        starts[count] = expression.length();
+        return starts;
+    }
+
+    /**
+     * Method makes the decisions that depend on the token before the first token of a chunk again, see Lexer.punctuation
+     * The first token of a chunk was lexed as if nothing was before it, so a minus is always unary and a symbol before it was not made a function
+     * @param tokens the concatenated buffer
+     * @param seam index of the first token of a chunk, larger than 0
+     */
+    private static void join(TokenBuffer tokens, int seam) {
+        Types previous = tokens.type(seam - 1);
+
+        if (tokens.type(seam) == Types.OPEN_PARENTHESIS && previous == Types.SYMBOL) {
+            tokens.setType(seam - 1, Types.FUNCTION);
+        } else if (tokens.isUnaryMinus(seam) && !Lexer.isUnaryAfter(previous)) {
+            tokens.setOperator(seam, '-', 1);
+        }
+    }
+
+    /**
+     * Chunks of the input, the start of every chunk and the buffers and errors of the lexed chunks
+     * The names of all chunks are interned into the same symbol table, so a name has the same id in every chunk
+     */
+    private static final class Chunks {
+        private final CharSequence expression;
+        private final Symbols symbols = new Symbols();
+        private final int[] starts;
+        private final TokenBuffer[] buffers;
+        private final LexerException[] errors;
+
+        Chunks(CharSequence expression, int[] starts) {
+            this.expression = expression;
+            this.starts = starts;
+            this.buffers = new TokenBuffer[starts.length - 1];
+            this.errors = new LexerException[starts.length - 1];
+        }
+    }
+
+    /**
+     * Task lexing the chunks from first to last, a task of more than one chunk is split in two
+     */
+    private final class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Chunks chunks;
+        private final int first;
+        private final int last;
+
+        Task(Chunks chunks, int first, int last) {
+            this.chunks = chunks;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first > 1) {
+                int middle = (first + last) >>> 1;
+                invokeAll(new Task(chunks, first, middle), new Task(chunks, middle, last));
+                return;
+            }
+
+            TokenBuffer buffer = new TokenBuffer(chunks.expression, chunks.symbols);
+
+            try {
+                lexer.lexBuffer(chunks.expression, chunks.starts[first], chunks.starts[first + 1], buffer);
+            } catch (LexerException e) {
+                chunks.errors[first] = e;
+            }
+
+            chunks.buffers[first] = buffer;
+        }
+    }
+}
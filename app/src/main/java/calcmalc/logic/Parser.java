@@ -1,10 +1,12 @@
 package calcmalc.logic;
 
 import calcmalc.structures.Stack;
+import calcmalc.structures.IntStack;
 import calcmalc.structures.Queue;
 import calcmalc.structures.ASTNode;
 import calcmalc.structures.List;
 import calcmalc.logic.types.Token;
+import calcmalc.exceptions.LexerException;
 import java.text.ParseException;
 
 /**
@@ -56,7 +58,11 @@ public class Parser {
      * This way the parser knows how many child nodes to add the a function node
      * The argument amount will be stored in this stack
      */
-    private Stack<Integer> functionArity = new Stack<>();
+    private IntStack functionArity = new IntStack();
+    /**
+     * Arena the nodes are added to when parsing with parseArena, null when the parser makes ASTNode trees
+     */
+    private AstArena arena;
 
     /**
      * Method accepts queue of tokens from the lexer and runs the shunting yard algorithm
@@ -73,6 +79,78 @@ public class Parser {
             shuntingYardParse(tokens.dequeue());
         }
 
+        return popRemainingOperators();
+    }
+
+    /**
+     * Method pulls tokens one at a time from the token source and runs the shunting yard algorithm
+     * until the source runs out of tokens
+     * The input is lexed while it is parsed, so the whole input never has to be held as tokens
+     * @param tokens the token source, e.g., a token stream made by the lexer
+     * @return stack of nodes with the top of the stack being root node
+     * @throws ParseException if illegal input
+     * @throws LexerException if the token source fails to lex the input
+     */
+    public Stack<ASTNode> parse(TokenSource tokens) throws ParseException, LexerException {
+        Token token = tokens.next();
+
+        while (token != null) {
+            shuntingYardParse(token);
+            token = tokens.next();
+        }
+
+        return popRemainingOperators();
+    }
+
+    /**
+     * Method parses the tokens from the token source like parse, but the expressions are added to an arena instead of ASTNode trees
+     * The roots of the expressions are on the roots stack of the arena, the root of the last expression on top
+     * Assignments are still made into ASTNode trees, see variables
+     * @param tokens the token source, e.g., a token stream made by the lexer
+     * @return the arena containing the expressions
+     * @throws ParseException if illegal input
+     * @throws LexerException if the token source fails to lex the input
+     */
+    public AstArena parseArena(TokenSource tokens) throws ParseException, LexerException {
+        arena = new AstArena();
+        parse(tokens);
+        AstArena parsed = arena;
+        arena = null;
+        return parsed;
+    }
+
+    /**
+     * Method parses a token buffer made by Lexer.lexBuffer into an arena, like parseArena(TokenSource)
+     * The tokens are read from the buffer by index, so no Token objects are made while parsing, see TokenBufferParser
+     * Assignments are still made into ASTNode trees, see variables
+     * @param tokens the token buffer
+     * @return the arena containing the expressions
+     * @throws ParseException if illegal input
+     */
+    public AstArena parseArena(TokenBuffer tokens) throws ParseException {
+        return new TokenBufferParser(variables).parse(tokens);
+    }
+
+    /**
+     * Method empties the operator, node, variable and function arity stacks so the parser can parse a new input
+     * The stacks keep their arrays, so a parser that is reset after every input doesn't allocate them again
+     * Must be called before parsing a new input if the previous parse failed, since the stacks can contain parts of the failed input
+     */
+    public void reset() {
+        operators.clear();
+        nodes.clear();
+        variables.clear();
+        functionArity.clear();
+        arena = null;
+    }
+
+    /**
+     * Method empties any remaining operators in the operator stack 
+     * and adds the remaining operators to the syntax tree
+     * @return stack of nodes with the top of the stack being root node
+     * @throws ParseException if there is a parenthesis that was never closed
+     */
+    private Stack<ASTNode> popRemainingOperators() throws ParseException {
         while (!operators.isEmpty()) {
             Token operator = operators.pop();
 
@@ -137,16 +215,17 @@ public class Parser {
         switch (token.getType()) {
             case NUMERIC:
             case SYMBOL:
-                nodes.push(new ASTNode(token)); 
+                if (arena != null) {
+                    arena.add(token, 0);
+                } else {
+                    nodes.push(new ASTNode(token)); 
+                }
                 break;
             case FUNCTION:
                 operators.push(token);
                 break;
             case ASSIGNMENT:
-                if (!operators.isEmpty() || 
-                    nodes.isEmpty() || 
-                    !nodes.peek().token().isFunction() && 
-                    !nodes.peek().token().isSymbol()) {
+                if (!operators.isEmpty() || !isAssignable()) {
                         // This catches cases where the assignment is used in a really weird way
                         // 2 = x:
                         // abs(x=2:)
@@ -198,7 +277,7 @@ public class Parser {
                 } 
 
                 addOperatorNode(operators.pop());
-                variables.enqueue(nodes.pop());
+                variables.enqueue(arena != null ? arena.tree(arena.roots().pop()) : nodes.pop());
                 break;
         }
     }
@@ -215,18 +294,24 @@ public class Parser {
      * @throws ParseException if there is an incorrect amount of arguments for a function
      */
     private void addOperatorNode(Token operator) throws ParseException {
-        ASTNode node = new ASTNode(operator);
+        if (arena != null) {
+            addArenaNode(operator);
+            return;
+        }
+
+        // function nodes get their children as a list, operators have at most two children
+        ASTNode node = new ASTNode(operator, operator.isFunction() ? 0 : 2);
         if (operator.getKey().equals("$") && !nodes.isEmpty()) {
             node.addChild(nodes.pop());
 
         } else if (operator.isFunction()) {
-            Integer argCount = functionArity.pop();
+            int argCount = functionArity.pop();
 
             if (argCount == 0) {
                 throw new ParseException("Parse error: functions must have arguments, use variables instead in cases where no arguments are needed", 1);
             }
 
-            List<ASTNode> children = new List<>(argCount);
+            List<ASTNode> children = new List<>(argCount, argCount);
 
             while (argCount > 0 && !nodes.isEmpty()) {
                 children.set(--argCount, nodes.pop());
@@ -256,6 +341,46 @@ public class Parser {
         nodes.push(node);
     }
 
+    /**
+     * Add nodes to the arena, the same way as addOperatorNode adds them to the syntax tree
+     * The children are the nodes on top of the roots stack of the arena
+     * @param operator the operator or function to add
+     * @throws ParseException if there is an incorrect amount of arguments for a function
+     */
+    private void addArenaNode(Token operator) throws ParseException {
+        int available = arena.roots().size();
+
+        if (operator.getKey().equals("$") && available > 0) {
+            arena.add(operator, 1);
+        } else if (operator.isFunction()) {
+            int argCount = functionArity.pop();
+
+            if (argCount == 0) {
+                throw new ParseException("Parse error: functions must have arguments, use variables instead in cases where no arguments are needed", 1);
+            }
+
+            if (argCount > available) {
+                throw new ParseException("Parse error: function was expected to have more arguments than available", 1);
+            }
+
+            arena.add(operator, argCount);
+        } else {
+            arena.add(operator, Math.min(available, 2));
+        }
+    }
+
+    /**
+     * Method checks if the latest node can be assigned to, only symbols and functions can be assigned to
+     * @return true if there is a node and it is a symbol or a function
+     */
+    private boolean isAssignable() {
+        if (arena != null) {
+            return !arena.roots().isEmpty() && (arena.isFunction(arena.roots().peek()) || arena.isSymbol(arena.roots().peek()));
+        }
+
+        return !nodes.isEmpty() && (nodes.peek().token().isFunction() || nodes.peek().token().isSymbol());
+    }
+
     /**
      * Prints the abstract syntax tree in RPN normal form
      * The method should only be used in tests and debugging
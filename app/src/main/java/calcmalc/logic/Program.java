@@ -0,0 +1,170 @@
+package calcmalc.logic;
+
+import calcmalc.structures.ASTNode;
+
+/**
+ * Program is an AST tree compiled into postfix bytecode for the virtual machine
+ * The bytecode is a flat int array of opcodes and their operands, numbers are stored in a constant pool
+ * and symbol names and error messages in a string pool
+ *
+ * Example
+ * <pre>
+ *      +
+ *     / \        CONSTANT 0
+ *    *   x  =>   CONSTANT 1     constants [2.0, 3.0]
+ *   / \          MUL            strings   [Unknown Symbol x]
+ *  2   3         LOAD 8 0      (8 is the id of x)
+ *                ADD
+ *                RETURN
+ * </pre>
+ * A program is compiled once and can be run any number of times, running a program doesn't allocate
+ * Programs depend on the custom functions defined when the program was compiled,
+ * the virtual machine compiles the program again if a function it refers to has been defined after that
+ * @author nnecklace
+ */
+public final class Program {
+    /**
+     * Pushes a number from the constant pool, operand is the index of the number
+     */
+    static final int CONSTANT = 0;
+    /**
+     * Pushes the value of a variable, operands are the interned id of the variable name
+     * and the index of the error message used if the variable is not defined
+     */
+    static final int LOAD = 1;
+    /**
+     * Pushes an argument of the custom function being run, operand is the index of the argument
+     */
+    static final int ARGUMENT = 2;
+    /**
+     * Binary operators, pop two values and push the result
+     */
+    static final int ADD = 3;
+    static final int SUB = 4;
+    static final int MUL = 5;
+    static final int DIV = 6;
+    static final int MOD = 7;
+    static final int POW = 8;
+    static final int MAX = 9;
+    static final int MIN = 10;
+    /**
+     * Unary operators, pop one value and push the result
+     */
+    static final int NEG = 11;
+    static final int ABS = 12;
+    static final int SQRT = 13;
+    static final int LOG = 14;
+    /**
+     * Calls a custom function, operand is the index of the function in the functions array
+     * The arguments of the function are the topmost values on the stack
+     */
+    static final int CALL = 15;
+    /**
+     * Returns the topmost value of the stack, from a custom function or from the whole program
+     */
+    static final int RETURN = 16;
+    /**
+     * Throws an evaluator exception, operand is the index of the error message
+     * The compiler adds this instruction where the evaluator would throw, so errors are thrown in the same order
+     */
+    static final int FAIL = 17;
+
+    /**
+     * The AST tree the program was compiled from
+     */
+    final ASTNode root;
+    /**
+     * Names of the arguments if the program is the body of a custom function, otherwise empty
+     */
+    final String[] arguments;
+    /**
+     * Opcodes and their operands
+     */
+    int[] code;
+    /**
+     * Numbers of the program
+     */
+    double[] constants;
+    /**
+     * Error messages of the program
+     */
+    String[] strings;
+    /**
+     * Names of the custom functions the program calls
+     */
+    String[] functionNames;
+    /**
+     * Compiled bodies of the custom functions the program calls, compiled the first time they are called
+     */
+    Program[] functions;
+    /**
+     * Largest number of values the program has on the stack at the same time
+     */
+    int maxStack;
+    /**
+     * Version of the definitions the program was last known to be up to date with
+     */
+    int version;
+    /**
+     * Names the compiled code depends on, the custom functions and the variables of the program, and their versions when it was compiled
+     * A variable depends on the functions of the same name, since the error of an unknown variable does
+     */
+    String[] dependencies;
+    int[] dependencyVersions;
+    /**
+     * Symbol table the ids of the variables of the program are from
+     */
+    Symbols symbols;
+    /**
+     * Number of times the program has been called as a custom function, counted until the jit compiler compiles it
+     */
+    int calls;
+    /**
+     * The program compiled into JVM bytecode by the jit compiler, null if the program is not compiled
+     */
+    CompiledFunction compiled;
+
+    /**
+     * Constructor for the program, the compiler fills in the code
+     * @param root the AST tree of the program
+     * @param arguments names of the arguments of the custom function, or empty
+     */
+    Program(ASTNode root, String[] arguments) {
+        this.root = root;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Method checks if the program is up to date, i.e., none of the names it depends on has been defined as a function since it was compiled
+     * Only the versions of the names are checked, so defining an unrelated function doesn't make the program compile again
+     * @param definitions the definitions the program is run with
+     * @return true if the program doesn't have to be compiled again
+     */
+    boolean isCurrent(Definitions definitions) {
+        if (version == definitions.version) {
+            return true;
+        }
+
+        if (symbols != definitions.symbols) {
+            // the definitions have been cleared, see Definitions.clear
+            return false;
+        }
+
+        for (int i = 0; i < dependencies.length; ++i) {
+            if (definitions.functionVersion(dependencies[i]) != dependencyVersions[i]) {
+                return false;
+            }
+        }
+
+        version = definitions.version;
+        return true;
+    }
+
+    /**
+     * Getter for the length of the bytecode
+     * @return number of ints in the bytecode, opcodes and their operands
+     */
+    public int size() {
+        return code.length;
+    }
+}
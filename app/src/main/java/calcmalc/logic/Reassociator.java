@@ -0,0 +1,229 @@
+package calcmalc.logic;
+
+import calcmalc.logic.types.Token;
+import calcmalc.logic.types.TypeBuilder;
+import calcmalc.logic.types.Types;
+import calcmalc.structures.ASTNode;
+import calcmalc.structures.IntStack;
+import calcmalc.structures.List;
+import calcmalc.structures.Stack;
+
+/**
+ * Reassociator rebalances long chains of additions and multiplications into balanced trees
+ * The parser makes left deep trees of chains, so the depth of the tree is the number of terms in the chain
+ * <pre>
+ *          +
+ *         / \                      +
+ *        -   d                   /   \
+ *       / \         =>          +     +
+ *      +   c                   / \   / \
+ *     / \                     a   b $   d
+ *    a   b                            |
+ *                                     c
+ * </pre>
+ * The terms of a chain are collected from left to right, and a balanced tree is built of them, so the depth of a chain of n terms is O(log n)
+ * Subtractions are turned into additions of negations, a - b is exactly a + (-b), and negations of sums are pushed to the terms
+ * Divisions by a power of two are turned into multiplications with the reciprocal, which is also a power of two so the result is exactly the same
+ * Other divisions, and all other operators, end the chain
+ *
+ * Floating point addition and multiplication are not associative, so the sum of a balanced tree can differ from the sum of the chain in the last bits,
+ * and a chain that overflows to infinity, or fails, part way can give a different result or a different error, see Optimizer
+ * Chains of at most three terms are left as they are, a balanced tree of them isn't any shallower
+ * The tree is changed in place and nothing is done recursively, so chains of any length can be rebalanced
+ * Time complexity is O(n) where n is the number of nodes in the tree
+ * @author nnecklace
+ */
+final class Reassociator {
+    /**
+     * Chains of at most this many terms are not rebalanced
+     */
+    private static final int MIN_TERMS = 4;
+    /**
+     * Mask of the exponent and the mantissa bits of a double
+     */
+    private static final long EXPONENT = 0x7FF0000000000000L;
+    private static final long MANTISSA = 0x000FFFFFFFFFFFFFL;
+
+    /**
+     * Slots still to be rebalanced, the node whose child is in the slot and the index of the child
+     */
+    private final Stack<ASTNode> parents = new Stack<>();
+    private final IntStack indices = new IntStack();
+    /**
+     * Terms of the chain being collected, and the nodes still to be collected with their signs
+     */
+    private final List<ASTNode> terms = new List<>();
+    private final Stack<ASTNode> pending = new Stack<>();
+    private final IntStack negated = new IntStack();
+
+    /**
+     * Method rebalances every chain in the tree
+     * @param root root node of the tree
+     * @return root node of the rebalanced tree
+     */
+    ASTNode rebalance(ASTNode root) {
+        // the root is the only child of a holder node, so every node is in a slot that can be replaced
+        ASTNode holder = new ASTNode(TypeBuilder.buildToken(Types.OPERATOR, "$"), 1);
+        holder.addChild(root);
+        parents.push(holder);
+        indices.push(0);
+
+        while (!parents.isEmpty()) {
+            ASTNode parent = parents.pop();
+            int index = indices.pop();
+            ASTNode node = parent.children().get(index);
+            int chain = chain(node);
+
+            if (chain != 0 && collect(node, chain) >= MIN_TERMS) {
+                parent.children().set(index, build(node.token().getKey().equals("+") || node.token().getKey().equals("-") ? "+" : "*", 0, terms.size()));
+                continue;
+            }
+
+            for (int i = 0; i < node.children().size(); ++i) {
+                parents.push(node);
+                indices.push(i);
+            }
+        }
+
+        return holder.children().get(0);
+    }
+
+    /**
+     * Method returns the chain the node belongs to
+     * @param node the node
+     * @return 1 for additions and subtractions, 2 for multiplications and divisions by a power of two, 0 for other nodes
+     */
+    private static int chain(ASTNode node) {
+        Token token = node.token();
+
+        if (!token.isOperator() || node.children().size() != 2) {
+            return 0;
+        }
+
+        switch (token.getKey()) {
+            case "+":
+            case "-":
+                return 1;
+            case "*":
+                return 2;
+            case "/":
+                return hasExactReciprocal(node.children().get(1)) ? 2 : 0;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Method collects the terms of the chain starting from the node, from left to right
+     * Negated terms of additions are wrapped in a negation, and divisors are replaced with their reciprocals
+     * @param node the first node of the chain
+     * @param chain the chain of the node
+     * @return the number of terms
+     */
+    private int collect(ASTNode node, int chain) {
+        terms.clear();
+        pending.push(node);
+        negated.push(0);
+
+        while (!pending.isEmpty()) {
+            ASTNode next = pending.pop();
+            int negative = negated.pop();
+            String key = next.token().getKey();
+
+            if (chain == 1 && key.equals("$") && next.children().size() == 1) {
+                pending.push(next.children().get(0));
+                negated.push(1 - negative);
+            } else if (chain(next) == chain) {
+                // the right operand is pushed first so the left operand is collected first
+                boolean inverse = key.equals("-") || key.equals("/");
+                pending.push(inverse && chain == 2 ? reciprocal(next.children().get(1)) : next.children().get(1));
+                negated.push(key.equals("-") ? 1 - negative : negative);
+                pending.push(next.children().get(0));
+                negated.push(negative);
+            } else {
+                terms.append(negative == 1 ? negate(next) : next);
+            }
+        }
+
+        return terms.size();
+    }
+
+    /**
+     * Method builds a balanced tree of the collected terms, the terms are pushed to the slots so chains inside them are rebalanced too
+     * The depth of the recursion is the depth of the balanced tree, which is O(log n)
+     * @param key the operator of the chain, + or *
+     * @param from index of the first term
+     * @param to index right after the last term
+     * @return root node of the balanced tree
+     */
+    private ASTNode build(String key, int from, int to) {
+        int middle = (from + to) >>> 1;
+        ASTNode node = new ASTNode(TypeBuilder.buildToken(Types.OPERATOR, key), 2);
+
+        for (int i = 0; i < 2; ++i) {
+            int start = i == 0 ? from : middle;
+            int end = i == 0 ? middle : to;
+            node.addChild(end - start == 1 ? terms.get(start) : build(key, start, end));
+
+            if (end - start == 1) {
+                parents.push(node);
+                indices.push(i);
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Method negates a term, numbers are negated right away, other terms are wrapped in a negation
+     * @param term the term
+     * @return the negated term
+     */
+    private static ASTNode negate(ASTNode term) {
+        if (term.token().isNumber()) {
+            return number(-term.token().getValue());
+        }
+
+        ASTNode negation = new ASTNode(TypeBuilder.buildToken(Types.OPERATOR, "$"), 1);
+        negation.addChild(term);
+        return negation;
+    }
+
+    /**
+     * Method replaces a divisor with its reciprocal
+     * @param divisor number node whose reciprocal is exact
+     * @return number node of the reciprocal
+     */
+    private static ASTNode reciprocal(ASTNode divisor) {
+        return number(1 / divisor.token().getValue());
+    }
+
+    /**
+     * Method checks if the node is a number that is a power of two with a reciprocal that is also a power of two
+     * Multiplying with such a reciprocal gives exactly the same result as dividing with the number
+     * @param node the divisor
+     * @return true if the divisor can be replaced with its reciprocal
+     */
+    private static boolean hasExactReciprocal(ASTNode node) {
+        return node.token().isNumber() && isNormalPowerOfTwo(node.token().getValue()) && isNormalPowerOfTwo(1 / node.token().getValue());
+    }
+
+    /**
+     * Method checks if the number is a power of two, or a negated power of two, and not subnormal or infinite
+     * @param value the number
+     * @return true if the mantissa of the number is zero and the exponent is a normal exponent
+     */
+    private static boolean isNormalPowerOfTwo(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        return (bits & MANTISSA) == 0 && (bits & EXPONENT) != 0 && (bits & EXPONENT) != EXPONENT;
+    }
+
+    /**
+     * Method creates a number node
+     * @param value the value of the number
+     * @return the number node
+     */
+    private static ASTNode number(double value) {
+        return new ASTNode(TypeBuilder.buildNumber(Double.toString(value), value));
+    }
+}
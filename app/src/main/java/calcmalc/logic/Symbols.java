@@ -0,0 +1,186 @@
+package calcmalc.logic;
+
+import calcmalc.logic.types.Token;
+import calcmalc.structures.ASTNode;
+import calcmalc.structures.HashTable;
+import calcmalc.structures.Stack;
+
+/**
+ * Symbols interns symbol names into integer ids and resolves the symbols of custom function bodies
+ * Every name gets an id the first time it is seen, after that the same name always has the same id
+ * The id is stored in the token, so a symbol is hashed once and after that its value is read from an array by the id
+ * <pre>
+ * sqrt -> 0, log -> 1, ..., min -> 7, = -> 8, ..., $ -> 19, x -> 20, y -> 21
+ * </pre>
+ * Every session has a table of its own, see Definitions, so the names of one session are forgotten with the session
+ * and the variables of a session are sized by the names of the session only
+ * The standard library functions and the operators are interned first in every table, so they have the same ids in all tables
+ * and checking if a symbol is a standard library function is a comparison
+ * Interning is synchronized, the lexer interns the names of the chunks of an input from different threads
+ * @author nnecklace
+ */
+public final class Symbols {
+    /**
+     * Names of the standard library functions, they have the ids from 0 to the number of functions - 1
+     */
+    static final String[] STANDARD_LIBRARY_FUNCTIONS = {"sqrt", "log", "abs", "cos", "sin", "tan", "max", "min"};
+    /**
+     * Operators and punctuation, they have the ids after the standard library functions
+     */
+    static final String PUNCTUATION = "=():,+-*/^%$";
+    /**
+     * Number of names every table starts with, the standard library functions and the operators
+     */
+    static final int PREDEFINED = STANDARD_LIBRARY_FUNCTIONS.length + PUNCTUATION.length();
+    /**
+     * Ids of all the names interned so far
+     */
+    private final HashTable<Integer> ids = new HashTable<>();
+    /**
+     * Names of the ids, the name of an id is at the index of the id
+     */
+    private String[] names = new String[32];
+    /**
+     * Number of names interned so far, the id of the next new name
+     */
+    private int count;
+
+    /**
+     * Constructor for a table containing the standard library functions and the operators
+     */
+    Symbols() {
+        for (String function : STANDARD_LIBRARY_FUNCTIONS) {
+            intern(function);
+        }
+
+        for (int i = 0; i < PUNCTUATION.length(); ++i) {
+            intern(PUNCTUATION.substring(i, i + 1));
+        }
+    }
+
+    /**
+     * Method returns the id of an operator or punctuation character, the id is the same in every table
+     * @param punctuation a character of PUNCTUATION
+     * @return the id of the character
+     */
+    static int punctuation(char punctuation) {
+        return STANDARD_LIBRARY_FUNCTIONS.length + PUNCTUATION.indexOf(punctuation);
+    }
+
+    /**
+     * Method returns the id of the name, a new id is given to names that haven't been seen before
+     * @param name the symbol name
+     * @return the id of the name
+     */
+    synchronized int intern(String name) {
+        Integer id = ids.get(name);
+
+        if (id == null) {
+            if (count == names.length) {
+                String[] grown = new String[count * 2];
+                System.arraycopy(names, 0, grown, 0, count);
+                names = grown;
+            }
+
+            names[count] = name;
+            id = count++;
+            ids.placeOrUpdate(name, id);
+        }
+
+        return id;
+    }
+
+    /**
+     * Method returns the name of an id, the opposite of intern
+     * @param id an id given by intern
+     * @return the name the id was given to
+     */
+    synchronized String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * Getter for the number of names interned
+     * @return the number of names, the ids are from 0 to the number - 1
+     */
+    synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Method returns the id of the symbol token, the name is interned the first time and the id is stored in the token
+     * A token whose id was given by another table, e.g., a token of a tree made from an arena, is interned again
+     * @param token symbol or function token
+     * @return the id of the symbol name
+     */
+    int id(Token token) {
+        int id = token.getSymbol(this);
+
+        if (id < 0) {
+            id = intern(token.getKey());
+            token.setSymbol(id, this);
+        }
+
+        return id;
+    }
+
+    /**
+     * Method checks if the id belongs to a standard library function
+     * @param id the id of a symbol
+     * @return true if the id is the id of a standard library function
+     */
+    static boolean isStandardLibraryFunction(int id) {
+        return id < STANDARD_LIBRARY_FUNCTIONS.length;
+    }
+
+    /**
+     * Method resolves the symbols of a custom function body, when the function is defined
+     * Symbols that are arguments of the function are bound to the index of the argument, all other symbols are interned
+     * The names of the functions and operators in the body are interned too, so the ids of the tokens of a body are never written after
+     * the function is defined, and the body can be compiled and evaluated from other threads, e.g., by the parallel evaluator
+     * If the same name is given to more than one argument, the last argument is used
+     * Standard library functions are never bound to arguments, they can't be used as variables
+     * <pre>
+     * f(x, y) = x*y+z:   x -> argument 0, y -> argument 1, z -> id of z
+     * </pre>
+     * @param body root node of the function body
+     * @param arguments names of the arguments of the function
+     */
+    void resolve(ASTNode body, String[] arguments) {
+        Stack<ASTNode> nodes = new Stack<>();
+        nodes.push(body);
+
+        while (!nodes.isEmpty()) {
+            ASTNode node = nodes.pop();
+            Token token = node.token();
+
+            if (!token.isNumber()) {
+                int id = id(token);
+
+                if (token.isSymbol() && !isStandardLibraryFunction(id)) {
+                    token.setArgument(argument(token.getKey(), arguments));
+                }
+            }
+
+            for (int i = 0; i < node.children().size(); ++i) {
+                nodes.push(node.children().get(i));
+            }
+        }
+    }
+
+    /**
+     * Method finds the index of the argument with the given name
+     * @param name the symbol name
+     * @param arguments names of the arguments of the function
+     * @return index of the last argument with the name, or -1 if the name is not an argument
+     */
+    private static int argument(String name, String[] arguments) {
+        for (int i = arguments.length - 1; i >= 0; --i) {
+            if (arguments[i].equals(name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
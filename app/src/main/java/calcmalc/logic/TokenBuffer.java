@@ -0,0 +1,378 @@
+package calcmalc.logic;
+
+import calcmalc.logic.types.Types;
+
+/**
+ * Token buffer contains the tokens of an input as parallel arrays of primitives, instead of Token objects
+ * A token is an index, the arrays contain the type, the position in the input, the precedence, the symbol and the value of every token
+ * The keys of the tokens are not copied out of the input, a key is read from the input when it is needed, e.g., for error messages
+ * <pre>
+ * x*2.5        token  type      start  length  precedence  symbol  value
+ *              0      SYMBOL    0      1       4           id(x)   0.0
+ *              1      OPERATOR  1      1       2           id(*)   0.0
+ *              2      NUMERIC   2      3       0           -1      2.5
+ * </pre>
+ * Names are interned into the symbol table of the buffer while lexing, see Symbols, but a name is only made into a string the first time it is seen in the buffer,
+ * after that the characters in the input are compared with the first token of the same name
+ * So lexing into the buffer doesn't allocate anything per token, only when the arrays grow
+ * The parser parses the buffer by index, see Parser.parseArena(TokenBuffer)
+ * @author nnecklace
+ */
+public final class TokenBuffer {
+    /**
+     * Types of the tokens by ordinal, used to read the type of a token
+     */
+    private static final Types[] TYPES = Types.values();
+    /**
+     * Ids of the keys of operators and punctuation, the key is always a single character, the ids are the same in every symbol table
+     */
+    private static final int[] PUNCTUATION_IDS = new int[128];
+
+    static {
+        for (char ch : Symbols.PUNCTUATION.toCharArray()) {
+            PUNCTUATION_IDS[ch] = Symbols.punctuation(ch);
+        }
+    }
+
+    /**
+     * The input the tokens were lexed from
+     */
+    private final CharSequence source;
+    /**
+     * The symbol table the names of the tokens are interned into
+     */
+    final Symbols symbols;
+    /**
+     * Ordinal of the type of every token, see Types
+     */
+    int[] type = new int[64];
+    /**
+     * Position of the first character of every token in the input, and the number of characters
+     */
+    int[] start = new int[64];
+    int[] length = new int[64];
+    /**
+     * Precedence of every token, the same precedence TypeBuilder gives the token
+     */
+    int[] precedence = new int[64];
+    /**
+     * Interned id of the key of every token, -1 for numbers
+     */
+    int[] symbol = new int[64];
+    /**
+     * Value of every number
+     */
+    double[] value = new double[64];
+    /**
+     * Number of tokens in the buffer
+     */
+    private int size;
+    /**
+     * Names seen in the buffer, open addressing table of token indices with linear probing, -1 is an empty index
+     * The id of a name is the symbol of the token at the index
+     */
+    private int[] names = emptyTable(16);
+    private int nameCount;
+
+    /**
+     * Constructor for an empty token buffer
+     * @param source the input the tokens are lexed from
+     * @param symbols the symbol table the names are interned into
+     */
+    TokenBuffer(CharSequence source, Symbols symbols) {
+        this.source = source;
+        this.symbols = symbols;
+    }
+
+    /**
+     * Getter for the number of tokens in the buffer
+     * @return number of tokens
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method returns the type of a token
+     * @param token index of the token
+     * @return the type of the token
+     */
+    public Types type(int token) {
+        return TYPES[type[token]];
+    }
+
+    /**
+     * Method returns the key of a token, the key is sliced from the input
+     * @param token index of the token
+     * @return the key of the token
+     */
+    public String key(int token) {
+        return type[token] == Types.NUMERIC.ordinal() ? source.subSequence(start[token], start[token] + length[token]).toString() : symbols.name(symbol[token]);
+    }
+
+    /**
+     * Method checks if the token is the unary minus
+     * @param token index of the token
+     * @return true if the key of the token is $
+     */
+    boolean isUnaryMinus(int token) {
+        return symbol[token] == PUNCTUATION_IDS['$'];
+    }
+
+    /**
+     * Method adds a number to the buffer
+     * @param from position of the first character of the number
+     * @param to position right after the last character of the number
+     * @param number value of the number
+     */
+    void addNumber(int from, int to, double number) {
+        int token = add(Types.NUMERIC, from, to - from, 0, -1);
+        value[token] = number;
+    }
+
+    /**
+     * Method adds a symbol to the buffer, the name of the symbol is interned
+     * @param from position of the first character of the symbol
+     * @param to position right after the last character of the symbol
+     */
+    void addSymbol(int from, int to) {
+        int token = add(Types.SYMBOL, from, to - from, 4, -1);
+        symbol[token] = intern(token);
+    }
+
+    /**
+     * Method adds an operator or the assignment to the buffer
+     * @param type operator or assignment
+     * @param at position of the character
+     * @param key the key of the operator, $ for an unary minus
+     * @param operatorPrecedence precedence of the operator
+     */
+    void addOperator(Types type, int at, char key, int operatorPrecedence) {
+        add(type, at, 1, operatorPrecedence, PUNCTUATION_IDS[key]);
+    }
+
+    /**
+     * Method adds a parenthesis, a comma or a variable delimiter to the buffer
+     * @param type type of the token
+     * @param at position of the character
+     */
+    void addPunctuation(Types type, int at) {
+        add(type, at, 1, 0, PUNCTUATION_IDS[source.charAt(at)]);
+    }
+
+    /**
+     * Method returns the type of the last token
+     * @return type of the last token, or null if the buffer is empty
+     */
+    Types last() {
+        return size == 0 ? null : TYPES[type[size - 1]];
+    }
+
+    /**
+     * Method changes the type of the last token, used when a symbol turns out to be a function
+     * @param lastType the new type
+     */
+    void setLast(Types lastType) {
+        type[size - 1] = lastType.ordinal();
+    }
+
+    /**
+     * Method changes the type of a token, used when a symbol before a seam turns out to be a function, see ParallelLexer
+     * @param token index of the token
+     * @param tokenType the new type
+     */
+    void setType(int token, Types tokenType) {
+        type[token] = tokenType.ordinal();
+    }
+
+    /**
+     * Method changes the key and the precedence of an operator, used when an unary minus after a seam turns out to be a minus, see ParallelLexer
+     * @param token index of the operator
+     * @param key the new key of the operator
+     * @param operatorPrecedence the new precedence of the operator
+     */
+    void setOperator(int token, char key, int operatorPrecedence) {
+        symbol[token] = PUNCTUATION_IDS[key];
+        precedence[token] = operatorPrecedence;
+    }
+
+    /**
+     * Method concatenates buffers lexed from consecutive chunks of the same input into one buffer
+     * The arrays of the new buffer are allocated at their final size and every chunk is copied into them once
+     * @param source the input the chunks were lexed from
+     * @param symbols the symbol table the names of all chunks were interned into
+     * @param chunks the buffers of the chunks, in the order of the chunks
+     * @return buffer containing the tokens of all chunks
+     */
+    static TokenBuffer concatenate(CharSequence source, Symbols symbols, TokenBuffer[] chunks) {
+        int total = 0;
+
+        for (TokenBuffer chunk : chunks) {
+            total += chunk.size;
+        }
+
+        TokenBuffer tokens = new TokenBuffer(source, symbols);
+        tokens.type = new int[Math.max(total, 1)];
+        tokens.start = new int[tokens.type.length];
+        tokens.length = new int[tokens.type.length];
+        tokens.precedence = new int[tokens.type.length];
+        tokens.symbol = new int[tokens.type.length];
+        tokens.value = new double[tokens.type.length];
+
+        for (TokenBuffer chunk : chunks) {
+            System.arraycopy(chunk.type, 0, tokens.type, tokens.size, chunk.size);
+            System.arraycopy(chunk.start, 0, tokens.start, tokens.size, chunk.size);
+            System.arraycopy(chunk.length, 0, tokens.length, tokens.size, chunk.size);
+            System.arraycopy(chunk.precedence, 0, tokens.precedence, tokens.size, chunk.size);
+            System.arraycopy(chunk.symbol, 0, tokens.symbol, tokens.size, chunk.size);
+            System.arraycopy(chunk.value, 0, tokens.value, tokens.size, chunk.size);
+            tokens.size += chunk.size;
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Method adds a token to the end of the buffer, the arrays are doubled if they are full
+     * @param tokenType type of the token
+     * @param from position of the first character
+     * @param count number of characters
+     * @param tokenPrecedence precedence of the token
+     * @param id interned id of the name of the token
+     * @return index of the token
+     */
+    private int add(Types tokenType, int from, int count, int tokenPrecedence, int id) {
+        if (size == type.length) {
+            grow();
+        }
+
+        type[size] = tokenType.ordinal();
+        start[size] = from;
+        length[size] = count;
+        precedence[size] = tokenPrecedence;
+        symbol[size] = id;
+        return size++;
+    }
+
+    /**
+     * Method returns the id of the name of a symbol token
+     * The name is looked up from the names seen in this buffer by comparing characters, only a new name is made into a string and interned
+     * @param token index of the symbol token
+     * @return the interned id of the name
+     */
+    private int intern(int token) {
+        int index = hash(token) & (names.length - 1);
+
+        while (names[index] >= 0) {
+            if (sameName(names[index], token)) {
+                return symbol[names[index]];
+            }
+            index = (index + 1) & (names.length - 1);
+        }
+
+        names[index] = token;
+
+        if (++nameCount * 2 > names.length) {
+            rehash();
+        }
+
+        return symbols.intern(source.subSequence(start[token], start[token] + length[token]).toString());
+    }
+
+    /**
+     * Method calculates the hash of the name of a token from the characters in the input, mixed like in HashTable
+     * @param token index of the token
+     * @return the hash of the name
+     */
+    private int hash(int token) {
+        int hash = 0;
+
+        for (int i = start[token]; i < start[token] + length[token]; ++i) {
+            hash = 31 * hash + source.charAt(i);
+        }
+
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Method compares the names of two tokens in the input
+     * @param first index of the first token
+     * @param second index of the second token
+     * @return true if the tokens have the same name
+     */
+    private boolean sameName(int first, int second) {
+        if (length[first] != length[second]) {
+            return false;
+        }
+
+        for (int i = 0; i < length[first]; ++i) {
+            if (source.charAt(start[first] + i) != source.charAt(start[second] + i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Method doubles the table of names and places every name again
+     */
+    private void rehash() {
+        int[] old = names;
+        names = emptyTable(old.length * 2);
+
+        for (int token : old) {
+            if (token >= 0) {
+                int index = hash(token) & (names.length - 1);
+
+                while (names[index] >= 0) {
+                    index = (index + 1) & (names.length - 1);
+                }
+
+                names[index] = token;
+            }
+        }
+    }
+
+    /**
+     * Method doubles the token arrays
+     */
+    private void grow() {
+        type = grow(type);
+        start = grow(start);
+        length = grow(length);
+        precedence = grow(precedence);
+        symbol = grow(symbol);
+
+        double[] grown = new double[size * 2];
+        System.arraycopy(value, 0, grown, 0, size);
+        value = grown;
+    }
+
+    /**
+     * Method doubles an int array
+     * @param array the full array
+     * @return array of double the size containing the same values
+     */
+    private static int[] grow(int[] array) {
+        int[] grown = new int[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    /**
+     * Method makes a table of names with no names
+     * @param capacity the capacity of the table, a power of two
+     * @return table with every index empty
+     */
+    private static int[] emptyTable(int capacity) {
+        int[] table = new int[capacity];
+
+        for (int i = 0; i < capacity; ++i) {
+            table[i] = -1;
+        }
+
+        return table;
+    }
+}
@@ -0,0 +1,217 @@
+package calcmalc.logic;
+
+import calcmalc.logic.types.Types;
+import calcmalc.structures.ASTNode;
+import calcmalc.structures.IntStack;
+import calcmalc.structures.Queue;
+import java.text.ParseException;
+
+/**
+ * Shunting yard parser for token buffers, see Parser
+ * The tokens are read from the buffer by index and the operator stack contains token indices, so no Token objects are used
+ * The expressions are added to an arena, the same way Parser.parseArena adds them, and the parser fails with the same errors
+ * Assignments are made into ASTNode trees and added to the variables of the parser, see AstArena.tree
+ * The parser runs in O(n) time, where n is the number of tokens in the buffer
+ * @author nnecklace
+ */
+final class TokenBufferParser {
+    /**
+     * Operator stack, contains the indices of operator, function, assignment and open parenthesis tokens
+     */
+    private IntStack operators = new IntStack();
+    /**
+     * Number of arguments of every function that is being parsed, see Parser
+     */
+    private IntStack functionArity = new IntStack();
+    /**
+     * Queue the assignments are added to, the variables of the parser
+     */
+    private final Queue<ASTNode> variables;
+    /**
+     * The buffer being parsed and the arena the nodes are added to
+     */
+    private TokenBuffer tokens;
+    private AstArena arena;
+
+    /**
+     * Constructor for the token buffer parser
+     * @param variables queue the assignments are added to
+     */
+    TokenBufferParser(Queue<ASTNode> variables) {
+        this.variables = variables;
+    }
+
+    /**
+     * Method parses every token in the buffer and empties the remaining operators
+     * @param buffer the tokens to parse
+     * @return the arena containing the expressions, the root of the last expression on top of the roots stack
+     * @throws ParseException if illegal input
+     */
+    AstArena parse(TokenBuffer buffer) throws ParseException {
+        tokens = buffer;
+        arena = new AstArena(buffer.symbols);
+        operators = new IntStack();
+        functionArity = new IntStack();
+
+        for (int token = 0; token < tokens.size(); ++token) {
+            shuntingYardParse(token);
+        }
+
+        while (!operators.isEmpty()) {
+            int operator = operators.pop();
+
+            if (is(operator, Types.OPEN_PARENTHESIS)) {
+                throw new ParseException("Syntax error: Missing parenthesis 1", 0);
+            }
+
+            addOperatorNode(operator);
+        }
+
+        AstArena parsed = arena;
+        tokens = null;
+        arena = null;
+        return parsed;
+    }
+
+    /**
+     * Parses each token at a time, the same way as Parser.shuntingYardParse
+     * @param token index of the token to parse
+     * @throws ParseException if the token causes the input to be malformed
+     */
+    private void shuntingYardParse(int token) throws ParseException {
+        Types type = tokens.type(token);
+
+        if (type != Types.ASSIGNMENT && type != Types.CLOSING_PARENTHESIS && type != Types.COMMA && type != Types.VARIABLE_DELIMITER &&
+            !functionArity.isEmpty() && functionArity.peek() == 0) {
+            functionArity.push(functionArity.pop() + 1);
+        }
+
+        switch (type) {
+            case NUMERIC:
+            case SYMBOL:
+                arena.add(type, tokens.symbol[token], tokens.value[token], 0);
+                break;
+            case ASSIGNMENT:
+                if (!operators.isEmpty() || !isAssignable()) {
+                    throw new ParseException("Syntax error: Tried to assign value to non assignable or empty", 0);
+                }
+                operators.push(token);
+                break;
+            case OPERATOR:
+                popUntilTypeOrPrecedence(Types.OPEN_PARENTHESIS, tokens.precedence[token]);
+                operators.push(token);
+                break;
+            case OPEN_PARENTHESIS:
+                if (!operators.isEmpty() && is(operators.peek(), Types.FUNCTION)) {
+                    functionArity.push(0);
+                }
+                operators.push(token);
+                break;
+            case CLOSING_PARENTHESIS:
+                closeParenthesis();
+                break;
+            case COMMA:
+                popUntilTypeOrPrecedence(Types.OPEN_PARENTHESIS, 0);
+
+                if (functionArity.isEmpty() || functionArity.peek() == 0) {
+                    throw new ParseException("Syntax error: Illegal use of comma", 0);
+                }
+
+                functionArity.push(functionArity.pop() + 1);
+                break;
+            case VARIABLE_DELIMITER:
+                popUntilTypeOrPrecedence(Types.ASSIGNMENT, 0);
+
+                if (operators.isEmpty()) {
+                    throw new ParseException("Syntax error: Assignment for variable delimitter missing", 0);
+                }
+
+                addOperatorNode(operators.pop());
+                variables.enqueue(arena.tree(arena.roots().pop()));
+                break;
+            default:
+                // functions are operators until their arguments have been parsed
+                operators.push(token);
+                break;
+        }
+    }
+
+    /**
+     * Method pops the operators inside the parentheses and the open parenthesis, and adds the function the parentheses belong to
+     * @throws ParseException if there is no open parenthesis
+     */
+    private void closeParenthesis() throws ParseException {
+        popUntilTypeOrPrecedence(Types.OPEN_PARENTHESIS, 0);
+
+        if (operators.isEmpty()) {
+            throw new ParseException("Syntax error missing parenthesis! 2", 0);
+        }
+
+        operators.pop();
+
+        if (!operators.isEmpty() && is(operators.peek(), Types.FUNCTION)) {
+            addOperatorNode(operators.pop());
+        }
+    }
+
+    /**
+     * Method pops operators from the operator stack until the top of the operator stack has the given type
+     * or until a lower precedence operator is found
+     * Open parentheses and assignments are the only tokens of their types, so this is the same as comparing the keys
+     * @param type the type to pop until
+     * @param precedence the precedence to pop until
+     * @throws ParseException if there is an error while creating a node out of the popped operator
+     */
+    private void popUntilTypeOrPrecedence(Types type, int precedence) throws ParseException {
+        while (!operators.isEmpty() && !is(operators.peek(), type) && tokens.precedence[operators.peek()] >= precedence) {
+            addOperatorNode(operators.pop());
+        }
+    }
+
+    /**
+     * Add nodes to the arena, the same way as Parser adds them
+     * @param operator index of the operator or function token
+     * @throws ParseException if there is an incorrect amount of arguments for a function
+     */
+    private void addOperatorNode(int operator) throws ParseException {
+        int available = arena.roots().size();
+        Types type = tokens.type(operator);
+        int id = tokens.symbol[operator];
+
+        if (tokens.isUnaryMinus(operator) && available > 0) {
+            arena.add(type, id, 0, 1);
+        } else if (type == Types.FUNCTION) {
+            int argCount = functionArity.pop();
+
+            if (argCount == 0) {
+                throw new ParseException("Parse error: functions must have arguments, use variables instead in cases where no arguments are needed", 1);
+            }
+
+            if (argCount > available) {
+                throw new ParseException("Parse error: function was expected to have more arguments than available", 1);
+            }
+
+            arena.add(type, id, 0, argCount);
+        } else {
+            arena.add(type, id, 0, Math.min(available, 2));
+        }
+    }
+
+    /**
+     * Method checks if the latest node can be assigned to, only symbols and functions can be assigned to
+     * @return true if there is a node and it is a symbol or a function
+     */
+    private boolean isAssignable() {
+        return !arena.roots().isEmpty() && (arena.isFunction(arena.roots().peek()) || arena.isSymbol(arena.roots().peek()));
+    }
+
+    /**
+     * Method checks the type of a token
+     * @param token index of the token
+     * @param type the type to compare with
+     * @return true if the token has the type
+     */
+    private boolean is(int token, Types type) {
+        return tokens.type[token] == type.ordinal();
+    }
+}
@@ -0,0 +1,20 @@
+package calcmalc.logic;
+
+import calcmalc.exceptions.LexerException;
+import calcmalc.logic.types.Token;
+
+/**
+ * A pull based source of tokens for the parser
+ * Instead of lexing the whole input into a queue before parsing, the parser asks for one token at a time
+ * This way the input only has to be lexed as far as the parser has gotten
+ * @see calcmalc.logic.TokenStream
+ * @author nnecklace
+ */
+public interface TokenSource {
+    /**
+     * Method lexes, if needed, and returns the next token from the input
+     * @return the next token or null if there are no tokens left
+     * @throws LexerException if the input contains invalid characters or cannot be read
+     */
+    Token next() throws LexerException;
+}
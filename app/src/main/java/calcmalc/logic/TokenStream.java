@@ -0,0 +1,171 @@
+package calcmalc.logic;
+
+import calcmalc.exceptions.LexerException;
+import calcmalc.logic.types.Token;
+import calcmalc.structures.Queue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Token stream lexes the input in bounded chunks as the parser asks for more tokens
+ * The input is either a reader, in which case only one chunk of characters is held in memory at a time,
+ * or a char sequence that is already in memory, in which case only the tokens of one chunk are held in memory at a time
+ * 
+ * Chunks are never cut in the middle of a symbol or a number, the trailing run of letters or digits is left for the next chunk
+ * The last lexed token is always held back until the next chunk has been lexed, since an opening parenthesis 
+ * in the next chunk can turn a symbol into a function
+ * <pre>
+ * chunk 1: x = 2 : cos     <-- cos is held back
+ * chunk 2: (x) + 1         <-- cos is now a function
+ * </pre>
+ * @author nnecklace
+ */
+public class TokenStream implements TokenSource {
+    /**
+     * Default amount of characters that are lexed at a time
+     */
+    static final int CHUNK_SIZE = 8192;
+    /**
+     * The lexer that lexes each chunk
+     */
+    private Lexer lexer;
+    /**
+     * Reader the input is read from, null if the whole input is already in memory
+     */
+    private Reader reader;
+    /**
+     * Buffer the reader reads to, null if the whole input is already in memory
+     */
+    private char[] buffer;
+    /**
+     * The characters to lex, either the whole input or a view of the buffer
+     */
+    private CharSequence input;
+    /**
+     * Maximum amount of characters lexed at a time
+     */
+    private int chunkSize;
+    /**
+     * Position of the first character in the input that hasn't been lexed yet
+     */
+    private int start;
+    /**
+     * Position right after the last character available in the input
+     */
+    private int end;
+    /**
+     * Position of the first character of the input, relative to the beginning of the whole stream
+     * Only changes when the reader buffer is compacted, used for positions in error messages
+     */
+    private long offset;
+    /**
+     * True once the reader has reached the end of the stream
+     */
+    private boolean exhausted;
+    /**
+     * Tokens lexed but not yet taken by the parser
+     */
+    private Queue<Token> tokens = new Queue<>();
+
+    /**
+     * Constructor for a token stream over a reader
+     * @param lexer the lexer used for each chunk
+     * @param reader the reader to read the input from
+     * @param chunkSize the amount of characters lexed at a time
+     */
+    TokenStream(Lexer lexer, Reader reader, int chunkSize) {
+        this.lexer = lexer;
+        this.reader = reader;
+        this.chunkSize = chunkSize;
+        // the buffer always has room for the longest legal symbol or number after a chunk
+        this.buffer = new char[chunkSize + Lexer.MAX_TOKEN_LENGTH + 1];
+        this.input = CharBuffer.wrap(buffer);
+    }
+
+    /**
+     * Constructor for a token stream over input that is already in memory
+     * @param lexer the lexer used for each chunk
+     * @param input the whole input
+     * @param chunkSize the amount of characters lexed at a time
+     */
+    TokenStream(Lexer lexer, CharSequence input, int chunkSize) {
+        this.lexer = lexer;
+        this.input = input;
+        this.chunkSize = chunkSize;
+        this.end = input.length();
+        this.exhausted = true;
+    }
+
+    @Override
+    public Token next() throws LexerException {
+        while (tokens.size() < 2 && lexChunk()) {
+            // keep lexing until the held back token has a follower or the input runs out
+        }
+
+        return tokens.dequeue();
+    }
+
+    /**
+     * Method lexes the next chunk of the input into the token queue
+     * A chunk that would end in the middle of a symbol or a number is extended to the end of the symbol or number
+     * If the reader hasn't read the end of the symbol or number yet, the chunk stops right before it
+     * @return false if the whole input has been lexed, otherwise true
+     * @throws LexerException if the chunk contains invalid characters or the reader fails
+     */
+    private boolean lexChunk() throws LexerException {
+        fill();
+
+        if (start == end) {
+            return !exhausted;
+        }
+
+        int cut = lexer.runEnd(input, end - start > chunkSize ? start + chunkSize : end, end);
+
+        if (cut == end && !exhausted) {
+            cut = lexer.trailingRunStart(input, start, end);
+
+            if (cut == start) {
+                if (end - start < buffer.length) {
+                    return true; // the run might continue, read more before lexing
+                }
+                // the run fills the whole buffer, which is always too long, let the lexer report it
+                cut = end;
+            }
+        }
+
+        lexer.lex(input, start, cut, offset, tokens);
+        start = cut;
+        return true;
+    }
+
+    /**
+     * Method moves the unlexed characters to the beginning of the buffer and reads more characters after them
+     * Does nothing if the whole input is already in memory
+     * @throws LexerException if the reader fails
+     */
+    private void fill() throws LexerException {
+        if (exhausted) {
+            return;
+        }
+
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            offset += start;
+            end -= start;
+            start = 0;
+        }
+
+        try {
+            int read = reader.read(buffer, end, buffer.length - end);
+            if (read == -1) {
+                exhausted = true;
+            } else {
+                end += read;
+            }
+        } catch (IOException e) {
+            throw new LexerException("Could not read input: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package calcmalc.logic;
+
+/**
+ * Variables contains the values of the variables defined so far, indexed by the id of the variable name
+ * @see calcmalc.logic.Symbols
+ * Reading a variable is an array access, the name is never hashed or compared
+ * <pre>
+ * x = 2:   x -> 20   values [_, _, ..., _, 2.0]   the value is at index 20
+ * </pre>
+ * The arrays grow when a variable with a larger id than any before it is defined
+ * The ids are from the symbol table of the same definitions, so the arrays only grow with the names of one session
+ * @author nnecklace
+ */
+final class Variables {
+    /**
+     * Values of the variables
+     */
+    private double[] values = new double[32];
+    /**
+     * True for the ids of the variables that have been defined, any double can be a value so the values can't tell it
+     */
+    private boolean[] defined = new boolean[32];
+
+    /**
+     * Method checks if the variable has been defined
+     * @param id the id of the variable name
+     * @return true if the variable has a value
+     */
+    boolean isDefined(int id) {
+        return id < defined.length && defined[id];
+    }
+
+    /**
+     * Getter for the value of a variable, the variable has to be defined
+     * @param id the id of the variable name
+     * @return the value of the variable
+     */
+    double get(int id) {
+        return values[id];
+    }
+
+    /**
+     * Method defines a variable, or changes the value of a variable that is already defined
+     * @param id the id of the variable name
+     * @param value the new value of the variable
+     */
+    void set(int id, double value) {
+        if (id >= values.length) {
+            int size = Math.max(id + 1, values.length * 2);
+            double[] grownValues = new double[size];
+            boolean[] grownDefined = new boolean[size];
+            System.arraycopy(values, 0, grownValues, 0, values.length);
+            System.arraycopy(defined, 0, grownDefined, 0, defined.length);
+            values = grownValues;
+            defined = grownDefined;
+        }
+
+        values[id] = value;
+        defined[id] = true;
+    }
+}
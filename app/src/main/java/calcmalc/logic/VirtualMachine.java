@@ -0,0 +1,331 @@
+package calcmalc.logic;
+
+import calcmalc.exceptions.EvaluatorException;
+
+/**
+ * Virtual machine runs programs made by the compiler
+ * The machine is a stack machine, instructions pop their operands from a stack of doubles and push the result back on it
+ * Custom function calls don't recurse, the machine keeps the calls on a call stack and the arguments of a call on the value stack
+ * The call stack holds at most Definitions.MAX_CALL_DEPTH calls, a function that calls itself fails instead of filling the heap
+ * Custom functions that are called often are compiled into JVM bytecode by the jit compiler, see JitCompiler
+ *
+ * Example
+ * <pre>
+ * CONSTANT 0       [2.0]
+ * CONSTANT 1       [2.0, 3.0]
+ * MUL              [6.0]
+ * RETURN           => 6.0
+ * </pre>
+ * The stacks are reused between runs, they only grow when a program needs more space than any before it
+ * So running a program doesn't allocate anything, numbers are never boxed
+ * Time complexity is O(n) where n is the number of instructions run
+ * @author nnecklace
+ */
+final class VirtualMachine {
+    /**
+     * Definitions of the evaluator, variables are looked up from its symbol table
+     */
+    private final Definitions definitions;
+    /**
+     * Compiler used to compile custom functions and programs compiled with old definitions
+     */
+    private final Compiler compiler;
+    /**
+     * Jit compiler that compiles hot custom functions into JVM bytecode
+     */
+    private final JitCompiler jit;
+    /**
+     * Value stack of the machine
+     */
+    private double[] stack = new double[64];
+    /**
+     * Call stack of the machine, the program, the position in the program, and the base of the arguments of each unfinished call
+     */
+    private Program[] callPrograms = new Program[16];
+    private int[] callPositions = new int[16];
+    private int[] callBases = new int[16];
+
+    /**
+     * Constructor for the virtual machine
+     * @param definitions the definitions of the evaluator
+     * @param compiler the compiler of the evaluator
+     * @param jit the jit compiler for hot custom functions
+     */
+    VirtualMachine(Definitions definitions, Compiler compiler, JitCompiler jit) {
+        this.definitions = definitions;
+        this.compiler = compiler;
+        this.jit = jit;
+    }
+
+    /**
+     * Method runs the program and returns the value it results in
+     * If a function the program refers to has been defined after the program was compiled, the program is compiled again
+     * @param program the program to run
+     * @return the result of the program
+     * @throws EvaluatorException if the program fails, e.g., a variable is not defined
+     */
+    double run(Program program) throws EvaluatorException {
+        return run(program, 0);
+    }
+
+    /**
+     * Method calls a custom function with arguments that were evaluated outside the machine, e.g., by the evaluator
+     * The arguments are copied to the bottom of the value stack, where the function reads them from
+     * @param function the compiled body of the custom function, see Compiler.function
+     * @param arguments array containing the arguments
+     * @param base index of the first argument in the array
+     * @return the result of the function
+     * @throws EvaluatorException if the function fails
+     */
+    double call(Program function, double[] arguments, int base) throws EvaluatorException {
+        if (jit.call(function, definitions)) {
+            return function.compiled.apply(arguments, base);
+        }
+
+        int count = function.arguments.length;
+        System.arraycopy(arguments, base, ensureStack(count + function.maxStack), 0, count);
+        return run(function, count);
+    }
+
+    /**
+     * Method runs the program from the beginning with the given number of values already on the stack
+     * @param program the program to run
+     * @param top the number of values on the stack, the arguments of the program
+     * @return the result of the program
+     * @throws EvaluatorException if the program fails
+     */
+    private double run(Program program, int top) throws EvaluatorException {
+        try {
+            return execute(program, top);
+        } catch (EvaluatorException | RuntimeException e) {
+            // the unfinished calls are dropped, so the call stack doesn't keep their programs alive
+            for (int i = 0; i < callPrograms.length && callPrograms[i] != null; ++i) {
+                callPrograms[i] = null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Method runs the instructions of the program, custom function calls are kept on the call stack
+     * @param program the program to run
+     * @param top the number of values on the stack, the arguments of the program
+     * @return the result of the program
+     * @throws EvaluatorException if the program fails, or the maximum call depth is reached
+     */
+    private double execute(Program program, int top) throws EvaluatorException {
+        if (!program.isCurrent(definitions)) {
+            compiler.compile(program);
+        }
+
+        int[] code = program.code;
+        double[] values = ensureStack(top + program.maxStack);
+        int position = 0;
+        int base = 0;
+        int calls = 0;
+
+        while (true) {
+            int opcode = code[position++];
+
+            switch (opcode) {
+                case Program.CONSTANT:
+                    values[top++] = program.constants[code[position++]];
+                    break;
+                case Program.LOAD:
+                    values[top++] = load(program, code[position], code[position + 1]);
+                    position += 2;
+                    break;
+                case Program.ARGUMENT:
+                    values[top++] = values[base + code[position++]];
+                    break;
+                case Program.CALL:
+                    Program function = function(program, code[position++]);
+                    if (jit.call(function, definitions)) {
+                        top = callCompiled(function, values, top);
+                        break;
+                    }
+                    Definitions.checkCallDepth(program.functionNames[code[position - 1]], calls);
+                    saveCall(calls++, program, position, base);
+                    base = top - function.arguments.length;
+                    values = ensureStack(top + function.maxStack);
+                    program = function;
+                    code = function.code;
+                    position = 0;
+                    break;
+                case Program.RETURN:
+                    if (calls == 0) {
+                        return values[top - 1];
+                    }
+
+                    values[base] = values[top - 1];
+                    top = base + 1;
+                    program = callPrograms[--calls];
+                    callPrograms[calls] = null;
+                    code = program.code;
+                    position = callPositions[calls];
+                    base = callBases[calls];
+                    break;
+                case Program.FAIL:
+                    throw new EvaluatorException(program.strings[code[position]]);
+                default:
+                    top = operate(opcode, values, top);
+            }
+        }
+    }
+
+    /**
+     * Method calls a custom function that has been compiled into JVM bytecode
+     * The arguments are read from the value stack and replaced with the result
+     * @param function the compiled body of the custom function
+     * @param values the value stack
+     * @param top the number of values on the stack
+     * @return the number of values on the stack after the call
+     * @throws EvaluatorException if the function fails
+     */
+    private int callCompiled(Program function, double[] values, int top) throws EvaluatorException {
+        int base = top - function.arguments.length;
+        values[base] = function.compiled.apply(values, base);
+        return base + 1;
+    }
+
+    /**
+     * Method runs an operator or a standard library function on the topmost values of the stack
+     * @param opcode the operator or function
+     * @param values the value stack
+     * @param top the number of values on the stack
+     * @return the number of values on the stack after the operation
+     */
+    static int operate(int opcode, double[] values, int top) {
+        double right = values[top - 1];
+
+        if (opcode >= Program.NEG) {
+            values[top - 1] = unary(opcode, right);
+            return top;
+        }
+
+        double left = values[top - 2];
+
+        switch (opcode) {
+            case Program.ADD:
+                values[top - 2] = left + right;
+                break;
+            case Program.SUB:
+                values[top - 2] = left - right;
+                break;
+            case Program.MUL:
+                values[top - 2] = left * right;
+                break;
+            case Program.DIV:
+                values[top - 2] = left / right;
+                break;
+            case Program.MOD:
+                values[top - 2] = left % right;
+                break;
+            case Program.POW:
+                values[top - 2] = MathFunctions.pow(left, right);
+                break;
+            case Program.MAX:
+                values[top - 2] = MathFunctions.max(left, right);
+                break;
+            default:
+                values[top - 2] = MathFunctions.min(left, right);
+        }
+
+        return top - 1;
+    }
+
+    /**
+     * Method runs an unary operator or standard library function
+     * @param opcode the operator or function
+     * @param value the argument
+     * @return the result
+     */
+    private static double unary(int opcode, double value) {
+        switch (opcode) {
+            case Program.NEG:
+                return -value;
+            case Program.ABS:
+                return MathFunctions.abs(value);
+            case Program.SQRT:
+                return Math.sqrt(value); // check custom square root function for reason why we use this
+            default:
+                return Math.log(value); // check custom log function for reason of why we use this
+        }
+    }
+
+    /**
+     * Method looks up the value of a variable
+     * @param program the program being run
+     * @param id interned id of the variable name
+     * @param message index of the error message in the string pool
+     * @return the value of the variable
+     * @throws EvaluatorException if the variable is not defined
+     */
+    private double load(Program program, int id, int message) throws EvaluatorException {
+        if (!definitions.variables.isDefined(id)) {
+            throw new EvaluatorException(program.strings[message]);
+        }
+
+        return definitions.variables.get(id);
+    }
+
+    /**
+     * Method returns the compiled body of a custom function the program calls
+     * The body is looked up the first time the call is made, after that the program remembers it
+     * until functions are defined, the body is then looked up again in case it is no longer up to date
+     * @param program the program being run
+     * @param index index of the function in the program
+     * @return the compiled function body
+     */
+    private Program function(Program program, int index) {
+        Program function = program.functions[index];
+
+        if (function == null || function.version != definitions.version) {
+            // the function may still be up to date, then the compiler gives back the same program
+            function = compiler.function(program.functionNames[index]);
+            program.functions[index] = function;
+        }
+
+        return function;
+    }
+
+    /**
+     * Method saves an unfinished call on the call stack, the call stack grows if needed
+     * @param call index of the call
+     * @param program the calling program
+     * @param position the position to continue from in the calling program
+     * @param base the base of the arguments of the calling program
+     */
+    private void saveCall(int call, Program program, int position, int base) {
+        if (call == callPrograms.length) {
+            Program[] grownPrograms = new Program[call * 2];
+            int[] grownPositions = new int[call * 2];
+            int[] grownBases = new int[call * 2];
+            System.arraycopy(callPrograms, 0, grownPrograms, 0, call);
+            System.arraycopy(callPositions, 0, grownPositions, 0, call);
+            System.arraycopy(callBases, 0, grownBases, 0, call);
+            callPrograms = grownPrograms;
+            callPositions = grownPositions;
+            callBases = grownBases;
+        }
+
+        callPrograms[call] = program;
+        callPositions[call] = position;
+        callBases[call] = base;
+    }
+
+    /**
+     * Method makes sure the value stack has room for the given number of values
+     * @param size the number of values needed
+     * @return the value stack
+     */
+    private double[] ensureStack(int size) {
+        if (size > stack.length) {
+            double[] grown = new double[Math.max(size, stack.length * 2)];
+            System.arraycopy(stack, 0, grown, 0, stack.length);
+            stack = grown;
+        }
+
+        return stack;
+    }
+}
@@ -1,5 +1,7 @@
 package calcmalc.logic.types;
 
+import calcmalc.logic.Symbols;
+
 /**
  * The token class represents a value for one of character (or group of characters)
  * in the input. The token is created by the lexer 
@@ -35,6 +37,26 @@ public class Token {
      * Keys can be at maximum 64 characters long, this is validated be the lexer and not be this class
      */
     private String key;
+    /**
+     * The value of the number the token represents, only numeric tokens have a value
+     * Numbers are parsed once when the token is built, so they are not parsed again every time they are evaluated
+     */
+    private double value;
+    /**
+     * The interned id of the symbol name, -1 until the symbol is resolved
+     * @see calcmalc.logic.Symbols
+     */
+    private int symbol = -1;
+    /**
+     * The symbol table that gave the id, ids of different tables are not the same
+     * The id is written when the token is first looked up, for the tokens of custom function bodies when the function is defined, see Symbols.resolve
+     */
+    private Symbols symbols;
+    /**
+     * Index of the custom function argument the symbol refers to, -1 if the symbol is not an argument
+     * Only symbols in custom function bodies are bound to arguments
+     */
+    private int argument = -1;
 
     /**
      * Constructor for Token class
@@ -160,6 +182,57 @@ public class Token {
         return type;
     }
 
+    /**
+     * Getter for the value of a numeric token
+     * @return the value of the number, 0 for tokens that are not numeric
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Setter for the value of a numeric token
+     * @param value the value of the number the key represents
+     */
+    public void setValue(double value) {
+        this.value = value;
+    }
+
+    /**
+     * Getter for the interned id of the symbol name
+     * @param table the symbol table the id is wanted from
+     * @return the id, or -1 if the symbol hasn't been resolved by the table
+     */
+    public int getSymbol(Symbols table) {
+        return table == symbols ? symbol : -1;
+    }
+
+    /**
+     * Setter for the interned id of the symbol name
+     * @param symbol the id of the name
+     * @param table the symbol table that gave the id
+     */
+    public void setSymbol(int symbol, Symbols table) {
+        this.symbol = symbol;
+        this.symbols = table;
+    }
+
+    /**
+     * Getter for the index of the custom function argument the symbol refers to
+     * @return the index of the argument, or -1 if the symbol is not an argument
+     */
+    public int getArgument() {
+        return argument;
+    }
+
+    /**
+     * Setter for the index of the custom function argument the symbol refers to
+     * @param argument the index of the argument, or -1 if the symbol is not an argument
+     */
+    public void setArgument(int argument) {
+        this.argument = argument;
+    }
+
     /**
      * Getter for class key property
      * @return the key property
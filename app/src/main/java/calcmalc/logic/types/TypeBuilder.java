@@ -14,9 +14,11 @@ public class TypeBuilder {
 
     /**
      * Builds tokens representing the key that was read by the lexer
+     * Numeric keys are parsed with Double.parseDouble, the lexer uses buildNumber instead
      * @param type the token type
      * @param key the key that was read by the lexer
      * @return Token matching the key
+     * @throws NumberFormatException if the type is numeric and the key is not a number
      */
     public static Token buildToken(Types type, String key) {
         Token token = new Token(type, key);
@@ -39,9 +41,24 @@ public class TypeBuilder {
                     token.setPrecedence(1);
                 }
                 break;
+            case NUMERIC:
+                token.setValue(Double.parseDouble(key));
+                break;
             default:
                 break;
         }
         return token;
     }
+
+    /**
+     * Builds a numeric token whose value is already known, so the key doesn't have to be parsed
+     * @param key the key that was read by the lexer
+     * @param value the value of the number the key represents
+     * @return numeric token with the given value
+     */
+    public static Token buildNumber(String key, double value) {
+        Token token = new Token(Types.NUMERIC, key);
+        token.setValue(value);
+        return token;
+    }
 }
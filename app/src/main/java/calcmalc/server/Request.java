@@ -0,0 +1,364 @@
+package calcmalc.server;
+
+import calcmalc.structures.List;
+
+import java.text.ParseException;
+
+/**
+ * Request to the server, parsed from a json body in the same form as the requests of the mathjs api
+ * <pre>
+ * {"expr": "x = 2: x*3"}                        one input, the result is a string
+ * {"expr": ["x = 2:", "x*3"], "session": "a"}   many inputs, the results are an array of strings
+ * </pre>
+ * The inputs of a request with a session are interpreted in the session of the same name, so variables and custom functions
+ * defined by one request can be used by the next requests of the session, see Server
+ * Other fields, e.g., precision, are skipped, the values of the fields can be strings, arrays of strings, numbers, booleans or null
+ * @author nnecklace
+ */
+final class Request {
+    /**
+     * Hexadecimal digits of unicode escapes
+     */
+    private static final char[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+    /**
+     * The inputs to interpret, in order
+     */
+    private final List<String> expressions;
+    /**
+     * True if expr was an array, the results are written as an array
+     */
+    private final boolean array;
+    /**
+     * Name of the session, null if the request has no session
+     */
+    private final String session;
+
+    /**
+     * Constructor for the request
+     * @param expressions the inputs to interpret
+     * @param array true if expr was an array
+     * @param session name of the session, or null
+     */
+    Request(List<String> expressions, boolean array, String session) {
+        this.expressions = expressions;
+        this.array = array;
+        this.session = session;
+    }
+
+    /**
+     * Getter for the inputs
+     * @return the inputs to interpret, in order
+     */
+    List<String> expressions() {
+        return expressions;
+    }
+
+    /**
+     * Method checks if the results are written as an array
+     * @return true if expr was an array
+     */
+    boolean isArray() {
+        return array;
+    }
+
+    /**
+     * Getter for the name of the session
+     * @return the name of the session, or null if the request has no session
+     */
+    String session() {
+        return session;
+    }
+
+    /**
+     * Method parses the body of a request
+     * @param body the json body
+     * @return the request
+     * @throws ParseException if the body is not a json object, or expr is missing
+     */
+    static Request parse(String body) throws ParseException {
+        return new Reader(body).request();
+    }
+
+    /**
+     * Method quotes a string for a json response, quotes, backslashes and control characters are escaped
+     * @param value the string to quote
+     * @return the quoted string
+     */
+    static String quote(String value) {
+        // every character is at most six characters when escaped, e.g., \u001f
+        char[] quoted = new char[value.length() * 6 + 2];
+        int length = 0;
+        quoted[length++] = '"';
+
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                quoted[length++] = '\\';
+                quoted[length++] = c;
+            } else if (c < ' ') {
+                quoted[length++] = '\\';
+                quoted[length++] = 'u';
+                quoted[length++] = '0';
+                quoted[length++] = '0';
+                quoted[length++] = HEX_DIGITS[c >> 4];
+                quoted[length++] = HEX_DIGITS[c & 0xf];
+            } else {
+                quoted[length++] = c;
+            }
+        }
+
+        quoted[length++] = '"';
+        return new String(quoted, 0, length);
+    }
+
+    /**
+     * Method joins json values into an array, or returns the only value when the result is not an array
+     * <pre>
+     * ["1", "2"] -> ["1", "2"]    array
+     * ["1"]      -> "1"           not an array
+     * </pre>
+     * @param values the json values, e.g., quoted strings
+     * @param array true if the values are written as an array
+     * @return the json value
+     */
+    static String join(List<String> values, boolean array) {
+        if (!array) {
+            return values.get(0);
+        }
+
+        int size = 2;
+
+        for (int i = 0; i < values.size(); ++i) {
+            size += values.get(i).length() + 2;
+        }
+
+        char[] joined = new char[size];
+        int length = 0;
+        joined[length++] = '[';
+
+        for (int i = 0; i < values.size(); ++i) {
+            if (i > 0) {
+                joined[length++] = ',';
+                joined[length++] = ' ';
+            }
+
+            String value = values.get(i);
+            value.getChars(0, value.length(), joined, length);
+            length += value.length();
+        }
+
+        joined[length++] = ']';
+        return new String(joined, 0, length);
+    }
+
+    /**
+     * Reader of a json body, reads the characters of the body from left to right
+     */
+    private static final class Reader {
+        private final String body;
+        private int position;
+
+        Reader(String body) {
+            this.body = body;
+        }
+
+        /**
+         * Method reads the object of the body, the fields expr and session are kept and the other fields are skipped
+         * @return the request
+         * @throws ParseException if the body is not a json object, or expr is missing
+         */
+        Request request() throws ParseException {
+            List<String> expressions = null;
+            boolean array = false;
+            String session = null;
+            int fields = 0;
+            expect('{');
+
+            while (next() != '}') {
+                if (fields++ > 0) {
+                    expect(',');
+                }
+
+                String field = string();
+                expect(':');
+
+                if ("expr".equals(field)) {
+                    array = next() == '[';
+                    expressions = array ? strings() : single(string());
+                } else if ("session".equals(field)) {
+                    session = string();
+                } else {
+                    skip();
+                }
+            }
+
+            expect('}');
+            next();
+
+            if (position < body.length()) {
+                throw new ParseException("Request error: Unexpected character at " + position, position);
+            }
+
+            if (expressions == null) {
+                throw new ParseException("Request error: Missing expr", position);
+            }
+
+            return new Request(expressions, array, session);
+        }
+
+        /**
+         * Method reads an array of strings
+         * @return the strings
+         * @throws ParseException if the array contains something else than strings
+         */
+        private List<String> strings() throws ParseException {
+            List<String> strings = new List<>();
+            expect('[');
+
+            while (next() != ']') {
+                if (!strings.isEmpty()) {
+                    expect(',');
+                }
+
+                strings.append(string());
+            }
+
+            expect(']');
+            return strings;
+        }
+
+        /**
+         * Method reads a string, escaped characters are unescaped
+         * @return the string
+         * @throws ParseException if there is no string, or the string is not closed
+         */
+        private String string() throws ParseException {
+            expect('"');
+            // a string is never longer than the rest of the body, escapes only make it shorter
+            char[] value = new char[body.length() - position];
+            int length = 0;
+
+            while (position < body.length() && body.charAt(position) != '"') {
+                char c = body.charAt(position++);
+                value[length++] = c == '\\' ? escaped() : c;
+            }
+
+            expect('"');
+            return new String(value, 0, length);
+        }
+
+        /**
+         * Method reads the character after a backslash
+         * @return the escaped character
+         * @throws ParseException if the escape is not valid json
+         */
+        private char escaped() throws ParseException {
+            char c = position < body.length() ? body.charAt(position++) : ' ';
+
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    return c;
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'u':
+                    return unicode();
+                default:
+                    break;
+            }
+
+            throw new ParseException("Request error: Invalid escape at " + position, position);
+        }
+
+        /**
+         * Method reads the four hexadecimal digits of a unicode escape
+         * @return the escaped character
+         * @throws ParseException if there are not four hexadecimal digits
+         */
+        private char unicode() throws ParseException {
+            int value = 0;
+
+            for (int i = 0; i < 4; ++i) {
+                int digit = position < body.length() ? Character.digit(body.charAt(position++), 16) : -1;
+
+                if (digit < 0) {
+                    throw new ParseException("Request error: Invalid escape at " + position, position);
+                }
+
+                value = value * 16 + digit;
+            }
+
+            return (char) value;
+        }
+
+        /**
+         * Method skips the value of a field that is not used, a string, an array of strings, or a number, boolean or null
+         * @throws ParseException if the value is not valid
+         */
+        private void skip() throws ParseException {
+            char c = next();
+
+            if (c == '"') {
+                string();
+            } else if (c == '[') {
+                strings();
+            } else {
+                int start = position;
+
+                while (position < body.length() && (Character.isLetterOrDigit(body.charAt(position)) || "+-.".indexOf(body.charAt(position)) >= 0)) {
+                    position++;
+                }
+
+                if (position == start) {
+                    throw new ParseException("Request error: Unexpected character at " + position, position);
+                }
+            }
+        }
+
+        /**
+         * Method skips whitespace and returns the next character without reading it
+         * @return the next character, or a space at the end of the body
+         */
+        private char next() {
+            while (position < body.length() && Character.isWhitespace(body.charAt(position))) {
+                position++;
+            }
+
+            return position < body.length() ? body.charAt(position) : ' ';
+        }
+
+        /**
+         * Method reads the next character, which has to be the expected character
+         * @param expected the expected character
+         * @throws ParseException if the next character is something else
+         */
+        private void expect(char expected) throws ParseException {
+            if (next() != expected) {
+                throw new ParseException("Request error: Expected " + expected + " at " + position, position);
+            }
+
+            position++;
+        }
+
+        /**
+         * Method makes a list of one string
+         * @param value the string
+         * @return the list
+         */
+        private static List<String> single(String value) {
+            List<String> list = new List<>(0, 1);
+            list.append(value);
+            return list;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package calcmalc.server;
+
+import calcmalc.Result;
+import calcmalc.Session;
+import calcmalc.structures.List;
+import calcmalc.structures.LruCache;
+import calcmalc.structures.Stack;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local http server evaluating json requests in the same form as the mathjs api, so a program can evaluate many inputs
+ * without starting a new JVM for every input
+ * <pre>
+ * POST {"expr": "2+3*4"}                                     200 {"result": "14", "error": null}
+ * POST {"expr": ["f(x) = x*x:", "f(3)"], "session": "a"}     200 {"result": ["&lt;assignment:f&gt;", "9"], "error": null}
+ * POST {"expr": "2+"}                                        400 {"result": null, "error": "..."}
+ * </pre>
+ * A body larger than MAX_BODY_SIZE is not read and the request fails with 413, an input that fails inside the interpreter
+ * with something else than an error of the input fails with 500, the server and the other sessions are not affected
+ * A request without a session is interpreted in a session of its own, like an input given to the program on the command line
+ * The sessions of such requests are reset after the request and kept in a small pool for the next ones, see Session.reset
+ * A request with a session is interpreted in the session of the same name, the variables, custom functions and compiled programs
+ * of the session are kept for the next requests, see Session
+ * The sessions are kept in a bounded cache, when the cache is full the least recently used session is forgotten,
+ * and every session keeps a bounded cache of compiled programs, so the number of sessions and programs kept is bounded
+ * The variables, custom functions and symbol names a session defines are kept as long as the session is,
+ * so the memory of a session grows with the names its requests define and is freed when the session is forgotten
+ *
+ * Every request is handled on a thread of its own, a virtual thread on Java 21 or newer, and a pooled thread before that
+ * Requests of different sessions are interpreted in parallel, requests of the same session one at a time
+ * @author nnecklace
+ */
+public class Server {
+    /**
+     * Default port of the server
+     */
+    public static final int PORT = 8080;
+    /**
+     * Default number of sessions kept
+     */
+    public static final int SESSION_CAPACITY = 1024;
+    /**
+     * Default number of expressions kept in the program cache of a session
+     */
+    public static final int PROGRAM_CACHE_CAPACITY = 64;
+    /**
+     * Largest body of a request read, in bytes
+     */
+    public static final int MAX_BODY_SIZE = 1 << 20;
+    /**
+     * Number of sessions kept for requests without a session
+     */
+    public static final int ANONYMOUS_SESSIONS = 16;
+
+    static {
+        // the http server writes the headers and the body of a response separately, with Nagle's algorithm on the body waits
+        // for the client to acknowledge the headers, which a client delays by up to 40ms, so Nagle's algorithm is turned off
+        // the property is read once when the first http server is made, a value given on the command line is kept
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * The http server, handles every request on a thread of the executor
+     */
+    private final HttpServer http;
+    /**
+     * Executor of the requests
+     */
+    private final ExecutorService executor;
+    /**
+     * Sessions by name, the cache is not synchronized, so it is only used when holding its lock
+     */
+    private final LruCache<Session> sessions;
+    /**
+     * Reset sessions for requests without a session, the stack is not synchronized, so it is only used when holding its lock
+     */
+    private final Stack<Session> anonymousSessions = new Stack<>();
+    /**
+     * Number of expressions kept in the program cache of a new session
+     */
+    private final int programCacheCapacity;
+
+    /**
+     * Constructor for the server, the server is started with start
+     * @param address address and port to listen to, port 0 picks a free port
+     * @param sessionCapacity maximum number of sessions kept
+     * @param programCacheCapacity maximum number of expressions kept in the program cache of a session
+     * @throws IOException if the address cannot be bound
+     */
+    public Server(InetSocketAddress address, int sessionCapacity, int programCacheCapacity) throws IOException {
+        this.sessions = new LruCache<>(sessionCapacity);
+        this.programCacheCapacity = programCacheCapacity;
+        this.executor = executor();
+        this.http = HttpServer.create(address, 0);
+        this.http.setExecutor(executor);
+        this.http.createContext("/", this::handle);
+    }
+
+    /**
+     * Method starts the server in the background
+     */
+    public void start() {
+        http.start();
+    }
+
+    /**
+     * Method stops the server, the requests being handled are given a second to finish
+     */
+    public void stop() {
+        http.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Getter for the port the server listens to
+     * @return the port
+     */
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    /**
+     * Method interprets a request, the inputs are interpreted in order and the first error ends the request
+     * An unexpected exception, or running out of stack, ends the request with 500 instead of ending the thread without a response
+     * @param request the request
+     * @return the response
+     */
+    Response respond(Request request) {
+        Session session = session(request.session());
+        Response response = respond(request, session);
+
+        if (request.session() == null && response.status() != 500) {
+            // a session that failed inside the interpreter is not reused
+            release(session);
+        }
+
+        return response;
+    }
+
+    /**
+     * Method interprets the inputs of a request in the session
+     * @param request the request
+     * @param session the session of the request
+     * @return the response
+     */
+    private Response respond(Request request, Session session) {
+        List<String> expressions = request.expressions();
+        List<String> results = new List<>(0, expressions.size());
+
+        synchronized (session) {
+            for (int i = 0; i < expressions.size(); ++i) {
+                Result result;
+
+                try {
+                    result = session.interpret(expressions.get(i));
+                } catch (RuntimeException | StackOverflowError e) {
+                    return Response.error(500, "Internal error: " + e.getClass().getSimpleName());
+                }
+
+                if (result.isError()) {
+                    return Response.error(400, result.error());
+                }
+
+                results.append(Request.quote(result.text()));
+            }
+        }
+
+        return new Response(200, "{\"result\": " + Request.join(results, request.isArray()) + ", \"error\": null}");
+    }
+
+    /**
+     * Method finds the session of the given name, a session that is not found is made
+     * @param name name of the session, or null for a reset session from the pool, or a new one if the pool is empty
+     * @return the session
+     */
+    private Session session(String name) {
+        if (name == null) {
+            synchronized (anonymousSessions) {
+                if (!anonymousSessions.isEmpty()) {
+                    return anonymousSessions.pop();
+                }
+            }
+
+            return new Session(1);
+        }
+
+        synchronized (sessions) {
+            Session session = sessions.get(name);
+
+            if (session == null) {
+                session = new Session(programCacheCapacity);
+                sessions.put(name, session);
+            }
+
+            return session;
+        }
+    }
+
+    /**
+     * Method resets a session of a request without a session and keeps it for the next such request, if the pool is not full
+     * @param session the session
+     */
+    private void release(Session session) {
+        session.reset();
+
+        synchronized (anonymousSessions) {
+            if (anonymousSessions.size() < ANONYMOUS_SESSIONS) {
+                anonymousSessions.push(session);
+            }
+        }
+    }
+
+    /**
+     * Method handles one http request, only post requests are evaluated
+     * @param exchange the request and the response
+     * @throws IOException if the request cannot be read or the response cannot be written
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Response response;
+
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                response = Response.error(405, "Request error: Use POST");
+            } else {
+                response = respond(exchange);
+            }
+
+            byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    /**
+     * Method reads and interprets the body of a post request, at most MAX_BODY_SIZE bytes of the body are read
+     * @param exchange the request
+     * @return the response
+     * @throws IOException if the request cannot be read
+     */
+    private Response respond(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readNBytes(MAX_BODY_SIZE + 1);
+
+            if (bytes.length > MAX_BODY_SIZE) {
+                return Response.error(413, "Request error: Body is larger than " + MAX_BODY_SIZE + " bytes");
+            }
+
+            return respond(Request.parse(new String(bytes, StandardCharsets.UTF_8)));
+        } catch (ParseException e) {
+            return Response.error(400, e.getMessage());
+        }
+    }
+
+    /**
+     * Method makes the executor of the requests, a thread for every request
+     * Virtual threads are only found on Java 21 or newer, so the executor is looked up when the server is made,
+     * and on older versions the requests are handled on a pool of threads that grows when all threads are busy
+     * @return the executor
+     */
+    static ExecutorService executor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Response to a request, the http status and the json body
+     */
+    static final class Response {
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        /**
+         * Method makes the response of a failed request
+         * @param status http status of the response
+         * @param message message of the error
+         * @return the response
+         */
+        static Response error(int status, String message) {
+            return new Response(status, "{\"result\": null, \"error\": " + Request.quote(message == null ? "null" : message) + "}");
+        }
+
+        /**
+         * Getter for the http status
+         * @return the http status of the response
+         */
+        int status() {
+            return status;
+        }
+
+        /**
+         * Getter for the json body
+         * @return the json body of the response
+         */
+        String body() {
+            return body;
+        }
+    }
+}
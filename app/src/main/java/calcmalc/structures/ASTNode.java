@@ -25,12 +25,22 @@ public class ASTNode {
     private List<ASTNode> children;
 
     /**
-     * Constructor for ASTNode
+     * Constructor for ASTNode without children, e.g., a number or a symbol
      * @param token the token the node contains
      */
     public ASTNode(Token token) {
+        this(token, 0);
+    }
+
+    /**
+     * Constructor for ASTNode with room for the given number of children
+     * Most nodes in a tree are leaves or operators, so sizing the children exactly saves most of the memory of the tree
+     * @param token the token the node contains
+     * @param children the number of children the node is expected to have, more can still be added
+     */
+    public ASTNode(Token token, int children) {
         this.token = token;
-        this.children = new List<>();
+        this.children = new List<>(0, children);
     }
 
     /**
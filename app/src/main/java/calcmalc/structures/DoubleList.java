@@ -0,0 +1,125 @@
+package calcmalc.structures;
+
+/**
+ * List data structure for doubles. This is the same as List, but the values are stored in a double array,
+ * so values are never boxed into Double objects when they are added or read
+ * All operations are done in constant time O(1) apart from the grow function, which is only called when the head of the list has reached the end of the the array
+ * @author nnecklace
+ */
+public class DoubleList {
+    /**
+     * The underlying array value the list is stored in
+     */
+    private double[] list;
+    /**
+     * head property indicates where in the list we currently are pointing at
+     * Also tells how big the list currently is since head will always point to the end of the list
+     */
+    private int head;
+    /**
+     * The size of the underlying array value, not the "size" of the List. 
+     * The underlying array size should be larger than the head property
+     */
+    private int size;
+
+    /**
+     * Construtor for list with given size, the values of the list are 0.0
+     * @param initialSize indicates the the size of the list
+     */
+    public DoubleList(int initialSize) {
+        this.size = initialSize + 8; 
+        head = initialSize;
+        list = new double[this.size];
+    }
+
+    /**
+     * Constructor for list data structure with a starting capacity of 0
+     * Which means that the initial size will be 0
+     */
+    public DoubleList() {
+        this(0);
+    }
+
+    /**
+     * Method retrives an element from the list at the desired index
+     * @param index the position of the element to be retrieved
+     * @return the element at the given position of the list
+     * @throws IllegalArgumentException if index is not within the legal ranges of the list
+     */
+    public double get(int index) {
+        if (index >= head || index < 0) {
+            throw new IllegalArgumentException("Index out of range");
+        }
+
+        return list[index];
+    }
+
+    /**
+     * Method for setting values at any index in the list
+     * Set allows elements to be set 1 position over the current size, in this case list will call append since it is the same operation
+     * @param index to be placed
+     * @param value to be inserted
+     * @throws IllegalArgumentException if index is not within the legal ranges of the list
+     */
+    public void set(int index, double value) {
+        if (index >= 0 && index <= head) {
+            if (index == head) {
+                append(value);
+            } else {
+                list[index] = value;
+            }
+        } else {
+            throw new IllegalArgumentException("Index out of range");
+        }
+    }
+
+    /**
+     * Method getter for size property
+     * Returns the actual size of the current array the list is built on
+     * @return size property
+     */
+    public int getSpace() {
+        return size;
+    }
+
+    /**
+     * Method getter for head property the head indicates what is the current size of the list
+     * @return head property
+     */
+    public int size() {
+        return head;
+    }
+
+    /**
+     * Method pushes element to the end of the list. 
+     * If head has reached the end of the list, the array size of the list will be increased.
+     * @param element The element to push to the end of the list
+     */
+    public void append(double element) {
+        if ((head + 1) == size) {
+            grow();
+        }
+
+        list[head++] = element;
+    }
+
+    /**
+     * Method doubles the size of the array
+     * Method creates a new array and copies the elements from the old array to the new array, and discards the old array.
+     */
+    private void grow() {
+        size *= 2;
+
+        double[] copy = new double[size];
+        System.arraycopy(list, 0, copy, 0, list.length);
+        list = copy;
+    }
+
+    /**
+     * Boolean function to check wheather lis is empty or not
+     * @return true if there are no elements in the list
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
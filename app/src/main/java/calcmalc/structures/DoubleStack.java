@@ -0,0 +1,77 @@
+package calcmalc.structures;
+
+/**
+ * Stack data structure for doubles.
+ * Same as Stack, but built from a DoubleList, so pushing and popping values never boxes them into Double objects
+ * All operations are done in constant O(1) time.
+ * @author nnecklace
+ */
+public class DoubleStack {
+    /**
+     * The list that the stack is built from
+     */
+    private DoubleList list;
+    /**
+     * Pointer which points to the current top of the stack
+     */
+    private int top;
+
+    /**
+     * Constructor for stack data structure
+     */
+    public DoubleStack() {
+        this.list = new DoubleList();
+        this.top = 0;
+    }
+
+    /**
+     * Method push adds element to the current top of the stack
+     * @param element to be pushed onto the top
+     */
+    public void push(double element) {
+        list.set(top++, element);
+    }
+
+    /**
+     * Method pops element from the top of the stack, which also removes it from the stack
+     * A double can't be null, so popping an empty stack is an error
+     * @return the popped topped element
+     * @throws IllegalArgumentException if stack is empty
+     */
+    public double pop() {
+        if (top == 0) {
+            throw new IllegalArgumentException("Stack is empty");
+        }
+
+        return list.get(--top);
+    }
+
+    /**
+     * Method peeks or checks what is the current element on the top of the stack
+     * @return the top element
+     * @throws IllegalArgumentException if stack is empty
+     */
+    public double peek() {
+        if (top == 0) {
+            throw new IllegalArgumentException("Stack is empty");
+        }
+
+        return list.get(top - 1);
+    }
+
+    /**
+     * Method checks if the stack has any elements on it.
+     * @return true if empty, otherwise false
+     */
+    public boolean isEmpty() {
+        return top == 0;
+    }
+
+    /**
+     * Method returns top pointer of the stack, which also indicates what the size of the stack is
+     * @return the current top index of the stack which also tells the size of the stack
+     */
+    public int size() {
+        return top;
+    }
+}
@@ -2,17 +2,40 @@ package calcmalc.structures;
 
 /**
  * Hash table data structure. This resembles java HashMap data structure.
- * All operations are done in amortized constant time time O(1) or O(m) where m is the number of entries in an index
+ * The table uses open addressing with linear probing, every entry is stored in the array itself
+ * and a collision is resolved by trying the next index, until a free index is found
+ * <pre>
+ * get("Teheran"), hash index 3
+ *
+ * index    0     1     2     3           4           5
+ *        [   ] [   ] [   ] [Siblings] [Teheran] [   ]
+ *                            ^ same hash, different key, try next
+ *                                        ^ found
+ * </pre>
+ * The table doubles its capacity when it is half full, so probe sequences stay short
+ * All operations are done in amortized constant time O(1)
  * All keys for the Hash table are always strings, keys are not generic types
  * @param <V> the generic value to be contained in the hashtable
  */
 public class HashTable<V> {
     /**
-     * List of entries in the hashtable, sometimes also known as buckets
+     * Capacity of a new table
      */
-    private List<HashTableEntry<V>>[] values;
+    private static final int INITIAL_CAPACITY = 16;
     /**
-     * The amount of entries (buckets) the HashTable contains, the larger the size less likely to be collisions but more memory will be used
+     * Largest capacity of a table, the largest power of two an int can hold
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+    /**
+     * Entries of the hashtable, an empty index is null
+     */
+    private HashTableEntry<V>[] entries;
+    /**
+     * The amount of indexes the HashTable contains, the larger the capacity less likely to be collisions but more memory will be used
+     */
+    private int capacity;
+    /**
+     * The amount of entries stored in the HashTable
      */
     private int size;
 
@@ -20,39 +43,54 @@ public class HashTable<V> {
      * Constructor for HashTable data structure
      */
     public HashTable() {
-        // size should be some power of 2, so the index can be calculated easier
-        // size - 1 in binary will be all zeros up until the bit which size represents
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor for HashTable data structure with room for the expected number of entries
+     * The table can still grow past the expected size
+     * @param expectedSize number of entries the table is expected to contain
+     */
+    public HashTable(int expectedSize) {
+        // capacity should be some power of 2, so the index can be calculated easier
+        // capacity - 1 in binary will be all zeros up until the bit which capacity represents
         // e.g. 16 - 1 = 15 <=> 0000 1111
         // e.g. 32 - 1 = 31 <=> 0001 1111
-        // this way calculate index will never be larger than size
-        this.size = 16;
-        this.values = new List[size];
-        fill();
+        // this way calculate index will never be larger than capacity
+        this.capacity = capacityFor(expectedSize);
+        this.entries = new HashTableEntry[capacity];
     }
 
     /**
-     * Function fills the hash table indexes to avoid any null pointers
+     * Method calculates the capacity of a table for the expected number of entries,
+     * the smallest power of two that is at least twice the expected size, but at most the maximum capacity
+     * @param expectedSize number of entries the table is expected to contain
+     * @return the capacity
      */
-    private void fill() {
-        for (int i = 0; i < size; ++i) {
-            values[i] = new List<>();
+    static int capacityFor(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+
+        // the expected size is doubled as a long, so sizes above 2^30 don't overflow to negative
+        while (capacity < MAXIMUM_CAPACITY && capacity < expectedSize * 2L) {
+            capacity *= 2;
         }
+
+        return capacity;
     }
 
     /**
      * calculates a hash value for the given key
-     * Method is inspired from tirakirja (5.2.1) and jdk source code
+     * The hash is the same as in tirakirja (5.2.1) and jdk source code, 31 * hash + character,
+     * strings cache their hash code so a key that is looked up many times is only hashed once
+     * The hash code is multiplied with the golden ratio and the high bits are mixed into the low bits,
+     * keys like x1, x2, x3 have consecutive hash codes and would otherwise fill consecutive indexes,
+     * which makes the probe sequences of linear probing long
      * @param key the key to calculate the hash for
      * @return the integer value for the calculated hash
      */
     private int calculateHash(String key) {
-        int hashCode = 0;
-
-        for (char ch : key.toCharArray()) {
-            hashCode = 31 * hashCode + ch;
-        }
-
-        return hashCode;
+        int hashCode = key.hashCode() * 0x9E3779B9;
+        return hashCode ^ (hashCode >>> 16);
     }
 
     /**
@@ -61,7 +99,7 @@ public class HashTable<V> {
      * @return an index for the given key
      */
     private int calculateIndex(int hashCode) {
-        return hashCode & (size - 1);
+        return hashCode & (capacity - 1);
     }
 
     /**
@@ -71,35 +109,39 @@ public class HashTable<V> {
      */
     public void placeOrUpdate(String key, V value) {
         int hashCode = calculateHash(key);
-        int index = calculateIndex(hashCode);
+        int index = find(key, hashCode);
+
+        if (index >= 0) {
+            entries[index].setValue(value);
+            return;
+        }
 
-        HashTableEntry<V> entry = find(key, hashCode, index);
+        entries[-index - 1] = new HashTableEntry<>(key, value, hashCode);
 
-        if (entry == null) {
-            values[index].append(new HashTableEntry<>(key, value, hashCode));
-        } else {
-            entry.setValue(value);
+        if (++size * 2 > capacity) {
+            resize();
         }
     }
 
     /**
-     * Helper function to retrive a record from a give index
+     * Helper function to find the index of a key
+     * Probing starts from the index of the hash code and stops at the key or at the first empty index
      * @param key entry to find
      * @param hashCode the hash code value for the key
-     * @param index the index location for the entry to find
-     * @return Null if not found or the actual entry if found
+     * @return the index of the entry if found, otherwise -(index of the empty index + 1)
      */
-    private HashTableEntry<V> find(String key, int hashCode, int index) {
-        List<HashTableEntry<V>> entries = values[index];
+    private int find(String key, int hashCode) {
+        int index = calculateIndex(hashCode);
 
-        for (int i = 0; i < entries.size(); ++i) {
-            HashTableEntry<V> entry = entries.get(i);
+        while (entries[index] != null) {
+            HashTableEntry<V> entry = entries[index];
             if (entry.hashCode() == hashCode && entry.getKey().equals(key)) {
-                return entry;
+                return index;
             }
+            index = (index + 1) & (capacity - 1);
         }
 
-        return null;
+        return -index - 1;
     }
 
     /**
@@ -108,15 +150,74 @@ public class HashTable<V> {
      * @return the entry value or null if not found
      */
     public V get(String key) {
-        int hashCode = calculateHash(key);
-        int index = calculateIndex(hashCode);
+        int index = find(key, calculateHash(key));
 
-        HashTableEntry<V> entry = find(key, hashCode, index);
+        if (index < 0) {
+            return null;
+        }
 
-        if (entry == null) {
+        return entries[index].getValue();
+    }
+
+    /**
+     * Removes an entry from the hash table
+     * The entries after the removed entry are moved back, so no probe sequence goes over an empty index
+     * @param key entry to remove
+     * @return the value of the removed entry or null if not found
+     */
+    public V remove(String key) {
+        int index = find(key, calculateHash(key));
+
+        if (index < 0) {
             return null;
         }
 
-        return entry.getValue();
+        V value = entries[index].getValue();
+        int empty = index;
+        int next = (index + 1) & (capacity - 1);
+
+        while (entries[next] != null) {
+            int home = calculateIndex(entries[next].hashCode());
+            // the entry can be moved to the empty index if its probe sequence goes over the empty index
+            if (((next - home) & (capacity - 1)) >= ((next - empty) & (capacity - 1))) {
+                entries[empty] = entries[next];
+                empty = next;
+            }
+            next = (next + 1) & (capacity - 1);
+        }
+
+        entries[empty] = null;
+        --size;
+        return value;
+    }
+
+    /**
+     * Getter for the amount of entries in the hash table
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method doubles the capacity of the hash table and places every entry again
+     * A table of the maximum capacity can't be doubled, so it holds at most half of the maximum capacity entries
+     * The hash codes are stored in the entries, so the keys are not hashed again
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void resize() {
+        if (capacity == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Hash table is full");
+        }
+
+        HashTableEntry<V>[] old = entries;
+        capacity *= 2;
+        entries = new HashTableEntry[capacity];
+
+        for (HashTableEntry<V> entry : old) {
+            if (entry != null) {
+                entries[-find(entry.getKey(), entry.hashCode()) - 1] = entry;
+            }
+        }
     }
 }
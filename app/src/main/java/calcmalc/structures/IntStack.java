@@ -0,0 +1,91 @@
+package calcmalc.structures;
+
+/**
+ * Stack data structure for integers.
+ * Same as Stack, but the values are stored in an int array, so pushing and popping values never boxes them into Integer objects
+ * All operations are done in constant O(1) time apart from growing the array, which is only done when the array is full
+ * @author nnecklace
+ */
+public class IntStack {
+    /**
+     * The array that the stack is built from
+     */
+    private int[] stack;
+    /**
+     * Pointer which points to the current top of the stack
+     */
+    private int top;
+
+    /**
+     * Constructor for stack data structure
+     */
+    public IntStack() {
+        this.stack = new int[8];
+        this.top = 0;
+    }
+
+    /**
+     * Method push adds element to the current top of the stack
+     * The array is doubled if the stack is full
+     * @param element to be pushed onto the top
+     */
+    public void push(int element) {
+        if (top == stack.length) {
+            int[] copy = new int[stack.length * 2];
+            System.arraycopy(stack, 0, copy, 0, top);
+            stack = copy;
+        }
+
+        stack[top++] = element;
+    }
+
+    /**
+     * Method pops element from the top of the stack, which also removes it from the stack
+     * An int can't be null, so popping an empty stack is an error
+     * @return the popped topped element
+     * @throws IllegalArgumentException if stack is empty
+     */
+    public int pop() {
+        if (top == 0) {
+            throw new IllegalArgumentException("Stack is empty");
+        }
+
+        return stack[--top];
+    }
+
+    /**
+     * Method peeks or checks what is the current element on the top of the stack
+     * @return the top element
+     * @throws IllegalArgumentException if stack is empty
+     */
+    public int peek() {
+        if (top == 0) {
+            throw new IllegalArgumentException("Stack is empty");
+        }
+
+        return stack[top - 1];
+    }
+
+    /**
+     * Method removes all elements from the stack, the array is kept
+     */
+    public void clear() {
+        top = 0;
+    }
+
+    /**
+     * Method checks if the stack has any elements on it.
+     * @return true if empty, otherwise false
+     */
+    public boolean isEmpty() {
+        return top == 0;
+    }
+
+    /**
+     * Method returns top pointer of the stack, which also indicates what the size of the stack is
+     * @return the current top index of the stack which also tells the size of the stack
+     */
+    public int size() {
+        return top;
+    }
+}
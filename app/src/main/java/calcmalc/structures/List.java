@@ -3,6 +3,7 @@ package calcmalc.structures;
 /**
  * List data structure. This is the same as javas ArrayList
  * All operations are done in constant time O(1) apart from the grow function, which is only called when the head of the list has reached the end of the the array
+ * The underlying array always has at least one free index after the head of the list
  * @param <T> the generic type to be contained in the list
  * @author nnecklace
  */
@@ -23,11 +24,22 @@ public class List<T> {
     private int size;
 
     /**
-     * Construtor for list with given size
+     * Construtor for list with given size, the elements of the list are null
      * @param initialSize indicates the the size of the list
      */
     public List(int initialSize) {
-        this.size = initialSize + 8; 
+        this(initialSize, initialSize + 7);
+    }
+
+    /**
+     * Constructor for list with given size and capacity
+     * Capacity is the number of elements the list can hold before the underlying array has to grow
+     * Use new List(0, capacity) to create an empty list with room for exactly capacity elements
+     * @param initialSize indicates the the size of the list, the elements of the list are null
+     * @param capacity the number of elements the list can hold without growing, at least the initial size
+     */
+    public List(int initialSize, int capacity) {
+        this.size = Math.max(initialSize, capacity) + 1;
         head = initialSize;
         list = (T[]) new Object[this.size]; // should not be done this way, but Java doesn't support generic arrays
     }
@@ -108,20 +120,58 @@ public class List<T> {
     }
 
     /**
-     * Method increases the size of the array by doubling it until it is larger than the new requested size.
+     * Method increases the size of the array by doubling it.
      * Method creates a new list and copies the elements from the old list to the new list, and discards the old list.
      */
     private void grow() {
         // at some point size will overflow, but usually java runs out of memory way before that
-        size *= 2;
+        resize(size * 2);
+    }
+
+    /**
+     * Method replaces the underlying array with an array of the given size
+     * The elements are copied with System.arraycopy, which copies the whole block at once instead of one element at a time
+     * @param newSize size of the new array, larger than the head of the list
+     */
+    private void resize(int newSize) {
+        T[] copy = (T[]) new Object[newSize];
+        System.arraycopy(list, 0, copy, 0, head);
+        list = copy;
+        size = newSize;
+    }
+
+    /**
+     * Method makes sure the list can hold the given number of elements without growing
+     * Grows the underlying array at most once, the size of the list doesn't change
+     * @param capacity number of elements the list should be able to hold
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity >= size) {
+            resize(Math.max(capacity + 1, size * 2));
+        }
+    }
 
-        T[] copy = (T[]) new Object[size];
+    /**
+     * Method shrinks the underlying array so it only has room for the elements in the list
+     * Useful for lists that are kept for a long time after they are built, e.g., the children of tree nodes
+     */
+    public void trimToSize() {
+        if (size > head + 1) {
+            resize(head + 1);
+        }
+    }
 
-        for (int i = 0; i < size / 2; ++i) {
-            copy[i] = list[i]; 
+    /**
+     * Method removes all elements from the list
+     * The underlying array is kept, so the list can be filled again without growing
+     * The elements are cleared so the list doesn't keep them from being garbage collected
+     */
+    public void clear() {
+        for (int i = 0; i < head; ++i) {
+            list[i] = null;
         }
 
-        list = copy;
+        head = 0;
     }
 
     /**
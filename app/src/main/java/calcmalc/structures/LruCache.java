@@ -0,0 +1,199 @@
+package calcmalc.structures;
+
+/**
+ * Bounded cache data structure that evicts the least recently used entry when it is full
+ * The entries are in a hash table by key, and in a doubly linked list in the order they were used, the most recently used first
+ * <pre>
+ * capacity 3, put a, put b, put c, get a, put d
+ *
+ *   most recent [ a ] [ c ] [ b ] least recent    put d evicts b
+ *   most recent [ d ] [ a ] [ c ] least recent
+ * </pre>
+ * Getting an entry moves it to the front of the list, and putting an entry in a full cache removes the entry at the end of the list,
+ * so all operations are done in amortized constant time O(1)
+ * The cache counts hits, misses and evictions, so the hit rate of the cache can be followed
+ * All keys for the cache are always strings, keys are not generic types
+ * @param <V> the generic value to be contained in the cache
+ * @author nnecklace
+ */
+public class LruCache<V> {
+    /**
+     * Entries of the cache by key
+     */
+    private HashTable<Entry<V>> entries;
+    /**
+     * Most recently used and least recently used entry, null if the cache is empty
+     */
+    private Entry<V> first;
+    private Entry<V> last;
+    /**
+     * Maximum number of entries in the cache
+     */
+    private final int capacity;
+    /**
+     * Number of gets that found an entry, gets that didn't find an entry, and entries removed to make room for new entries
+     */
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Entry of the cache, a node in the doubly linked list
+     * @param <V> the generic value of the entry
+     */
+    private static class Entry<V> {
+        private final String key;
+        private V value;
+        private Entry<V> previous;
+        private Entry<V> next;
+
+        Entry(String key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Constructor for the cache
+     * @param capacity maximum number of entries in the cache, at least 1
+     */
+    public LruCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+
+        this.capacity = capacity;
+        this.entries = new HashTable<>(capacity);
+    }
+
+    /**
+     * Method gets the value of a key and marks the entry as the most recently used
+     * @param key the key of the entry
+     * @return the value of the entry, or null if the key is not in the cache
+     */
+    public V get(String key) {
+        Entry<V> entry = entries.get(key);
+
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        unlink(entry);
+        linkFirst(entry);
+        return entry.value;
+    }
+
+    /**
+     * Method places or updates the value of a key, the entry becomes the most recently used
+     * If the cache is full the least recently used entry is evicted first
+     * @param key the key of the entry
+     * @param value the value to store
+     */
+    public void put(String key, V value) {
+        Entry<V> entry = entries.get(key);
+
+        if (entry != null) {
+            entry.value = value;
+            unlink(entry);
+            linkFirst(entry);
+            return;
+        }
+
+        if (entries.size() == capacity) {
+            Entry<V> evicted = last;
+            unlink(evicted);
+            entries.remove(evicted.key);
+            evictions++;
+        }
+
+        entry = new Entry<>(key, value);
+        entries.placeOrUpdate(key, entry);
+        linkFirst(entry);
+    }
+
+    /**
+     * Method removes all entries from the cache, the counters are kept
+     */
+    public void clear() {
+        entries = new HashTable<>(capacity);
+        first = null;
+        last = null;
+    }
+
+    /**
+     * Getter for the number of entries in the cache
+     * @return number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Getter for the maximum number of entries in the cache
+     * @return capacity of the cache
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Getter for the number of gets that found an entry
+     * @return number of hits
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * Getter for the number of gets that didn't find an entry
+     * @return number of misses
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * Getter for the number of entries evicted to make room for new entries
+     * @return number of evictions
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Method adds an entry to the front of the list
+     * @param entry entry that is not in the list
+     */
+    private void linkFirst(Entry<V> entry) {
+        entry.previous = null;
+        entry.next = first;
+
+        if (first != null) {
+            first.previous = entry;
+        } else {
+            last = entry;
+        }
+
+        first = entry;
+    }
+
+    /**
+     * Method removes an entry from the list
+     * @param entry entry in the list
+     */
+    private void unlink(Entry<V> entry) {
+        if (entry.previous != null) {
+            entry.previous.next = entry.next;
+        } else {
+            first = entry.next;
+        }
+
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        } else {
+            last = entry.previous;
+        }
+    }
+}
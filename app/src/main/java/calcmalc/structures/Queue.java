@@ -2,87 +2,111 @@ package calcmalc.structures;
 
 /**
  * Queue data structure
- * Queue is a FIFO data structure similar to a list. Each operation is a constant time O(1) operation.
- * Elements are added to the start of the queue and pulled from the end of the queue
- * The underlying queue is actually a singly linked list data structure
+ * Queue is a FIFO data structure similar to a list. Each operation is a constant time O(1) operation,
+ * apart from growing the array, which is only done when the array is full
+ * Elements are added to the end of the queue and pulled from the start of the queue
+ * The underlying queue is an array used as a ring buffer, the start of the queue moves forward when elements are pulled
+ * and the end of the queue wraps around to the beginning of the array
+ * <pre>
+ * enqueue 1, 2, 3, 4, 5, 6, dequeue, dequeue, enqueue 7, 8, 9
+ *
+ * index    0    1    2    3    4    5    6    7
+ *        [ 9 ][   ][ 3 ][ 4 ][ 5 ][ 6 ][ 7 ][ 8 ]
+ *               ^    ^ head
+ *               end
+ * </pre>
+ * Enqueueing doesn't allocate unless the array is full, so a queue that is reused, see clear, doesn't allocate at all
  * @param <T> the generic type to be contained in the queue
  * @author nnecklace
  */
 public class Queue<T> {
     /**
-     * The head node of the queue, also means the start of the queue
+     * Capacity of a new queue
      */
-    private QueueNode<T> head;
+    private static final int INITIAL_CAPACITY = 8;
     /**
-     * The tail node of the queue, also means the end of the queue
+     * The array the queue is stored in, the length of the array is always a power of two
      */
-    private QueueNode<T> tail;
+    private T[] elements;
     /**
-     * The size of the queue, i.e., how many nodes inside the queue
+     * Index of the start of the queue, i.e., the next element to dequeue
+     */
+    private int head;
+    /**
+     * The size of the queue, i.e., how many elements inside the queue
      */
     private int size = 0;
 
     /**
-     * Method adds element to the "head" or start of the queue
-     * If queue is empty the head and tail of the queue will be the same element
-     * If the queue contains 1 element, the following node will be placed next to the head
-     * Next node will always be the tail of the queue
+     * Constructor for queue data structure
+     */
+    @SuppressWarnings("unchecked")
+    public Queue() {
+        elements = (T[]) new Object[INITIAL_CAPACITY]; // Java doesn't support generic arrays
+    }
+
+    /**
+     * Method adds element to the end of the queue
+     * If the array is full, the array is doubled first
      * @param element The generic element to be added
      */
     public void enqueue(T element) {
-        QueueNode<T> next = new QueueNode<>(element);
-        if (head == null) {
-            head = tail = next;
-        } else {
-            if (size == 1) {
-                head.next(next);
-            } else {
-                tail.next(next);
-            }
-            tail = next;
+        if (size == elements.length) {
+            grow();
         }
+
+        elements[(head + size) & (elements.length - 1)] = element;
         size++;
     }
 
     /**
      * Checks the next element in the queue to dequeue, also means to check the head of the queue
-     * @return the next (head) value in the queue
+     * @return the next (head) value in the queue or null if the queue is empty
      */
     public T peekFirst() {
-        return head != null ? head.getValue() : null;
+        return size != 0 ? elements[head] : null;
     }
 
     /**
      * Check the last element in the queue, also means to check the tail of the queue
-     * @return the tail node value of the last element in the queue
+     * @return the tail value of the last element in the queue or null if the queue is empty
      */
     public T peekLast() {
-        return tail != null ? tail.getValue() : null;
+        return size != 0 ? elements[(head + size - 1) & (elements.length - 1)] : null;
     }
 
     /**
-     * Method pulls head from the the queue, meaning getting the next element in the queue. 
-     * When the last element is pulled, both tail and head will be null
-     * @return T the generic head node element at the of the queue or null if the queue is empty
+     * Method pulls head from the the queue, meaning getting the next element in the queue.
+     * The index of the element is cleared, so the queue doesn't keep the element from being garbage collected
+     * @return T the generic head element at the of the queue or null if the queue is empty
      */
     public T dequeue() {
-        if (head != null) {
-            size--;
-            T current = head.getValue();
-            head = head.getNext();
+        if (size == 0) {
+            return null;
+        }
 
-            if (size == 0) {
-                tail = null;
-            } 
+        T current = elements[head];
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
+        size--;
 
-            return current;
+        return current;
+    }
+
+    /**
+     * Method removes all elements from the queue
+     * The array is kept, so the queue can be reused without allocating
+     */
+    public void clear() {
+        while (size > 0) {
+            dequeue();
         }
 
-        return null;
+        head = 0;
     }
 
     /**
-     * Method checks if queue is empty by checking the size of the queue. 
+     * Method checks if queue is empty by checking the size of the queue.
      * @return true if empty, otherwise false
      */
     public boolean isEmpty() {
@@ -96,4 +120,19 @@ public class Queue<T> {
     public int size() {
         return size;
     }
-}
\ No newline at end of file
+
+    /**
+     * Method doubles the size of the array
+     * The elements are copied to the beginning of the new array in the order they are in the queue, so the queue no longer wraps around
+     */
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        T[] copy = (T[]) new Object[elements.length * 2];
+        // the elements from the head to the end of the array, and then the elements that wrapped around to the start
+        int tail = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, copy, 0, tail);
+        System.arraycopy(elements, 0, copy, tail, size - tail);
+        elements = copy;
+        head = 0;
+    }
+}
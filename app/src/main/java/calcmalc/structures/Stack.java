@@ -59,6 +59,15 @@ public class Stack<T> {
         return list.get(top - 1);
     }
 
+    /**
+     * Method removes all elements from the stack
+     * The underlying list is kept, so the stack can be filled again without growing
+     */
+    public void clear() {
+        list.clear();
+        top = 0;
+    }
+
     /**
      * Method checks if the stack has any elements on it.
      * @return true if empty, otherwise false
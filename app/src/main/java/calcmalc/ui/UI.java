@@ -1,6 +1,7 @@
 package calcmalc.ui;
 
 import calcmalc.App;
+import calcmalc.Session;
 import javafx.application.Application;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -24,6 +25,10 @@ import java.nio.file.Path;
  * @hidden
  */
 public class UI extends Application {
+    /**
+     * Session the inputs of the window are interpreted in
+     */
+    private final Session session = new Session();
 
     @Override
     public void start(Stage stage) {
@@ -55,15 +60,9 @@ public class UI extends Application {
                     System.exit(0);
                 }
 
-                App.interpret(input);
+                String result = session.interpret(input).text();
                 history.appendText(text.getText() + '\n');
-                if (App.output.errorOutput != null) {
-                    textArea.appendText(">>> " + App.output.errorOutput + '\n');
-                } else if (App.output.numOutput != null) {
-                    textArea.appendText(">>> " + App.output.numOutput + '\n');
-                } else {
-                    textArea.appendText(">>> " + App.output.variableOutput + '\n');
-                }
+                textArea.appendText(">>> " + result + '\n');
                 text.clear();
             }
         });
@@ -83,14 +82,7 @@ public class UI extends Application {
         fileDialog.setOnAction((ev) -> {
             Path file = fileChooser.showOpenDialog(stage).toPath();
             try {
-                App.read(file);
-                if (App.output.errorOutput != null) {
-                    textArea.appendText(">>> " + App.output.errorOutput + '\n');
-                } else if (App.output.numOutput != null) {
-                    textArea.appendText(">>> " + App.output.numOutput + '\n');
-                } else {
-                    textArea.appendText(">>> " + App.output.variableOutput + '\n');
-                }
+                textArea.appendText(">>> " + session.read(file).text() + '\n');
                 history.appendText("FILE: " + file.getFileName() + '\n');
             } catch (IOException e) {
                 e.printStackTrace();
@@ -67,6 +67,43 @@ public class AppTest {
         assertEquals("0.613530533033667", outContent.toString().trim());
     }
 
+    @Test
+    public void testMemoryMappedFileResultIsPrinted() throws IOException {
+        App classUnderTest = new App();
+        classUnderTest.main(new String[]{"mmap", "src/inputs/test_input_x.txt"});
+        assertEquals("0.613530533033667", outContent.toString().trim());
+    }
+
+    @Test
+    public void testParallelFileResultIsPrinted() throws IOException {
+        App.main(new String[]{"parallel", "src/inputs/test_input_x.txt"});
+        assertEquals("0.613530533033667", outContent.toString().trim());
+    }
+
+    @Test
+    public void testReassociatedParallelFileResultIsPrinted() throws IOException {
+        App.main(new String[]{"parallel", "src/inputs/test_input_2.txt", "reassociate"});
+        assertEquals("14", outContent.toString().trim());
+    }
+
+    @Test
+    public void testMemoryMappedFileErrorIsPrinted() throws IOException {
+        App classUnderTest = new App();
+        classUnderTest.main(new String[]{"mmap", "src/inputs/test_input_error.txt"});
+        assertEquals("Can't assign values in expressions, values must be assigned before or after expressions", errContent.toString().trim());
+    }
+
+    @Test
+    public void testInvalidServePortIsPrinted() throws IOException {
+        App.main(new String[]{"serve", "http"});
+        assertEquals("Usage error: serve [port], the port must be a number from 0 to 65535, was http", errContent.toString().trim());
+        errContent.reset();
+
+        App.main(new String[]{"serve", "65536"});
+        assertEquals("Usage error: serve [port], the port must be a number from 0 to 65535, was 65536", errContent.toString().trim());
+        assertEquals("", outContent.toString());
+    }
+
     @Test
     public void testFileErrorIsPrinted() throws IOException {
         App classUnderTest = new App();
@@ -157,7 +194,7 @@ public class AppTest {
         System.setIn(in);
         App.repl();
 
-        assertEquals("Number was formatted incorrectly: multiple points", errContent.toString().trim());
+        assertEquals("Number was formatted incorrectly: multiple points in 2.2.2.2 at position 4", errContent.toString().trim());
     }
 
     @Test
@@ -189,4 +226,81 @@ public class AppTest {
 
         assertEquals("4.6", outContent.toString().trim());
     }
+
+    @Test
+    public void testAssignmentTargetsAreNotOptimized() {
+        App.interpret("max(x) = x+1: max(2)");
+        assertEquals("Assignment error: Cannot redefine standard library function max", App.output.errorOutput);
+        App.interpret("targetx = 7: max(targetx) = 1: targetx");
+        assertEquals("Assignment error: Cannot redefine standard library function max", App.output.errorOutput);
+        App.interpret("targetx");
+        assertEquals(7L, App.output.numOutput);
+        App.interpret("sqrt(4) = 3: 1");
+        assertEquals("Assignment error: Cannot redefine standard library function sqrt", App.output.errorOutput);
+    }
+
+    @Test
+    public void testRepeatedExpressionIsTakenFromProgramCache() {
+        App.setProgramCacheCapacity(App.PROGRAM_CACHE_CAPACITY);
+
+        App.interpret("a = 2: b = 3: a*b + 1");
+        assertEquals(7L, App.output.numOutput);
+        App.interpret("a = 5:  b = 1:  a*b   +  1 ");
+        assertEquals(6L, App.output.numOutput);
+
+        assertEquals(1, App.programCache().hits());
+        assertEquals(1, App.programCache().misses());
+        assertEquals(1, App.programCache().size());
+    }
+
+    @Test
+    public void testCachedExpressionUsesNewFunctionDefinitions() {
+        App.setProgramCacheCapacity(App.PROGRAM_CACHE_CAPACITY);
+
+        App.interpret("h(x) = x*2: h(3)");
+        assertEquals(6L, App.output.numOutput);
+        App.interpret("h(x) = x+2: h(3)");
+        assertEquals(5L, App.output.numOutput);
+        assertEquals(1, App.programCache().hits());
+    }
+
+    @Test
+    public void testExpressionsBeforeAssignmentsAreNotCached() {
+        App.setProgramCacheCapacity(App.PROGRAM_CACHE_CAPACITY);
+
+        App.interpret("(1+2) a = 4: a");
+        assertEquals(3L, App.output.numOutput);
+        App.interpret("(1+2) a = 4: a");
+        assertEquals(3L, App.output.numOutput);
+        assertEquals(0, App.programCache().size());
+    }
+
+    @Test
+    public void testProgramCacheEvictsLeastRecentlyUsed() {
+        App.setProgramCacheCapacity(2);
+
+        App.interpret("1+1");
+        App.interpret("2+2");
+        App.interpret("1+1");
+        App.interpret("3+3");
+        App.interpret("2+2");
+
+        assertEquals(4L, App.output.numOutput);
+        assertEquals(2, App.programCache().evictions());
+        assertEquals(1, App.programCache().hits());
+        App.setProgramCacheCapacity(App.PROGRAM_CACHE_CAPACITY);
+    }
+
+    @Test
+    public void testErrorInCachedExpressionIsPrinted() {
+        App.setProgramCacheCapacity(App.PROGRAM_CACHE_CAPACITY);
+
+        App.interpret("c = 1: c + unknownvariable");
+        String error = App.output.errorOutput;
+        App.interpret("c = 2: c + unknownvariable");
+
+        assertNotNull(error);
+        assertEquals(error, App.output.errorOutput);
+        assertEquals(1, App.programCache().hits());
+    }
 }
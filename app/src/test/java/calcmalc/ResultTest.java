@@ -0,0 +1,38 @@
+package calcmalc;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ResultTest {
+    @Test
+    public void testErrorIsShownFirst() {
+        Result result = new Result(2L, "<assignment:x>", "Unknown Symbol y");
+
+        assertTrue(result.isError());
+        assertEquals("Unknown Symbol y", result.text());
+    }
+
+    @Test
+    public void testNumberIsShownBeforeVariable() {
+        assertEquals("2.5", new Result(2.5, "<assignment:x>", null).text());
+        assertEquals("<assignment:x>", new Result(null, "<assignment:x>", null).text());
+    }
+
+    @Test
+    public void testEmptyResult() {
+        Result result = new Result(null, null, null);
+
+        assertFalse(result.isError());
+        assertEquals("null", result.text());
+    }
+
+    @Test
+    public void testOutputCopiesResult() {
+        App.Output output = new App.Output();
+        output.set(new Result(3L, "<assignment:x>", null));
+
+        assertEquals(3L, output.numOutput);
+        assertEquals("<assignment:x>", output.variableOutput);
+        assertNull(output.errorOutput);
+    }
+}
@@ -0,0 +1,205 @@
+package calcmalc;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class SessionTest {
+    private Session session = new Session();
+
+    private String balanced(int depth, int[] leaves) {
+        if (depth == 0) {
+            return "f(" + (leaves[0]++ % 97) + ".25)";
+        }
+
+        return "(" + balanced(depth - 1, leaves) + (depth % 2 == 0 ? "+" : "-") + balanced(depth - 1, leaves) + ")";
+    }
+
+    @Test
+    public void testInterpretReturnsResult() {
+        Result result = session.interpret("x = 2: y = 3: x*y + 0.5");
+
+        assertEquals(6.5, result.number());
+        assertEquals("<assignment:y>", result.variable());
+        assertNull(result.error());
+        assertEquals("6.5", result.text());
+    }
+
+    @Test
+    public void testWholeNumbersAreIntegers() {
+        assertEquals(4L, session.interpret("2+2").number());
+    }
+
+    @Test
+    public void testErrorIsReturned() {
+        Result result = session.interpret("2+");
+
+        assertTrue(result.isError());
+        assertEquals(result.error(), result.text());
+    }
+
+    @Test
+    public void testDefinitionsAreKeptBetweenInputs() {
+        session.interpret("f(x) = x*x + k: k = 1:");
+
+        assertEquals(10L, session.interpret("f(3)").number());
+        assertEquals("<assignment:k>", session.interpret("k = 2:").text());
+        assertEquals(11L, session.interpret("f(3)").number());
+    }
+
+    @Test
+    public void testSessionsAreIndependent() {
+        Session other = new Session();
+        session.interpret("only = 5:");
+
+        assertEquals(5L, session.interpret("only").number());
+        assertTrue(other.interpret("only").isError());
+    }
+
+    @Test
+    public void testResetForgetsDefinitions() {
+        assertEquals(6L, session.interpret("f(a) = a*x: x = 2: f(3)").number());
+        session.reset();
+
+        assertEquals(0, session.programCache().size());
+        assertEquals("Unknown function f", session.interpret("f(3)").text());
+        assertEquals("Unknown Symbol x", session.interpret("x").text());
+        assertEquals(12L, session.interpret("f(a) = a+x: x = 9: f(3)").number());
+        assertEquals(12L, session.interpret("x = 9: f(3)").number());
+    }
+
+    @Test
+    public void testResultsDontChangeLater() {
+        Result first = session.interpret("1+1");
+        session.interpret("2+");
+
+        assertEquals(2L, first.number());
+        assertFalse(first.isError());
+    }
+
+    @Test
+    public void testProgramCacheIsPerSession() {
+        Session other = new Session(4);
+        session.interpret("a = 1: a + 1");
+        session.interpret("a = 2: a + 1");
+        other.interpret("a = 3: a + 1");
+
+        assertEquals(1, session.programCache().hits());
+        assertEquals(0, other.programCache().hits());
+        assertEquals(4, other.programCache().capacity());
+    }
+
+    @Test
+    public void testReadFile() throws Exception {
+        assertEquals("14", session.read(Paths.get("src/inputs/test_input_2.txt")).text());
+        assertEquals("14", session.readMapped(Paths.get("src/inputs/test_input_2.txt")).text());
+    }
+
+    @Test
+    public void testParallelGivesSameResultsAsInterpret() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        String[] inputs = {"x = 2: y = 3: x*y + 0.5", "1 2 3", "f(a) = a*a: f(3) + 1", "2+", "q + cos(1)", "x = 1: (x) y = 2:",
+            "f(a) = f(a): f(1)", "abs(1, 2)", "1/0", "x = 2: max(x, 1, 3) - min(x)", "f(a) = a*k: k = 0.5: f(3) + f(x)"};
+
+        for (String input : inputs) {
+            assertEquals(input, new Session().interpret(input).text(), new Session().interpretParallel(input, pool, false).text());
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("src/inputs"))) {
+            for (Path file : files) {
+                assertEquals(file.toString(), new Session().read(file).text(), new Session().readParallel(file, pool, false).text());
+            }
+        }
+
+        // the input is lexed in chunks and the tree is cut into subtrees
+        String input = "f(a) = a*k - 1: k = 1.5: " + balanced(14, new int[1]);
+        Result result = session.interpretParallel(input, pool, false);
+        assertFalse(result.isError());
+        assertEquals(new Session().interpret(input).text(), result.text());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testReassociatedParallelGivesSameResultsForExactSums() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        String input = "f(a) = a*2: k = 3: k";
+
+        for (int i = 1; i < 20000; ++i) {
+            input += (i % 3 == 0 ? "-" : "+") + (i % 5 == 0 ? "f(" + i + ")" : i + "*k");
+        }
+
+        Result result = new Session().interpretParallel(input, pool, true);
+        assertFalse(result.isError());
+        assertEquals(new Session().interpret(input).text(), result.text());
+        assertEquals("Unknown Symbol q", new Session().interpretParallel(input + "+q", pool, true).text());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testCachedAndUncachedInputsGiveSameResults() {
+        String[] expressions = {"sqrt(16)*x", "x*1 + 0", "max(max(x, 1), 3)", "abs(1, 2) + x", "cos(1) + x", "x/0", "--x - 2^10", "min(x)"};
+        Session uncached = new Session();
+
+        for (String expression : expressions) {
+            // the expression part of the first input is cached, the second input ends in an assignment so nothing is cached
+            assertEquals(expression, session.interpret("x = 2: " + expression).text(), uncached.interpret("(" + expression + ") x = 2:").text());
+        }
+
+        assertEquals(expressions.length, session.programCache().size());
+        assertEquals(0, uncached.programCache().size());
+    }
+
+    @Test
+    public void testAssignmentTargetsAreNotOptimized() {
+        assertEquals("Assignment error: Cannot redefine standard library function max", session.interpret("max(x) = x+1: max(2)").text());
+        assertEquals("Assignment error: Cannot redefine standard library function max", session.interpret("x = 7: max(x) = 1: x").text());
+        assertEquals("7", session.interpret("x").text());
+        assertEquals("6", session.interpret("max(2, 5, 6)").text());
+        assertEquals("Assignment error: Cannot redefine standard library function sqrt", session.interpret("sqrt(4) = 3: 1").text());
+        assertEquals("2", session.interpret("sqrt(4)").text());
+    }
+
+    @Test
+    public void testRecursionIsAnError() {
+        Result result = session.interpret("f(x) = f(x)+1: f(1)");
+
+        assertTrue(result.isError());
+        assertEquals("Recursion error: Maximum call depth of 10000 exceeded in f", result.error());
+        assertTrue(session.interpret("y = f(1):").isError());
+        assertEquals(4L, session.interpret("2+2").number());
+    }
+
+    @Test
+    public void testSessionsRunInParallel() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        Future<?>[] results = new Future<?>[8];
+
+        for (int i = 0; i < results.length; ++i) {
+            final int id = i;
+            results[i] = threads.submit(() -> {
+                Session own = new Session();
+                own.interpret("g(x) = x*" + id + ": n = " + id + ":");
+
+                for (int j = 0; j < 2000; ++j) {
+                    Result result = own.interpret("n = " + j + ": g(n) + n");
+                    assertEquals((long) j * id + j, result.number());
+                }
+                return null;
+            });
+        }
+
+        for (Future<?> result : results) {
+            result.get();
+        }
+
+        threads.shutdown();
+    }
+}
@@ -0,0 +1,74 @@
+package calcmalc.logic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ArgumentStackTest {
+    @Test
+    public void testNestedCallsHaveTheirOwnArguments() {
+        ArgumentStack stack = new ArgumentStack();
+        assertFalse(stack.inContext());
+
+        int outer = stack.allocate(2);
+        stack.set(outer, 1.0);
+        stack.set(outer + 1, 2.0);
+        stack.enter(outer);
+
+        int inner = stack.allocate(1);
+        stack.set(inner, 3.0);
+        stack.enter(inner);
+        assertEquals(3.0, stack.argument(0), 0.0);
+
+        stack.leave();
+        assertTrue(stack.inContext());
+        assertEquals(1.0, stack.argument(0), 0.0);
+        assertEquals(2.0, stack.argument(1), 0.0);
+        assertEquals(2, stack.size());
+
+        stack.leave();
+        assertFalse(stack.inContext());
+        assertEquals(0, stack.size());
+    }
+
+    @Test
+    public void testSpaceOfFinishedCallIsReused() {
+        ArgumentStack stack = new ArgumentStack();
+        int first = stack.allocate(3);
+        stack.enter(first);
+        stack.leave();
+        assertEquals(first, stack.allocate(3));
+    }
+
+    @Test
+    public void testStackGrows() {
+        ArgumentStack stack = new ArgumentStack();
+
+        for (int i = 0; i < 10000; ++i) {
+            int base = stack.allocate(2);
+            stack.set(base, i);
+            stack.set(base + 1, -i);
+            stack.enter(base);
+        }
+
+        for (int i = 9999; i >= 0; --i) {
+            assertEquals(i, stack.argument(0), 0.0);
+            assertEquals(-i, stack.argument(1), 0.0);
+            stack.leave();
+        }
+        assertEquals(0, stack.size());
+    }
+
+    @Test
+    public void testReset() {
+        ArgumentStack stack = new ArgumentStack();
+        int base = stack.allocate(1);
+        stack.enter(base);
+        stack.enter(stack.allocate(4));
+        stack.reset(1, 1);
+
+        assertEquals(1, stack.size());
+        assertEquals(1, stack.contexts());
+        assertEquals(1, stack.allocate(1));
+    }
+}
@@ -0,0 +1,138 @@
+package calcmalc.logic;
+
+import org.junit.Test;
+
+import calcmalc.exceptions.LexerException;
+import calcmalc.structures.ASTNode;
+import static org.junit.Assert.*;
+import java.text.ParseException;
+
+public class AstArenaTest {
+    private String postfix(AstArena arena, int node) {
+        String branches = "";
+
+        for (int i = 0; i < arena.childCount[node]; ++i) {
+            branches += postfix(arena, arena.child(node, i));
+        }
+
+        return branches + arena.key(node);
+    }
+
+    @Test
+    public void testNodesAreAddedInPostOrder() throws ParseException, LexerException {
+        AstArena arena = new Parser().parseArena(new Lexer().stream("2*3+x"));
+
+        assertEquals(5, arena.size());
+        assertEquals(1, arena.roots().size());
+        assertEquals(4, arena.roots().peek());
+        assertEquals(AstArena.NUMBER, arena.kind[0]);
+        assertEquals(2.0, arena.value[0], 0);
+        assertEquals(Program.MUL, arena.kind[2]);
+        assertEquals(AstArena.SYMBOL, arena.kind[3]);
+        assertEquals("x", arena.key(3));
+        assertEquals(Program.ADD, arena.kind[4]);
+        assertEquals(2, arena.child(4, 0));
+        assertEquals(3, arena.child(4, 1));
+    }
+
+    @Test
+    public void testSubtreeSizesAreCounted() throws ParseException, LexerException {
+        AstArena arena = new Parser().parseArena(new Lexer().stream("2*3+max(x, -y, 4)"));
+
+        assertEquals(1, arena.subtreeSize(0));
+        assertEquals(3, arena.subtreeSize(2));
+        assertEquals(2, arena.subtreeSize(5));
+        assertEquals(5, arena.subtreeSize(7));
+        assertEquals(9, arena.subtreeSize(arena.roots().peek()));
+    }
+
+    @Test
+    public void testFunctionsHaveAllTheirArguments() throws ParseException, LexerException {
+        AstArena arena = new Parser().parseArena(new Lexer().stream("max(1, 2*3, abs(4), f(5, 6))"));
+        int root = arena.roots().pop();
+
+        assertEquals(Program.MAX, arena.kind[root]);
+        assertEquals(4, arena.childCount[root]);
+        assertEquals("1.02.03.0*4.0abs5.06.0fmax", postfix(arena, root));
+        assertEquals(AstArena.CALL, arena.kind[arena.child(root, 3)]);
+        assertEquals(Program.ABS, arena.kind[arena.child(root, 2)]);
+    }
+
+    @Test
+    public void testUnknownStandardLibraryFunction() throws ParseException, LexerException {
+        AstArena arena = new Parser().parseArena(new Lexer().stream("cos(1)"));
+        assertEquals(AstArena.UNKNOWN, arena.kind[arena.roots().pop()]);
+    }
+
+    @Test
+    public void testEveryExpressionIsARoot() throws ParseException, LexerException {
+        AstArena arena = new Parser().parseArena(new Lexer().stream("(1+2) 3 abs(4)"));
+
+        assertEquals(3, arena.roots().size());
+        assertEquals("4.0abs", postfix(arena, arena.roots().pop()));
+        assertEquals("3.0", postfix(arena, arena.roots().pop()));
+        assertEquals("1.02.0+", postfix(arena, arena.roots().pop()));
+    }
+
+    @Test
+    public void testAssignmentsAreMadeIntoTrees() throws ParseException, LexerException {
+        Parser parser = new Parser();
+        AstArena arena = parser.parseArena(new Lexer().stream("f(x, y) = max(x, y) * 2: z = -1: f(z, 3)"));
+
+        assertEquals(1, arena.roots().size());
+        ASTNode function = parser.variables().dequeue();
+        assertTrue(function.token().isAssignment());
+        assertTrue(function.children().get(0).token().isFunction());
+        assertEquals("f", function.children().get(0).token().getKey());
+        assertTrue(function.children().get(0).children().get(1).token().isSymbol());
+        ASTNode body = function.children().get(1);
+        assertEquals("*", body.token().getKey());
+        assertEquals(2, body.token().getPrecedence());
+        assertEquals("max", body.children().get(0).token().getKey());
+        assertEquals(2.0, body.children().get(1).token().getValue(), 0);
+
+        ASTNode variable = parser.variables().dequeue();
+        assertEquals("$", variable.children().get(1).token().getKey());
+        assertTrue(parser.variables().isEmpty());
+    }
+
+    @Test
+    public void testArenaGrows() throws ParseException, LexerException {
+        String input = "1";
+        for (int i = 0; i < 200; ++i) {
+            input = "max(" + input + ", " + i + ", x)";
+        }
+
+        AstArena arena = new Parser().parseArena(new Lexer().stream(input));
+
+        assertEquals(601, arena.size());
+        assertEquals(600, arena.roots().pop());
+    }
+
+    @Test
+    public void testBindChangesIdsToTheTable() throws ParseException, LexerException {
+        AstArena arena = new Parser().parseArena(new Lexer().stream("x*y+max(y, 2)"));
+        Symbols symbols = new Symbols();
+        symbols.intern("y");
+        int[] kinds = arena.kind.clone();
+        arena.bind(symbols);
+
+        assertEquals(symbols.intern("x"), arena.symbol[0]);
+        assertEquals(symbols.intern("y"), arena.symbol[1]);
+        assertEquals(symbols.intern("y"), arena.symbol[3]);
+        assertEquals(-1, arena.symbol[4]);
+        assertEquals(Symbols.punctuation('+'), arena.symbol[6]);
+        assertArrayEquals(kinds, arena.kind);
+        assertEquals("max", arena.key(5));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testMissingArgumentsAreParseErrors() throws ParseException, LexerException {
+        new Parser().parseArena(new Lexer().stream("max(2,3,)"));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testAssigningToNumberIsParseError() throws ParseException, LexerException {
+        new Parser().parseArena(new Lexer().stream("2 = 3:"));
+    }
+}
@@ -0,0 +1,113 @@
+package calcmalc.logic;
+
+import org.junit.Test;
+
+import calcmalc.structures.ASTNode;
+
+import static org.junit.Assert.*;
+
+public class CompilerTest {
+    private Program compile(String expression) throws Exception {
+        Evaluator evaluator = new Evaluator();
+        ASTNode root = new Parser().parse(new Lexer().lex(expression)).pop();
+        return evaluator.compile(root);
+    }
+
+    @Test
+    public void testCompileOperatorsToPostfix() throws Exception {
+        Program program = compile("2*3+x");
+        int[] expected = {
+            Program.CONSTANT, 0,
+            Program.CONSTANT, 1,
+            Program.MUL,
+            Program.LOAD, new Symbols().intern("x"), 0,
+            Program.ADD,
+            Program.RETURN
+        };
+        assertArrayEquals(expected, program.code);
+        assertArrayEquals(new double[] {2.0, 3.0}, program.constants, 0.0);
+        assertEquals("Unknown Symbol x", program.strings[0]);
+        assertEquals(2, program.maxStack);
+    }
+
+    @Test
+    public void testCompileMaxTwoArgumentsAtATime() throws Exception {
+        Program program = compile("max(2,4,5)");
+        int[] expected = {
+            Program.CONSTANT, 0,
+            Program.CONSTANT, 1,
+            Program.MAX,
+            Program.CONSTANT, 2,
+            Program.MAX,
+            Program.RETURN
+        };
+        assertArrayEquals(expected, program.code);
+    }
+
+    @Test
+    public void testCompileMaxOfOneArgumentIsTheArgument() throws Exception {
+        Program program = compile("max(2)");
+        assertArrayEquals(new int[] {Program.CONSTANT, 0, Program.RETURN}, program.code);
+    }
+
+    @Test
+    public void testCompileUnaryMinus() throws Exception {
+        Program program = compile("-abs(2)");
+        assertArrayEquals(new int[] {Program.CONSTANT, 0, Program.ABS, Program.NEG, Program.RETURN}, program.code);
+    }
+
+    @Test
+    public void testCompileUnknownFunctionAsFail() throws Exception {
+        Program program = compile("cos(2)");
+        assertArrayEquals(new int[] {Program.CONSTANT, 0, Program.FAIL, 0, Program.RETURN}, program.code);
+        assertEquals("Unknown Symbol cos", program.strings[0]);
+    }
+
+    @Test
+    public void testCompileWrongNumberOfArgumentsAfterTwoArguments() throws Exception {
+        Program program = compile("abs(1,2,x)");
+        assertEquals(Program.FAIL, program.code[4]);
+        assertEquals("Wrong number of arguments for abs", program.strings[program.code[5]]);
+    }
+
+    @Test
+    public void testCompileCustomFunctionBodyUsesArgumentSlots() throws Exception {
+        Evaluator evaluator = new Evaluator();
+        Parser parser = new Parser();
+        ASTNode root = parser.parse(new Lexer().lex("add(x,y) = x+y+z:add(1,2)")).pop();
+        evaluator.evaluateAssignment(parser.variables().dequeue());
+
+        Program program = evaluator.compile(root);
+        assertArrayEquals(new int[] {Program.CONSTANT, 0, Program.CONSTANT, 1, Program.CALL, 0, Program.RETURN}, program.code);
+        assertEquals("add", program.functionNames[0]);
+
+        Program body = new Program(
+            new Parser().parse(new Lexer().lex("x+y+z")).pop(),
+            new String[] {"x", "y"}
+        );
+        Definitions definitions = new Definitions();
+        int[] expected = {
+            Program.ARGUMENT, 0,
+            Program.ARGUMENT, 1,
+            Program.ADD,
+            Program.LOAD, definitions.symbols.intern("z"), 0,
+            Program.ADD,
+            Program.RETURN
+        };
+        Compiler compiler = new Compiler(definitions);
+        compiler.compile(body);
+        assertArrayEquals(expected, body.code);
+    }
+
+    @Test
+    public void testCompileVeryDeepTree() throws Exception {
+        StringBuilder expr = new StringBuilder("1");
+        for (int i = 0; i < 200000; ++i) {
+            expr.append("+1");
+        }
+
+        Program program = compile(expr.toString());
+        assertEquals(200001 * 2 + 200000 + 1, program.size());
+        assertEquals(2, program.maxStack);
+    }
+}
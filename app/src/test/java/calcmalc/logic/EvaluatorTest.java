@@ -826,5 +826,298 @@ public class EvaluatorTest {
             evaluator.evaluate(nodes.pop());
         });
     }
-    
+
+    @Test
+    public void testEvaluateVeryDeepTreeWithDefaultStack() throws Exception {
+        StringBuilder expr = new StringBuilder("1");
+        for (int i = 0; i < 200000; ++i) {
+            expr.append("+1");
+        }
+
+        Lexer lexer = new Lexer();
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        Stack<ASTNode> nodes = parser.parse(lexer.lex(expr.toString()));
+        assertEquals((Double) 200001.0, evaluator.evaluate(nodes.pop()));
+    }
+
+    @Test
+    public void testEvaluateDeepCustomFunctionBodyAndArgument() throws Exception {
+        StringBuilder expr = new StringBuilder("inc(x) = x");
+        for (int i = 0; i < 100000; ++i) {
+            expr.append("+1");
+        }
+        expr.append(":inc(0");
+        for (int i = 0; i < 100000; ++i) {
+            expr.append("+1");
+        }
+        expr.append(")");
+
+        Lexer lexer = new Lexer();
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        Stack<ASTNode> nodes = parser.parse(lexer.lex(expr.toString()));
+        while(!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        assertEquals((Double) 200000.0, evaluator.evaluate(nodes.pop()));
+    }
+
+    @Test
+    public void testEvaluatorCanBeReusedAfterErrorInFunctionBody() throws Exception {
+        String expr = new StringBuilder()
+            .append("x = 10:")
+            .append("f(y) = y+z:")
+            .append("f(1)")
+            .toString();
+
+        Lexer lexer = new Lexer();
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        Stack<ASTNode> nodes = parser.parse(lexer.lex(expr));
+        while(!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        Exception exception = assertThrows(EvaluatorException.class, () -> {
+            evaluator.evaluate(nodes.pop());
+        });
+
+        assertEquals("Unknown Symbol z", exception.getMessage());
+        assertEquals((Double) 12.0, evaluator.evaluate(new Parser().parse(lexer.lex("x+2")).pop()));
+    }
+
+    @Test
+    public void testEvaluateMaxWithoutArgumentsThrows() throws Exception {
+        Lexer lexer = new Lexer();
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        Stack<ASTNode> nodes = parser.parse(lexer.lex("max"));
+
+        Exception exception = assertThrows(EvaluatorException.class, () -> {
+            evaluator.evaluate(nodes.pop());
+        });
+
+        assertEquals("Wrong number of arguments for max", exception.getMessage());
+    }
+
+    @Test
+    public void testEvaluateDouble() throws Exception {
+        Lexer lexer = new Lexer();
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        Stack<ASTNode> nodes = parser.parse(lexer.lex("x = 3:f(y) = y*x:max(f(2), 4)+abs(0-1.5)+sqrt(16)%3-log(1)"));
+        while(!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        ASTNode root = nodes.pop();
+        assertEquals(evaluator.evaluate(root).doubleValue(), evaluator.evaluateDouble(root), 0.0);
+        assertEquals(8.5, evaluator.evaluateDouble(root), 0.0);
+    }
+
+    @Test
+    public void testEvaluateDoubleSeesNewDefinitions() throws Exception {
+        Lexer lexer = new Lexer();
+        Evaluator evaluator = new Evaluator();
+        ASTNode root = new Parser().parse(lexer.lex("f(2)+x")).pop();
+
+        Exception exception = assertThrows(EvaluatorException.class, () -> {
+            evaluator.evaluateDouble(root);
+        });
+        assertEquals("Unknown function f", exception.getMessage());
+
+        Parser parser = new Parser();
+        parser.parse(lexer.lex("x = 1:f(y) = y+1:0"));
+        while(!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+        assertEquals(4.0, evaluator.evaluateDouble(root), 0.0);
+
+        parser = new Parser();
+        parser.parse(lexer.lex("x = 10:f(y) = y*3:0"));
+        while(!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+        assertEquals(16.0, evaluator.evaluateDouble(root), 0.0);
+    }
+
+    @Test
+    public void testEvaluateDoubleKeepsSignOfZero() throws Exception {
+        Evaluator evaluator = new Evaluator();
+        ASTNode root = new Parser().parse(new Lexer().lex("abs(0)")).pop();
+        assertEquals(-0.0, evaluator.evaluateDouble(root), 0.0);
+        assertEquals(Double.NEGATIVE_INFINITY, 1 / evaluator.evaluateDouble(root), 0.0);
+    }
+
+    @Test
+    public void testEvaluateNestedCallsOfSameFunction() throws Exception {
+        Lexer lexer = new Lexer();
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        Stack<ASTNode> nodes = parser.parse(lexer.lex("f(x) = x*2:g(y) = f(y+1)+y:f(f(f(2)))+g(g(1))"));
+        while(!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        assertEquals((Double) (16.0 + 17.0), evaluator.evaluate(nodes.pop()));
+    }
+
+    @Test
+    public void testArgumentsAreReadFromTheirOwnCall() throws Exception {
+        Lexer lexer = new Lexer();
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        Stack<ASTNode> nodes = parser.parse(lexer.lex("x = 100:f(x) = g(x)+x:g(y) = h(y*10):h(x) = x+1:f(2)"));
+        while(!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        ASTNode root = nodes.pop();
+        assertEquals((Double) 23.0, evaluator.evaluate(root));
+        assertEquals(23.0, evaluator.evaluateDouble(root), 0.0);
+    }
+
+    @Test
+    public void testEvaluateVeryDeepNestedCallsOfSameFunction() throws Exception {
+        StringBuilder expr = new StringBuilder("f(a,b) = a+b:");
+        for (int i = 0; i < 20000; ++i) {
+            expr.append("f(1,");
+        }
+        expr.append("0");
+        for (int i = 0; i < 20000; ++i) {
+            expr.append(")");
+        }
+
+        Lexer lexer = new Lexer();
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        Stack<ASTNode> nodes = parser.parse(lexer.lex(expr.toString()));
+        while(!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        ASTNode root = nodes.pop();
+        assertEquals((Double) 20000.0, evaluator.evaluate(root));
+        assertEquals((Double) 20000.0, evaluator.evaluate(root));
+    }
+
+    private String evaluateArena(String input) throws Exception {
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        AstArena arena = parser.parseArena(new Lexer().stream(input));
+
+        while (!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        try {
+            return Double.toString(evaluator.evaluate(arena, arena.roots().pop()));
+        } catch (EvaluatorException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void testEvaluateArena() throws Exception {
+        assertEquals("12.0", evaluateArena("2+2*5"));
+        assertEquals("-1.0", evaluateArena("-1"));
+        assertEquals("9.0", evaluateArena("max(1, 9, 3, -2)"));
+        assertEquals("-2.0", evaluateArena("min(1, 9, 3, -2)"));
+        assertEquals("4.0", evaluateArena("abs(-4)"));
+        assertEquals("2.0", evaluateArena("x = 4: sqrt(x)"));
+        assertEquals("7.0", evaluateArena("max(7)"));
+    }
+
+    @Test
+    public void testEvaluateArenaCustomFunctions() throws Exception {
+        assertEquals("34.0", evaluateArena("f(x, y) = x*y+1: f(f(2, 3), 2) + f(2, 2) + 14"));
+        assertEquals("10.0", evaluateArena("y = 3: g(x) = x + y: h(x) = g(x) * 2: h(2)"));
+    }
+
+    @Test
+    public void testEvaluateArenaCustomFunctionCompiledByJit() throws Exception {
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator(2);
+        AstArena arena = parser.parseArena(new Lexer().stream("f(x) = x*2: f(1) f(2) f(3) f(4)"));
+        evaluator.evaluateAssignment(parser.variables().dequeue());
+
+        assertEquals(8.0, evaluator.evaluate(arena, arena.roots().pop()), 0);
+        assertEquals(6.0, evaluator.evaluate(arena, arena.roots().pop()), 0);
+        assertEquals(4.0, evaluator.evaluate(arena, arena.roots().pop()), 0);
+        assertEquals(2.0, evaluator.evaluate(arena, arena.roots().pop()), 0);
+    }
+
+    private void define(Evaluator evaluator, String assignments) throws Exception {
+        Parser parser = new Parser();
+        parser.parse(new Lexer().lex(assignments));
+
+        while (!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+    }
+
+    @Test
+    public void testEvaluateArenaInEvaluatorsWithOwnSymbols() throws Exception {
+        AstArena arena = new Parser().parseArena(new Lexer().lexBuffer("y*2+x"));
+        int root = arena.roots().pop();
+        Evaluator first = new Evaluator();
+        Evaluator second = new Evaluator();
+        define(first, "y = 2: x = 1:");
+        define(second, "x = 3: z = 0: y = 4:");
+
+        assertEquals(5.0, first.evaluate(arena, root), 0);
+        assertEquals(11.0, second.evaluate(arena, root), 0);
+        assertEquals(5.0, first.evaluate(arena, root), 0);
+    }
+
+    @Test
+    public void testEvaluateArenaErrors() throws Exception {
+        assertEquals("Unknown Symbol q", evaluateArena("q + 1"));
+        assertEquals("Unknown Symbol cos", evaluateArena("cos(1)"));
+        assertEquals("Unknown function f", evaluateArena("f(1)"));
+        assertEquals("Wrong number of arguments for f", evaluateArena("f(x) = x: f(1, 2)"));
+        assertEquals("Wrong number of arguments for sqrt", evaluateArena("sqrt(1, 2)"));
+        assertEquals("Wrong number of arguments for max", evaluateArena("max + 1"));
+        assertEquals("Can't assign values in expressions, values must be assigned before or after expressions", evaluateArena("x = 2"));
+    }
+
+    @Test
+    public void testRecursionFailsAtMaximumCallDepth() throws Exception {
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        ASTNode root = parser.parse(new Lexer().lex("f(x) = 1+f(x): f(2)")).pop();
+        evaluator.evaluateAssignment(parser.variables().dequeue());
+
+        EvaluatorException e = assertThrows(EvaluatorException.class, () -> evaluator.evaluate(root));
+        assertEquals("Recursion error: Maximum call depth of 10000 exceeded in f", e.getMessage());
+        assertEquals(5.0, evaluator.evaluate(new Parser().parse(new Lexer().lex("2+3")).pop()).doubleValue(), 0);
+    }
+
+    @Test
+    public void testStandardLibraryFunctionsCannotBeRedefined() throws Exception {
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        parser.parse(new Lexer().lex("max(x) = x:"));
+
+        EvaluatorException e = assertThrows(EvaluatorException.class, () -> evaluator.evaluateAssignment(parser.variables().dequeue()));
+        assertEquals("Assignment error: Cannot redefine standard library function max", e.getMessage());
+    }
+
+    @Test
+    public void testEvaluateArenaUsesNewDefinitions() throws Exception {
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        AstArena arena = parser.parseArena(new Lexer().stream("g(x, 1) x = 5: g(a, b) = a+b: g(a) = a:"));
+        int root = arena.roots().pop();
+
+        evaluator.evaluateAssignment(parser.variables().dequeue());
+        evaluator.evaluateAssignment(parser.variables().dequeue());
+        assertEquals(6.0, evaluator.evaluate(arena, root), 0);
+
+        // the new definition of the custom function changes the number of arguments it takes
+        evaluator.evaluateAssignment(parser.variables().dequeue());
+        assertThrows(EvaluatorException.class, () -> evaluator.evaluate(arena, root));
+    }
 }
@@ -0,0 +1,151 @@
+package calcmalc.logic;
+
+import org.junit.Test;
+
+import calcmalc.exceptions.EvaluatorException;
+import calcmalc.structures.ASTNode;
+import calcmalc.structures.Stack;
+
+import static org.junit.Assert.*;
+
+public class JitCompilerTest {
+    private Evaluator evaluator = new Evaluator(1);
+    private Compiler compiler;
+    private Definitions definitions;
+
+    private Program compile(String input) throws Exception {
+        Parser parser = new Parser();
+        Stack<ASTNode> nodes = parser.parse(new Lexer().lex(input));
+
+        while (!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        return evaluator.compile(nodes.pop());
+    }
+
+    private CompiledFunction jit(String body, String... arguments) throws Exception {
+        definitions = new Definitions();
+        compiler = new Compiler(definitions);
+        Program program = new Program(new Parser().parse(new Lexer().lex(body)).pop(), arguments);
+        compiler.compile(program);
+        return new JitCompiler(1).compile(program, definitions);
+    }
+
+    @Test
+    public void testCompileArithmetic() throws Exception {
+        CompiledFunction function = jit("2*x+y/4-x%3", "x", "y");
+        assertNotNull(function);
+        assertEquals(2 * 5.0 + 8.0 / 4 - 5.0 % 3, function.apply(5.0, 8.0), 0.0);
+    }
+
+    @Test
+    public void testCompileStandardLibraryFunctions() throws Exception {
+        CompiledFunction function = jit("max(x,2,y)+min(x,y)+abs(-x)+sqrt(y)+log(1)+x^2", "x", "y");
+        assertNotNull(function);
+        assertEquals(16.0 + 3.0 + 3.0 + 4.0 + 0.0 + 9.0, function.apply(3.0, 16.0), 0.0);
+    }
+
+    @Test
+    public void testCompiledFunctionReadsArgumentsFromStack() throws Exception {
+        CompiledFunction function = jit("x-y", "x", "y");
+        assertEquals(-1.0, function.apply(new double[] {9.0, 9.0, 1.0, 2.0}, 2), 0.0);
+    }
+
+    @Test
+    public void testCompiledFunctionLooksUpVariables() throws Exception {
+        CompiledFunction function = jit("x+z", "x");
+        EvaluatorException exception = assertThrows(EvaluatorException.class, () -> function.apply(1.0));
+        assertEquals("Unknown Symbol z", exception.getMessage());
+
+        definitions.variables.set(definitions.symbols.intern("z"), 10.0);
+        assertEquals(11.0, function.apply(1.0), 0.0);
+    }
+
+    @Test
+    public void testCompiledFunctionThrowsLikeVirtualMachine() throws Exception {
+        CompiledFunction function = jit("x+cos(x)", "x");
+        assertNotNull(function);
+        EvaluatorException exception = assertThrows(EvaluatorException.class, () -> function.apply(1.0));
+        assertEquals("Unknown Symbol cos", exception.getMessage());
+    }
+
+    @Test
+    public void testFailingFunctionWithOperandsOnStackIsCompiled() throws Exception {
+        CompiledFunction function = jit("x*2+cos(x,x,x,x,x,x)", "x");
+        assertNotNull(function);
+        EvaluatorException exception = assertThrows(EvaluatorException.class, () -> function.apply(1.0));
+        assertEquals("Wrong number of arguments for cos", exception.getMessage());
+    }
+
+    @Test
+    public void testFunctionsCallingCustomFunctionsAreNotCompiled() throws Exception {
+        Program program = compile("f(x) = x+1: g(x) = f(x)*2: g(1)");
+        assertEquals(4.0, evaluator.run(program), 0.0);
+        assertNull(program.functions[0].compiled);
+        assertNotNull(program.functions[0].functions[0].compiled);
+    }
+
+    @Test
+    public void testHotFunctionIsCompiledAfterThreshold() throws Exception {
+        Evaluator slow = new Evaluator(3);
+        Parser parser = new Parser();
+        ASTNode root = parser.parse(new Lexer().lex("f(x) = x*2: f(1)+f(2)")).pop();
+        slow.evaluateAssignment(parser.variables().dequeue());
+        Program program = slow.compile(root);
+
+        assertEquals(6.0, slow.run(program), 0.0);
+        assertNull(program.functions[0].compiled);
+        assertEquals(6.0, slow.run(program), 0.0);
+        assertNotNull(program.functions[0].compiled);
+        assertSame(program.functions[0], program.functions[1]);
+        assertEquals(6.0, slow.run(program), 0.0);
+    }
+
+    @Test
+    public void testRedefinedFunctionIsNotUsed() throws Exception {
+        Program program = compile("f(x) = x*2: f(3)");
+        assertEquals(6.0, evaluator.run(program), 0.0);
+        CompiledFunction old = program.functions[0].compiled;
+        assertNotNull(old);
+
+        compile("f(x) = x*3: 1");
+        assertEquals(9.0, evaluator.run(program), 0.0);
+        assertNotSame(old, program.functions[0].compiled);
+    }
+
+    @Test
+    public void testDefiningOtherFunctionKeepsCompiledFunction() throws Exception {
+        Program program = compile("f(x) = x*2: f(3)");
+        assertEquals(6.0, evaluator.run(program), 0.0);
+        CompiledFunction old = program.functions[0].compiled;
+        assertNotNull(old);
+
+        compile("g(x) = x*3: 1");
+        assertEquals(6.0, evaluator.run(program), 0.0);
+        assertSame(old, program.functions[0].compiled);
+    }
+
+    @Test
+    public void testCompiledFunctionsGiveSameResultsAsEvaluate() throws Exception {
+        String definitions = "y = 3.5: f(x) = x*2+y: h(x,x) = x: p(a,b) = a^b%7-(-b): m(a) = max(a,1)/min(a,2):";
+        String[] expressions = {"f(2)", "h(1,2)", "p(2,3)", "p(2,0.5)", "m(0)", "m(5)", "f(f(1))", "m(p(3,2))"};
+
+        for (String expression : expressions) {
+            Parser parser = new Parser();
+            Evaluator reference = new Evaluator();
+            ASTNode root = parser.parse(new Lexer().lex(definitions + expression)).pop();
+
+            while (!parser.variables().isEmpty()) {
+                ASTNode variable = parser.variables().dequeue();
+                reference.evaluateAssignment(variable);
+                evaluator.evaluateAssignment(variable);
+            }
+
+            Program program = evaluator.compile(root);
+            double expected = reference.run(reference.compile(root));
+            assertEquals(expression, expected, evaluator.run(program), 0.0);
+            assertEquals(expression, expected, evaluator.run(program), 0.0);
+        }
+    }
+}
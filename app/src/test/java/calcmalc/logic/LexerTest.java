@@ -88,10 +88,51 @@ public class LexerTest {
     @Test 
     public void testLexingIncorrectNumbers() throws LexerException {
         Lexer lexer = new Lexer();
-        Queue<Token> tokens = lexer.lex("A__.__B");
-        assertTrue(tokens.dequeue().isSymbol());
-        assertTrue(tokens.dequeue().isNumber());
-        assertTrue(tokens.dequeue().isSymbol());
+        Exception exception = assertThrows(LexerException.class, () -> {
+            lexer.lex("A__.__B");
+        });
+        assertEquals("Number was formatted incorrectly: no digits in . at position 4", exception.getMessage());
+    }
+
+    @Test
+    public void testLexThrowsOnMultiplePointsInNumber() {
+        Lexer lexer = new Lexer();
+        Exception exception = assertThrows(LexerException.class, () -> {
+            lexer.lex("1+2.2.2");
+        });
+        assertEquals("Number was formatted incorrectly: multiple points in 2.2.2 at position 6", exception.getMessage());
+    }
+
+    @Test
+    public void testLexingNumberValues() throws LexerException {
+        Lexer lexer = new Lexer();
+        Queue<Token> tokens = lexer.lex("0 42 3.25 .5 7. 007.100 0.1 123456789012345 1234567890123456789 0.30000000000000004");
+        assertEquals(0.0, tokens.dequeue().getValue(), 0.0);
+        assertEquals(42.0, tokens.dequeue().getValue(), 0.0);
+        assertEquals(3.25, tokens.dequeue().getValue(), 0.0);
+        assertEquals(0.5, tokens.dequeue().getValue(), 0.0);
+        assertEquals(7.0, tokens.dequeue().getValue(), 0.0);
+        assertEquals(7.1, tokens.dequeue().getValue(), 0.0);
+        assertEquals(0.1, tokens.dequeue().getValue(), 0.0);
+        assertEquals(123456789012345.0, tokens.dequeue().getValue(), 0.0);
+        assertEquals(1234567890123456789.0, tokens.dequeue().getValue(), 0.0);
+        assertEquals(0.30000000000000004, tokens.dequeue().getValue(), 0.0);
+    }
+
+    @Test
+    public void testLexingNumberValuesMatchDoubleParsing() throws LexerException {
+        Lexer lexer = new Lexer();
+        java.util.Random random = new java.util.Random(42);
+
+        for (int i = 0; i < 10000; ++i) {
+            StringBuilder digits = new StringBuilder();
+            for (int j = random.nextInt(18); j >= 0; --j) {
+                digits.append((char) ('0' + random.nextInt(10)));
+            }
+            String number = digits.insert(random.nextInt(digits.length() + 1), '.').toString();
+
+            assertEquals(number, Double.parseDouble(number), lexer.lex(number).dequeue().getValue(), 0.0);
+        }
     }
 
     @Test 
@@ -271,4 +312,13 @@ public class LexerTest {
         Queue<Token> tokens = lexer.lex("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
         assertEquals("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa", tokens.dequeue().getKey());
     }
+
+    @Test
+    public void testLexThrowsOnNonAsciiCharacter() {
+        Lexer lexer = new Lexer();
+        Exception exception = assertThrows(LexerException.class, () -> {
+            Queue<Token> tokens = lexer.lex("2+\u00e42");
+        });
+        assertEquals("Unknown character \u00e4 at position 3", exception.getMessage());
+    }
 }
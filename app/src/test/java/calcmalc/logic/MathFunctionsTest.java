@@ -0,0 +1,39 @@
+package calcmalc.logic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MathFunctionsTest {
+    @Test
+    public void testMaxAndMin() {
+        assertEquals(3.0, MathFunctions.max(2.0, 3.0), 0.0);
+        assertEquals(2.0, MathFunctions.min(2.0, 3.0), 0.0);
+        assertEquals(-2.0, MathFunctions.max(-2.0, -3.0), 0.0);
+        assertEquals(-3.0, MathFunctions.min(-2.0, -3.0), 0.0);
+    }
+
+    @Test
+    public void testAbs() {
+        assertEquals(2.5, MathFunctions.abs(-2.5), 0.0);
+        assertEquals(2.5, MathFunctions.abs(2.5), 0.0);
+    }
+
+    @Test
+    public void testPow() {
+        assertEquals(1.0, MathFunctions.pow(5.0, 0.0), 0.0);
+        assertEquals(8.0, MathFunctions.pow(2.0, 3.0), 0.0);
+        assertEquals(0.125, MathFunctions.pow(2.0, -3.0), 0.0);
+    }
+
+    @Test
+    public void testPowWithFractionalExponentIsNotANumber() {
+        assertTrue(Double.isNaN(MathFunctions.pow(2.0, 0.5)));
+    }
+
+    @Test
+    public void testSqrtOfNegativeNumberIsNotANumber() {
+        assertTrue(Double.isNaN(MathFunctions.sqrt(-1.0)));
+        assertEquals(0.0, MathFunctions.sqrt(0.0), 0.0);
+    }
+}
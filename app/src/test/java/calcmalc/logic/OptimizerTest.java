@@ -0,0 +1,147 @@
+package calcmalc.logic;
+
+import org.junit.Test;
+
+import calcmalc.structures.ASTNode;
+
+import static org.junit.Assert.*;
+
+public class OptimizerTest {
+    private Evaluator evaluator = new Evaluator();
+    private Optimizer optimizer = new Optimizer(evaluator);
+
+    private ASTNode parse(String expression) throws Exception {
+        return new Parser().parse(new Lexer().lex(expression)).pop();
+    }
+
+    private String optimize(String expression) throws Exception {
+        return print(optimizer.optimize(parse(expression)));
+    }
+
+    private String print(ASTNode node) {
+        String output = "";
+
+        for (int i = 0; i < node.children().size(); ++i) {
+            output += print(node.children().get(i)) + " ";
+        }
+
+        return output + node.token().getKey();
+    }
+
+    @Test
+    public void testOptimizeArenaRebalancesChains() throws Exception {
+        String chain = "x";
+
+        for (int i = 1; i < 4096; ++i) {
+            chain += (i % 3 == 0 ? "-" : "+") + "f(" + i + ")";
+        }
+
+        AstArena arena = new Parser().parseArena(new Lexer().lexBuffer(chain));
+        int root = arena.roots().pop();
+        // the parser makes a left deep tree, the left child of the root is everything but the last term
+        assertEquals(arena.size() - 3, arena.subtreeSize(arena.child(root, 0)));
+
+        AstArena balanced = new Optimizer(evaluator, false, true).optimize(arena, root);
+        int balancedRoot = balanced.roots().pop();
+        assertTrue(balanced.roots().isEmpty());
+        assertTrue(balanced.subtreeSize(balanced.child(balancedRoot, 0)) <= balanced.size() / 2 + 4);
+        assertTrue(balanced.subtreeSize(balanced.child(balancedRoot, 1)) <= balanced.size() / 2 + 4);
+        assertEquals(print(new Optimizer(evaluator, false, true).optimize(arena.tree(root))), print(balanced.tree(balancedRoot)));
+    }
+
+    @Test
+    public void testFoldConstants() throws Exception {
+        assertEquals("10.0", optimize("2*3+sqrt(16)"));
+        assertEquals(6, optimizer.nodesBefore());
+        assertEquals(1, optimizer.nodesAfter());
+    }
+
+    @Test
+    public void testFoldConstantSubtrees() throws Exception {
+        assertEquals("x 6.0 +", optimize("x+2*3"));
+        assertEquals("x 2.5 max", optimize("max(x,abs(-2.5))"));
+        assertEquals(5, optimizer.nodesBefore());
+        assertEquals(3, optimizer.nodesAfter());
+    }
+
+    @Test
+    public void testFoldKeepsSpecialValues() throws Exception {
+        assertEquals("Infinity", optimize("1/0"));
+        assertEquals("NaN", optimize("2^0.5"));
+        assertEquals("-0.0", optimize("abs(0)"));
+    }
+
+    @Test
+    public void testRemoveIdentities() throws Exception {
+        assertEquals("x", optimize("x*1"));
+        assertEquals("x", optimize("1*x"));
+        assertEquals("x", optimize("x/1"));
+        assertEquals("x", optimize("x-0"));
+        assertEquals("x", optimize("x^1"));
+        assertEquals("x", optimize("-(-x)"));
+        assertEquals("x 0.0 +", optimize("(x*(3-2))+(4-4)*0-0"));
+    }
+
+    @Test
+    public void testKeepOperationsThatChangeTheValue() throws Exception {
+        assertEquals("1 x /", optimize("1/x"));
+        assertEquals("0 x -", optimize("0-x"));
+        assertEquals("x $", optimize("-x"));
+        assertEquals("x 0 +", optimize("x+0"));
+    }
+
+    @Test
+    public void testRemoveAdditionOfZeroWhenSignOfZeroIsIgnored() throws Exception {
+        Optimizer relaxed = new Optimizer(evaluator, true);
+        assertEquals("x", print(relaxed.optimize(parse("x+0"))));
+        assertEquals("x", print(relaxed.optimize(parse("0+x"))));
+    }
+
+    @Test
+    public void testFlattenFirstArgumentOfMaxAndMin() throws Exception {
+        assertEquals("x y z max", optimize("max(max(x,y),z)"));
+        assertEquals("x y z w min", optimize("min(min(min(x,y),z),w)"));
+        assertEquals("z x y max max", optimize("max(z,max(x,y))"));
+        assertEquals("x y min z max", optimize("max(min(x,y),z)"));
+        assertEquals("x", optimize("max(x)"));
+    }
+
+    @Test
+    public void testFailingSubtreesAreNotFolded() throws Exception {
+        assertEquals("1 cos", optimize("cos(1)"));
+        assertEquals("1 2 abs", optimize("abs(1,2)"));
+    }
+
+    @Test
+    public void testOptimizeCustomFunctionBody() throws Exception {
+        Parser parser = new Parser();
+        ASTNode root = parser.parse(new Lexer().lex("f(x) = x*(2+3)*1:f(2)")).pop();
+        ASTNode assignment = optimizer.optimize(parser.variables().dequeue());
+        assertEquals("x f x 5.0 * =", print(assignment));
+
+        evaluator.evaluateAssignment(assignment);
+        assertEquals(10.0, evaluator.run(evaluator.compile(optimizer.optimize(root))), 0.0);
+    }
+
+    @Test
+    public void testAssignmentTargetIsNotOptimized() throws Exception {
+        Parser parser = new Parser();
+        parser.parse(new Lexer().lex("max(x) = max(2+3): sqrt(4) = 1:"));
+
+        assertEquals("x max 5.0 =", print(optimizer.optimize(parser.variables().dequeue())));
+        assertEquals("4 sqrt 1 =", print(optimizer.optimize(parser.variables().dequeue())));
+    }
+
+    @Test
+    public void testOptimizeVeryDeepTree() throws Exception {
+        StringBuilder expr = new StringBuilder("1");
+        for (int i = 0; i < 200000; ++i) {
+            expr.append("+1");
+        }
+
+        ASTNode root = optimizer.optimize(parse(expr.toString()));
+        assertEquals("200001.0", root.token().getKey());
+        assertEquals(400001, optimizer.nodesBefore());
+        assertEquals(1, optimizer.nodesAfter());
+    }
+}
@@ -0,0 +1,105 @@
+package calcmalc.logic;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import calcmalc.exceptions.EvaluatorException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelEvaluatorTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private Evaluator evaluator = new Evaluator();
+
+    @AfterClass
+    public static void shutdown() {
+        POOL.shutdown();
+    }
+
+    private AstArena parse(String input) throws Exception {
+        Parser parser = new Parser();
+        AstArena arena = parser.parseArena(new Lexer().stream(input));
+
+        while (!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        return arena;
+    }
+
+    private void assertSameAsSequential(String input, int threshold) throws Exception {
+        AstArena arena = parse(input);
+        int root = arena.roots().pop();
+        double expected = evaluator.evaluate(arena, root);
+        ParallelEvaluator parallel = new ParallelEvaluator(evaluator.definitions(), JitCompiler.THRESHOLD, threshold);
+
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(parallel.evaluate(arena, root, POOL)));
+    }
+
+    private String errorOf(String input, int threshold) throws Exception {
+        AstArena arena = parse(input);
+        ParallelEvaluator parallel = new ParallelEvaluator(evaluator.definitions(), JitCompiler.THRESHOLD, threshold);
+
+        try {
+            parallel.evaluate(arena, arena.roots().pop(), POOL);
+            return null;
+        } catch (EvaluatorException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void testSmallTreeIsEvaluatedAtOnce() throws Exception {
+        AstArena arena = parse("2+2*5");
+        assertEquals(12.0, evaluator.evaluateParallel(arena, arena.roots().pop(), POOL), 0.0);
+    }
+
+    @Test
+    public void testLongChainGivesExactlyTheSameResult() throws Exception {
+        StringBuilder input = new StringBuilder("0.1");
+        for (int i = 1; i < 20000; ++i) {
+            input.append(i % 3 == 0 ? "-" : "+").append(i % 7).append(".3/").append(i % 5 + 1);
+        }
+
+        assertSameAsSequential(input.toString(), 16);
+        assertSameAsSequential(input.toString(), 1);
+    }
+
+    @Test
+    public void testNestedExpressionsGiveTheSameResult() throws Exception {
+        String input = "x = 1.5: f(a, b) = a*b-max(a, b, 2): f(x, 3)*(sqrt(x+7)-abs(-x)^2)/min(4, x, f(2, x))+max(f(1, 2), -x, 0.25, f(x, x)%3)";
+
+        for (int threshold = 1; threshold < 16; ++threshold) {
+            assertSameAsSequential(input, threshold);
+        }
+    }
+
+    @Test
+    public void testCustomFunctionsAreCalledOnEveryThread() throws Exception {
+        StringBuilder input = new StringBuilder("g(x) = x*x+1: 0");
+        for (int i = 0; i < 5000; ++i) {
+            input.append("+g(").append(i).append(")");
+        }
+
+        assertSameAsSequential(input.toString(), 8);
+    }
+
+    @Test
+    public void testFirstErrorIsThrown() throws Exception {
+        // y fails before abs and z, whichever subtree is evaluated first
+        String input = "(1+2+3+4+5+6)*(7+8+y+abs(1, 2))+(1+2+3+4+5+6+z)";
+
+        for (int threshold = 1; threshold < 10; ++threshold) {
+            assertEquals("Unknown Symbol y", errorOf(input, threshold));
+            assertEquals("Wrong number of arguments for abs", errorOf("(1+2+3+4+5+6)*(7+8+abs(1, 2))+(1+2+3+4+5+6+z)", threshold));
+        }
+    }
+
+    @Test
+    public void testEvaluatorCanBeUsedAfterError() throws Exception {
+        assertNotNull(errorOf("(1+2+3+4)+(5+6+7+q)", 2));
+        assertSameAsSequential("(1+2+3+4)+(5+6+7+8)", 2);
+    }
+}
@@ -0,0 +1,105 @@
+package calcmalc.logic;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import calcmalc.exceptions.LexerException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelLexerTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private Lexer lexer = new Lexer();
+
+    @AfterClass
+    public static void shutdown() {
+        POOL.shutdown();
+    }
+
+    private void assertSameTokens(TokenBuffer expected, TokenBuffer actual) {
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals("type of token " + i, expected.type(i), actual.type(i));
+            assertEquals(expected.start[i], actual.start[i]);
+            assertEquals(expected.length[i], actual.length[i]);
+            assertEquals("precedence of token " + i, expected.precedence[i], actual.precedence[i]);
+            // the chunks intern their names in parallel, so the same name can have another id than when lexed sequentially
+            assertEquals("symbol of token " + i, expected.symbol[i] < 0, actual.symbol[i] < 0);
+            assertEquals("key of token " + i, expected.key(i), actual.key(i));
+            assertEquals(expected.value[i], actual.value[i], 0);
+        }
+    }
+
+    private void assertSameAsSequential(String input) throws LexerException {
+        TokenBuffer expected = lexer.lexBuffer(input);
+
+        // every chunk size puts the seams in different places
+        for (int chunkSize = 1; chunkSize <= 8; ++chunkSize) {
+            assertSameTokens(expected, new ParallelLexer(lexer, chunkSize).lex(input, POOL));
+        }
+    }
+
+    private String errorOf(String input, int chunkSize) {
+        try {
+            new ParallelLexer(lexer, chunkSize).lex(input, POOL);
+            return null;
+        } catch (LexerException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void testSmallInputIsLexedAtOnce() throws LexerException {
+        assertSameTokens(lexer.lexBuffer("1+2"), lexer.lexBuffer("1+2", POOL));
+    }
+
+    @Test
+    public void testMinusAfterSeamIsFixed() throws LexerException {
+        assertSameAsSequential("x = 2: f(x) - 3*y - (-4) - z");
+        assertSameAsSequential("-1 - -(2) , (-3) = -4 : -5");
+    }
+
+    @Test
+    public void testFunctionBeforeSeamIsFixed() throws LexerException {
+        assertSameAsSequential("sqrt(4) + foo (x, bar(y)) * (z)");
+    }
+
+    @Test
+    public void testSeamsDontSplitSymbolsOrNumbers() throws LexerException {
+        assertSameAsSequential("abcdefghij+1234567.891*klmnopqrstu-0.5");
+    }
+
+    @Test
+    public void testLargeInput() throws LexerException {
+        StringBuilder input = new StringBuilder("x = 3: f(a) = a - 1:");
+        for (int i = 0; i < 20000; ++i) {
+            input.append(i % 4 == 0 ? " -f(x)" : "-(-x)").append(i % 3 == 0 ? "\n" : "").append("*").append(i).append(".5");
+        }
+
+        TokenBuffer expected = lexer.lexBuffer(input);
+        assertSameTokens(expected, new ParallelLexer(lexer, 1000).lex(input, POOL));
+        assertSameTokens(expected, lexer.lexBuffer(input, POOL));
+    }
+
+    @Test
+    public void testParallelBufferEvaluates() throws Exception {
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        AstArena arena = parser.parseArena(new ParallelLexer(lexer, 2).lex("g(x, y) = x*y - 1: g(2, -3) - (4) - g(1,1)", POOL));
+        evaluator.evaluateAssignment(parser.variables().dequeue());
+
+        assertEquals(-11.0, evaluator.evaluate(arena, arena.roots().pop()), 0);
+    }
+
+    @Test
+    public void testFirstErrorIsThrown() {
+        String input = "1 + 2 # 3 + 4.4.4 + 5 & 6";
+
+        for (int chunkSize = 1; chunkSize <= 8; ++chunkSize) {
+            assertEquals("Unknown character # at position 7", errorOf(input, chunkSize));
+        }
+    }
+}
@@ -3,6 +3,8 @@ package calcmalc.logic;
 import org.junit.Test;
 
 import calcmalc.exceptions.LexerException;
+import calcmalc.structures.ASTNode;
+import calcmalc.structures.Stack;
 import static org.junit.Assert.*;
 import java.text.ParseException;
 
@@ -564,4 +566,35 @@ public class ParserTest {
             parser.parse(lexer.lex("sqrt(()"));
         });
     }
+
+    @Test
+    public void testResetParserAfterError() throws ParseException, LexerException {
+        Lexer lexer = new Lexer();
+        Parser parser = new Parser();
+        assertThrows(ParseException.class, () -> {
+            parser.parse(lexer.lex("x = 2: max(1, (2"));
+        });
+
+        parser.reset();
+        Stack<ASTNode> nodes = parser.parse(lexer.lex("1+2"));
+
+        assertTrue(parser.variables().isEmpty());
+        assertEquals(1, nodes.size());
+        assertEquals("1+2", nodes.peek().children().get(0).token().getKey() + nodes.peek().token().getKey() + nodes.peek().children().get(1).token().getKey());
+    }
+
+    @Test
+    public void testResetParserIsReused() throws ParseException, LexerException {
+        Lexer lexer = new Lexer();
+        Parser parser = new Parser();
+
+        for (int i = 0; i < 100; ++i) {
+            parser.reset();
+            Stack<ASTNode> nodes = parser.parse(lexer.lex("y = " + i + ": f(a, b) = a*b: f(y, 2) abs(y)"));
+            assertEquals(2, parser.variables().size());
+            assertEquals(2, nodes.size());
+            assertEquals("abs", nodes.pop().token().getKey());
+            assertEquals("f", nodes.pop().token().getKey());
+        }
+    }
 }
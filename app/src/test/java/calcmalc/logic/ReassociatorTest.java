@@ -0,0 +1,131 @@
+package calcmalc.logic;
+
+import org.junit.Test;
+
+import calcmalc.structures.ASTNode;
+
+import static org.junit.Assert.*;
+
+public class ReassociatorTest {
+    private Evaluator evaluator = new Evaluator();
+    private Reassociator reassociator = new Reassociator();
+
+    private ASTNode parse(String expression) throws Exception {
+        Parser parser = new Parser();
+        ASTNode root = parser.parse(new Lexer().lex(expression)).pop();
+
+        while (!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        return root;
+    }
+
+    private String rebalance(String expression) throws Exception {
+        return print(reassociator.rebalance(parse(expression)));
+    }
+
+    private String print(ASTNode node) {
+        String output = "";
+
+        for (int i = 0; i < node.children().size(); ++i) {
+            output += print(node.children().get(i)) + " ";
+        }
+
+        return output + node.token().getKey();
+    }
+
+    private int depth(ASTNode root) {
+        int depth = 0;
+
+        for (int i = 0; i < root.children().size(); ++i) {
+            depth = Math.max(depth, depth(root.children().get(i)));
+        }
+
+        return depth + 1;
+    }
+
+    private double evaluate(ASTNode root) throws Exception {
+        return evaluator.run(evaluator.compile(root));
+    }
+
+    @Test
+    public void testBalanceAdditions() throws Exception {
+        assertEquals("a b + c d + +", rebalance("a+b+c+d"));
+    }
+
+    @Test
+    public void testBalanceMultiplications() throws Exception {
+        assertEquals("a b * c d e * * *", rebalance("a*b*c*d*e"));
+    }
+
+    @Test
+    public void testShortChainsAreNotChanged() throws Exception {
+        assertEquals("a b + c +", rebalance("a+b+c"));
+        assertEquals("a b - c -", rebalance("a-b-c"));
+        assertEquals("a b / c *", rebalance("a/b*c"));
+    }
+
+    @Test
+    public void testSubtractionsBecomeAdditionsOfNegations() throws Exception {
+        assertEquals("a b $ + c $ d + +", rebalance("a-b-c+d"));
+        assertEquals("a b + c $ d $ e + + +", rebalance("a-(-b+c)-(d-e)"));
+    }
+
+    @Test
+    public void testNegatedNumbersAreFolded() throws Exception {
+        assertEquals("a -2.0 + b 3 + +", rebalance("a-2-(-b-3)"));
+    }
+
+    @Test
+    public void testDivisionsByPowersOfTwoBecomeMultiplications() throws Exception {
+        assertEquals("a 0.25 * b 2.0 * *", rebalance("a/4*b/0.5"));
+    }
+
+    @Test
+    public void testOtherDivisionsEndTheChain() throws Exception {
+        assertEquals("a 3 / b * c d * *", rebalance("a/3*b*c*d"));
+        assertEquals("a b c / * d e * *", rebalance("a*(b/c)*d*e"));
+    }
+
+    @Test
+    public void testNestedChainsAreBalanced() throws Exception {
+        assertEquals("x y + z w + + sqrt a b * c d * * +", rebalance("sqrt(x+y+z+w)+a*b*c*d"));
+    }
+
+    @Test
+    public void testDepthIsLogarithmic() throws Exception {
+        StringBuilder expr = new StringBuilder("1");
+        for (int i = 2; i <= 100000; ++i) {
+            expr.append(i % 3 == 0 ? "-" : "+").append(i);
+        }
+
+        ASTNode root = parse(expr.toString());
+        double expected = evaluate(root);
+        root = reassociator.rebalance(root);
+
+        assertTrue(depth(root) <= 20);
+        assertEquals(expected, evaluate(root), 0.0);
+    }
+
+    @Test
+    public void testIntegerChainsKeepTheirValue() throws Exception {
+        parse("x = 7: y = 3: 0");
+
+        for (String expr : new String[] {"x+y-2*x+x-y-1+5", "x*y*2*x/2*y/4", "-(x+y)-(y-x)+x*y-x*x*x/8", "x-(-y)+3-(4-x)"}) {
+            ASTNode root = parse(expr);
+            double expected = evaluate(root);
+            assertEquals(expected, evaluate(reassociator.rebalance(root)), 0.0);
+        }
+    }
+
+    @Test
+    public void testOptimizerRebalancesOnlyWhenAllowed() throws Exception {
+        Optimizer strict = new Optimizer(evaluator);
+        Optimizer relaxed = new Optimizer(evaluator, false, true);
+
+        assertEquals("a b + c + d +", print(strict.optimize(parse("a+b+c+d"))));
+        assertEquals("a b + c d + +", print(relaxed.optimize(parse("a+b+c+d"))));
+        assertEquals(7, relaxed.nodesAfter());
+    }
+}
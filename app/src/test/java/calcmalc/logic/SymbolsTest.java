@@ -0,0 +1,114 @@
+package calcmalc.logic;
+
+import org.junit.Test;
+
+import calcmalc.logic.types.Token;
+import calcmalc.structures.ASTNode;
+import calcmalc.structures.Stack;
+
+import static org.junit.Assert.*;
+
+public class SymbolsTest {
+    private final Symbols symbols = new Symbols();
+
+    @Test
+    public void testInternGivesSameIdForSameName() {
+        int id = symbols.intern("interned");
+        assertEquals(id, symbols.intern(new String("interned")));
+        assertNotEquals(id, symbols.intern("another"));
+        assertEquals("another", symbols.name(id + 1));
+    }
+
+    @Test
+    public void testStandardLibraryFunctionsHaveTheFirstIds() {
+        for (String function : Symbols.STANDARD_LIBRARY_FUNCTIONS) {
+            assertTrue(Symbols.isStandardLibraryFunction(symbols.intern(function)));
+        }
+        assertFalse(Symbols.isStandardLibraryFunction(symbols.intern("x")));
+    }
+
+    @Test
+    public void testTablesAreIndependent() {
+        Symbols other = new Symbols();
+        int size = other.size();
+        symbols.intern("onlyhere");
+
+        assertEquals(size, other.size());
+        assertEquals(size + 1, symbols.size());
+        assertEquals(symbols.intern("max"), other.intern("max"));
+        for (char punctuation : Symbols.PUNCTUATION.toCharArray()) {
+            assertEquals(Symbols.punctuation(punctuation), other.intern(String.valueOf(punctuation)));
+            assertEquals(Symbols.punctuation(punctuation), symbols.intern(String.valueOf(punctuation)));
+        }
+    }
+
+    @Test
+    public void testIdIsStoredInTheToken() throws Exception {
+        Token token = new Lexer().lex("x").dequeue();
+        assertEquals(-1, token.getSymbol(symbols));
+        assertEquals(symbols.intern("x"), symbols.id(token));
+        assertEquals(symbols.intern("x"), token.getSymbol(symbols));
+    }
+
+    @Test
+    public void testIdOfAnotherTableIsInternedAgain() throws Exception {
+        Symbols other = new Symbols();
+        other.intern("before");
+        Token token = new Lexer().lex("x").dequeue();
+
+        assertEquals(other.intern("x"), other.id(token));
+        assertEquals(-1, token.getSymbol(symbols));
+        assertEquals(symbols.intern("x"), symbols.id(token));
+        assertNotEquals(other.id(token), symbols.id(token));
+    }
+
+    @Test
+    public void testResolveBindsArguments() throws Exception {
+        ASTNode body = new Parser().parse(new Lexer().lex("x*y+z+max(y)")).pop();
+        symbols.resolve(body, new String[] {"y", "x"});
+
+        ASTNode max = body.children().get(1);
+        ASTNode z = body.children().get(0).children().get(1);
+        ASTNode x = body.children().get(0).children().get(0).children().get(0);
+        ASTNode y = body.children().get(0).children().get(0).children().get(1);
+
+        assertEquals(1, x.token().getArgument());
+        assertEquals(0, y.token().getArgument());
+        assertEquals(-1, z.token().getArgument());
+        assertEquals(symbols.intern("z"), z.token().getSymbol(symbols));
+        assertEquals(0, max.children().get(0).token().getArgument());
+    }
+
+    @Test
+    public void testResolveInternsEveryNameOfTheBody() throws Exception {
+        ASTNode body = new Parser().parse(new Lexer().lex("x*2+max(y, g(z))")).pop();
+        symbols.resolve(body, new String[] {"x"});
+
+        Stack<ASTNode> nodes = new Stack<>();
+        nodes.push(body);
+
+        while (!nodes.isEmpty()) {
+            ASTNode node = nodes.pop();
+            Token token = node.token();
+            assertEquals(token.getKey(), token.isNumber() ? -1 : symbols.intern(token.getKey()), token.getSymbol(symbols));
+
+            for (int i = 0; i < node.children().size(); ++i) {
+                nodes.push(node.children().get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testResolveUsesLastArgumentWithSameName() throws Exception {
+        ASTNode body = new Parser().parse(new Lexer().lex("x")).pop();
+        symbols.resolve(body, new String[] {"x", "x"});
+        assertEquals(1, body.token().getArgument());
+    }
+
+    @Test
+    public void testResolveDoesNotBindStandardLibraryFunctions() throws Exception {
+        ASTNode body = new Parser().parse(new Lexer().lex("abs")).pop();
+        symbols.resolve(body, new String[] {"abs"});
+        assertEquals(-1, body.token().getArgument());
+    }
+}
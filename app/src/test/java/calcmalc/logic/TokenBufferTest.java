@@ -0,0 +1,133 @@
+package calcmalc.logic;
+
+import org.junit.Test;
+
+import calcmalc.exceptions.LexerException;
+import calcmalc.logic.types.Types;
+import static org.junit.Assert.*;
+import java.text.ParseException;
+
+public class TokenBufferTest {
+    private String postfix(AstArena arena, int node) {
+        String branches = "";
+
+        for (int i = 0; i < arena.childCount[node]; ++i) {
+            branches += postfix(arena, arena.child(node, i));
+        }
+
+        return branches + arena.key(node);
+    }
+
+    private String name(int i) {
+        return "name" + (char) ('a' + i % 26) + (char) ('a' + i / 26);
+    }
+
+    @Test
+    public void testTokensReferToTheInput() throws LexerException {
+        TokenBuffer tokens = new Lexer().lexBuffer("foo * 2.5");
+
+        assertEquals(3, tokens.size());
+        assertEquals(Types.SYMBOL, tokens.type(0));
+        assertEquals(0, tokens.start[0]);
+        assertEquals(3, tokens.length[0]);
+        assertEquals(4, tokens.precedence[0]);
+        assertEquals(tokens.symbols.intern("foo"), tokens.symbol[0]);
+        assertEquals(Types.OPERATOR, tokens.type(1));
+        assertEquals(2, tokens.precedence[1]);
+        assertEquals("*", tokens.key(1));
+        assertEquals(Types.NUMERIC, tokens.type(2));
+        assertEquals(2.5, tokens.value[2], 0);
+        assertEquals(-1, tokens.symbol[2]);
+        assertEquals("2.5", tokens.key(2));
+    }
+
+    @Test
+    public void testPrecedencesAreTheSameAsTokenPrecedences() throws LexerException {
+        TokenBuffer tokens = new Lexer().lexBuffer("-x = a ^ b % c - d + e");
+        int[] precedences = {3, 4, 0, 4, 4, 4, 2, 4, 1, 4, 1, 4};
+
+        for (int i = 0; i < precedences.length; ++i) {
+            assertEquals(precedences[i], tokens.precedence[i]);
+        }
+
+        assertEquals("$", tokens.key(0));
+        assertEquals("-", tokens.key(8));
+    }
+
+    @Test
+    public void testSymbolFollowedByParenthesisIsFunction() throws LexerException {
+        TokenBuffer tokens = new Lexer().lexBuffer("f(x, (y))");
+
+        assertEquals(Types.FUNCTION, tokens.type(0));
+        assertEquals(Types.OPEN_PARENTHESIS, tokens.type(1));
+        assertEquals(Types.COMMA, tokens.type(3));
+        assertEquals(Types.OPEN_PARENTHESIS, tokens.type(4));
+        assertEquals(Types.SYMBOL, tokens.type(5));
+        assertEquals(Types.CLOSING_PARENTHESIS, tokens.type(7));
+    }
+
+    @Test
+    public void testSameNameHasSameId() throws LexerException {
+        String input = "";
+
+        for (int i = 0; i < 100; ++i) {
+            input += name(i) + "+" + name(i % 10) + " ";
+        }
+
+        TokenBuffer tokens = new Lexer().lexBuffer(input);
+
+        assertEquals(300, tokens.size());
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(tokens.symbols.intern(name(i)), tokens.symbol[3 * i]);
+            assertEquals(tokens.symbols.intern(name(i % 10)), tokens.symbol[3 * i + 2]);
+        }
+    }
+
+    @Test
+    public void testBufferIsParsedLikeTokens() throws ParseException, LexerException {
+        String input = "x = 2: f(a) = a*x: max(1, -2*f(3), abs(4)) / (x - -1) ^ 2";
+        Parser parser = new Parser();
+        Parser bufferParser = new Parser();
+        AstArena arena = parser.parseArena(new Lexer().stream(input));
+        AstArena buffered = bufferParser.parseArena(new Lexer().lexBuffer(input));
+
+        assertEquals(arena.size(), buffered.size());
+        assertEquals(postfix(arena, arena.roots().pop()), postfix(buffered, buffered.roots().pop()));
+        assertEquals(2, bufferParser.variables().size());
+        assertEquals("x", bufferParser.variables().dequeue().children().get(0).token().getKey());
+        assertTrue(bufferParser.variables().dequeue().children().get(0).token().isFunction());
+    }
+
+    @Test
+    public void testBufferIsEvaluated() throws Exception {
+        Parser parser = new Parser();
+        Evaluator evaluator = new Evaluator();
+        AstArena arena = parser.parseArena(new Lexer().lexBuffer("x = 3: f(y) = y*y: f(x) + min(4, 2) - (-x)"));
+
+        while (!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        assertEquals(14.0, evaluator.evaluate(arena, arena.roots().pop()), 0);
+    }
+
+    @Test(expected = ParseException.class)
+    public void testMissingParenthesisFails() throws ParseException, LexerException {
+        new Parser().parseArena(new Lexer().lexBuffer("abs(2"));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testDanglingCommaFails() throws ParseException, LexerException {
+        new Parser().parseArena(new Lexer().lexBuffer("max(2,3,)"));
+    }
+
+    @Test(expected = LexerException.class)
+    public void testMalformedNumberFails() throws LexerException {
+        new Lexer().lexBuffer("1.2.3");
+    }
+
+    @Test
+    public void testLongNumbersAreParsedExactly() throws LexerException {
+        assertEquals(12345678901234567.5, new Lexer().lexBuffer("12345678901234567.5").value[0], 0);
+    }
+}
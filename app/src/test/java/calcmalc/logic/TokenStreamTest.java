@@ -0,0 +1,101 @@
+package calcmalc.logic;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import calcmalc.exceptions.LexerException;
+import calcmalc.logic.types.Token;
+import calcmalc.structures.Queue;
+
+public class TokenStreamTest {
+    private void assertSameTokens(String expr, TokenSource stream) throws LexerException {
+        Queue<Token> expected = new Lexer().lex(expr);
+        while (!expected.isEmpty()) {
+            Token token = stream.next();
+            Token expectedToken = expected.dequeue();
+            assertNotNull(token);
+            assertEquals(expectedToken.getKey(), token.getKey());
+            assertEquals(expectedToken.getType(), token.getType());
+            assertEquals(expectedToken.getPrecedence(), token.getPrecedence());
+        }
+        assertNull(stream.next());
+    }
+
+    @Test
+    public void testStreamGivesSameTokensAsLex() throws LexerException {
+        String expr = "x=-10:fn(a,b)=max(a,-b)*2.5:-2+(-4)+fn(x,sqrt(16))";
+        assertSameTokens(expr, new Lexer().stream(expr));
+        assertSameTokens(expr, new Lexer().stream(new StringReader(expr)));
+    }
+
+    @Test
+    public void testStreamWithTinyChunksGivesSameTokensAsLex() throws LexerException {
+        String expr = "x=-10:fn(a,b)=max(a,-b)*2.5:-2+(-4)+fn(x,sqrt(16))+ab12cd";
+        for (int chunk = 2; chunk < 8; ++chunk) {
+            assertSameTokens(expr, new TokenStream(new Lexer(), expr, chunk));
+            assertSameTokens(expr, new TokenStream(new Lexer(), new StringReader(expr), chunk));
+        }
+    }
+
+    @Test
+    public void testStreamOverAsciiBytesGivesSameTokensAsLex() throws LexerException {
+        String expr = "x=-10:fn(a,b)=max(a,-b)*2.5:-2+(-4)+fn(x,sqrt(16))+ab12cd";
+        assertSameTokens(expr, new Lexer().stream(ByteBuffer.wrap(expr.getBytes(StandardCharsets.US_ASCII))));
+        for (int chunk = 2; chunk < 8; ++chunk) {
+            ByteBuffer bytes = ByteBuffer.wrap(expr.getBytes(StandardCharsets.US_ASCII));
+            assertSameTokens(expr, new TokenStream(new Lexer(), new AsciiSequence(bytes), chunk));
+        }
+    }
+
+    @Test
+    public void testFunctionIsDetectedOverChunkBoundary() throws LexerException {
+        TokenSource stream = new TokenStream(new Lexer(), new StringReader("cos   (1)"), 4);
+        Token token = stream.next();
+        assertEquals("cos", token.getKey());
+        assertTrue(token.isFunction());
+    }
+
+    @Test
+    public void testLongSymbolIsNotSplitOverChunkBoundary() throws LexerException {
+        String expr = "abcdefghijklmnopqrstuvwxyz+1";
+        assertEquals("abcdefghijklmnopqrstuvwxyz", new TokenStream(new Lexer(), expr, 4).next().getKey());
+        assertEquals("abcdefghijklmnopqrstuvwxyz", new TokenStream(new Lexer(), new StringReader(expr), 4).next().getKey());
+    }
+
+    @Test
+    public void testUnaryMinusIsDetectedOverChunkBoundary() throws LexerException {
+        TokenSource stream = new TokenStream(new Lexer(), "2*(   -1)", 4);
+        stream.next();
+        stream.next();
+        stream.next();
+        assertEquals("$", stream.next().getKey());
+    }
+
+    @Test
+    public void testStreamReportsPositionOfUnknownCharacter() {
+        TokenSource stream = new TokenStream(new Lexer(), new StringReader("2+2+2+2+2@2"), 3);
+        Exception exception = assertThrows(LexerException.class, () -> {
+            while (stream.next() != null) { }
+        });
+        assertEquals("Unknown character @ at position 10", exception.getMessage());
+    }
+
+    @Test
+    public void testStreamThrowsOnTooLongContinousSequence() {
+        String expr = "1+aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+        TokenSource stream = new TokenStream(new Lexer(), new StringReader(expr), 16);
+        assertThrows(LexerException.class, () -> {
+            while (stream.next() != null) { }
+        });
+    }
+
+    @Test
+    public void testStreamOfEmptyInput() throws LexerException {
+        assertNull(new Lexer().stream("").next());
+        assertNull(new Lexer().stream(new StringReader("  \n ")).next());
+    }
+}
@@ -0,0 +1,40 @@
+package calcmalc.logic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class VariablesTest {
+    @Test
+    public void testVariablesAreUndefinedAtFirst() {
+        Variables variables = new Variables();
+        assertFalse(variables.isDefined(0));
+        assertFalse(variables.isDefined(1000));
+    }
+
+    @Test
+    public void testSetAndGet() {
+        Variables variables = new Variables();
+        variables.set(3, 2.5);
+        variables.set(3, Double.NaN);
+        variables.set(4, 0.0);
+        assertTrue(variables.isDefined(3));
+        assertTrue(variables.isDefined(4));
+        assertFalse(variables.isDefined(5));
+        assertTrue(Double.isNaN(variables.get(3)));
+        assertEquals(0.0, variables.get(4), 0.0);
+    }
+
+    @Test
+    public void testVariablesGrow() {
+        Variables variables = new Variables();
+        for (int i = 0; i < 10000; i += 7) {
+            variables.set(i, i);
+        }
+
+        for (int i = 0; i < 10000; ++i) {
+            assertEquals(i % 7 == 0, variables.isDefined(i));
+        }
+        assertEquals(9996.0, variables.get(9996), 0.0);
+    }
+}
@@ -0,0 +1,147 @@
+package calcmalc.logic;
+
+import org.junit.Test;
+
+import calcmalc.exceptions.EvaluatorException;
+import calcmalc.structures.ASTNode;
+import calcmalc.structures.Stack;
+
+import static org.junit.Assert.*;
+
+public class VirtualMachineTest {
+    private Evaluator evaluator = new Evaluator();
+
+    private Program compile(String input) throws Exception {
+        Parser parser = new Parser();
+        Stack<ASTNode> nodes = parser.parse(new Lexer().lex(input));
+
+        while (!parser.variables().isEmpty()) {
+            evaluator.evaluateAssignment(parser.variables().dequeue());
+        }
+
+        return nodes.isEmpty() ? null : evaluator.compile(nodes.pop());
+    }
+
+    private double run(String input) throws Exception {
+        return evaluator.run(compile(input));
+    }
+
+    @Test
+    public void testRunGivesSameResultAsEvaluate() throws Exception {
+        String[] expressions = {
+            "2+2*5", "2^(0-3)", "10%4-(-3)", "max(2,-4,5,1)", "min(2,-4,5,1)", "abs(-2)", "sqrt(16)+log(1)", "2^0.5", "1/0"
+        };
+
+        for (String expression : expressions) {
+            ASTNode root = new Parser().parse(new Lexer().lex(expression)).pop();
+            assertEquals(expression, evaluator.evaluate(root).doubleValue(), evaluator.run(evaluator.compile(root)), 0.0);
+        }
+    }
+
+    @Test
+    public void testRunCustomFunctions() throws Exception {
+        assertEquals(9.0, run("x = 2: double(x) = 2*x: addX(y) = y+x: addX(double(3)) + 1"), 0.0);
+    }
+
+    @Test
+    public void testRecursionFailsAtMaximumCallDepth() throws Exception {
+        Program program = compile("f(x) = f(x)+1: g(x) = h(x): h(x) = g(x)*2: f(1)");
+        EvaluatorException e = assertThrows(EvaluatorException.class, () -> evaluator.run(program));
+        assertEquals("Recursion error: Maximum call depth of 10000 exceeded in f", e.getMessage());
+
+        e = assertThrows(EvaluatorException.class, () -> run("g(1)"));
+        assertEquals("Recursion error: Maximum call depth of 10000 exceeded in g", e.getMessage());
+        assertEquals(4.0, run("k(x) = x*2: k(k(1))"), 0.0);
+    }
+
+    @Test
+    public void testFailedRunDropsUnfinishedCalls() throws Exception {
+        VirtualMachine machine = new VirtualMachine(evaluator.definitions(), new Compiler(evaluator.definitions()), new JitCompiler(1000));
+        Program program = compile("f(x) = f(x)+1: f(1)");
+        assertThrows(EvaluatorException.class, () -> machine.run(program));
+
+        java.lang.reflect.Field field = VirtualMachine.class.getDeclaredField("callPrograms");
+        field.setAccessible(true);
+        for (Object call : (Object[]) field.get(machine)) {
+            assertNull(call);
+        }
+    }
+
+    @Test
+    public void testRunNestedCallsToSameFunction() throws Exception {
+        assertEquals(8.0, run("f(x) = 2*x: f(f(2))"), 0.0);
+        assertEquals(6.0, run("g(x,y) = x+y: g(1,g(2,3))"), 0.0);
+    }
+
+    @Test
+    public void testRunLastOfArgumentsWithSameName() throws Exception {
+        assertEquals(2.0, run("h(x,x) = x: h(1,2)"), 0.0);
+    }
+
+    @Test
+    public void testRunProgramMoreThanOnceUsesCurrentVariables() throws Exception {
+        Program program = compile("x = 1: x*10");
+        assertEquals(10.0, evaluator.run(program), 0.0);
+        compile("x = 5:");
+        assertEquals(50.0, evaluator.run(program), 0.0);
+        assertEquals(50.0, evaluator.run(program), 0.0);
+    }
+
+    @Test
+    public void testRunProgramAfterFunctionIsRedefined() throws Exception {
+        Program program = compile("f(x) = x+1: g(x) = f(x)*2: g(1)");
+        assertEquals(4.0, evaluator.run(program), 0.0);
+        compile("f(x) = x+10:");
+        assertEquals(22.0, evaluator.run(program), 0.0);
+        compile("f(x,y) = x+y:");
+        EvaluatorException exception = assertThrows(EvaluatorException.class, () -> evaluator.run(program));
+        assertEquals("Wrong number of arguments for f", exception.getMessage());
+    }
+
+    @Test
+    public void testRunProgramAfterVariableIsDefinedAsFunction() throws Exception {
+        Program program = compile("z+1");
+        EvaluatorException exception = assertThrows(EvaluatorException.class, () -> evaluator.run(program));
+        assertEquals("Unknown Symbol z", exception.getMessage());
+        compile("z(a) = a:");
+        exception = assertThrows(EvaluatorException.class, () -> evaluator.run(program));
+        assertEquals("Wrong number of arguments for z", exception.getMessage());
+    }
+
+    @Test
+    public void testRunThrowsInSameOrderAsEvaluate() throws Exception {
+        String[] expressions = {"q+cos(1)", "abs(1,2,q)", "max", "abs", "f(x)=x+y:f(1)", "f(x)=x:f(1,2)", "q(1)", "f(x)=x:f"};
+        String[] messages = {
+            "Unknown Symbol q", "Wrong number of arguments for abs", "Wrong number of arguments for max",
+            "Wrong number of arguments for abs", "Unknown Symbol y", "Wrong number of arguments for f",
+            "Unknown function q", "Wrong number of arguments for f"
+        };
+
+        for (int i = 0; i < expressions.length; ++i) {
+            Program program = compile(expressions[i]);
+            EvaluatorException exception = assertThrows(EvaluatorException.class, () -> evaluator.run(program));
+            assertEquals(messages[i], exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testRunAfterFailure() throws Exception {
+        Program failing = compile("f(x) = x+y: 1+f(2)");
+        assertThrows(EvaluatorException.class, () -> evaluator.run(failing));
+        assertEquals(5.0, run("y = 2: 1+f(2)"), 0.0);
+    }
+
+    @Test
+    public void testRunDeeplyNestedCalls() throws Exception {
+        StringBuilder expr = new StringBuilder("inc(x) = x+1:");
+        for (int i = 0; i < 10000; ++i) {
+            expr.append("inc(");
+        }
+        expr.append("0");
+        for (int i = 0; i < 10000; ++i) {
+            expr.append(")");
+        }
+
+        assertEquals(10000.0, run(expr.toString()), 0.0);
+    }
+}
@@ -0,0 +1,78 @@
+package calcmalc.server;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.text.ParseException;
+
+import calcmalc.structures.List;
+
+public class RequestTest {
+    @Test
+    public void testSingleExpression() throws ParseException {
+        Request request = Request.parse("{\"expr\": \"2+2\"}");
+
+        assertEquals(1, request.expressions().size());
+        assertEquals("2+2", request.expressions().get(0));
+        assertFalse(request.isArray());
+        assertNull(request.session());
+    }
+
+    @Test
+    public void testArrayAndSession() throws ParseException {
+        Request request = Request.parse(" { \"session\" : \"a\" ,\n \"expr\" : [ \"x = 2:\" , \"x*3\" ] } ");
+
+        assertEquals(2, request.expressions().size());
+        assertEquals("x = 2:", request.expressions().get(0));
+        assertEquals("x*3", request.expressions().get(1));
+        assertTrue(request.isArray());
+        assertEquals("a", request.session());
+    }
+
+    @Test
+    public void testOtherFieldsAreSkipped() throws ParseException {
+        Request request = Request.parse("{\"precision\": 14, \"expr\": \"1\", \"pretty\": true, \"note\": \"x\", \"tags\": [], \"other\": null}");
+
+        assertEquals("1", request.expressions().get(0));
+    }
+
+    @Test
+    public void testEscapes() throws ParseException {
+        Request request = Request.parse("{\"expr\": \"a\\\"b\\\\c\\/d\\n\\u0041\"}");
+
+        assertEquals("a\"b\\c/d\nA", request.expressions().get(0));
+    }
+
+    @Test
+    public void testQuote() {
+        assertEquals("\"a\\\"b\\\\c\\u000a\"", Request.quote("a\"b\\c\n"));
+        assertEquals("\"<assignment:x>\"", Request.quote("<assignment:x>"));
+        assertEquals("\"\\u001f\\u0000\"", Request.quote("\u001f\u0000"));
+    }
+
+    @Test
+    public void testJoin() {
+        List<String> values = new List<>();
+        values.append("\"1\"");
+
+        assertEquals("\"1\"", Request.join(values, false));
+        assertEquals("[\"1\"]", Request.join(values, true));
+        values.append("\"2\"");
+        assertEquals("[\"1\", \"2\"]", Request.join(values, true));
+        assertEquals("[]", Request.join(new List<>(), true));
+    }
+
+    @Test
+    public void testInvalidBodies() {
+        String[] bodies = {"", "2+2", "{\"expr\": 2}", "{\"expr\": \"2\"", "{\"session\": \"a\"}", "{\"expr\": \"\\q\"}", "{\"expr\": \"1\" \"x\": 1}", "{\"expr\": [\"1\" \"2\"]}", "{\"expr\": \"1\"} x", "{\"expr\": \"1\"}}"};
+
+        for (String body : bodies) {
+            try {
+                Request.parse(body);
+                fail("Parsed " + body);
+            } catch (ParseException e) {
+                assertTrue(e.getMessage().startsWith("Request error"));
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package calcmalc.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import calcmalc.structures.List;
+
+public class ServerTest {
+    private Server server;
+    private int status;
+
+    @Before
+    public void start() throws IOException {
+        server = new Server(new InetSocketAddress("localhost", 0), 2, 4);
+        server.start();
+    }
+
+    @After
+    public void stop() {
+        server.stop();
+    }
+
+    private String post(String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.port() + "/v4/").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        status = connection.getResponseCode();
+
+        try (InputStream in = status == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testExpression() throws IOException {
+        assertEquals("{\"result\": \"14\", \"error\": null}", post("{\"expr\": \"2+3*4\"}"));
+        assertEquals(200, status);
+        assertEquals("{\"result\": \"2.5\", \"error\": null}", post("{\"expr\": \"5/2\"}"));
+    }
+
+    @Test
+    public void testArrayOfExpressions() throws IOException {
+        assertEquals("{\"result\": [\"<assignment:f>\", \"9\"], \"error\": null}", post("{\"expr\": [\"f(x) = x*x:\", \"f(3)\"]}"));
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        assertTrue(post("{\"expr\": \"2+\"}").startsWith("{\"result\": null, \"error\": \""));
+        assertEquals(400, status);
+        assertEquals("{\"result\": null, \"error\": \"Request error: Missing expr\"}", post("{}"));
+        assertEquals(400, status);
+        assertTrue(post("{\"expr\": [\"1\", \"y\", \"2\"]}").contains("Unknown Symbol y"));
+        assertEquals("{\"result\": null, \"error\": \"Request error: Unexpected character at 14\"}", post("{\"expr\": \"1\"} {}"));
+        assertEquals(400, status);
+    }
+
+    @Test
+    public void testTooLargeBodyIsRejected() throws IOException {
+        String expression = "1+".repeat(Server.MAX_BODY_SIZE / 2) + "1";
+
+        assertEquals("{\"result\": null, \"error\": \"Request error: Body is larger than " + Server.MAX_BODY_SIZE + " bytes\"}",
+            post("{\"expr\": \"" + expression + "\"}"));
+        assertEquals(413, status);
+        assertEquals("{\"result\": \"2\", \"error\": null}", post("{\"expr\": \"1+1\"}"));
+    }
+
+    @Test
+    public void testInternalErrorsAreServerErrors() throws IOException {
+        List<String> expressions = new List<>();
+        expressions.append(null);
+        Server.Response response = server.respond(new Request(expressions, false, null));
+
+        assertEquals(500, response.status());
+        assertEquals("{\"result\": null, \"error\": \"Internal error: NullPointerException\"}", response.body());
+        assertEquals("{\"result\": \"2\", \"error\": null}", post("{\"expr\": \"1+1\"}"));
+    }
+
+    @Test
+    public void testOnlyPostIsAccepted() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.port() + "/").openConnection();
+
+        assertEquals(405, connection.getResponseCode());
+        assertEquals("POST", connection.getHeaderField("Allow"));
+    }
+
+    @Test
+    public void testRequestsWithoutSessionAreIndependent() throws IOException {
+        post("{\"expr\": \"x = 2:\"}");
+        assertTrue(post("{\"expr\": \"x\"}").contains("Unknown Symbol x"));
+
+        assertEquals("{\"result\": \"6\", \"error\": null}", post("{\"expr\": \"f(a) = a*3: x = 1: f(2)\"}"));
+        assertTrue(post("{\"expr\": \"f(2)\"}").contains("Unknown function f"));
+        assertTrue(post("{\"expr\": [\"x + 1\", \"x = 1: x + 1\"]}").contains("Unknown Symbol x"));
+    }
+
+    @Test
+    public void testSessionsKeepDefinitions() throws IOException {
+        post("{\"session\": \"a\", \"expr\": \"x = 2:\"}");
+        post("{\"session\": \"b\", \"expr\": \"x = 3:\"}");
+
+        assertEquals("{\"result\": \"4\", \"error\": null}", post("{\"session\": \"a\", \"expr\": \"x*x\"}"));
+        assertEquals("{\"result\": \"9\", \"error\": null}", post("{\"session\": \"b\", \"expr\": \"x*x\"}"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedSessionIsForgotten() throws IOException {
+        post("{\"session\": \"a\", \"expr\": \"x = 1:\"}");
+        post("{\"session\": \"b\", \"expr\": \"x = 2:\"}");
+        post("{\"session\": \"a\", \"expr\": \"x\"}");
+        post("{\"session\": \"c\", \"expr\": \"x = 3:\"}");
+
+        assertEquals("{\"result\": \"1\", \"error\": null}", post("{\"session\": \"a\", \"expr\": \"x\"}"));
+        assertTrue(post("{\"session\": \"b\", \"expr\": \"x\"}").contains("Unknown Symbol x"));
+    }
+
+    @Test
+    public void testConcurrentSessions() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        Future<?>[] clients = new Future<?>[8];
+
+        for (int c = 0; c < clients.length; ++c) {
+            String session = "\"session\": \"" + (c % 2) + "\", ";
+            int client = c;
+            clients[c] = pool.submit(() -> {
+                for (int i = 0; i < 50; ++i) {
+                    String expected = "{\"result\": \"" + (client * 1000 + i + 1) + "\", \"error\": null}";
+                    assertEquals(expected, post("{" + session + "\"expr\": \"y = " + (client * 1000 + i) + ": y + 1\"}"));
+                }
+                return null;
+            });
+        }
+
+        for (Future<?> client : clients) {
+            client.get();
+        }
+
+        pool.shutdown();
+    }
+}
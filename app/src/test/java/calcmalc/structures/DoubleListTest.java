@@ -0,0 +1,126 @@
+package calcmalc.structures;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DoubleListTest {
+    @Test
+    public void testListIsCreatedWithCorrectSize() {
+        DoubleList list = new DoubleList();
+        assertEquals(list.getSpace(), 8);
+    }
+
+    @Test
+    public void testListIsCreatedWithInitialSize() {
+        DoubleList list = new DoubleList(3);
+        assertEquals(3, list.size());
+        assertEquals(0.0, list.get(2), 0);
+        list.set(3, 4.0);
+        assertEquals(4, list.size());
+    }
+    
+    @Test
+    public void testElementCanBePushedToList() {
+        DoubleList list = new DoubleList();
+        list.append(1.5);
+        assertEquals(1.5, list.get(0), 0);
+    }
+
+    @Test
+    public void testElementsCanBePushedToList() {
+        DoubleList list = new DoubleList();
+        list.append(1);
+        list.append(2);
+        list.append(3);
+        list.append(4);
+        assertEquals(1.0, list.get(0), 0);
+        assertEquals(2.0, list.get(1), 0);
+        assertEquals(3.0, list.get(2), 0);
+        assertEquals(4.0, list.get(3), 0);
+    }
+
+    @Test
+    public void testListSizeGetExponentiallyLarger() {
+        DoubleList list = new DoubleList();
+        for (int i = 0; i <= 8; ++i) {
+            list.append(i);
+        }
+        assertEquals(list.getSpace(), 16);
+
+        for (int i = 9; i < 17; ++i) {
+            list.append(i);
+        }
+
+        assertEquals(list.getSpace(), 32);
+
+        for (int i = 0; i < 17; ++i) {
+            assertEquals((double) i, list.get(i), 0);
+        }
+    }
+
+    @Test
+    public void testGetElementAtIncorrectIndex() {
+        DoubleList list = new DoubleList();
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            list.get(-1);
+        });
+    }
+
+    @Test
+    public void testGetElementAtIncorrectIndex2() {
+        DoubleList list = new DoubleList();
+        list.append(1);
+        list.append(2);
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            list.get(2);
+        });
+    }
+
+    @Test
+    public void testSetInsertsValueAtIndex() {
+        DoubleList list = new DoubleList();
+        list.set(0, 2);
+        assertEquals(2.0, list.get(0), 0);
+    }
+
+    @Test
+    public void testSetReplacesValueAtIndex() {
+        DoubleList list = new DoubleList();
+        list.append(1);
+        list.append(5);
+        list.append(7);
+        assertEquals(7.0, list.get(2), 0);
+        list.set(2, -0.0);
+        assertEquals(-0.0, list.get(2), 0);
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(list.get(2)));
+    }
+
+    @Test
+    public void testListIsEmpty() {
+        DoubleList list = new DoubleList();
+
+        assertTrue(list.isEmpty());
+        list.append(0);
+        assertTrue(!list.isEmpty());
+    }
+
+    @Test
+    public void testSetThrowsOnIllegalIndex() {
+        DoubleList list = new DoubleList();
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            list.set(-1, 2);
+        });
+    }
+
+    @Test
+    public void testSetThrowsOnIllegalIndex2() {
+        DoubleList list = new DoubleList();
+
+        list.append(1);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            list.set(2, 2);
+        });
+    }
+}
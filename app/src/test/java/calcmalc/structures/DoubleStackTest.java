@@ -0,0 +1,85 @@
+package calcmalc.structures;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DoubleStackTest {
+    @Test
+    public void testStackCanBePushed() {
+        DoubleStack stack = new DoubleStack();
+
+        stack.push(5);
+
+        assertEquals(5, stack.peek(), 0);
+    }
+    
+    @Test
+    public void testStackCanBePeeked() {
+        DoubleStack stack = new DoubleStack();
+        stack.push(10);
+
+        double top = stack.peek();
+
+        assertEquals(10, top, 0);
+        assertEquals(1, stack.size());
+    }
+
+    @Test
+    public void testStackCanBePushedMultipleTimes() {
+        DoubleStack stack = new DoubleStack();
+        for (int i = 1; i <= 20; ++i) {
+            stack.push(i);
+        }
+
+        assertEquals(20, stack.peek(), 0);
+        assertEquals(20, stack.size());
+    }
+
+    @Test
+    public void testStackCanBePopped() {
+        DoubleStack stack = new DoubleStack();
+        stack.push(1);
+        stack.push(2);
+        stack.push(3);
+        assertEquals(3, stack.peek(), 0);
+        assertEquals(3, stack.pop(), 0);
+        assertEquals(2, stack.peek(), 0);
+        assertEquals(2, stack.pop(), 0);
+        assertEquals(1, stack.peek(), 0);
+        assertEquals(1, stack.pop(), 0);
+        assertTrue(stack.isEmpty());
+    }
+
+    @Test
+    public void testStackSizeIsDynamic() {
+        DoubleStack stack = new DoubleStack();
+        stack.push(1);
+        stack.push(2);
+        stack.push(3);
+        assertEquals(3, stack.size());
+        stack.pop();
+        stack.pop();
+        assertEquals(1, stack.size());
+        stack.push(5);
+        assertEquals(2, stack.size());
+        assertEquals(5, stack.peek(), 0);
+    }
+
+    @Test
+    public void testStackPoppedEmpty() {
+        DoubleStack stack = new DoubleStack();
+        assertThrows(IllegalArgumentException.class, () -> {
+            stack.pop();
+        });
+    }
+
+    @Test
+    public void testStackCanBePeekedWhenEmpty() {
+        DoubleStack stack = new DoubleStack();
+        assertThrows(IllegalArgumentException.class, () -> {
+            stack.peek();
+        });
+        stack.push(0);
+        assertEquals(0, stack.peek(), 0);
+    }
+}
@@ -120,4 +120,75 @@ public class HashTableTest {
         h.placeOrUpdate("Test", "really test this time");
         assertEquals("really test this time", h.get("Test"));
     }
+
+    @Test
+    public void testHashTableRemove() {
+        HashTable<String> h = new HashTable<>();
+        h.placeOrUpdate("Test", "Hello");
+        h.placeOrUpdate("Dest", "World");
+        assertEquals(2, h.size());
+        assertEquals("Hello", h.remove("Test"));
+        assertNull(h.get("Test"));
+        assertEquals("World", h.get("Dest"));
+        assertEquals(1, h.size());
+        assertNull(h.remove("Test"));
+        assertEquals(1, h.size());
+    }
+
+    @Test
+    public void testHashTableRemoveWithCollision() {
+        HashTable<String> h = new HashTable<>();
+        h.placeOrUpdate("Siblings", "Not test");
+        h.placeOrUpdate("Teheran", "really is test");
+        assertEquals("Not test", h.remove("Siblings"));
+        // Teheran was placed after Siblings, it has to be found after Siblings is removed
+        assertEquals("really is test", h.get("Teheran"));
+        h.placeOrUpdate("Siblings", "again");
+        assertEquals("again", h.get("Siblings"));
+        assertEquals(2, h.size());
+    }
+
+    @Test
+    public void testHashTableGrows() {
+        HashTable<Integer> h = new HashTable<>();
+        for (int i = 0; i < 100000; ++i) {
+            h.placeOrUpdate("x" + i, i);
+        }
+
+        assertEquals(100000, h.size());
+        for (int i = 0; i < 100000; ++i) {
+            assertEquals((Integer) i, h.get("x" + i));
+        }
+    }
+
+    @Test
+    public void testHashTablePlaceAndRemoveAgainstHashMap() {
+        Random random = new Random(42);
+        HashTable<Integer> h = new HashTable<>(8);
+        HashMap<String, Integer> map = new HashMap<>();
+
+        for (int i = 0; i < 200000; ++i) {
+            String key = "k" + random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(map.remove(key), h.remove(key));
+            } else {
+                map.put(key, i);
+                h.placeOrUpdate(key, i);
+            }
+        }
+
+        assertEquals(map.size(), h.size());
+        for (int i = 0; i < 5000; ++i) {
+            assertEquals(map.get("k" + i), h.get("k" + i));
+        }
+    }
+
+    @Test
+    public void testCapacityForExpectedSize() {
+        assertEquals(16, HashTable.capacityFor(0));
+        assertEquals(16, HashTable.capacityFor(8));
+        assertEquals(32, HashTable.capacityFor(9));
+        assertEquals(1 << 30, HashTable.capacityFor((1 << 29) + 1));
+        assertEquals(HashTable.MAXIMUM_CAPACITY, HashTable.capacityFor(Integer.MAX_VALUE));
+    }
 }
@@ -0,0 +1,101 @@
+package calcmalc.structures;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class IntStackTest {
+    @Test
+    public void testStackCanBePushed() {
+        IntStack stack = new IntStack();
+
+        stack.push(5);
+
+        assertEquals(5, stack.peek());
+    }
+    
+    @Test
+    public void testStackCanBePeeked() {
+        IntStack stack = new IntStack();
+        stack.push(10);
+
+        int top = stack.peek();
+
+        assertEquals(10, top);
+        assertEquals(1, stack.size());
+    }
+
+    @Test
+    public void testStackCanBePushedMultipleTimes() {
+        IntStack stack = new IntStack();
+        for (int i = 1; i <= 20; ++i) {
+            stack.push(i);
+        }
+
+        assertEquals(20, stack.peek());
+        assertEquals(20, stack.size());
+    }
+
+    @Test
+    public void testStackCanBePopped() {
+        IntStack stack = new IntStack();
+        stack.push(1);
+        stack.push(2);
+        stack.push(3);
+        assertEquals(3, stack.peek());
+        assertEquals(3, stack.pop());
+        assertEquals(2, stack.peek());
+        assertEquals(2, stack.pop());
+        assertEquals(1, stack.peek());
+        assertEquals(1, stack.pop());
+        assertTrue(stack.isEmpty());
+    }
+
+    @Test
+    public void testStackSizeIsDynamic() {
+        IntStack stack = new IntStack();
+        stack.push(1);
+        stack.push(2);
+        stack.push(3);
+        assertEquals(3, stack.size());
+        stack.pop();
+        stack.pop();
+        assertEquals(1, stack.size());
+        stack.push(5);
+        assertEquals(2, stack.size());
+        assertEquals(5, stack.peek());
+    }
+
+    @Test
+    public void testStackPoppedEmpty() {
+        IntStack stack = new IntStack();
+        assertThrows(IllegalArgumentException.class, () -> {
+            stack.pop();
+        });
+    }
+
+    @Test
+    public void testStackCanBePeekedWhenEmpty() {
+        IntStack stack = new IntStack();
+        assertThrows(IllegalArgumentException.class, () -> {
+            stack.peek();
+        });
+        stack.push(0);
+        assertEquals(0, stack.peek());
+    }
+
+    @Test
+    public void testStackCanBeReusedAfterClear() {
+        IntStack stack = new IntStack();
+
+        for (int i = 0; i < 100; ++i) {
+            stack.push(i);
+        }
+
+        stack.clear();
+        assertTrue(stack.isEmpty());
+
+        stack.push(5);
+        assertEquals(1, stack.size());
+        assertEquals(5, stack.pop());
+    }
+}
@@ -156,4 +156,96 @@ public class ListTest {
             list.set(2, 2);
         });
     }
+
+    @Test
+    public void testListCreatedWithSizeContainsNulls() {
+        List<Integer> list = new List<>(3);
+        assertEquals(3, list.size());
+        assertNull(list.get(2));
+        list.set(1, 4);
+        assertEquals((Integer) 4, list.get(1));
+    }
+
+    @Test
+    public void testListCreatedWithCapacityIsEmpty() {
+        List<Integer> list = new List<>(0, 100);
+        assertTrue(list.isEmpty());
+        for (int i = 0; i < 100; ++i) {
+            list.append(i);
+        }
+        assertEquals(101, list.getSpace());
+        assertEquals(100, list.size());
+        assertEquals((Integer) 99, list.get(99));
+    }
+
+    @Test
+    public void testListCreatedWithSizeAndCapacity() {
+        List<Integer> list = new List<>(2, 2);
+        assertEquals(2, list.size());
+        assertEquals(3, list.getSpace());
+        list.set(1, 1);
+        list.set(0, 0);
+        list.append(2);
+        list.append(3);
+        assertEquals(4, list.size());
+        for (int i = 0; i < 4; ++i) {
+            assertEquals((Integer) i, list.get(i));
+        }
+    }
+
+    @Test
+    public void testEnsureCapacityDoesNotChangeSize() {
+        List<Integer> list = new List<>();
+        list.append(1);
+        list.ensureCapacity(1000);
+        assertTrue(list.getSpace() > 1000);
+        assertEquals(1, list.size());
+        assertEquals((Integer) 1, list.get(0));
+
+        int space = list.getSpace();
+        for (int i = 1; i < 1000; ++i) {
+            list.append(i);
+        }
+        assertEquals(space, list.getSpace());
+        assertEquals((Integer) 999, list.get(999));
+    }
+
+    @Test
+    public void testEnsureCapacityDoesNotShrink() {
+        List<Integer> list = new List<>();
+        list.ensureCapacity(2);
+        assertEquals(8, list.getSpace());
+    }
+
+    @Test
+    public void testTrimToSize() {
+        List<Integer> list = new List<>();
+        for (int i = 0; i < 20; ++i) {
+            list.append(i);
+        }
+        list.trimToSize();
+        assertEquals(21, list.getSpace());
+        assertEquals(20, list.size());
+        assertEquals((Integer) 19, list.get(19));
+        list.append(20);
+        assertEquals((Integer) 20, list.get(20));
+        assertEquals(42, list.getSpace());
+    }
+
+    @Test
+    public void testClearKeepsSpace() {
+        List<Integer> list = new List<>();
+        for (int i = 0; i < 20; ++i) {
+            list.append(i);
+        }
+        int space = list.getSpace();
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertEquals(space, list.getSpace());
+        assertThrows(IllegalArgumentException.class, () -> {
+            list.get(0);
+        });
+        list.append(5);
+        assertEquals((Integer) 5, list.get(0));
+    }
 }
@@ -0,0 +1,113 @@
+package calcmalc.structures;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LruCacheTest {
+    @Test
+    public void testPutAndGet() {
+        LruCache<Integer> cache = new LruCache<>(4);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        assertEquals(1, (int) cache.get("a"));
+        assertEquals(2, (int) cache.get("b"));
+        assertNull(cache.get("c"));
+        assertEquals(2, cache.size());
+        assertEquals(4, cache.capacity());
+    }
+
+    @Test
+    public void testHitsAndMissesAreCounted() {
+        LruCache<Integer> cache = new LruCache<>(4);
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(0, cache.evictions());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        LruCache<Integer> cache = new LruCache<>(3);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+        cache.put("d", 4);
+
+        assertNull(cache.get("b"));
+        assertEquals(1, (int) cache.get("a"));
+        assertEquals(3, (int) cache.get("c"));
+        assertEquals(4, (int) cache.get("d"));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    public void testUpdateMakesEntryMostRecentlyUsed() {
+        LruCache<Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("a", 3);
+        cache.put("c", 4);
+
+        assertEquals(3, (int) cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testCacheOfOneEntry() {
+        LruCache<Integer> cache = new LruCache<>(1);
+
+        for (int i = 0; i < 100; ++i) {
+            cache.put("key" + i, i);
+            assertEquals(i, (int) cache.get("key" + i));
+        }
+
+        assertEquals(1, cache.size());
+        assertEquals(99, cache.evictions());
+    }
+
+    @Test
+    public void testManyEntriesAreEvictedInOrder() {
+        LruCache<Integer> cache = new LruCache<>(100);
+
+        for (int i = 0; i < 1000; ++i) {
+            cache.put("key" + i, i);
+        }
+
+        for (int i = 0; i < 900; ++i) {
+            assertNull(cache.get("key" + i));
+        }
+
+        for (int i = 900; i < 1000; ++i) {
+            assertEquals(i, (int) cache.get("key" + i));
+        }
+
+        assertEquals(900, cache.evictions());
+    }
+
+    @Test
+    public void testClearKeepsCounters() {
+        LruCache<Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.get("a");
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.hits());
+        cache.put("b", 2);
+        assertEquals(2, (int) cache.get("b"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityMustBePositive() {
+        new LruCache<Integer>(0);
+    }
+}
@@ -138,4 +138,61 @@ public class QueueTest {
         queue.dequeue();
         assertEquals(0, queue.size());
     }
+
+    @Test
+    public void testQueueGrowsWhenWrappedAround() {
+        Queue<Integer> queue = new Queue<>();
+        for (int i = 0; i < 6; ++i) {
+            queue.enqueue(i);
+        }
+        queue.dequeue();
+        queue.dequeue();
+        for (int i = 6; i < 40; ++i) {
+            queue.enqueue(i);
+        }
+        assertEquals(38, queue.size());
+        assertEquals((Integer) 2, queue.peekFirst());
+        assertEquals((Integer) 39, queue.peekLast());
+        for (int i = 2; i < 40; ++i) {
+            assertEquals((Integer) i, queue.dequeue());
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peekLast());
+    }
+
+    @Test
+    public void testQueueIsFirstInFirstOut() {
+        Queue<Integer> queue = new Queue<>();
+        java.util.ArrayDeque<Integer> expected = new java.util.ArrayDeque<>();
+        java.util.Random random = new java.util.Random(15);
+
+        for (int i = 0; i < 10000; ++i) {
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.poll(), queue.dequeue());
+            } else {
+                queue.enqueue(i);
+                expected.add(i);
+            }
+            assertEquals(expected.size(), queue.size());
+            assertEquals(expected.peekFirst(), queue.peekFirst());
+            assertEquals(expected.peekLast(), queue.peekLast());
+        }
+    }
+
+    @Test
+    public void testClearEmptiesQueue() {
+        Queue<Integer> queue = new Queue<>();
+        for (int i = 0; i < 20; ++i) {
+            queue.enqueue(i);
+        }
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peekFirst());
+        assertNull(queue.peekLast());
+        assertNull(queue.dequeue());
+        queue.enqueue(5);
+        assertEquals((Integer) 5, queue.peekFirst());
+        assertEquals((Integer) 5, queue.peekLast());
+        assertEquals(1, queue.size());
+    }
 }
@@ -80,4 +80,21 @@ public class StackTest {
         stack.push(0);
         assertEquals((Integer)0, stack.peek());
     }
+
+    @Test
+    public void testStackCanBeReusedAfterClear() {
+        Stack<Integer> stack = new Stack<>();
+
+        for (int i = 0; i < 100; ++i) {
+            stack.push(i);
+        }
+
+        stack.clear();
+        assertTrue(stack.isEmpty());
+        assertNull(stack.peek());
+
+        stack.push(5);
+        assertEquals(1, stack.size());
+        assertEquals((Integer) 5, stack.pop());
+    }
 }